@@ -0,0 +1,303 @@
+package com.crisisconnect;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Streaming near-duplicate detection in front of EmergencyPriorityQueue.
+// Each remembered alert keeps a MinHash signature of its description's
+// character shingles; the signature is split into bands and every band is
+// hashed into a bucket (LSH), so a new report only compares against alerts
+// that share at least one band instead of the whole queue.
+//
+// A report is a duplicate of a candidate when the estimated Jaccard
+// similarity reaches the threshold, the two were reported within the time
+// window, and they are in the same place: within radiusKm when both have
+// coordinates, otherwise the same location label. The report is then
+// merged into the queued alert (see EmergencyPriorityQueue.mergeReport),
+// or queued as an alert of its own when the store cannot re-prioritize.
+//
+// Memory is bounded: at most `capacity` alerts are remembered, oldest
+// first out, and alerts leave as soon as they are polled or cancelled.
+// Register the deduplicator on the queue it feeds; it is single-threaded
+// like the queue.
+class AlertDeduplicator implements QueueListener {
+    static final Duration DEFAULT_WINDOW = Duration.ofMinutes(30);
+    static final int DEFAULT_CAPACITY = 50_000;
+    static final double DEFAULT_RADIUS_KM = 1.0;
+    static final double DEFAULT_SIMILARITY = 0.5;
+
+    private static final int SHINGLE = 4;
+    private static final int BANDS = 8;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+
+    private final EmergencyPriorityQueue queue;
+    private final Duration window;
+    private final int capacity;
+    private final double radiusKm;
+    private final double similarity;
+    // Insertion-ordered sets, so forgetting an entry is O(1) per band
+    private final Map<Long, Set<Entry>> buckets = new HashMap<>();
+    private final Map<Integer, Entry> byId = new HashMap<>();
+    // Arrival order, for eviction; may hold entries already forgotten
+    private final ArrayDeque<Entry> arrivals = new ArrayDeque<>();
+    private int probe;
+    // Signature from the last findDuplicate, reused when remember() follows
+    private EmergencyAlert lastProbed;
+    private int[] lastSignature;
+
+    private static final class Entry {
+        final EmergencyAlert alert;
+        final String location;
+        final long reportedAt; // epoch seconds, Long.MIN_VALUE if unknown
+        final int[] signature;
+        final long[] bandKeys = new long[BANDS];
+        boolean live = true;
+        int probe;
+
+        Entry(EmergencyAlert alert, int[] signature) {
+            this.alert = alert;
+            this.location = normalize(alert.getLocation());
+            this.reportedAt = epochSeconds(alert.getTimestamp());
+            this.signature = signature;
+        }
+    }
+
+    public AlertDeduplicator(EmergencyPriorityQueue queue) {
+        this(queue, DEFAULT_WINDOW, DEFAULT_CAPACITY, DEFAULT_RADIUS_KM, DEFAULT_SIMILARITY);
+    }
+
+    public AlertDeduplicator(EmergencyPriorityQueue queue, Duration window, int capacity, double radiusKm,
+                             double similarity) {
+        this.queue = queue;
+        this.window = window;
+        this.capacity = capacity;
+        this.radiusKm = radiusKm;
+        this.similarity = similarity;
+        queue.addListener(this);
+    }
+
+    // Queues the alert, or merges it into a queued duplicate. Returns the
+    // alert that now represents the report.
+    public EmergencyAlert submit(EmergencyAlert alert) {
+        EmergencyAlert duplicate = findDuplicate(alert);
+        if (duplicate != null && queue.mergeReport(duplicate, alert)) {
+            return duplicate;
+        }
+        queue.addAlert(alert);
+        return alert;
+    }
+
+    // The most similar remembered alert that the report duplicates, or null.
+    public EmergencyAlert findDuplicate(EmergencyAlert alert) {
+        int[] signature = signature(alert.getDescription());
+        lastProbed = alert;
+        lastSignature = signature;
+        probe++;
+        String location = normalize(alert.getLocation());
+        long reportedAt = epochSeconds(alert.getTimestamp());
+        Entry best = null;
+        int bestMatches = (int) Math.ceil(similarity * HASHES) - 1;
+        for (int band = 0; band < BANDS; band++) {
+            Set<Entry> bucket = buckets.get(bandKey(signature, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (Entry entry : bucket) {
+                if (entry.probe == probe) {
+                    continue;
+                }
+                entry.probe = probe;
+                int matches = matches(signature, entry.signature);
+                if (matches > bestMatches && sameIncident(alert, location, reportedAt, entry)) {
+                    best = entry;
+                    bestMatches = matches;
+                }
+            }
+        }
+        return best == null ? null : best.alert;
+    }
+
+    // Makes a queued alert a merge target for later reports. Called for
+    // every alert the queue adds; callers that batch alerts before adding
+    // them (HeadlessServer) call it early so the batch dedups too.
+    public void remember(EmergencyAlert alert) {
+        if (byId.containsKey(alert.getAlertId())) {
+            return;
+        }
+        evictBefore(alert.getTimestamp());
+        Entry entry = new Entry(alert, alert == lastProbed ? lastSignature : signature(alert.getDescription()));
+        lastProbed = null;
+        for (int band = 0; band < BANDS; band++) {
+            entry.bandKeys[band] = bandKey(entry.signature, band);
+            buckets.computeIfAbsent(entry.bandKeys[band], k -> new LinkedHashSet<>(4)).add(entry);
+        }
+        byId.put(alert.getAlertId(), entry);
+        arrivals.addLast(entry);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public void alertAdded(EmergencyAlert alert) {
+        remember(alert);
+    }
+
+    public void alertPolled(EmergencyAlert alert) {
+        forget(alert.getAlertId());
+    }
+
+    public void alertCancelled(EmergencyAlert alert) {
+        forget(alert.getAlertId());
+    }
+
+    private boolean sameIncident(EmergencyAlert report, String location, long reportedAt, Entry entry) {
+        if (reportedAt != Long.MIN_VALUE && entry.reportedAt != Long.MIN_VALUE
+            && Math.abs(reportedAt - entry.reportedAt) > window.getSeconds()) {
+            return false;
+        }
+        EmergencyAlert queued = entry.alert;
+        if (report.hasCoordinates() && queued.hasCoordinates()) {
+            return GeoIndex.distanceKm(report.getLatitude(), report.getLongitude(),
+                queued.getLatitude(), queued.getLongitude()) <= radiusKm;
+        }
+        return location.equals(entry.location);
+    }
+
+    private void evictBefore(LocalDateTime now) {
+        if (arrivals.size() >= 2 * capacity) {
+            arrivals.removeIf(entry -> !entry.live);
+        }
+        long cutoff = now == null ? Long.MIN_VALUE : epochSeconds(now) - window.getSeconds();
+        while (!arrivals.isEmpty()) {
+            Entry oldest = arrivals.peekFirst();
+            boolean expired = oldest.reportedAt != Long.MIN_VALUE && oldest.reportedAt < cutoff;
+            if (oldest.live && !expired && byId.size() < capacity) {
+                break;
+            }
+            arrivals.pollFirst();
+            if (oldest.live) {
+                forget(oldest.alert.getAlertId());
+            }
+        }
+    }
+
+    private void forget(int alertId) {
+        Entry entry = byId.remove(alertId);
+        if (entry == null) {
+            return;
+        }
+        entry.live = false;
+        for (long key : entry.bandKeys) {
+            Set<Entry> bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(entry) && bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    // MinHash over overlapping character shingles of the description, read
+    // as lower-case letters and digits with single spaces between words. A
+    // shingle is its four chars packed into a long; it is mixed once and the
+    // HASHES hash functions are derived as h1 + i * h2 (Kirsch-Mitzenmacher).
+    static int[] signature(String description) {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        long shingle = 0;
+        int length = 0;
+        boolean gap = false;
+        for (int i = 0; description != null && i < description.length(); i++) {
+            char c = description.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                gap = length > 0;
+                continue;
+            }
+            if (gap) {
+                shingle = shingle << 16 | ' ';
+                if (++length >= SHINGLE) {
+                    minHash(signature, shingle);
+                }
+                gap = false;
+            }
+            shingle = shingle << 16 | Character.toLowerCase(c);
+            if (++length >= SHINGLE) {
+                minHash(signature, shingle);
+            }
+        }
+        if (length < SHINGLE) {
+            minHash(signature, shingle);
+        }
+        return signature;
+    }
+
+    private static void minHash(int[] signature, long shingle) {
+        long mixed = mix(shingle);
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32) | 1;
+        for (int h = 0; h < HASHES; h++) {
+            int value = h1 + h * h2;
+            if (value < signature[h]) {
+                signature[h] = value;
+            }
+        }
+    }
+
+    private static int matches(int[] a, int[] b) {
+        int matches = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            key = key * 0x100000001B3L + signature[i];
+        }
+        return mix(key);
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time == null ? Long.MIN_VALUE : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // Lower case, letters and digits only, single spaces.
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    // SplitMix64 finalizer.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
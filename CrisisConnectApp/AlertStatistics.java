@@ -0,0 +1,221 @@
+package com.crisisconnect;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Live alert counts over the last 1, 5 and 60 minutes, overall, per severity
+// and per location. Register it as a QueueListener on the alert queue; each
+// added alert is counted at its timestamp.
+//
+// Every series is a pair of ring buffers: 300 one-second slots for the
+// minute and five-minute windows and 60 one-minute slots for the hour. A
+// running total per window is adjusted as slots enter and leave it, so a
+// query is O(1) however long the history; moving the rings forward costs at
+// most one pass over a ring, amortized over the seconds it covers. The hour
+// window slides a minute at a time. Alerts older than an hour, or from the
+// future, are ignored.
+//
+// Locations beyond maxLocations are counted under OTHER_LOCATION once no
+// idle location can be dropped to make room. Methods are synchronized: the
+// queue thread records and dashboards query.
+class AlertStatistics implements QueueListener {
+    static final String OTHER_LOCATION = "(other)";
+    private static final int DEFAULT_MAX_LOCATIONS = 4096;
+    private static final int SECOND_SLOTS = 300;
+    private static final int MINUTE_SLOTS = 60;
+    private static final int SEVERITY_LEVELS = 10;
+
+    enum Window {
+        ONE_MINUTE(60), FIVE_MINUTES(300), ONE_HOUR(3600);
+
+        final int seconds;
+
+        Window(int seconds) {
+            this.seconds = seconds;
+        }
+    }
+
+    private final Clock clock;
+    private final int maxLocations;
+    private final Series total = new Series();
+    private final Series[] bySeverity = new Series[SEVERITY_LEVELS];
+    private final Map<String, Series> byLocation = new HashMap<>();
+    private long nextPurge = Long.MIN_VALUE;
+
+    // Counts for one key.
+    private static final class Series {
+        final int[] seconds = new int[SECOND_SLOTS];
+        final int[] minutes = new int[MINUTE_SLOTS];
+        long second = Long.MIN_VALUE; // newest slot, epoch seconds
+        long lastMinute;
+        long lastFiveMinutes;
+        long lastHour;
+
+        void add(long at) {
+            long age = second - at;
+            if (age < 0 || age >= Window.ONE_HOUR.seconds) {
+                return;
+            }
+            // The hour ring is in minutes; `at` may sit in an older minute
+            if (second / 60 - at / 60 < MINUTE_SLOTS) {
+                minutes[Math.floorMod(at / 60, MINUTE_SLOTS)]++;
+                lastHour++;
+            }
+            if (age < SECOND_SLOTS) {
+                seconds[Math.floorMod(at, SECOND_SLOTS)]++;
+                lastFiveMinutes++;
+                if (age < Window.ONE_MINUTE.seconds) {
+                    lastMinute++;
+                }
+            }
+        }
+
+        void advanceTo(long now) {
+            if (second == Long.MIN_VALUE || now - second >= Window.ONE_HOUR.seconds) {
+                clear(now);
+                return;
+            }
+            if (now <= second) {
+                return;
+            }
+            if (now - second >= SECOND_SLOTS) {
+                Arrays.fill(seconds, 0);
+                lastMinute = 0;
+                lastFiveMinutes = 0;
+            } else {
+                for (long s = second + 1; s <= now; s++) {
+                    // s - 60 leaves the minute window, s - 300 the ring
+                    lastMinute -= seconds[Math.floorMod(s - Window.ONE_MINUTE.seconds, SECOND_SLOTS)];
+                    int slot = Math.floorMod(s, SECOND_SLOTS);
+                    lastFiveMinutes -= seconds[slot];
+                    seconds[slot] = 0;
+                }
+            }
+            for (long m = second / 60 + 1; m <= now / 60; m++) {
+                int slot = Math.floorMod(m, MINUTE_SLOTS);
+                lastHour -= minutes[slot];
+                minutes[slot] = 0;
+            }
+            second = now;
+        }
+
+        private void clear(long now) {
+            Arrays.fill(seconds, 0);
+            Arrays.fill(minutes, 0);
+            lastMinute = 0;
+            lastFiveMinutes = 0;
+            lastHour = 0;
+            second = now;
+        }
+
+        long count(Window window) {
+            switch (window) {
+                case ONE_MINUTE: return lastMinute;
+                case FIVE_MINUTES: return lastFiveMinutes;
+                default: return lastHour;
+            }
+        }
+    }
+
+    public AlertStatistics() {
+        this(Clock.systemDefaultZone(), DEFAULT_MAX_LOCATIONS);
+    }
+
+    public AlertStatistics(Clock clock, int maxLocations) {
+        this.clock = clock;
+        this.maxLocations = maxLocations;
+        for (int i = 0; i < SEVERITY_LEVELS; i++) {
+            bySeverity[i] = new Series();
+        }
+    }
+
+    public void alertAdded(EmergencyAlert alert) {
+        record(alert.getTimestamp(), alert.getSeverity(), alert.getLocation());
+    }
+
+    public synchronized void record(LocalDateTime timestamp, int severity, String location) {
+        if (timestamp == null) {
+            return;
+        }
+        long now = now();
+        long at = timestamp.toEpochSecond(ZoneOffset.UTC);
+        total.advanceTo(now);
+        total.add(at);
+        if (severity >= 1 && severity <= SEVERITY_LEVELS) {
+            Series series = bySeverity[severity - 1];
+            series.advanceTo(now);
+            series.add(at);
+        }
+        Series series = location(location == null ? "" : location, now);
+        series.advanceTo(now);
+        series.add(at);
+    }
+
+    public synchronized long count(Window window) {
+        return current(total).count(window);
+    }
+
+    public synchronized long countBySeverity(int severity, Window window) {
+        if (severity < 1 || severity > SEVERITY_LEVELS) {
+            return 0;
+        }
+        return current(bySeverity[severity - 1]).count(window);
+    }
+
+    public synchronized long countByLocation(String location, Window window) {
+        Series series = byLocation.get(location);
+        return series == null ? 0 : current(series).count(window);
+    }
+
+    // Alerts per minute averaged over the window.
+    public double perMinute(Window window) {
+        return count(window) * 60.0 / window.seconds;
+    }
+
+    private Series current(Series series) {
+        series.advanceTo(now());
+        return series;
+    }
+
+    private Series location(String location, long now) {
+        Series series = byLocation.get(location);
+        if (series != null) {
+            return series;
+        }
+        if (byLocation.size() >= maxLocations && now >= nextPurge) {
+            dropIdleLocations(now);
+            // Don't rescan for every new label while all of them are busy
+            nextPurge = byLocation.size() >= maxLocations ? now + 60 : Long.MIN_VALUE;
+        }
+        if (byLocation.size() >= maxLocations) {
+            location = OTHER_LOCATION;
+            series = byLocation.get(location);
+            if (series != null) {
+                return series;
+            }
+        }
+        series = new Series();
+        byLocation.put(location, series);
+        return series;
+    }
+
+    private void dropIdleLocations(long now) {
+        Iterator<Series> it = byLocation.values().iterator();
+        while (it.hasNext()) {
+            Series series = it.next();
+            series.advanceTo(now);
+            if (series.lastHour == 0) {
+                it.remove();
+            }
+        }
+    }
+
+    private long now() {
+        return LocalDateTime.now(clock).toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,258 @@
+package com.crisisconnect;
+
+import java.io.Closeable;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Push feed of queue changes. Register it as a QueueListener on the queues;
+// every mutation becomes a ChangeEvent with a feed-wide sequence number and
+// is offered to each subscription whose kinds match.
+//
+// Each subscription owns a bounded lock-free ring (multi-producer, single
+// consumer), so a slow subscriber never holds up the others. When a ring
+// is full the producer backs off for up to maxBlockNanos waiting for the
+// consumer; if it is still full the event is dropped and the subscription
+// is flagged as overflowed, after which offers fail fast until the consumer
+// has caught up. A consumer that sees overflowed() must resync from a
+// queue snapshot.
+class ChangeFeed implements QueueListener {
+    private static final long DEFAULT_MAX_BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    enum Source { ALERT, TASK, TEAM }
+
+    // UPDATED covers status changes (and severity and report count, for alerts).
+    enum Kind { ADDED, POLLED, UPDATED, CANCELLED }
+
+    static final class ChangeEvent {
+        private final long sequence;
+        private final Source source;
+        private final Kind kind;
+        private final Object element;
+
+        ChangeEvent(long sequence, Source source, Kind kind, Object element) {
+            this.sequence = sequence;
+            this.source = source;
+            this.kind = kind;
+            this.element = element;
+        }
+
+        public long getSequence() { return sequence; }
+        public Source getSource() { return source; }
+        public Kind getKind() { return kind; }
+        public Object getElement() { return element; }
+        public EmergencyAlert alert() { return (EmergencyAlert) element; }
+        public Task task() { return (Task) element; }
+        public ResponseTeam team() { return (ResponseTeam) element; }
+
+        @Override
+        public String toString() {
+            return sequence + " " + source + " " + kind + " " + element;
+        }
+    }
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final long maxBlockNanos;
+
+    public ChangeFeed() {
+        this(DEFAULT_MAX_BLOCK_NANOS);
+    }
+
+    public ChangeFeed(long maxBlockNanos) {
+        this.maxBlockNanos = maxBlockNanos;
+    }
+
+    public Subscription subscribe(int capacity) {
+        return subscribe(capacity, EnumSet.allOf(Kind.class));
+    }
+
+    // Capacity is rounded up to a power of two.
+    public Subscription subscribe(int capacity, Set<Kind> kinds) {
+        Subscription subscription = new Subscription(capacity, kinds);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    // Sequence of the last published event; everything up to it has already
+    // been applied to the queues.
+    public long lastSequence() {
+        return sequence.get();
+    }
+
+    public void alertAdded(EmergencyAlert alert) { publish(Source.ALERT, Kind.ADDED, alert); }
+    public void alertPolled(EmergencyAlert alert) { publish(Source.ALERT, Kind.POLLED, alert); }
+    public void alertUpdated(EmergencyAlert alert) { publish(Source.ALERT, Kind.UPDATED, alert); }
+    public void alertCancelled(EmergencyAlert alert) { publish(Source.ALERT, Kind.CANCELLED, alert); }
+    public void taskAdded(Task task) { publish(Source.TASK, Kind.ADDED, task); }
+    public void taskPolled(Task task) { publish(Source.TASK, Kind.POLLED, task); }
+    public void taskUpdated(Task task) { publish(Source.TASK, Kind.UPDATED, task); }
+    public void teamAdded(ResponseTeam team) { publish(Source.TEAM, Kind.ADDED, team); }
+    public void teamPolled(ResponseTeam team) { publish(Source.TEAM, Kind.POLLED, team); }
+    public void teamUpdated(ResponseTeam team) { publish(Source.TEAM, Kind.UPDATED, team); }
+
+    private void publish(Source source, Kind kind, Object element) {
+        ChangeEvent event = new ChangeEvent(sequence.incrementAndGet(), source, kind, element);
+        for (Subscription subscription : subscriptions) {
+            if (subscription.kinds.contains(kind)) {
+                subscription.offer(event, maxBlockNanos);
+            }
+        }
+    }
+
+    // Bounded MPSC ring after Vyukov: each slot carries a sequence number
+    // that tells producers and the consumer whose turn it is, so neither
+    // side takes a lock.
+    final class Subscription implements Closeable {
+        private final AtomicReferenceArray<ChangeEvent> slots;
+        private final AtomicLongArray turns;
+        private final int mask;
+        private final Set<Kind> kinds;
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile long head;
+        private volatile boolean overflowed;
+        private volatile Thread waiter;
+
+        Subscription(int capacity, Set<Kind> kinds) {
+            int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            slots = new AtomicReferenceArray<>(size);
+            turns = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                turns.set(i, i);
+            }
+            mask = size - 1;
+            this.kinds = EnumSet.copyOf(kinds);
+        }
+
+        boolean offer(ChangeEvent event, long maxBlockNanos) {
+            if (overflowed) {
+                // Don't stall producers on a consumer that is already behind
+                dropped.incrementAndGet();
+                return false;
+            }
+            long deadline = 0;
+            while (!tryOffer(event)) {
+                long now = System.nanoTime();
+                if (deadline == 0) {
+                    deadline = now + maxBlockNanos;
+                } else if (now - deadline >= 0) {
+                    overflowed = true;
+                    dropped.incrementAndGet();
+                    wake();
+                    return false;
+                }
+                LockSupport.parkNanos(BACKOFF_NANOS);
+            }
+            wake();
+            return true;
+        }
+
+        private boolean tryOffer(ChangeEvent event) {
+            while (true) {
+                long position = tail.get();
+                int index = (int) position & mask;
+                long turn = turns.get(index);
+                if (turn == position) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots.set(index, event);
+                        turns.set(index, position + 1);
+                        return true;
+                    }
+                } else if (turn < position) {
+                    return false; // full
+                }
+                // Another producer claimed this position; retry
+            }
+        }
+
+        private void wake() {
+            Thread thread = waiter;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        // Single consumer only from here on.
+        public ChangeEvent poll() {
+            ChangeEvent event = peek();
+            if (event != null) {
+                int index = (int) head & mask;
+                slots.set(index, null);
+                turns.set(index, head + mask + 1);
+                head = head + 1;
+            }
+            return event;
+        }
+
+        public ChangeEvent peek() {
+            int index = (int) head & mask;
+            return turns.get(index) == head + 1 ? slots.get(index) : null;
+        }
+
+        public int drainTo(Consumer<? super ChangeEvent> consumer, int max) {
+            int drained = 0;
+            ChangeEvent event;
+            while (drained < max && (event = poll()) != null) {
+                consumer.accept(event);
+                drained++;
+            }
+            return drained;
+        }
+
+        // Waits until an event is ready, the ring overflows, wakeup() is
+        // called or the timeout passes. May return early; callers re-check.
+        public void await(long timeout, TimeUnit unit) throws InterruptedException {
+            waiter = Thread.currentThread();
+            try {
+                if (peek() == null && !overflowed) {
+                    LockSupport.parkNanos(this, unit.toNanos(timeout));
+                }
+            } finally {
+                waiter = null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        public void wakeup() {
+            wake();
+        }
+
+        // Approximate number of events waiting.
+        public int size() {
+            return (int) Math.max(0, tail.get() - head);
+        }
+
+        public boolean isOverflowed() {
+            return overflowed;
+        }
+
+        // Empties the ring and clears the overflow flag; call before taking
+        // the snapshot that replaces the lost events.
+        public void reset() {
+            while (poll() != null) {
+                // discard
+            }
+            overflowed = false;
+        }
+
+        public long droppedCount() {
+            return dropped.get();
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+}
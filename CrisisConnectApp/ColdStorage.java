@@ -0,0 +1,62 @@
+package com.crisisconnect;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Cold tier next to the live queues. Register it on the alert queue and
+// pass taskCompleted to DispatchEngine.onCompleted: every alert that reaches
+// a final status through the queue (resolved or cancelled) and every
+// completed task is appended to a ColumnarArchive in dir, where after-action
+// reports scan it by time and level without going near the queues. Polled
+// alerts are still being handled, so they are not archived yet. Appends
+// copy the record's values on the caller's thread; segments are compressed
+// and written on the archive's writer thread.
+class ColdStorage implements QueueListener, Closeable {
+    private final ColumnarArchive<EmergencyAlert> alerts;
+    private final ColumnarArchive<Task> tasks;
+
+    private ColdStorage(ColumnarArchive<EmergencyAlert> alerts, ColumnarArchive<Task> tasks) {
+        this.alerts = alerts;
+        this.tasks = tasks;
+    }
+
+    public static ColdStorage open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        ColumnarArchive<EmergencyAlert> alerts =
+            new ColumnarArchive<>(dir.resolve("alerts.archive"), new AlertArchiveCodec());
+        try {
+            return new ColdStorage(alerts, new ColumnarArchive<>(dir.resolve("tasks.archive"), new TaskArchiveCodec()));
+        } catch (IOException e) {
+            alerts.close();
+            throw e;
+        }
+    }
+
+    public ColumnarArchive<EmergencyAlert> alerts() {
+        return alerts;
+    }
+
+    public ColumnarArchive<Task> tasks() {
+        return tasks;
+    }
+
+    public void alertResolved(EmergencyAlert alert) {
+        alerts.append(alert);
+    }
+
+    public void alertCancelled(EmergencyAlert alert) {
+        alerts.append(alert);
+    }
+
+    public void taskCompleted(Task task) {
+        tasks.append(task);
+    }
+
+    @Override
+    public void close() {
+        alerts.close();
+        tasks.close();
+    }
+}
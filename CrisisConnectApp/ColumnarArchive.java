@@ -0,0 +1,834 @@
+package com.crisisconnect;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Maps records to the archive's columns. Every record has an id, a time
+// (the scan key) and a level 1-10 (severity or priority); the rest is
+// string, long and double columns.
+interface ArchiveCodec<E> {
+    int stringColumns();
+
+    int longColumns();
+
+    int doubleColumns();
+
+    int id(E record);
+
+    LocalDateTime time(E record);
+
+    int level(E record);
+
+    void columns(E record, String[] strings, long[] longs, double[] doubles);
+
+    E decode(int id, LocalDateTime time, int level, String[] strings, long[] longs, double[] doubles);
+}
+
+// Cold tier for items that have left the live queues: an append-only file
+// of column-oriented segments. append() copies a record's column values on
+// the calling thread, so later changes to the record do not reach the
+// archive and the writer never touches live objects. Rows are buffered in
+// memory (the open segment, which scans also see) and every SEGMENT_ROWS
+// rows sealed and handed to a background writer, so append() never waits
+// for encoding or I/O. The writer writes each sealed segment, each column
+// encoded on its own and deflated:
+//   ids, times  - zigzag delta varints (times in epoch seconds, with the
+//                 nanos in a column of their own)
+//   levels      - one byte each
+//   strings     - per-segment dictionary plus varint codes
+//   longs       - zigzag delta varints
+//   doubles     - XOR with the previous value, as varints
+//
+// Segment layout: int magic | int rows | long minTime | long maxTime |
+// int levelMask | int columns | (int compressed, int raw)[columns] | blobs.
+// The headers (zone maps) stay in memory, so a scan by time and level
+// range skips non-overlapping segments without reading them, and a
+// matching segment decodes the time and level columns first and the rest
+// only if some row qualifies. count() reads no more than the time and level
+// columns, and nothing of segments wholly inside the range. Rows with no
+// time are stored but never match. A torn last segment is truncated on
+// open, and a failed write is truncated away at once and retried with the
+// next segment or flush(); rows not yet written are lost on a crash, and
+// close() writes them.
+class ColumnarArchive<E> implements Closeable {
+    static final int SEGMENT_ROWS = 4096;
+    private static final int MAGIC = 0x43434152; // "CCAR"
+    private static final int FIXED_HEADER = 4 + 4 + 8 + 8 + 4 + 4;
+    private static final int IDS = 0;
+    private static final int SECONDS = 1;
+    private static final int NANOS = 2;
+    private static final int LEVELS = 3;
+    private static final int FIXED_COLUMNS = 4;
+
+    private final ArchiveCodec<E> codec;
+    private final FileChannel channel;
+    private final int columns;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION); // writer thread only
+    private final Inflater inflater = new Inflater();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "archive-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Sealed segments waiting for the writer, oldest first; scans see them
+    private final ArrayDeque<List<Row>> sealed = new ArrayDeque<>();
+    private List<Row> open = new ArrayList<>();
+    private long size; // rows in written segments
+    private long sealedRows;
+    private long end; // end of the last complete segment, written by the writer
+
+    // One record's values, captured when it is appended.
+    private static final class Row {
+        final int id;
+        final LocalDateTime time;
+        final int level;
+        final String[] strings;
+        final long[] longs;
+        final double[] doubles;
+
+        Row(int id, LocalDateTime time, int level, String[] strings, long[] longs, double[] doubles) {
+            this.id = id;
+            this.time = time;
+            this.level = level;
+            this.strings = strings;
+            this.longs = longs;
+            this.doubles = doubles;
+        }
+    }
+
+    private static final class Segment {
+        final long offset;
+        final int rows;
+        final long minTime;
+        final long maxTime;
+        final int levelMask;
+        final int[] lengths;
+        final int[] rawLengths;
+        final long[] blobOffsets;
+
+        Segment(long offset, int rows, long minTime, long maxTime, int levelMask, int[] lengths, int[] rawLengths) {
+            this.offset = offset;
+            this.rows = rows;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.levelMask = levelMask;
+            this.lengths = lengths;
+            this.rawLengths = rawLengths;
+            blobOffsets = new long[lengths.length];
+            long position = offset + FIXED_HEADER + 8L * lengths.length;
+            for (int i = 0; i < lengths.length; i++) {
+                blobOffsets[i] = position;
+                position += lengths[i];
+            }
+        }
+
+        long end() {
+            return blobOffsets[blobOffsets.length - 1] + lengths[lengths.length - 1];
+        }
+    }
+
+    public ColumnarArchive(Path file, ArchiveCodec<E> codec) throws IOException {
+        this.codec = codec;
+        this.columns = FIXED_COLUMNS + codec.stringColumns() + codec.longColumns() + codec.doubleColumns();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        end = loadIndex();
+        if (end < channel.size()) {
+            channel.truncate(end);
+        }
+    }
+
+    public void append(E record) {
+        String[] strings = new String[codec.stringColumns()];
+        long[] longs = new long[codec.longColumns()];
+        double[] doubles = new double[codec.doubleColumns()];
+        codec.columns(record, strings, longs, doubles);
+        Row row = new Row(codec.id(record), codec.time(record), codec.level(record), strings, longs, doubles);
+        synchronized (this) {
+            open.add(row);
+            if (open.size() >= SEGMENT_ROWS) {
+                seal();
+                writer.execute(this::writeSealed);
+            }
+        }
+    }
+
+    // Writes the open segment, if any, and waits until every row appended
+    // so far is in the file (or its write has failed and been reported).
+    public void flush() {
+        Future<?> written;
+        synchronized (this) {
+            if (writer.isShutdown()) {
+                return;
+            }
+            seal();
+            written = writer.submit(this::writeSealed);
+        }
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        }
+    }
+
+    public synchronized long size() {
+        return size + sealedRows + open.size();
+    }
+
+    // Sealed segments, including those the writer has not written yet.
+    public synchronized int segmentCount() {
+        return segments.size() + sealed.size();
+    }
+
+    public synchronized long fileBytes() throws IOException {
+        return channel.size();
+    }
+
+    // Calls consumer for each archived record with from <= time <= to and
+    // minLevel <= level <= maxLevel, oldest segment first; returns the count.
+    public synchronized int scan(LocalDateTime from, LocalDateTime to, int minLevel, int maxLevel,
+                                 Consumer<? super E> consumer) throws IOException {
+        return select(from, to, minLevel, maxLevel, consumer);
+    }
+
+    // Like scan, decoding only the time and level columns.
+    public synchronized int count(LocalDateTime from, LocalDateTime to, int minLevel, int maxLevel)
+            throws IOException {
+        return select(from, to, minLevel, maxLevel, null);
+    }
+
+    @Override
+    public void close() {
+        flush();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                channel.force(true);
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            deflater.end();
+            inflater.end();
+        }
+    }
+
+    private void seal() {
+        if (!open.isEmpty()) {
+            sealed.addLast(open);
+            sealedRows += open.size();
+            open = new ArrayList<>();
+        }
+    }
+
+    // Writer thread: writes sealed segments in order, encoding outside the
+    // lock and publishing each one to scans once it is in the file. Stops
+    // at a failure; that segment is retried on the next run.
+    private void writeSealed() {
+        while (true) {
+            List<Row> rows;
+            synchronized (this) {
+                rows = sealed.peekFirst();
+            }
+            if (rows == null) {
+                return;
+            }
+            Segment segment;
+            try {
+                segment = writeSegment(rows);
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                return;
+            }
+            synchronized (this) {
+                sealed.pollFirst();
+                sealedRows -= rows.size();
+                segments.add(segment);
+                size += segment.rows;
+            }
+        }
+    }
+
+    // consumer null only counts.
+    private int select(LocalDateTime from, LocalDateTime to, int minLevel, int maxLevel,
+                     Consumer<? super E> consumer) throws IOException {
+        long low = seconds(from);
+        long high = seconds(to);
+        int wanted = levelMask(minLevel, maxLevel);
+        int matched = 0;
+        for (Segment segment : segments) {
+            if (segment.maxTime < low || segment.minTime > high || (segment.levelMask & wanted) == 0) {
+                continue;
+            }
+            if (consumer == null && segment.minTime > low && segment.maxTime < high
+                && (segment.levelMask & ~wanted) == 0) {
+                // Every row qualifies
+                matched += segment.rows;
+                continue;
+            }
+            matched += scanSegment(segment, from, to, minLevel, maxLevel, consumer);
+        }
+        for (List<Row> rows : sealed) {
+            matched += selectRows(rows, from, to, minLevel, maxLevel, consumer);
+        }
+        return matched + selectRows(open, from, to, minLevel, maxLevel, consumer);
+    }
+
+    // Filters rows that are still in memory, decoding them like written ones.
+    private int selectRows(List<Row> rows, LocalDateTime from, LocalDateTime to, int minLevel, int maxLevel,
+                           Consumer<? super E> consumer) {
+        int matched = 0;
+        for (Row row : rows) {
+            LocalDateTime time = row.time;
+            int level = row.level;
+            if (time != null && !time.isBefore(from) && !time.isAfter(to) && level >= minLevel && level <= maxLevel) {
+                matched++;
+                if (consumer != null) {
+                    consumer.accept(codec.decode(row.id, time, level, row.strings, row.longs, row.doubles));
+                }
+            }
+        }
+        return matched;
+    }
+
+    private int scanSegment(Segment segment, LocalDateTime from, LocalDateTime to, int minLevel, int maxLevel,
+                            Consumer<? super E> consumer) throws IOException {
+        int rows = segment.rows;
+        long[] seconds = deltas(column(segment, SECONDS), rows);
+        ByteBuffer nanos = column(segment, NANOS);
+        ByteBuffer levels = column(segment, LEVELS);
+        long fromSecond = seconds(from);
+        long toSecond = seconds(to);
+        int[] hits = new int[rows];
+        int[] nano = new int[rows];
+        int matched = 0;
+        for (int i = 0; i < rows; i++) {
+            nano[i] = (int) readVarLong(nanos);
+            int level = levels.get(i);
+            long second = seconds[i];
+            if (level < minLevel || level > maxLevel || second < fromSecond || second > toSecond
+                || second == fromSecond && nano[i] < from.getNano()
+                || second == toSecond && nano[i] > to.getNano()) {
+                continue;
+            }
+            hits[matched++] = i;
+        }
+        if (consumer == null || matched == 0) {
+            return matched;
+        }
+
+        // Late materialization: the other columns only for segments with hits
+        long[] ids = deltas(column(segment, IDS), rows);
+        int stringColumns = codec.stringColumns();
+        int longColumns = codec.longColumns();
+        String[][] strings = new String[stringColumns][];
+        for (int c = 0; c < stringColumns; c++) {
+            strings[c] = readStrings(column(segment, FIXED_COLUMNS + c), rows);
+        }
+        long[][] longs = new long[longColumns][];
+        for (int c = 0; c < longColumns; c++) {
+            longs[c] = deltas(column(segment, FIXED_COLUMNS + stringColumns + c), rows);
+        }
+        double[][] doubles = new double[codec.doubleColumns()][rows];
+        for (int c = 0; c < doubles.length; c++) {
+            ByteBuffer column = column(segment, FIXED_COLUMNS + stringColumns + longColumns + c);
+            long bits = 0;
+            for (int i = 0; i < rows; i++) {
+                bits ^= readVarLong(column);
+                doubles[c][i] = Double.longBitsToDouble(bits);
+            }
+        }
+
+        String[] rowStrings = new String[stringColumns];
+        long[] rowLongs = new long[longColumns];
+        double[] rowDoubles = new double[doubles.length];
+        for (int h = 0; h < matched; h++) {
+            int i = hits[h];
+            for (int c = 0; c < stringColumns; c++) {
+                rowStrings[c] = strings[c][i];
+            }
+            for (int c = 0; c < longColumns; c++) {
+                rowLongs[c] = longs[c][i];
+            }
+            for (int c = 0; c < doubles.length; c++) {
+                rowDoubles[c] = doubles[c][i];
+            }
+            LocalDateTime time = LocalDateTime.ofEpochSecond(seconds[i], nano[i], ZoneOffset.UTC);
+            consumer.accept(codec.decode((int) ids[i], time, levels.get(i), rowStrings, rowLongs, rowDoubles));
+        }
+        return matched;
+    }
+
+    private static long[] deltas(ByteBuffer column, int rows) {
+        long[] values = new long[rows];
+        long value = 0;
+        for (int i = 0; i < rows; i++) {
+            value += unzigzag(readVarLong(column));
+            values[i] = value;
+        }
+        return values;
+    }
+
+    // Writes one segment at the end of the file and returns its header. On
+    // failure the file is cut back to the last complete segment, so no
+    // partial bytes stay behind for later segments to follow.
+    private Segment writeSegment(List<Row> rows) throws IOException {
+        int count = rows.size();
+        int stringColumns = codec.stringColumns();
+        int longColumns = codec.longColumns();
+        int doubleColumns = codec.doubleColumns();
+
+        Column ids = new Column();
+        Column times = new Column();
+        Column nanos = new Column();
+        Column levels = new Column();
+        StringColumn[] stringData = new StringColumn[stringColumns];
+        for (int c = 0; c < stringColumns; c++) {
+            stringData[c] = new StringColumn(count);
+        }
+        Column[] longData = new Column[longColumns];
+        long[] previousLongs = new long[longColumns];
+        for (int c = 0; c < longColumns; c++) {
+            longData[c] = new Column();
+        }
+        Column[] doubleData = new Column[doubleColumns];
+        long[] previousBits = new long[doubleColumns];
+        for (int c = 0; c < doubleColumns; c++) {
+            doubleData[c] = new Column();
+        }
+
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        int levelMask = 0;
+        int previousId = 0;
+        long previousTime = 0;
+        for (Row row : rows) {
+            int id = row.id;
+            LocalDateTime at = row.time;
+            long time = at == null ? Long.MIN_VALUE : seconds(at);
+            int level = Math.max(0, Math.min(31, row.level));
+            String[] strings = row.strings;
+            long[] longs = row.longs;
+            double[] doubles = row.doubles;
+
+            ids.writeVarLong(zigzag((long) id - previousId));
+            previousId = id;
+            times.writeVarLong(zigzag(time - previousTime));
+            previousTime = time;
+            nanos.writeVarLong(at == null ? 0 : at.getNano());
+            levels.write(level);
+            for (int c = 0; c < stringColumns; c++) {
+                stringData[c].add(strings[c]);
+            }
+            for (int c = 0; c < longColumns; c++) {
+                longData[c].writeVarLong(zigzag(longs[c] - previousLongs[c]));
+                previousLongs[c] = longs[c];
+            }
+            for (int c = 0; c < doubleColumns; c++) {
+                long bits = Double.doubleToLongBits(doubles[c]);
+                doubleData[c].writeVarLong(bits ^ previousBits[c]);
+                previousBits[c] = bits;
+            }
+            if (at != null) {
+                minTime = Math.min(minTime, time);
+                maxTime = Math.max(maxTime, time);
+            } else {
+                // Keeps count() from assuming every row is in range
+                minTime = Long.MIN_VALUE;
+            }
+            levelMask |= 1 << level;
+        }
+
+        Column[] raw = new Column[columns];
+        raw[IDS] = ids;
+        raw[SECONDS] = times;
+        raw[NANOS] = nanos;
+        raw[LEVELS] = levels;
+        for (int c = 0; c < stringColumns; c++) {
+            raw[FIXED_COLUMNS + c] = stringData[c].encode();
+        }
+        System.arraycopy(longData, 0, raw, FIXED_COLUMNS + stringColumns, longColumns);
+        System.arraycopy(doubleData, 0, raw, FIXED_COLUMNS + stringColumns + longColumns, doubleColumns);
+
+        byte[][] blobs = new byte[columns][];
+        int[] lengths = new int[columns];
+        int[] rawLengths = new int[columns];
+        int total = FIXED_HEADER + 8 * columns;
+        for (int c = 0; c < columns; c++) {
+            blobs[c] = compress(raw[c]);
+            lengths[c] = blobs[c].length;
+            rawLengths[c] = raw[c].size();
+            total += lengths[c];
+        }
+        ByteBuffer out = ByteBuffer.allocate(total);
+        out.putInt(MAGIC).putInt(count).putLong(minTime).putLong(maxTime).putInt(levelMask).putInt(columns);
+        for (int c = 0; c < columns; c++) {
+            out.putInt(lengths[c]).putInt(rawLengths[c]);
+        }
+        for (byte[] blob : blobs) {
+            out.put(blob);
+        }
+        out.flip();
+        long offset = end;
+        try {
+            while (out.hasRemaining()) {
+                channel.write(out, offset + out.position());
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(offset);
+            } catch (IOException truncateFailed) {
+                e.addSuppressed(truncateFailed);
+            }
+            throw e;
+        }
+        end = offset + total;
+        return new Segment(offset, count, minTime, maxTime, levelMask, lengths, rawLengths);
+    }
+
+    // Reads segment headers up to the first incomplete one; returns the
+    // end of the last complete segment.
+    private long loadIndex() throws IOException {
+        long position = 0;
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER);
+        while (position + FIXED_HEADER <= fileSize) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                break;
+            }
+            int rows = header.getInt();
+            long minTime = header.getLong();
+            long maxTime = header.getLong();
+            int levelMask = header.getInt();
+            int columnCount = header.getInt();
+            if (columnCount != columns || position + FIXED_HEADER + 8L * columnCount > fileSize) {
+                break;
+            }
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(8 * columnCount);
+            readFully(lengthBuffer, position + FIXED_HEADER);
+            lengthBuffer.flip();
+            int[] lengths = new int[columnCount];
+            int[] rawLengths = new int[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                lengths[c] = lengthBuffer.getInt();
+                rawLengths[c] = lengthBuffer.getInt();
+            }
+            Segment segment = new Segment(position, rows, minTime, maxTime, levelMask, lengths, rawLengths);
+            if (segment.end() > fileSize) {
+                break;
+            }
+            segments.add(segment);
+            size += rows;
+            position = segment.end();
+        }
+        return position;
+    }
+
+    private ByteBuffer column(Segment segment, int column) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(segment.lengths[column]);
+        readFully(compressed, segment.blobOffsets[column]);
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        byte[] out = new byte[segment.rawLengths[column]];
+        try {
+            int filled = 0;
+            while (filled < out.length) {
+                int n = inflater.inflate(out, filled, out.length - filled);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated archive column");
+                }
+                filled += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive column", e);
+        }
+        return ByteBuffer.wrap(out);
+    }
+
+    private byte[] compress(Column column) {
+        deflater.reset();
+        deflater.setInput(column.buffer(), 0, column.size());
+        deflater.finish();
+        Column out = new Column(column.size() / 2 + 64);
+        while (!deflater.finished()) {
+            out.ensure(out.size + 8192);
+            out.size += deflater.deflate(out.bytes, out.size, out.bytes.length - out.size);
+        }
+        return Arrays.copyOf(out.bytes, out.size);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive");
+            }
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer column, int rows) {
+        String[] dictionary = new String[(int) readVarLong(column)];
+        for (int i = 0; i < dictionary.length; i++) {
+            int length = (int) readVarLong(column) - 1;
+            if (length >= 0) {
+                dictionary[i] = new String(column.array(), column.position(), length, StandardCharsets.UTF_8);
+                column.position(column.position() + length);
+            }
+        }
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = dictionary[(int) readVarLong(column)];
+        }
+        return values;
+    }
+
+    private static int levelMask(int minLevel, int maxLevel) {
+        int mask = 0;
+        for (int level = Math.max(0, minLevel); level <= Math.min(31, maxLevel); level++) {
+            mask |= 1 << level;
+        }
+        return mask;
+    }
+
+    private static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    // Growable byte array with varint writes.
+    private static final class Column {
+        byte[] bytes;
+        int size;
+
+        Column() {
+            this(256);
+        }
+
+        Column(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void ensure(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+
+        void write(int b) {
+            ensure(size + 1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] b, int offset, int length) {
+            ensure(size + length);
+            System.arraycopy(b, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeVarLong(long value) {
+            ensure(size + 10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] buffer() {
+            return bytes;
+        }
+    }
+
+    // Dictionary-encoded strings for one segment.
+    private static final class StringColumn {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private final int[] rows;
+        private int size;
+        private int nullCode = -1;
+
+        StringColumn(int capacity) {
+            rows = new int[capacity];
+        }
+
+        void add(String value) {
+            int code;
+            if (value == null) {
+                if (nullCode < 0) {
+                    nullCode = dictionary.size();
+                    dictionary.add(null);
+                }
+                code = nullCode;
+            } else {
+                code = codes.computeIfAbsent(value, v -> {
+                    dictionary.add(v);
+                    return dictionary.size() - 1;
+                });
+            }
+            rows[size++] = code;
+        }
+
+        Column encode() {
+            Column out = new Column();
+            out.writeVarLong(dictionary.size());
+            for (String value : dictionary) {
+                if (value == null) {
+                    out.writeVarLong(0);
+                } else {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeVarLong(bytes.length + 1);
+                    out.write(bytes, 0, bytes.length);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeVarLong(rows[i]);
+            }
+            return out;
+        }
+    }
+}
+
+// Alert row: severity as the level, description, location and status
+// strings, report count, latitude and longitude.
+class AlertArchiveCodec implements ArchiveCodec<EmergencyAlert> {
+    public int stringColumns() {
+        return 3;
+    }
+
+    public int longColumns() {
+        return 1;
+    }
+
+    public int doubleColumns() {
+        return 2;
+    }
+
+    public int id(EmergencyAlert alert) {
+        return alert.getAlertId();
+    }
+
+    public LocalDateTime time(EmergencyAlert alert) {
+        return alert.getTimestamp();
+    }
+
+    public int level(EmergencyAlert alert) {
+        return alert.getSeverity();
+    }
+
+    public void columns(EmergencyAlert alert, String[] strings, long[] longs, double[] doubles) {
+        strings[0] = alert.getDescription();
+        strings[1] = alert.getLocation();
+        strings[2] = alert.getStatus();
+        longs[0] = alert.getReportCount();
+        doubles[0] = alert.getLatitude();
+        doubles[1] = alert.getLongitude();
+    }
+
+    public EmergencyAlert decode(int id, LocalDateTime time, int level, String[] strings, long[] longs,
+                                 double[] doubles) {
+        EmergencyAlert alert = new EmergencyAlert(id, strings[0], level, time, strings[1], strings[2]);
+        alert.setReportCount((int) longs[0]);
+        alert.setCoordinates(doubles[0], doubles[1]);
+        return alert;
+    }
+}
+
+// Task row: priority as the level and the deadline as the time (tasks carry
+// no completion time); name, status, team and specialization strings,
+// latitude and longitude.
+class TaskArchiveCodec implements ArchiveCodec<Task> {
+    public int stringColumns() {
+        return 4;
+    }
+
+    public int longColumns() {
+        return 0;
+    }
+
+    public int doubleColumns() {
+        return 2;
+    }
+
+    public int id(Task task) {
+        return task.getTaskId();
+    }
+
+    public LocalDateTime time(Task task) {
+        return task.getDeadline();
+    }
+
+    public int level(Task task) {
+        return task.getPriority();
+    }
+
+    public void columns(Task task, String[] strings, long[] longs, double[] doubles) {
+        strings[0] = task.getName();
+        strings[1] = task.getStatus();
+        strings[2] = task.getAssignedTeam();
+        strings[3] = task.getRequiredSpecialization();
+        doubles[0] = task.getLatitude();
+        doubles[1] = task.getLongitude();
+    }
+
+    public Task decode(int id, LocalDateTime time, int level, String[] strings, long[] longs, double[] doubles) {
+        Task task = new Task(id, strings[0], level, time, strings[1], strings[2]);
+        task.setRequiredSpecialization(strings[3]);
+        task.setCoordinates(doubles[0], doubles[1]);
+        return task;
+    }
+}
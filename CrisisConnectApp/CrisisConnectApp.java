@@ -1,10 +1,26 @@
+package com.crisisconnect;
+
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.PriorityQueue;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -14,7 +30,13 @@ class EmergencyAlert implements Comparable<EmergencyAlert> {
     private int severity;
     private LocalDateTime timestamp;
     private String location;
-    private String status;
+    private double latitude = Double.NaN;
+    private double longitude = Double.NaN;
+    private int reportCount = 1;
+    private long queuedAtNanos;
+    private long arrival;
+    private byte status;
+    private StatusIndex<AlertStatus, EmergencyAlert> statusIndex;
 
     public EmergencyAlert(int alertId, String description, int severity, String location) {
         this.alertId = alertId;
@@ -22,27 +44,81 @@ class EmergencyAlert implements Comparable<EmergencyAlert> {
         this.severity = severity;
         this.timestamp = LocalDateTime.now();
         this.location = location;
-        this.status = "Pending";
+        this.status = AlertStatus.PENDING.code();
+    }
+
+    // Restores an alert exactly as persisted (see DurableQueues).
+    EmergencyAlert(int alertId, String description, int severity, LocalDateTime timestamp,
+                   String location, String status) {
+        this.alertId = alertId;
+        this.description = description;
+        this.severity = severity;
+        this.timestamp = timestamp;
+        this.location = location;
+        this.status = AlertStatus.fromLabel(status).code();
     }
 
     // Getters and setters
-    public void setStatus(String status) { this.status = status; }
-    public String getStatus() { return status; }
+    public void setStatus(String status) { setStatus(AlertStatus.fromLabel(status)); }
+    public String getStatus() { return getAlertStatus().label(); }
+    public AlertStatus getAlertStatus() { return AlertStatus.fromCode(status); }
     public LocalDateTime getTimestamp() { return timestamp; }
     public String getLocation() { return location; }
     public int getAlertId() { return alertId; }
     public String getDescription() { return description; }
     public int getSeverity() { return severity; }
+    // WGS84 degrees; NaN until known. Set before the alert is queued.
+    public void setCoordinates(double latitude, double longitude) { this.latitude = latitude; this.longitude = longitude; }
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+    public boolean hasCoordinates() { return !Double.isNaN(latitude) && !Double.isNaN(longitude); }
+    // Reports merged into this alert, itself included (see AlertDeduplicator).
+    public int getReportCount() { return reportCount; }
+    void setReportCount(int reportCount) { this.reportCount = reportCount; }
+    // System.nanoTime when queued, while the queue has metrics; 0 otherwise.
+    long getQueuedAtNanos() { return queuedAtNanos; }
+    void setQueuedAtNanos(long queuedAtNanos) { this.queuedAtNanos = queuedAtNanos; }
+    // Position in the queue's arrival order, set when queued.
+    long getArrival() { return arrival; }
+    void setArrival(long arrival) { this.arrival = arrival; }
+
+    // Only stores that re-order on change may call this (see IndexedAlertStore).
+    void setSeverity(int severity) { this.severity = severity; }
+
+    public void setStatus(AlertStatus next) {
+        AlertStatus current = getAlertStatus();
+        if (!current.canTransitionTo(next)) {
+            throw new IllegalStateException("Alert " + alertId + " cannot go from "
+                + current.label() + " to " + next.label());
+        }
+        status = next.code();
+        if (statusIndex != null) {
+            statusIndex.move(this, current, next);
+        }
+    }
+
+    // Set by the queue while the alert is queued, so transitions keep its
+    // status index current.
+    void attachIndex(StatusIndex<AlertStatus, EmergencyAlert> index) { this.statusIndex = index; }
+
+    // Replay only (DurableQueues): a checkpoint may already hold a later
+    // status than the record being replayed, so there is no transition check.
+    void restoreStatus(String status) { this.status = AlertStatus.fromLabel(status).code(); }
 
     @Override
     public int compareTo(EmergencyAlert other) {
         return Integer.compare(other.severity, this.severity);
     }
 
+    // Higher severity first, then first queued: stable FIFO within a
+    // severity, from two primitive compares and no allocation.
+    static final Comparator<EmergencyAlert> ARRIVAL_ORDER = (a, b) -> a.severity != b.severity
+        ? Integer.compare(b.severity, a.severity) : Long.compare(a.arrival, b.arrival);
+
     @Override
     public String toString() {
         return String.format("ID: %d | Severity: %d | Location: %s | Status: %s\nDescription: %s", 
-            alertId, severity, location, status, description);
+            alertId, severity, location, getStatus(), description);
     }
 }
 
@@ -51,27 +127,71 @@ class Task implements Comparable<Task> {
     private String name;
     private int priority;
     private String assignedTeam;
-    private String status;
+    private int assignedTeamId;
+    private byte status;
     private LocalDateTime deadline;
+    private String requiredSpecialization;
+    private double latitude = Double.NaN;
+    private double longitude = Double.NaN;
+    private StatusIndex<TaskStatus, Task> statusIndex;
 
     public Task(int taskId, String name, int priority, LocalDateTime deadline) {
         this.taskId = taskId;
         this.name = name;
         this.priority = priority;
         this.deadline = deadline;
-        this.status = "Unassigned";
+        this.status = TaskStatus.UNASSIGNED.code();
         this.assignedTeam = "None";
     }
 
+    Task(int taskId, String name, int priority, LocalDateTime deadline, String status, String assignedTeam) {
+        this.taskId = taskId;
+        this.name = name;
+        this.priority = priority;
+        this.deadline = deadline;
+        this.status = TaskStatus.fromLabel(status).code();
+        this.assignedTeam = assignedTeam;
+    }
+
     // Getters and setters
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) { setStatus(TaskStatus.fromLabel(status)); }
     public void setAssignedTeam(String team) { this.assignedTeam = team; }
-    public String getStatus() { return status; }
+    // Team specialization the task needs; null means any team will do.
+    public void setRequiredSpecialization(String specialization) { this.requiredSpecialization = specialization; }
+    public String getRequiredSpecialization() { return requiredSpecialization; }
+    public String getStatus() { return getTaskStatus().label(); }
+    public TaskStatus getTaskStatus() { return TaskStatus.fromCode(status); }
     public String getAssignedTeam() { return assignedTeam; }
+    // Id of the team a DispatchEngine assigned; 0 if none. The name above is
+    // for display and need not be unique.
+    public int getAssignedTeamId() { return assignedTeamId; }
+    void setAssignedTeamId(int teamId) { this.assignedTeamId = teamId; }
     public LocalDateTime getDeadline() { return deadline; }
     public int getTaskId() { return taskId; }
     public String getName() { return name; }
     public int getPriority() { return priority; }
+    // Where the work is, in WGS84 degrees; NaN when not tied to a place.
+    public void setCoordinates(double latitude, double longitude) { this.latitude = latitude; this.longitude = longitude; }
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+    public boolean hasCoordinates() { return !Double.isNaN(latitude) && !Double.isNaN(longitude); }
+
+    public void setStatus(TaskStatus next) {
+        TaskStatus current = getTaskStatus();
+        if (!current.canTransitionTo(next)) {
+            throw new IllegalStateException("Task " + taskId + " cannot go from "
+                + current.label() + " to " + next.label());
+        }
+        status = next.code();
+        if (statusIndex != null) {
+            statusIndex.move(this, current, next);
+        }
+    }
+
+    void attachIndex(StatusIndex<TaskStatus, Task> index) { this.statusIndex = index; }
+
+    // Replay only, like EmergencyAlert.restoreStatus.
+    void restoreStatus(String status) { this.status = TaskStatus.fromLabel(status).code(); }
 
     @Override
     public int compareTo(Task other) {
@@ -81,38 +201,73 @@ class Task implements Comparable<Task> {
     @Override
     public String toString() {
         return String.format("ID: %d | Priority: %d | Team: %s | Status: %s\nTask: %s", 
-            taskId, priority, assignedTeam, status, name);
+            taskId, priority, assignedTeam, getStatus(), name);
     }
 }
 
 class ResponseTeam {
     private int teamId;
     private String name;
-    private String status;
+    private byte status;
     private String currentTask;
     private String specialization;
+    private double latitude = Double.NaN;
+    private double longitude = Double.NaN;
+    private StatusIndex<TeamStatus, ResponseTeam> statusIndex;
 
     public ResponseTeam(int teamId, String name, String specialization) {
         this.teamId = teamId;
         this.name = name;
         this.specialization = specialization;
-        this.status = "Available";
+        this.status = TeamStatus.AVAILABLE.code();
         this.currentTask = "None";
     }
 
+    ResponseTeam(int teamId, String name, String specialization, String status, String currentTask) {
+        this.teamId = teamId;
+        this.name = name;
+        this.specialization = specialization;
+        this.status = TeamStatus.fromLabel(status).code();
+        this.currentTask = currentTask;
+    }
+
     // Getters and setters
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) { setStatus(TeamStatus.fromLabel(status)); }
     public void setCurrentTask(String task) { this.currentTask = task; }
-    public String getStatus() { return status; }
+    public String getStatus() { return getTeamStatus().label(); }
+    public TeamStatus getTeamStatus() { return TeamStatus.fromCode(status); }
     public String getCurrentTask() { return currentTask; }
     public int getTeamId() { return teamId; }
     public String getName() { return name; }
     public String getSpecialization() { return specialization; }
+    // Last known position, WGS84 degrees; NaN until reported. Moving an
+    // available team goes through DispatchEngine.moveTeam.
+    public void setCoordinates(double latitude, double longitude) { this.latitude = latitude; this.longitude = longitude; }
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+    public boolean hasCoordinates() { return !Double.isNaN(latitude) && !Double.isNaN(longitude); }
+
+    public void setStatus(TeamStatus next) {
+        TeamStatus current = getTeamStatus();
+        if (!current.canTransitionTo(next)) {
+            throw new IllegalStateException("Team " + teamId + " cannot go from "
+                + current.label() + " to " + next.label());
+        }
+        status = next.code();
+        if (statusIndex != null) {
+            statusIndex.move(this, current, next);
+        }
+    }
+
+    void attachIndex(StatusIndex<TeamStatus, ResponseTeam> index) { this.statusIndex = index; }
+
+    // Replay only, like EmergencyAlert.restoreStatus.
+    void restoreStatus(String status) { this.status = TeamStatus.fromLabel(status).code(); }
 
     @Override
     public String toString() {
         return String.format("ID: %d | Team: %s | Status: %s | Task: %s\nSpecialization: %s", 
-            teamId, name, status, currentTask, specialization);
+            teamId, name, getStatus(), currentTask, specialization);
     }
 }
 
@@ -120,10 +275,18 @@ public class CrisisConnectApp extends JFrame {
     private EmergencyPriorityQueue emergencyQueue;
     private TaskPriorityQueue taskQueue;
     private ResponseTeamQueue teamQueue;
+    private DurableQueues durableQueues;
+    private ColdStorage coldStorage;
+    private DispatchEngine dispatchEngine;
+    private AlertDeduplicator alertDeduplicator;
+    private AlertStatistics alertStatistics;
+    private QueueMetrics metrics;
     
-    private JTextArea alertArea;
-    private JTextArea taskArea;
-    private JTextArea teamArea;
+    private QueueTableModel<EmergencyAlert> alertModel;
+    private QueueTableModel<Task> taskModel;
+    private QueueTableModel<ResponseTeam> teamModel;
+    private ChangeFeed changeFeed;
+    private RefreshPipeline refreshPipeline;
     private JPanel mainPanel;
     private JTabbedPane tabbedPane;
     
@@ -132,20 +295,55 @@ public class CrisisConnectApp extends JFrame {
     private static final Color BUTTON_COLOR = new Color(52, 152, 219);
     private static final Font HEADER_FONT = new Font("Arial", Font.BOLD, 16);
     private static final Font CONTENT_FONT = new Font("Arial", Font.PLAIN, 14);
+    private static final int DISPLAY_PAGE_SIZE = 200;
+    private static final int DISPATCH_ROUND_SIZE = 100;
+    private static final String[] SPECIALIZATIONS = {"Search and Rescue", "Medical Emergency", "Fire Response",
+        "Hazmat Response", "Evacuation", "Logistics"};
+    private static final String ANY_SPECIALIZATION = "Any";
+    private static final int HEADLESS_PORT = 7070;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final LocalDateTime ROW_KEY_EPOCH = LocalDateTime.of(2020, 1, 1, 0, 0);
 
     public CrisisConnectApp() {
         super("CrisisConnect Emergency Management System");
         initializeComponents();
         initializeData();
+        dispatchEngine = new DispatchEngine(taskQueue, teamQueue);
+        if (durableQueues != null) {
+            durableQueues.attach(dispatchEngine);
+        }
+        coldStorage = openColdStorage(emergencyQueue, dispatchEngine);
         createGUI();
     }
 
     private void initializeComponents() {
-        emergencyQueue = new EmergencyPriorityQueue();
-        taskQueue = new TaskPriorityQueue();
+        emergencyQueue = createAlertQueue();
+        taskQueue = createTaskQueue();
         teamQueue = new ResponseTeamQueue();
+        alertDeduplicator = new AlertDeduplicator(emergencyQueue);
+        // Recovered alerts are merge targets, but not new arrivals for the
+        // statistics and metrics registered below
+        durableQueues = openDurableQueues(emergencyQueue, taskQueue, teamQueue);
+        alertStatistics = new AlertStatistics();
+        emergencyQueue.addListener(alertStatistics);
+        metrics = createMetrics(emergencyQueue, taskQueue);
         
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (refreshPipeline != null) {
+                    refreshPipeline.close();
+                }
+                if (durableQueues != null) {
+                    durableQueues.close();
+                }
+                if (coldStorage != null) {
+                    coldStorage.close();
+                }
+                metrics.close();
+            }
+        });
         setMinimumSize(new Dimension(1000, 800));
         
         mainPanel = new JPanel(new BorderLayout());
@@ -154,22 +352,129 @@ public class CrisisConnectApp extends JFrame {
         tabbedPane.setFont(HEADER_FONT);
     }
 
+    // Very large backlogs can keep alert and task records off-heap instead
+    private static EmergencyPriorityQueue createAlertQueue() {
+        String offHeapDir = System.getProperty("crisisconnect.offHeapDir");
+        if (offHeapDir != null) {
+            return new EmergencyPriorityQueue(
+                new OffHeapStore<>(Paths.get(offHeapDir), "alerts", new AlertRecordCodec()));
+        }
+        String weights = System.getProperty("crisisconnect.alertWeights");
+        if (weights != null) {
+            return new EmergencyPriorityQueue(createFairShareStore(weights,
+                System.getProperty("crisisconnect.alertMaxWaitSeconds")));
+        }
+        return new EmergencyPriorityQueue(new IndexedAlertStore());
+    }
+
+    // Weights are ten comma-separated values for severities 1-10; the optional
+    // maximum wait is one value for every severity or ten, in seconds.
+    static FairShareStore<EmergencyAlert> createFairShareStore(String weights, String maxWaitSeconds) {
+        long[] parsed = parseLevels(weights);
+        int[] levelWeights = new int[parsed.length];
+        for (int level = 1; level < parsed.length; level++) {
+            levelWeights[level] = Math.toIntExact(parsed[level]);
+        }
+        long[] maxWait = null;
+        if (maxWaitSeconds != null) {
+            maxWait = maxWaitSeconds.contains(",")
+                ? parseLevels(maxWaitSeconds)
+                : parseLevels(String.join(",", Collections.nCopies(10, maxWaitSeconds)));
+            for (int level = 1; level < maxWait.length; level++) {
+                maxWait[level] = TimeUnit.SECONDS.toNanos(maxWait[level]);
+            }
+        }
+        return new FairShareStore<>(EmergencyAlert::getSeverity, levelWeights, maxWait, System::nanoTime);
+    }
+
+    private static long[] parseLevels(String values) {
+        String[] parts = values.split(",");
+        if (parts.length != 10) {
+            throw new IllegalArgumentException("Expected ten values for severities 1-10: " + values);
+        }
+        long[] levels = new long[11];
+        for (int i = 0; i < parts.length; i++) {
+            levels[i + 1] = Long.parseLong(parts[i].trim());
+        }
+        return levels;
+    }
+
+    private static TaskPriorityQueue createTaskQueue() {
+        String offHeapDir = System.getProperty("crisisconnect.offHeapDir");
+        if (offHeapDir != null) {
+            return new TaskPriorityQueue(
+                new OffHeapStore<>(Paths.get(offHeapDir), "tasks", new TaskRecordCodec()));
+        }
+        return new TaskPriorityQueue(new DeadlineScheduler(SchedulingPolicy.DEADLINE_AGING));
+    }
+
+    // Metrics on both queues, published over JMX and, when
+    // crisisconnect.metricsFile is set, written there every 10 seconds.
+    private static QueueMetrics createMetrics(EmergencyPriorityQueue alerts, TaskPriorityQueue tasks) {
+        QueueMetrics metrics = new QueueMetrics();
+        alerts.setMetrics(metrics);
+        tasks.setMetrics(metrics);
+        metrics.registerMBean(QueueMetrics.DEFAULT_OBJECT_NAME);
+        String metricsFile = System.getProperty("crisisconnect.metricsFile");
+        if (metricsFile != null) {
+            metrics.startFileExport(Paths.get(metricsFile), 10, TimeUnit.SECONDS);
+        }
+        return metrics;
+    }
+
+    // Recovers persisted queues when a data directory is configured.
+    private static DurableQueues openDurableQueues(EmergencyPriorityQueue alerts, TaskPriorityQueue tasks,
+                                                   ResponseTeamQueue teams) {
+        String dataDir = System.getProperty("crisisconnect.dataDir");
+        if (dataDir == null) {
+            return null;
+        }
+        try {
+            return DurableQueues.open(Paths.get(dataDir), alerts, tasks, teams, FsyncPolicy.PER_BATCH);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Archives alerts leaving the queue and completed tasks when
+    // crisisconnect.archiveDir is set.
+    private static ColdStorage openColdStorage(EmergencyPriorityQueue alerts, DispatchEngine dispatchEngine) {
+        String archiveDir = System.getProperty("crisisconnect.archiveDir");
+        if (archiveDir == null) {
+            return null;
+        }
+        try {
+            ColdStorage coldStorage = ColdStorage.open(Paths.get(archiveDir));
+            alerts.addListener(coldStorage);
+            dispatchEngine.onCompleted(coldStorage::taskCompleted);
+            return coldStorage;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
     private void initializeData() {
+        if (durableQueues != null && durableQueues.hasRecoveredData()) {
+            return;
+        }
+
         // Sample emergency alerts
-        emergencyQueue.addAlert(new EmergencyAlert(1, "Major flooding in downtown area", 9, "Downtown"));
-        emergencyQueue.addAlert(new EmergencyAlert(2, "Building collapse at construction site", 8, "Industrial Zone"));
-        emergencyQueue.addAlert(new EmergencyAlert(3, "Chemical spill on highway", 7, "Highway 101"));
+        emergencyQueue.addAlert(new EmergencyAlert(emergencyQueue.getNextAlertId(), "Major flooding in downtown area", 9, "Downtown"));
+        emergencyQueue.addAlert(new EmergencyAlert(emergencyQueue.getNextAlertId(), "Building collapse at construction site", 8, "Industrial Zone"));
+        emergencyQueue.addAlert(new EmergencyAlert(emergencyQueue.getNextAlertId(), "Chemical spill on highway", 7, "Highway 101"));
 
         // Sample tasks
         LocalDateTime now = LocalDateTime.now();
-        taskQueue.addTask(new Task(1, "Coordinate evacuation of flood zone", 10, now.plusHours(1)));
-        taskQueue.addTask(new Task(2, "Deploy search and rescue teams", 9, now.plusHours(2)));
-        taskQueue.addTask(new Task(3, "Set up emergency medical station", 8, now.plusHours(3)));
+        taskQueue.addTask(new Task(taskQueue.getNextTaskId(), "Coordinate evacuation of flood zone", 10, now.plusHours(1)));
+        taskQueue.addTask(new Task(taskQueue.getNextTaskId(), "Deploy search and rescue teams", 9, now.plusHours(2)));
+        taskQueue.addTask(new Task(taskQueue.getNextTaskId(), "Set up emergency medical station", 8, now.plusHours(3)));
 
         // Sample response teams
-        teamQueue.addTeam(new ResponseTeam(1, "Alpha Team", "Search and Rescue"));
-        teamQueue.addTeam(new ResponseTeam(2, "Beta Team", "Medical Emergency"));
-        teamQueue.addTeam(new ResponseTeam(3, "Gamma Team", "Hazmat Response"));
+        teamQueue.addTeam(new ResponseTeam(teamQueue.getNextTeamId(), "Alpha Team", "Search and Rescue"));
+        teamQueue.addTeam(new ResponseTeam(teamQueue.getNextTeamId(), "Beta Team", "Medical Emergency"));
+        teamQueue.addTeam(new ResponseTeam(teamQueue.getNextTeamId(), "Gamma Team", "Hazmat Response"));
     }
 
     private void createGUI() {
@@ -207,11 +512,15 @@ public class CrisisConnectApp extends JFrame {
         JButton addAlertButton = createStyledButton("New Alert");
         JButton addTaskButton = createStyledButton("New Task");
         JButton addTeamButton = createStyledButton("Add Team");
+        JButton dispatchButton = createStyledButton("Dispatch");
+        JButton completeButton = createStyledButton("Complete Task");
 
         buttonPanel.add(refreshButton);
         buttonPanel.add(addAlertButton);
         buttonPanel.add(addTaskButton);
         buttonPanel.add(addTeamButton);
+        buttonPanel.add(dispatchButton);
+        buttonPanel.add(completeButton);
 
         headerPanel.add(buttonPanel, BorderLayout.EAST);
         return headerPanel;
@@ -219,23 +528,32 @@ public class CrisisConnectApp extends JFrame {
 
     private void createTabs() {
         // Alerts Tab
-        JPanel alertsPanel = createContentPanel("Emergency Alerts");
-        alertArea = createStyledTextArea();
-        alertsPanel.add(new JScrollPane(alertArea), BorderLayout.CENTER);
+        JPanel alertsPanel = createContentPanel("Emergency Alerts (Priority Order)");
+        alertModel = alertTableModel();
+        alertsPanel.add(new JScrollPane(createStyledTable(alertModel)), BorderLayout.CENTER);
         tabbedPane.addTab("Alerts", null, alertsPanel, "View and manage emergency alerts");
 
         // Tasks Tab
-        JPanel tasksPanel = createContentPanel("Active Tasks");
-        taskArea = createStyledTextArea();
-        tasksPanel.add(new JScrollPane(taskArea), BorderLayout.CENTER);
+        JPanel tasksPanel = createContentPanel("Active Tasks (Priority Order)");
+        taskModel = taskTableModel();
+        tasksPanel.add(new JScrollPane(createStyledTable(taskModel)), BorderLayout.CENTER);
         tabbedPane.addTab("Tasks", null, tasksPanel, "View and manage tasks");
 
         // Teams Tab
         JPanel teamsPanel = createContentPanel("Response Teams");
-        teamArea = createStyledTextArea();
-        teamsPanel.add(new JScrollPane(teamArea), BorderLayout.CENTER);
+        teamModel = teamTableModel();
+        teamsPanel.add(new JScrollPane(createStyledTable(teamModel)), BorderLayout.CENTER);
         tabbedPane.addTab("Teams", null, teamsPanel, "View and manage response teams");
 
+        // Tables follow the queues' change feed from here on
+        changeFeed = new ChangeFeed();
+        emergencyQueue.addListener(changeFeed);
+        taskQueue.addListener(changeFeed);
+        teamQueue.addListener(changeFeed);
+        refreshPipeline = new RefreshPipeline(changeFeed, alertModel, () -> emergencyQueue.snapshot().detach(),
+            taskModel, () -> taskQueue.snapshot().detach(),
+            teamModel, () -> Arrays.asList(teamQueue.getTeams()));
+        refreshPipeline.setMetrics(metrics);
         updateDisplays();
     }
 
@@ -251,12 +569,14 @@ public class CrisisConnectApp extends JFrame {
         return panel;
     }
 
-    private JTextArea createStyledTextArea() {
-        JTextArea textArea = new JTextArea();
-        textArea.setFont(CONTENT_FONT);
-        textArea.setEditable(false);
-        textArea.setMargin(new Insets(10, 10, 10, 10));
-        return textArea;
+    private JTable createStyledTable(QueueTableModel<?> model) {
+        JTable table = new JTable(model);
+        table.setFont(CONTENT_FONT);
+        table.setRowHeight(22);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setFont(HEADER_FONT);
+        table.getTableHeader().setReorderingAllowed(false);
+        return table;
     }
 
     private JButton createStyledButton(String text) {
@@ -281,6 +601,18 @@ public class CrisisConnectApp extends JFrame {
         statusLabel.setForeground(Color.WHITE);
         statusBar.add(statusLabel, BorderLayout.WEST);
 
+        JLabel ratesLabel = new JLabel();
+        ratesLabel.setForeground(Color.WHITE);
+        statusBar.add(ratesLabel, BorderLayout.EAST);
+        // Window counts are O(1) to read, so polling each second is cheap
+        Timer ratesTimer = new Timer(1000, e -> ratesLabel.setText(String.format(
+            "New alerts - last minute: %d | 5 min: %d | hour: %d",
+            alertStatistics.count(AlertStatistics.Window.ONE_MINUTE),
+            alertStatistics.count(AlertStatistics.Window.FIVE_MINUTES),
+            alertStatistics.count(AlertStatistics.Window.ONE_HOUR))));
+        ratesTimer.setInitialDelay(0);
+        ratesTimer.start();
+
         return statusBar;
     }
 
@@ -298,9 +630,41 @@ public class CrisisConnectApp extends JFrame {
             case "Add Team":
                 showNewTeamDialog();
                 break;
+            case "Dispatch":
+                dispatchTasks();
+                break;
+            case "Complete Task":
+                completeTask();
+                break;
         }
     }
 
+    private void completeTask() {
+        String input = JOptionPane.showInputDialog(this, "Task ID:");
+        if (input == null) {
+            return;
+        }
+        try {
+            // Frees the team, which takes the next waiting task if there is one
+            if (dispatchEngine.complete(Integer.parseInt(input.trim()))) {
+                JOptionPane.showMessageDialog(this, String.format("Task completed; %d waiting for a team.",
+                    dispatchEngine.waitingCount()));
+            } else {
+                JOptionPane.showMessageDialog(this, "No dispatched task with ID " + input.trim(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Task ID must be a number", "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void dispatchTasks() {
+        // Polled tasks and team status changes reach the tables as deltas
+        int assigned = dispatchEngine.dispatchRound(DISPATCH_ROUND_SIZE).size();
+        JOptionPane.showMessageDialog(this, String.format("Assigned %d task(s); %d waiting for a team.",
+            assigned, dispatchEngine.waitingCount()));
+    }
+
     private void showNewAlertDialog() {
         JDialog dialog = new JDialog(this, "New Emergency Alert", true);
         dialog.setLayout(new GridBagLayout());
@@ -337,8 +701,7 @@ public class CrisisConnectApp extends JFrame {
                 (Integer) severitySpinner.getValue(),
                 locationField.getText()
             );
-            emergencyQueue.addAlert(alert);
-            updateDisplays();
+            alertDeduplicator.submit(alert);
             dialog.dispose();
         });
 
@@ -362,6 +725,9 @@ public class CrisisConnectApp extends JFrame {
         JTextField nameField = new JTextField(20);
         JSpinner prioritySpinner = new JSpinner(new SpinnerNumberModel(1, 1, 10, 1));
         JSpinner hoursSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 72, 1));
+        JComboBox<String> specBox = new JComboBox<>(SPECIALIZATIONS);
+        specBox.insertItemAt(ANY_SPECIALIZATION, 0);
+        specBox.setSelectedIndex(0);
     
         gbc.gridx = 0; gbc.gridy = 0;
         dialog.add(new JLabel("Task Name:"), gbc);
@@ -377,22 +743,29 @@ public class CrisisConnectApp extends JFrame {
         dialog.add(new JLabel("Deadline (hours from now):"), gbc);
         gbc.gridx = 1;
         dialog.add(hoursSpinner, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 3;
+        dialog.add(new JLabel("Required team:"), gbc);
+        gbc.gridx = 1;
+        dialog.add(specBox, gbc);
     
         JButton submitButton = new JButton("Create Task");
         submitButton.addActionListener(e -> {
             LocalDateTime deadline = LocalDateTime.now().plusHours((Integer) hoursSpinner.getValue());
             Task newTask = new Task(
-                    -1, // ID will be assigned by queue
+                    taskQueue.getNextTaskId(),
                     nameField.getText(),
                     (Integer) prioritySpinner.getValue(),
                     deadline
             );
+            if (specBox.getSelectedIndex() > 0) {
+                newTask.setRequiredSpecialization((String) specBox.getSelectedItem());
+            }
             taskQueue.addTask(newTask);
-            updateDisplays();
             dialog.dispose();
         });
     
-        gbc.gridx = 0; gbc.gridy = 3;
+        gbc.gridx = 0; gbc.gridy = 4;
         gbc.gridwidth = 2;
         dialog.add(submitButton, gbc);
     
@@ -410,8 +783,7 @@ public class CrisisConnectApp extends JFrame {
     
         // Add form fields
         JTextField nameField = new JTextField(20);
-        String[] specializations = {"Search and Rescue", "Medical Emergency", "Fire Response", "Hazmat Response", "Evacuation", "Logistics"};
-        JComboBox<String> specBox = new JComboBox<>(specializations);
+        JComboBox<String> specBox = new JComboBox<>(SPECIALIZATIONS);
     
         gbc.gridx = 0; gbc.gridy = 0;
         dialog.add(new JLabel("Team Name:"), gbc);
@@ -426,12 +798,11 @@ public class CrisisConnectApp extends JFrame {
         JButton submitButton = new JButton("Add Team");
         submitButton.addActionListener(e -> {
             ResponseTeam newTeam = new ResponseTeam(
-                    -1, // ID will be assigned by queue
+                    teamQueue.getNextTeamId(),
                     nameField.getText(),
                     (String) specBox.getSelectedItem()
             );
             teamQueue.addTeam(newTeam);
-            updateDisplays();
             dialog.dispose();
         });
     
@@ -444,49 +815,97 @@ public class CrisisConnectApp extends JFrame {
         dialog.setVisible(true);
     }
 
+    // Full rebuild from the queues, prepared off the EDT; new rows otherwise
+    // arrive as coalesced deltas.
     private void updateDisplays() {
-        updateAlertDisplay();
-        updateTaskDisplay();
-        updateTeamDisplay();
+        refreshPipeline.requestRebuild();
     }
 
-    private void updateAlertDisplay() {
+    // Text for the alerts pane as it was before the tables; kept for the
+    // render benchmark baseline.
+    static String renderAlerts(QueueSnapshot<EmergencyAlert> alerts) {
         StringBuilder sb = new StringBuilder();
         sb.append("EMERGENCY ALERTS (Priority Order)\n");
         sb.append("================================\n\n");
         
-        for (EmergencyAlert alert : emergencyQueue.getAlerts()) {
+        for (EmergencyAlert alert : alerts.top(DISPLAY_PAGE_SIZE)) {
             sb.append(alert.toString()).append("\n\n");
         }
-        
-        alertArea.setText(sb.toString());
+        appendRemainder(sb, alerts.size(), "alerts");
+        return sb.toString();
     }
 
-    private void updateTaskDisplay() {
+    static String renderTasks(QueueSnapshot<Task> tasks) {
         StringBuilder sb = new StringBuilder();
         sb.append("ACTIVE TASKS (Priority Order)\n");
         sb.append("============================\n\n");
         
-        for (Task task : taskQueue.getTasks()) {
+        for (Task task : tasks.top(DISPLAY_PAGE_SIZE)) {
             sb.append(task.toString()).append("\n\n");
         }
-        
-        taskArea.setText(sb.toString());
+        appendRemainder(sb, tasks.size(), "tasks");
+        return sb.toString();
     }
 
-    private void updateTeamDisplay() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("RESPONSE TEAMS\n");
-        sb.append("==============\n\n");
-        
-        for (ResponseTeam team : teamQueue.getTeams()) {
-            sb.append(team.toString()).append("\n\n");
+    static QueueTableModel<EmergencyAlert> alertTableModel() {
+        return new QueueTableModel<>(
+            new String[] {"ID", "Severity", "Location", "Status", "Reported", "Reports", "Description"},
+            List.of(EmergencyAlert::getAlertId, EmergencyAlert::getSeverity, EmergencyAlert::getLocation,
+                EmergencyAlert::getStatus, a -> formatTime(a.getTimestamp()), EmergencyAlert::getReportCount,
+                EmergencyAlert::getDescription),
+            CrisisConnectApp::alertRowKey, EmergencyAlert::getAlertId);
+    }
+
+    static QueueTableModel<Task> taskTableModel() {
+        return new QueueTableModel<>(
+            new String[] {"ID", "Priority", "Deadline", "Team", "Status", "Required", "Task"},
+            List.of(Task::getTaskId, Task::getPriority, t -> formatTime(t.getDeadline()), Task::getAssignedTeam,
+                Task::getStatus, t -> t.getRequiredSpecialization() == null ? ANY_SPECIALIZATION
+                    : t.getRequiredSpecialization(), Task::getName),
+            CrisisConnectApp::taskRowKey, Task::getTaskId);
+    }
+
+    static QueueTableModel<ResponseTeam> teamTableModel() {
+        return new QueueTableModel<>(
+            new String[] {"ID", "Team", "Specialization", "Status", "Current Task"},
+            List.of(ResponseTeam::getTeamId, ResponseTeam::getName, ResponseTeam::getSpecialization,
+                ResponseTeam::getStatus, ResponseTeam::getCurrentTask),
+            ResponseTeam::getTeamId, ResponseTeam::getTeamId);
+    }
+
+    // Row sort keys, which place rows added between table rebuilds; rebuilt
+    // rows follow the queue's own order. Most severe first, then by id
+    // (arrival order).
+    static long alertRowKey(EmergencyAlert alert) {
+        return ((long) -alert.getSeverity() << 32) + (alert.getAlertId() & 0xFFFFFFFFL);
+    }
+
+    // Highest priority first, then earliest deadline, then id. The fields
+    // are summed into disjoint bit ranges: priority above bit 58, deadline
+    // minutes (26 bits, ~127 years from 2020) above bit 32, id below.
+    static long taskRowKey(Task task) {
+        long minutes = task.getDeadline() == null ? (1L << 26) - 1
+            : Math.max(0, Math.min((1L << 26) - 1,
+                Duration.between(ROW_KEY_EPOCH, task.getDeadline()).toMinutes()));
+        return ((long) -task.getPriority() << 58) + (minutes << 32) + (task.getTaskId() & 0xFFFFFFFFL);
+    }
+
+    private static String formatTime(LocalDateTime time) {
+        return time == null ? "" : time.format(TIME_FORMAT);
+    }
+
+    private static void appendRemainder(StringBuilder sb, int total, String noun) {
+        if (total > DISPLAY_PAGE_SIZE) {
+            sb.append(String.format("... and %d more %s\n", total - DISPLAY_PAGE_SIZE, noun));
         }
-        
-        teamArea.setText(sb.toString());
     }
 
+    // Usage: java com.crisisconnect.CrisisConnectApp [--headless [--port n] [--bind host]]
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--headless")) {
+            runHeadless(args);
+            return;
+        }
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
@@ -498,89 +917,690 @@ public class CrisisConnectApp extends JFrame {
             app.setVisible(true);
         });
     }
+
+    // Serves the queues over HeadlessServer's line protocol on this thread;
+    // no sample data, no Swing.
+    private static void runHeadless(String[] args) {
+        int port = HEADLESS_PORT;
+        String host = "127.0.0.1";
+        int replicationPort = -1;
+        String follow = null;
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--bind")) {
+                host = args[i + 1];
+            } else if (args[i].equals("--replication-port")) {
+                replicationPort = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--follow")) {
+                follow = args[i + 1];
+            }
+        }
+
+        EmergencyPriorityQueue alerts = createAlertQueue();
+        if (!alerts.hasLookup()) {
+            // TAKE_ALERTS (sharding) and RESOLVE_ALERT would fail on every request
+            System.err.println("Headless mode needs the default alert store;"
+                + " unset crisisconnect.offHeapDir and crisisconnect.alertWeights");
+            return;
+        }
+        TaskPriorityQueue tasks = createTaskQueue();
+        ResponseTeamQueue teams = new ResponseTeamQueue();
+        AlertDeduplicator deduplicator = new AlertDeduplicator(alerts);
+        try {
+            // A standby's replica replaces disk recovery; it serves once promoted
+            DurableQueues durable = null;
+            DurableQueues.RecoveredState replica = null;
+            long startLsn = 0;
+            if (follow == null) {
+                durable = openDurableQueues(alerts, tasks, teams);
+            } else {
+                InetSocketAddress self = replicationPort < 0 ? null : new InetSocketAddress(host, replicationPort);
+                ReplicationFollower follower = awaitLeaderLoss(ShardedAlertQueue.parseNodes(follow), self);
+                replica = follower.takeOver();
+                DurableQueues.restore(replica, alerts, tasks, teams);
+                startLsn = follower.appliedLsn();
+                System.out.println("CrisisConnect promoted at LSN " + startLsn);
+            }
+            // After recovery, so recovered alerts do not count as arrivals
+            QueueMetrics metrics = createMetrics(alerts, tasks);
+            // Lower-ranked standbys look for this leader within FAILOVER_MILLIS,
+            // so it starts before the journal's first snapshot is written
+            ReplicationLeader replication = null;
+            if (replicationPort >= 0) {
+                replication = new ReplicationLeader(alerts, tasks, teams, new InetSocketAddress(host, replicationPort),
+                    startLsn, ReplicationLeader.DEFAULT_BACKLOG);
+                System.out.println("CrisisConnect replicating on " + host + ":" + replication.getPort());
+            }
+            if (replica != null) {
+                durable = adoptDurableQueues(alerts, tasks, teams, replica.held.values());
+            }
+            DispatchEngine dispatchEngine = new DispatchEngine(tasks, teams);
+            if (durable != null) {
+                durable.attach(dispatchEngine);
+            } else if (replica != null) {
+                dispatchEngine.restore(replica.held.values());
+            }
+            if (replication != null) {
+                replication.attach(dispatchEngine);
+            }
+            ColdStorage coldStorage = openColdStorage(alerts, dispatchEngine);
+            HeadlessServer server = new HeadlessServer(alerts, tasks, teams, dispatchEngine, deduplicator,
+                new InetSocketAddress(host, port));
+            server.setColdStorage(coldStorage);
+            DurableQueues journal = durable;
+            ReplicationLeader leader = replication;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                if (leader != null) {
+                    leader.close();
+                }
+                if (journal != null) {
+                    journal.close();
+                }
+                if (coldStorage != null) {
+                    coldStorage.close();
+                }
+                metrics.close();
+            }));
+            System.out.println("CrisisConnect listening on " + host + ":" + server.getPort());
+            server.serve();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Starts a journal for a promoted standby when crisisconnect.dataDir is
+    // set; its first snapshot is the replica, not what the directory held.
+    private static DurableQueues adoptDurableQueues(EmergencyPriorityQueue alerts, TaskPriorityQueue tasks,
+                                                    ResponseTeamQueue teams, Collection<Task> heldTasks) {
+        String dataDir = System.getProperty("crisisconnect.dataDir");
+        if (dataDir == null) {
+            return null;
+        }
+        try {
+            return DurableQueues.adopt(Paths.get(dataDir), alerts, tasks, teams, heldTasks, FsyncPolicy.PER_BATCH);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Follows the leader until this node wins the failover, i.e. until the
+    // leader and every standby ranked above self have gone silent.
+    private static ReplicationFollower awaitLeaderLoss(List<InetSocketAddress> nodes, InetSocketAddress self) {
+        ReplicationFollower follower = new ReplicationFollower(nodes, self);
+        CountDownLatch lost = new CountDownLatch(1);
+        follower.onLeaderLost(lost::countDown);
+        follower.start();
+        System.out.println("CrisisConnect following " + nodes);
+        try {
+            lost.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return follower;
+    }
 }
 
 class EmergencyPriorityQueue {
-    private PriorityQueue<EmergencyAlert> queue;
-    private int nextAlertId;
-
+    private final PriorityStore<EmergencyAlert> queue;
+    private final AtomicInteger nextAlertId;
+    private final AtomicLong arrivals = new AtomicLong();
+    private final List<QueueListener> listeners = new CopyOnWriteArrayList<>();
+    // An OffHeapStore keeps queued alerts off the heap and hands back
+    // decoded copies, so its indexes hold ids only and queries decode
+    private final boolean offHeap;
+    private final StatusIndex<AlertStatus, EmergencyAlert> byStatus;
+    private final GeoIndex<EmergencyAlert> byLocation;
+    private QueueMetrics metrics;
+
+    // Binary heap, first queued first within a severity.
     public EmergencyPriorityQueue() {
-        queue = new PriorityQueue<>();
-        nextAlertId = 1;
+        this(new HeapStore<>(EmergencyAlert.ARRIVAL_ORDER));
+    }
+
+    // Pass a ConcurrentStore for many concurrent producers and consumers, a
+    // SeverityBucketStore for O(1) add/poll over the 1-10 severity range, or
+    // an IndexedAlertStore for lookup and re-prioritisation by alertId, an
+    // OffHeapStore to keep records in a memory-mapped file, a
+    // PackedHeapStore for a FIFO-stable heap over primitive keys, or a
+    // FairShareStore to share service between severities by weight so low
+    // severities cannot starve.
+    public EmergencyPriorityQueue(PriorityStore<EmergencyAlert> store) {
+        queue = store;
+        offHeap = store instanceof OffHeapStore;
+        byStatus = new StatusIndex<>(AlertStatus.class, EmergencyAlert::getAlertId, EmergencyAlert::getAlertStatus,
+            !offHeap);
+        byLocation = new GeoIndex<>(EmergencyAlert::getAlertId, EmergencyAlert::getLatitude,
+            EmergencyAlert::getLongitude, !offHeap);
+        nextAlertId = new AtomicInteger(1);
+        byStatus.onMove(this::fireUpdated);
+    }
+
+    public void addListener(QueueListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(QueueListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Set before the queue is in use; null turns metrics off.
+    public void setMetrics(QueueMetrics metrics) {
+        this.metrics = metrics;
     }
 
     public void addAlert(EmergencyAlert alert) {
-        queue.offer(alert);
+        long start = metrics == null ? 0 : System.nanoTime();
+        alert.setQueuedAtNanos(start);
+        alert.setArrival(arrivals.getAndIncrement());
+        // Indexed first: with a ConcurrentStore another thread may poll it
+        // as soon as it is offered
+        indexed(alert);
+        try {
+            queue.offer(alert);
+        } catch (RuntimeException e) {
+            unindexed(alert);
+            throw e;
+        }
+        for (QueueListener listener : listeners) {
+            listener.alertAdded(alert);
+        }
+        if (metrics != null) {
+            metrics.alertsAdded.increment();
+            metrics.alertEnqueue.record(System.nanoTime() - start);
+        }
+    }
+
+    // One store operation for the whole batch (e.g. a gateway flushing after
+    // a reconnect); listeners still hear about each alert.
+    public void addAll(Collection<? extends EmergencyAlert> alerts) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        long arrival = arrivals.getAndAdd(alerts.size());
+        for (EmergencyAlert alert : alerts) {
+            alert.setQueuedAtNanos(start);
+            alert.setArrival(arrival++);
+            indexed(alert);
+        }
+        try {
+            queue.offerAll(alerts);
+        } catch (RuntimeException e) {
+            for (EmergencyAlert alert : alerts) {
+                unindexed(alert);
+            }
+            throw e;
+        }
+        for (EmergencyAlert alert : alerts) {
+            for (QueueListener listener : listeners) {
+                listener.alertAdded(alert);
+            }
+        }
+        if (metrics != null) {
+            // One sample per batch: the latency a producer saw
+            metrics.alertsAdded.add(alerts.size());
+            metrics.alertEnqueue.record(System.nanoTime() - start);
+        }
     }
 
     public EmergencyAlert getNextAlert() {
-        return queue.poll();
+        long start = metrics == null ? 0 : System.nanoTime();
+        EmergencyAlert alert = queue.poll();
+        if (alert != null) {
+            polled(alert);
+            if (metrics != null) {
+                metrics.alertDequeue.record(System.nanoTime() - start);
+            }
+        }
+        return alert;
+    }
+
+    // Polls up to max alerts, in priority order, into target.
+    public int drainTo(Collection<? super EmergencyAlert> target, int max) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<EmergencyAlert> batch = new ArrayList<>(Math.min(max, queue.size()));
+        queue.drainTo(batch, max);
+        for (EmergencyAlert alert : batch) {
+            polled(alert);
+        }
+        target.addAll(batch);
+        if (metrics != null && !batch.isEmpty()) {
+            metrics.alertDequeue.record(System.nanoTime() - start);
+        }
+        return batch.size();
+    }
+
+    private void indexed(EmergencyAlert alert) {
+        if (!offHeap) {
+            // The off-heap record does not follow the offered object's transitions
+            alert.attachIndex(byStatus);
+        }
+        byStatus.add(alert);
+        if (alert.hasCoordinates()) {
+            byLocation.add(alert);
+        }
+    }
+
+    private void unindexed(EmergencyAlert alert) {
+        byStatus.remove(alert);
+        byLocation.remove(alert);
+        alert.attachIndex(null);
+    }
+
+    private void polled(EmergencyAlert alert) {
+        if (metrics != null) {
+            metrics.alertPolled(alert, System.nanoTime());
+        }
+        unindexed(alert);
+        for (QueueListener listener : listeners) {
+            listener.alertPolled(alert);
+        }
     }
 
     public boolean isEmpty() {
         return queue.isEmpty();
     }
 
+    public int size() {
+        return queue.size();
+    }
+
+    // Versioned view in priority order; page through it instead of copying.
+    public QueueSnapshot<EmergencyAlert> snapshot() {
+        return queue.snapshot();
+    }
+
     public EmergencyAlert[] getAlerts() {
-        return queue.toArray(new EmergencyAlert[0]);
+        QueueSnapshot<EmergencyAlert> snapshot = queue.snapshot();
+        return snapshot.top(snapshot.size()).toArray(new EmergencyAlert[0]);
     }
 
     public int getNextAlertId() {
-        return nextAlertId++;
+        return nextAlertId.getAndIncrement();
+    }
+
+    int peekNextAlertId() {
+        return nextAlertId.get();
+    }
+
+    // Keeps new ids clear of ones restored from disk.
+    void reserveIdsThrough(int alertId) {
+        nextAlertId.accumulateAndGet(alertId + 1, Math::max);
+    }
+
+    // Queued alerts in one status, without scanning the queue.
+    public Collection<EmergencyAlert> getAlertsByStatus(AlertStatus status) {
+        if (offHeap) {
+            return OffHeapStore.select(queue.snapshot(), EmergencyAlert::getAlertId, byStatus.ids(status));
+        }
+        return byStatus.get(status);
+    }
+
+    public int countByStatus(AlertStatus status) {
+        return byStatus.count(status);
+    }
+
+    // Queued alerts with coordinates within radiusKm of a point and at least
+    // minSeverity, in no particular order.
+    public List<EmergencyAlert> alertsWithin(double latitude, double longitude, double radiusKm, int minSeverity) {
+        if (offHeap) {
+            List<EmergencyAlert> alerts = OffHeapStore.select(queue.snapshot(), EmergencyAlert::getAlertId,
+                byLocation.idsWithin(latitude, longitude, radiusKm));
+            alerts.removeIf(alert -> alert.getSeverity() < minSeverity);
+            return alerts;
+        }
+        return byLocation.within(latitude, longitude, radiusKm, alert -> alert.getSeverity() >= minSeverity);
+    }
+
+    // Up to k queued alerts with coordinates, nearest first.
+    public List<EmergencyAlert> nearestAlerts(double latitude, double longitude, int k) {
+        if (offHeap) {
+            return OffHeapStore.select(queue.snapshot(), EmergencyAlert::getAlertId,
+                byLocation.nearestIds(latitude, longitude, k));
+        }
+        return byLocation.nearest(latitude, longitude, k, alert -> true);
+    }
+
+    // Lookup and in-place updates by alertId; need an IndexedAlertStore.
+    public EmergencyAlert getAlert(int alertId) {
+        return indexed().get(alertId);
+    }
+
+    public boolean updateSeverity(int alertId, int severity) {
+        if (!indexed().updateSeverity(alertId, severity)) {
+            return false;
+        }
+        fireUpdated(indexed().get(alertId));
+        return true;
+    }
+
+    // Folds a duplicate report into a queued alert: adds its reports to the
+    // count and raises the severity to the report's if that is higher. Only
+    // an IndexedAlertStore can re-prioritize a queued alert, so with other
+    // stores, or once the target has left the queue, nothing is merged and
+    // false tells the caller to queue the report as an alert of its own.
+    public boolean mergeReport(EmergencyAlert target, EmergencyAlert report) {
+        if (!(queue instanceof IndexedAlertStore)) {
+            return false;
+        }
+        EmergencyAlert queued = indexed().get(target.getAlertId());
+        if (queued == null) {
+            return false;
+        }
+        // Checked before the count changes, so a bad report merges nothing
+        IndexedAlertStore.checkSeverity(report.getSeverity());
+        queued.setReportCount(queued.getReportCount() + report.getReportCount());
+        if (report.getSeverity() > queued.getSeverity()) {
+            indexed().updateSeverity(queued.getAlertId(), report.getSeverity());
+        }
+        fireUpdated(queued);
+        return true;
+    }
+
+    public boolean updateStatus(int alertId, String status) {
+        EmergencyAlert alert = indexed().get(alertId);
+        if (alert == null) {
+            return false;
+        }
+        // The status index reports the change
+        alert.setStatus(status);
+        return true;
+    }
+
+    public EmergencyAlert cancel(int alertId) {
+        EmergencyAlert alert = remove(alertId, AlertStatus.CANCELLED);
+        if (alert != null) {
+            for (QueueListener listener : listeners) {
+                listener.alertCancelled(alert);
+            }
+            if (metrics != null) {
+                metrics.alertsCancelled.increment();
+            }
+        }
+        return alert;
+    }
+
+    // Polls one particular alert, e.g. the one a ShardedAlertQueue picked
+    // as the best cluster-wide; null if it is no longer queued.
+    public EmergencyAlert take(int alertId) {
+        EmergencyAlert alert = indexed().cancel(alertId);
+        if (alert != null) {
+            polled(alert);
+        }
+        return alert;
+    }
+
+    // Takes a handled alert out of the queue as Resolved.
+    public EmergencyAlert resolve(int alertId) {
+        EmergencyAlert alert = remove(alertId, AlertStatus.RESOLVED);
+        if (alert != null) {
+            for (QueueListener listener : listeners) {
+                listener.alertResolved(alert);
+            }
+        }
+        return alert;
+    }
+
+    private EmergencyAlert remove(int alertId, AlertStatus status) {
+        EmergencyAlert alert = indexed().cancel(alertId);
+        if (alert != null) {
+            unindexed(alert);
+            if (alert.getAlertStatus().canTransitionTo(status)) {
+                alert.setStatus(status);
+            }
+        }
+        return alert;
+    }
+
+    private void fireUpdated(EmergencyAlert alert) {
+        for (QueueListener listener : listeners) {
+            listener.alertUpdated(alert);
+        }
+    }
+
+    // Whether getAlert, take, resolve, cancel and the other by-id updates work.
+    public boolean hasLookup() {
+        return queue instanceof IndexedAlertStore;
+    }
+
+    private IndexedAlertStore indexed() {
+        if (!(queue instanceof IndexedAlertStore)) {
+            throw new UnsupportedOperationException("Lookup by alert id requires an IndexedAlertStore");
+        }
+        return (IndexedAlertStore) queue;
     }
 }
 
 class TaskPriorityQueue {
-    private PriorityQueue<Task> queue;
+    private final PriorityStore<Task> queue;
     private int nextTaskId;
+    private final List<QueueListener> listeners = new CopyOnWriteArrayList<>();
+    // Ids only over an OffHeapStore, as for alerts
+    private final boolean offHeap;
+    private final StatusIndex<TaskStatus, Task> byStatus;
+    private QueueMetrics metrics;
 
     public TaskPriorityQueue() {
-        queue = new PriorityQueue<>();
+        this(new HeapStore<>());
+    }
+
+    // Pass a DeadlineScheduler to order by deadline (EDF) or deadline aging.
+    public TaskPriorityQueue(PriorityStore<Task> store) {
+        queue = store;
+        offHeap = store instanceof OffHeapStore;
+        byStatus = new StatusIndex<>(TaskStatus.class, Task::getTaskId, Task::getTaskStatus, !offHeap);
         nextTaskId = 1;
+        byStatus.onMove(task -> {
+            for (QueueListener listener : listeners) {
+                listener.taskUpdated(task);
+            }
+        });
+    }
+
+    public void addListener(QueueListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(QueueListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Set before the queue is in use; null turns metrics off.
+    public void setMetrics(QueueMetrics metrics) {
+        this.metrics = metrics;
     }
 
     public void addTask(Task task) {
-        queue.offer(task);
+        long start = metrics == null ? 0 : System.nanoTime();
+        // Indexed first, as for alerts
+        indexed(task);
+        try {
+            queue.offer(task);
+        } catch (RuntimeException e) {
+            unindexed(task);
+            throw e;
+        }
+        for (QueueListener listener : listeners) {
+            listener.taskAdded(task);
+        }
+        if (metrics != null) {
+            metrics.tasksAdded.increment();
+            metrics.taskEnqueue.record(System.nanoTime() - start);
+        }
+    }
+
+    public void addAll(Collection<? extends Task> tasks) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        for (Task task : tasks) {
+            indexed(task);
+        }
+        try {
+            queue.offerAll(tasks);
+        } catch (RuntimeException e) {
+            for (Task task : tasks) {
+                unindexed(task);
+            }
+            throw e;
+        }
+        for (Task task : tasks) {
+            for (QueueListener listener : listeners) {
+                listener.taskAdded(task);
+            }
+        }
+        if (metrics != null) {
+            metrics.tasksAdded.add(tasks.size());
+            metrics.taskEnqueue.record(System.nanoTime() - start);
+        }
     }
 
     public Task getNextTask() {
-        return queue.poll();
+        long start = metrics == null ? 0 : System.nanoTime();
+        Task task = queue.poll();
+        if (task != null) {
+            polled(task);
+            if (metrics != null) {
+                metrics.taskDequeue.record(System.nanoTime() - start);
+            }
+        }
+        return task;
+    }
+
+    // Polls up to max tasks, in scheduling order, into target.
+    public int drainTo(Collection<? super Task> target, int max) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<Task> batch = new ArrayList<>(Math.min(max, queue.size()));
+        queue.drainTo(batch, max);
+        for (Task task : batch) {
+            polled(task);
+        }
+        target.addAll(batch);
+        if (metrics != null && !batch.isEmpty()) {
+            metrics.taskDequeue.record(System.nanoTime() - start);
+        }
+        return batch.size();
+    }
+
+    private void indexed(Task task) {
+        if (!offHeap) {
+            task.attachIndex(byStatus);
+        }
+        byStatus.add(task);
+    }
+
+    private void unindexed(Task task) {
+        byStatus.remove(task);
+        task.attachIndex(null);
+    }
+
+    private void polled(Task task) {
+        if (metrics != null) {
+            metrics.tasksPolled.increment();
+        }
+        unindexed(task);
+        for (QueueListener listener : listeners) {
+            listener.taskPolled(task);
+        }
     }
 
     public boolean isEmpty() {
         return queue.isEmpty();
     }
 
+    public int size() {
+        return queue.size();
+    }
+
+    public QueueSnapshot<Task> snapshot() {
+        return queue.snapshot();
+    }
+
+    public Collection<Task> getTasksByStatus(TaskStatus status) {
+        if (offHeap) {
+            return OffHeapStore.select(queue.snapshot(), Task::getTaskId, byStatus.ids(status));
+        }
+        return byStatus.get(status);
+    }
+
+    public int countByStatus(TaskStatus status) {
+        return byStatus.count(status);
+    }
+
     public Task[] getTasks() {
-        return queue.toArray(new Task[0]);
+        QueueSnapshot<Task> snapshot = queue.snapshot();
+        return snapshot.top(snapshot.size()).toArray(new Task[0]);
     }
 
     public int getNextTaskId() {
         return nextTaskId++;
     }
+
+    int peekNextTaskId() {
+        return nextTaskId;
+    }
+
+    void reserveIdsThrough(int taskId) {
+        nextTaskId = Math.max(nextTaskId, taskId + 1);
+    }
 }
 
 class ResponseTeamQueue {
     private Queue<ResponseTeam> queue;
     private int nextTeamId;
+    private final List<QueueListener> listeners = new CopyOnWriteArrayList<>();
+    private final StatusIndex<TeamStatus, ResponseTeam> byStatus =
+        new StatusIndex<>(TeamStatus.class, ResponseTeam::getTeamId, ResponseTeam::getTeamStatus);
 
     public ResponseTeamQueue() {
         queue = new LinkedList<>();
         nextTeamId = 1;
+        byStatus.onMove(team -> {
+            for (QueueListener listener : listeners) {
+                listener.teamUpdated(team);
+            }
+        });
+    }
+
+    public void addListener(QueueListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(QueueListener listener) {
+        listeners.remove(listener);
     }
 
     public void addTeam(ResponseTeam team) {
         queue.offer(team);
+        team.attachIndex(byStatus);
+        byStatus.add(team);
+        for (QueueListener listener : listeners) {
+            listener.teamAdded(team);
+        }
     }
 
     public ResponseTeam getNextTeam() {
-        return queue.poll();
+        ResponseTeam team = queue.poll();
+        if (team != null) {
+            byStatus.remove(team);
+            team.attachIndex(null);
+            for (QueueListener listener : listeners) {
+                listener.teamPolled(team);
+            }
+        }
+        return team;
     }
 
     public boolean isEmpty() {
         return queue.isEmpty();
     }
 
+    public Collection<ResponseTeam> getTeamsByStatus(TeamStatus status) {
+        return byStatus.get(status);
+    }
+
+    public int countByStatus(TeamStatus status) {
+        return byStatus.count(status);
+    }
+
     public ResponseTeam[] getTeams() {
         return queue.toArray(new ResponseTeam[0]);
     }
@@ -588,6 +1608,14 @@ class ResponseTeamQueue {
     public int getNextTeamId() {
         return nextTeamId++;
     }
+
+    int peekNextTeamId() {
+        return nextTeamId;
+    }
+
+    void reserveIdsThrough(int teamId) {
+        nextTeamId = Math.max(nextTeamId, teamId + 1);
+    }
 }
 
 // Additional utility classes for the dialogs
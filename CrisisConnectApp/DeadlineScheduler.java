@@ -0,0 +1,328 @@
+package com.crisisconnect;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+enum SchedulingPolicy {
+    STRICT_PRIORITY,         // priority only, as Task.compareTo
+    EARLIEST_DEADLINE_FIRST, // deadline, then priority
+    DEADLINE_AGING           // priority boosted as the deadline approaches
+}
+
+// Task store with selectable scheduling policies. Tasks live in a balanced
+// (AVL) search tree ordered by the policy, so every operation is O(log n).
+//
+// Under DEADLINE_AGING a task's boost only changes when it crosses one of the
+// AGING_THRESHOLDS before its deadline. Those crossings are known in advance,
+// so each task has exactly one pending promotion filed in a time bucket;
+// advancing the clock only re-ranks tasks whose bucket has come due, instead
+// of re-heapifying the whole queue.
+//
+// The tree is persistent: a write copies the O(log n) nodes on its path
+// and leaves the previous version intact, so a snapshot is just the root
+// and stays valid while the scheduler keeps changing, with no O(n) copy
+// on the first write after it.
+class DeadlineScheduler implements PriorityStore<Task> {
+    private static final long MINUTE = 60_000L;
+    private static final long[] AGING_THRESHOLDS = {240 * MINUTE, 60 * MINUTE, 15 * MINUTE, 0};
+    private static final int[] AGING_BOOSTS = {0, 1, 2, 3, 4};
+    private static final long BUCKET_MILLIS = 1000;
+
+    private final SchedulingPolicy policy;
+    private final Clock clock;
+    private final Comparator<Entry> order;
+    private Node ready;
+    private int size;
+    private final TreeMap<Long, List<Entry>> promotions = new TreeMap<>();
+    private long sequence;
+    private long version;
+
+    public DeadlineScheduler(SchedulingPolicy policy) {
+        this(policy, Clock.systemDefaultZone());
+    }
+
+    public DeadlineScheduler(SchedulingPolicy policy, Clock clock) {
+        this.policy = policy;
+        this.clock = clock;
+        this.order = comparatorFor(policy);
+    }
+
+    public SchedulingPolicy getPolicy() {
+        return policy;
+    }
+
+    public void offer(Task task) {
+        long now = clock.millis();
+        advance(now);
+        add(task, now);
+        version++;
+    }
+
+    // Reads the clock and applies due promotions once for the whole batch.
+    public void offerAll(Collection<? extends Task> tasks) {
+        long now = clock.millis();
+        advance(now);
+        for (Task task : tasks) {
+            add(task, now);
+        }
+        version++;
+    }
+
+    private void add(Task task, long now) {
+        Entry entry = new Entry(task, toMillis(task.getDeadline()), sequence++);
+        if (policy == SchedulingPolicy.DEADLINE_AGING) {
+            entry.tier = tierAt(entry, now);
+            schedulePromotion(entry);
+        }
+        ready = insert(ready, entry);
+        size++;
+    }
+
+    public Task poll() {
+        advance(clock.millis());
+        if (ready == null) {
+            return null;
+        }
+        Entry entry = first(ready);
+        ready = removeFirst(ready);
+        size--;
+        entry.queued = false;
+        version++;
+        return entry.task;
+    }
+
+    public Task peek() {
+        advance(clock.millis());
+        return ready == null ? null : first(ready).task;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return ready == null;
+    }
+
+    // Entries re-ranked later keep their place in an older version of the
+    // tree, since iteration follows its links rather than the comparator.
+    public QueueSnapshot<Task> snapshot() {
+        advance(clock.millis());
+        Node frozen = ready;
+        long snapshotVersion = version;
+        int snapshotSize = size;
+        return new QueueSnapshot<Task>() {
+            public long version() {
+                return snapshotVersion;
+            }
+
+            public int size() {
+                return snapshotSize;
+            }
+
+            public Iterator<Task> iterator() {
+                // In-order walk; the stack holds the nodes whose left side is done
+                ArrayDeque<Node> path = new ArrayDeque<>();
+                for (Node node = frozen; node != null; node = node.left) {
+                    path.push(node);
+                }
+                return new Iterator<Task>() {
+                    public boolean hasNext() {
+                        return !path.isEmpty();
+                    }
+
+                    public Task next() {
+                        if (path.isEmpty()) {
+                            throw new NoSuchElementException();
+                        }
+                        Node node = path.pop();
+                        for (Node next = node.right; next != null; next = next.left) {
+                            path.push(next);
+                        }
+                        return node.entry.task;
+                    }
+                };
+            }
+        };
+    }
+
+    // Effective priority used for ordering, including any deadline boost.
+    public int effectivePriority(Task task) {
+        if (policy != SchedulingPolicy.DEADLINE_AGING) {
+            return task.getPriority();
+        }
+        Entry probe = new Entry(task, toMillis(task.getDeadline()), 0);
+        return task.getPriority() + AGING_BOOSTS[tierAt(probe, clock.millis())];
+    }
+
+    private void advance(long now) {
+        while (!promotions.isEmpty() && promotions.firstKey() * BUCKET_MILLIS <= now) {
+            Map.Entry<Long, List<Entry>> due = promotions.pollFirstEntry();
+            for (Entry entry : due.getValue()) {
+                if (!entry.queued) {
+                    continue;
+                }
+                int tier = tierAt(entry, now);
+                if (tier != entry.tier) {
+                    // Out under the old rank, back in under the new one
+                    ready = remove(ready, entry);
+                    entry.tier = tier;
+                    ready = insert(ready, entry);
+                    version++;
+                }
+                schedulePromotion(entry);
+            }
+        }
+    }
+
+    private void schedulePromotion(Entry entry) {
+        if (entry.tier >= AGING_THRESHOLDS.length || entry.deadline == Long.MAX_VALUE) {
+            return;
+        }
+        long promoteAt = entry.deadline - AGING_THRESHOLDS[entry.tier];
+        long bucket = Math.floorDiv(promoteAt + BUCKET_MILLIS - 1, BUCKET_MILLIS);
+        promotions.computeIfAbsent(bucket, k -> new ArrayList<>()).add(entry);
+    }
+
+    private static int tierAt(Entry entry, long now) {
+        long remaining = entry.deadline - now;
+        int tier = 0;
+        while (tier < AGING_THRESHOLDS.length && remaining <= AGING_THRESHOLDS[tier]) {
+            tier++;
+        }
+        return tier;
+    }
+
+    private long toMillis(LocalDateTime deadline) {
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return deadline.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    private static Comparator<Entry> comparatorFor(SchedulingPolicy policy) {
+        Comparator<Entry> bySequence = Comparator.comparingLong(e -> e.seq);
+        switch (policy) {
+            case EARLIEST_DEADLINE_FIRST:
+                return Comparator.<Entry>comparingLong(e -> e.deadline)
+                    .thenComparing((a, b) -> Integer.compare(b.task.getPriority(), a.task.getPriority()))
+                    .thenComparing(bySequence);
+            case DEADLINE_AGING:
+                return Comparator.<Entry>comparingInt(e -> -(e.task.getPriority() + AGING_BOOSTS[e.tier]))
+                    .thenComparingLong(e -> e.deadline)
+                    .thenComparing(bySequence);
+            default:
+                return Comparator.<Entry>comparingInt(e -> -e.task.getPriority())
+                    .thenComparing(bySequence);
+        }
+    }
+
+    private Node insert(Node node, Entry entry) {
+        if (node == null) {
+            return new Node(entry, null, null);
+        }
+        if (order.compare(entry, node.entry) < 0) {
+            return balance(node.entry, insert(node.left, entry), node.right);
+        }
+        return balance(node.entry, node.left, insert(node.right, entry));
+    }
+
+    private Node remove(Node node, Entry entry) {
+        if (node == null) {
+            return null;
+        }
+        int c = order.compare(entry, node.entry);
+        if (c < 0) {
+            return balance(node.entry, remove(node.left, entry), node.right);
+        }
+        if (c > 0) {
+            return balance(node.entry, node.left, remove(node.right, entry));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        return balance(first(node.right), node.left, removeFirst(node.right));
+    }
+
+    private static Entry first(Node node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.entry;
+    }
+
+    private static Node removeFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.entry, removeFirst(node.left), node.right);
+    }
+
+    // A new node over the two subtrees, rotated if their heights differ by two.
+    private static Node balance(Entry entry, Node left, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.entry, left.left, new Node(entry, left.right, right));
+            }
+            Node pivot = left.right;
+            return new Node(pivot.entry, new Node(left.entry, left.left, pivot.left),
+                new Node(entry, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(right.entry, new Node(entry, left, right.left), right.right);
+            }
+            Node pivot = right.left;
+            return new Node(pivot.entry, new Node(entry, left, pivot.left),
+                new Node(right.entry, pivot.right, right.right));
+        }
+        return new Node(entry, left, right);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    // Immutable once built, so any number of versions can share it.
+    private static final class Node {
+        final Entry entry;
+        final Node left;
+        final Node right;
+        final int height;
+
+        Node(Entry entry, Node left, Node right) {
+            this.entry = entry;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+        }
+    }
+
+    private static final class Entry {
+        final Task task;
+        final long deadline;
+        final long seq;
+        int tier;
+        boolean queued = true;
+
+        Entry(Task task, long deadline, long seq) {
+            this.task = task;
+            this.deadline = deadline;
+            this.seq = seq;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.crisisconnect;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Pairs tasks from a TaskPriorityQueue with available response teams.
+//
+// Available teams are indexed twice: in one insertion-ordered set per
+// specialization and in one set of all teams, so both "a Hazmat team" and
+// "any team" are O(1) picks of the longest-idle candidate. Tasks are taken
+// in queue order; a task whose specialization has no free team is parked
+// per specialization and served first when such a team is released or the
+// next round starts, so no task ever scans the team list.
+//
+// Available teams with a known position are also in a GeoIndex. A task
+// with coordinates goes to the nearest such team of the right
+// specialization; tasks without coordinates, or with no located team to
+// match, fall back to the longest-idle team.
+//
+// Teams whose status is changed outside the engine are listed or dropped
+// as the team queue reports it (teamUpdated): a team back on duty becomes
+// available, one taken off duty stops being offered. A team not in the
+// queue is still dropped lazily the next time it would be picked.
+//
+// Tasks the engine has taken from the queue, parked or assigned, are held in
+// a status index like the queues', so setting one to Completed or Cancelled
+// by any path frees its team. Listeners (DurableQueues) are told when a task
+// is held, updated and released, so held tasks survive a restart.
+class DispatchEngine implements QueueListener {
+    private final TaskPriorityQueue tasks;
+    private final ResponseTeamQueue teams;
+    private final Map<String, LinkedHashSet<ResponseTeam>> availableBySpecialization = new HashMap<>();
+    private final LinkedHashSet<ResponseTeam> available = new LinkedHashSet<>();
+    private final GeoIndex<ResponseTeam> availableByLocation =
+        new GeoIndex<>(ResponseTeam::getTeamId, ResponseTeam::getLatitude, ResponseTeam::getLongitude);
+    private final Map<String, ArrayDeque<Task>> waitingBySpecialization = new HashMap<>();
+    private final ArrayDeque<Task> waitingForAny = new ArrayDeque<>();
+    private final Map<Integer, ResponseTeam> teamByTask = new HashMap<>();
+    private final Map<Integer, Task> held = new HashMap<>();
+    private final StatusIndex<TaskStatus, Task> heldByStatus =
+        new StatusIndex<>(TaskStatus.class, Task::getTaskId, Task::getTaskStatus);
+    private final List<QueueListener> listeners = new CopyOnWriteArrayList<>();
+    private int waiting;
+    private Consumer<? super Task> onCompleted;
+
+    public DispatchEngine(TaskPriorityQueue tasks, ResponseTeamQueue teams) {
+        this.tasks = tasks;
+        this.teams = teams;
+        heldByStatus.onMove(this::heldMoved);
+        for (ResponseTeam team : teams.getTeamsByStatus(TeamStatus.AVAILABLE)) {
+            makeAvailable(team);
+        }
+        teams.addListener(this);
+    }
+
+    // One pairing made by the engine.
+    static final class Assignment {
+        private final Task task;
+        private final ResponseTeam team;
+
+        Assignment(Task task, ResponseTeam team) {
+            this.task = task;
+            this.team = team;
+        }
+
+        public Task getTask() { return task; }
+        public ResponseTeam getTeam() { return team; }
+    }
+
+    // Serves parked tasks, then takes up to maxTasks tasks from the queue.
+    // Stops early once no team is free, leaving the rest queued.
+    public synchronized List<Assignment> dispatchRound(int maxTasks) {
+        List<Assignment> assignments = new ArrayList<>();
+        serveWaiting(assignments);
+        for (int taken = 0; taken < maxTasks && !available.isEmpty(); taken++) {
+            Task task = tasks.getNextTask();
+            if (task == null) {
+                break;
+            }
+            hold(task);
+            ResponseTeam team = take(task);
+            if (team == null) {
+                park(task);
+            } else {
+                assignments.add(assign(task, team));
+            }
+        }
+        return assignments;
+    }
+
+    // Marks an assigned task completed and frees its team, which goes
+    // straight to a parked task if one needs it; returns that new
+    // assignment, if any.
+    public synchronized Assignment complete(Task task) {
+        if (!teamByTask.containsKey(task.getTaskId())) {
+            return null;
+        }
+        return release(task, TaskStatus.COMPLETED);
+    }
+
+    // By id, for callers that only have the number (GUI, line protocol);
+    // false if the engine holds no assigned task with that id.
+    public synchronized boolean complete(int taskId) {
+        Task task = held.get(taskId);
+        if (task == null || !teamByTask.containsKey(taskId)) {
+            return false;
+        }
+        complete(task);
+        return true;
+    }
+
+    // Called with each task that is completed, e.g. to archive it.
+    public synchronized void onCompleted(Consumer<? super Task> callback) {
+        onCompleted = callback;
+    }
+
+    public void addListener(QueueListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(QueueListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Takes back the tasks it held before a restart (see DurableQueues),
+    // before any listener is added. An assigned task stays with its team,
+    // matched by team id, if that team is still deployed; other tasks are
+    // parked. Deployed teams left without a task are made available again.
+    public synchronized void restore(Collection<Task> heldTasks) {
+        Map<Integer, ResponseTeam> deployed = new HashMap<>();
+        for (ResponseTeam team : teams.getTeamsByStatus(TeamStatus.DEPLOYED)) {
+            deployed.put(team.getTeamId(), team);
+        }
+        for (Task task : heldTasks) {
+            track(task);
+            ResponseTeam team = task.getTaskStatus() == TaskStatus.UNASSIGNED ? null
+                : deployed.remove(task.getAssignedTeamId());
+            if (team != null) {
+                teamByTask.put(task.getTaskId(), team);
+            } else {
+                park(task);
+            }
+        }
+        for (ResponseTeam team : deployed.values()) {
+            team.setCurrentTask("None");
+            team.setStatus(TeamStatus.AVAILABLE);
+            makeAvailable(team);
+        }
+    }
+
+    public synchronized Task heldTask(int taskId) {
+        return held.get(taskId);
+    }
+
+    public synchronized Collection<Task> heldTasks() {
+        return new ArrayList<>(held.values());
+    }
+
+    public synchronized ResponseTeam teamFor(Task task) {
+        return teamByTask.get(task.getTaskId());
+    }
+
+    public synchronized int waitingCount() {
+        return waiting;
+    }
+
+    public synchronized int availableCount() {
+        return available.size();
+    }
+
+    // Records a team's new position, re-indexing it if it is available.
+    public synchronized void moveTeam(ResponseTeam team, double latitude, double longitude) {
+        team.setCoordinates(latitude, longitude);
+        if (available.contains(team)) {
+            availableByLocation.remove(team);
+            availableByLocation.add(team);
+        }
+    }
+
+    @Override
+    public synchronized void teamAdded(ResponseTeam team) {
+        if (team.getTeamStatus() == TeamStatus.AVAILABLE) {
+            makeAvailable(team);
+        }
+    }
+
+    @Override
+    public synchronized void teamPolled(ResponseTeam team) {
+        unlist(team);
+    }
+
+    // Also fires for the engine's own changes; listing is idempotent and
+    // assign() takes the team off again.
+    @Override
+    public synchronized void teamUpdated(ResponseTeam team) {
+        if (team.getTeamStatus() != TeamStatus.AVAILABLE) {
+            unlist(team);
+        } else if (!available.contains(team)) {
+            makeAvailable(team);
+        }
+    }
+
+    private void hold(Task task) {
+        track(task);
+        for (QueueListener listener : listeners) {
+            listener.taskHeld(task);
+        }
+    }
+
+    private void track(Task task) {
+        held.put(task.getTaskId(), task);
+        task.attachIndex(heldByStatus);
+        heldByStatus.add(task);
+    }
+
+    // Status changed on a held task, by the engine or from outside.
+    private synchronized void heldMoved(Task task) {
+        TaskStatus status = task.getTaskStatus();
+        if (status == TaskStatus.COMPLETED || status == TaskStatus.CANCELLED) {
+            release(task, status);
+            return;
+        }
+        for (QueueListener listener : listeners) {
+            listener.taskUpdated(task);
+        }
+    }
+
+    // Stops holding a finished task and hands its team to the next parked
+    // task, or back to the available teams.
+    private Assignment release(Task task, TaskStatus status) {
+        heldByStatus.remove(task);
+        task.attachIndex(null);
+        held.remove(task.getTaskId());
+        task.setStatus(status);
+        for (QueueListener listener : listeners) {
+            listener.taskReleased(task);
+        }
+        ResponseTeam team = teamByTask.remove(task.getTaskId());
+        if (team == null) {
+            unpark(task);
+            return null;
+        }
+        if (status == TaskStatus.COMPLETED && onCompleted != null) {
+            onCompleted.accept(task);
+        }
+        team.setCurrentTask("None");
+        team.setStatus(TeamStatus.AVAILABLE);
+        Task next = nextWaiting(team.getSpecialization());
+        if (next != null) {
+            return assign(next, team);
+        }
+        makeAvailable(team);
+        return null;
+    }
+
+    private void serveWaiting(List<Assignment> assignments) {
+        for (Map.Entry<String, ArrayDeque<Task>> entry : waitingBySpecialization.entrySet()) {
+            ArrayDeque<Task> parked = entry.getValue();
+            ResponseTeam team;
+            while (!parked.isEmpty() && (team = take(parked.peek())) != null) {
+                waiting--;
+                assignments.add(assign(parked.poll(), team));
+            }
+        }
+        ResponseTeam team;
+        while (!waitingForAny.isEmpty() && (team = take(waitingForAny.peek())) != null) {
+            waiting--;
+            assignments.add(assign(waitingForAny.poll(), team));
+        }
+    }
+
+    // Highest-priority parked task a team of this specialization can take.
+    private Task nextWaiting(String specialization) {
+        ArrayDeque<Task> parked = waitingBySpecialization.get(specialization);
+        Task specific = parked == null ? null : parked.peek();
+        Task any = waitingForAny.peek();
+        if (specific == null && any == null) {
+            return null;
+        }
+        waiting--;
+        if (any == null || (specific != null && specific.compareTo(any) <= 0)) {
+            return parked.poll();
+        }
+        return waitingForAny.poll();
+    }
+
+    private ResponseTeam take(Task task) {
+        String specialization = task.getRequiredSpecialization();
+        if (task.hasCoordinates()) {
+            ResponseTeam nearest = takeNearest(task.getLatitude(), task.getLongitude(), specialization);
+            if (nearest != null) {
+                return nearest;
+            }
+        }
+        LinkedHashSet<ResponseTeam> candidates = specialization == null ? available
+            : availableBySpecialization.get(specialization);
+        if (candidates == null) {
+            return null;
+        }
+        Iterator<ResponseTeam> it = candidates.iterator();
+        while (it.hasNext()) {
+            ResponseTeam team = it.next();
+            unlist(team);
+            if (team.getTeamStatus() == TeamStatus.AVAILABLE) {
+                return team;
+            }
+            it = candidates.iterator();
+        }
+        return null;
+    }
+
+    private ResponseTeam takeNearest(double latitude, double longitude, String specialization) {
+        while (true) {
+            List<ResponseTeam> nearest = availableByLocation.nearest(latitude, longitude, 1,
+                team -> specialization == null || specialization.equals(team.getSpecialization()));
+            if (nearest.isEmpty()) {
+                return null;
+            }
+            ResponseTeam team = nearest.get(0);
+            unlist(team);
+            if (team.getTeamStatus() == TeamStatus.AVAILABLE) {
+                return team;
+            }
+        }
+    }
+
+    private void unlist(ResponseTeam team) {
+        available.remove(team);
+        LinkedHashSet<ResponseTeam> teams = availableBySpecialization.get(team.getSpecialization());
+        if (teams != null) {
+            teams.remove(team);
+        }
+        availableByLocation.remove(team);
+    }
+
+    private Assignment assign(Task task, ResponseTeam team) {
+        // Task first, so listeners told of the status change see it
+        team.setCurrentTask(task.getName());
+        team.setStatus(TeamStatus.DEPLOYED);
+        task.setAssignedTeam(team.getName());
+        task.setAssignedTeamId(team.getTeamId());
+        task.setStatus(TaskStatus.ASSIGNED);
+        teamByTask.put(task.getTaskId(), team);
+        return new Assignment(task, team);
+    }
+
+    private void makeAvailable(ResponseTeam team) {
+        available.add(team);
+        availableBySpecialization.computeIfAbsent(team.getSpecialization(), k -> new LinkedHashSet<>()).add(team);
+        availableByLocation.add(team);
+    }
+
+    private void park(Task task) {
+        String specialization = task.getRequiredSpecialization();
+        if (specialization == null) {
+            waitingForAny.add(task);
+        } else {
+            waitingBySpecialization.computeIfAbsent(specialization, k -> new ArrayDeque<>()).add(task);
+        }
+        waiting++;
+    }
+
+    private void unpark(Task task) {
+        String specialization = task.getRequiredSpecialization();
+        ArrayDeque<Task> parked = specialization == null ? waitingForAny
+            : waitingBySpecialization.get(specialization);
+        if (parked != null && parked.remove(task)) {
+            waiting--;
+        }
+    }
+}
@@ -0,0 +1,629 @@
+package com.crisisconnect;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Crash-safe persistence for the three queues: every mutation is appended to
+// a WriteAheadLog, and every checkpointRecords mutations a compact snapshot of
+// the queue contents is written so recovery only replays the log tail.
+//
+// A checkpoint rotates the log first and then captures the queues, so the
+// snapshot covers everything before the new segment. The snapshot is encoded
+// in the background from the live objects, so it may also hold changes made
+// after the rotation, whose records are then replayed on top of it. Replay
+// is keyed by id and sets fields outright, statuses included (no transition
+// check, which would reject going back to an older status), so the last
+// record wins and the overlap is harmless.
+//
+// Tasks a DispatchEngine has taken from the queue (parked or assigned) are
+// journaled as held until they are completed or cancelled; attach() hands
+// them back to the engine after a restart, which pairs them with their teams
+// by the assigned team id. Logs and snapshots from before those ids
+// (UPDATE_TASK_V1, CCS2) still load; their assigned tasks are parked again.
+class DurableQueues implements QueueListener, Closeable {
+    static final byte ADD_ALERT = 1;
+    static final byte POLL_ALERT = 2;
+    static final byte UPDATE_ALERT = 3;
+    static final byte CANCEL_ALERT = 4;
+    static final byte ADD_TASK = 5;
+    static final byte POLL_TASK = 6;
+    static final byte ADD_TEAM = 7;
+    static final byte POLL_TEAM = 8;
+    static final byte UPDATE_TASK_V1 = 9; // no assigned team id; read only
+    static final byte UPDATE_TEAM = 10;
+    static final byte HOLD_TASK = 11;
+    static final byte RELEASE_TASK = 12;
+    static final byte UPDATE_TASK = 13;
+
+    private static final int SNAPSHOT_MAGIC = 0x43435333; // "CCS3"
+    private static final int SNAPSHOT_MAGIC_V2 = 0x43435332; // "CCS2", no assigned team ids
+    private static final int SNAPSHOT_MAGIC_V1 = 0x43435331; // "CCS1", no held tasks
+    private static final int SNAPSHOT_END = 0x454E4421;   // "END!"
+    private static final long DEFAULT_CHECKPOINT_RECORDS = 100_000;
+
+    private final Path dir;
+    private final EmergencyPriorityQueue alerts;
+    private final TaskPriorityQueue tasks;
+    private final ResponseTeamQueue teams;
+    private final Map<Integer, Task> held;
+    private final WriteAheadLog log;
+    private final long checkpointRecords;
+    private final boolean recoveredData;
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long recordsSinceCheckpoint;
+    private DispatchEngine engine;
+
+    private DurableQueues(Path dir, EmergencyPriorityQueue alerts, TaskPriorityQueue tasks,
+                          ResponseTeamQueue teams, Map<Integer, Task> held, WriteAheadLog log,
+                          long checkpointRecords, boolean recoveredData) {
+        this.dir = dir;
+        this.alerts = alerts;
+        this.tasks = tasks;
+        this.teams = teams;
+        this.held = held;
+        this.log = log;
+        this.checkpointRecords = checkpointRecords;
+        this.recoveredData = recoveredData;
+    }
+
+    public static DurableQueues open(Path dir, EmergencyPriorityQueue alerts, TaskPriorityQueue tasks,
+                                     ResponseTeamQueue teams, FsyncPolicy policy) throws IOException {
+        return open(dir, alerts, tasks, teams, policy, DEFAULT_CHECKPOINT_RECORDS);
+    }
+
+    // Recovers any persisted state into the (empty) queues, then journals
+    // every further change to them.
+    public static DurableQueues open(Path dir, EmergencyPriorityQueue alerts, TaskPriorityQueue tasks,
+                                     ResponseTeamQueue teams, FsyncPolicy policy, long checkpointRecords)
+            throws IOException {
+        Files.createDirectories(dir);
+        RecoveredState state = recover(dir);
+        restore(state, alerts, tasks, teams);
+
+        List<Long> segments = WriteAheadLog.listSegments(dir);
+        long nextSegment = Math.max(state.firstSegment,
+            segments.isEmpty() ? 0 : segments.get(segments.size() - 1) + 1);
+        WriteAheadLog log = new WriteAheadLog(dir, nextSegment, policy);
+
+        DurableQueues durable = new DurableQueues(dir, alerts, tasks, teams, state.held, log,
+            checkpointRecords, state.hasData);
+        alerts.addListener(durable);
+        tasks.addListener(durable);
+        teams.addListener(durable);
+        return durable;
+    }
+
+    // Starts a fresh journal in dir for queues that already hold their state
+    // (a promoted replication standby): a snapshot of the queues and
+    // heldTasks is written first and supersedes whatever dir held before.
+    public static DurableQueues adopt(Path dir, EmergencyPriorityQueue alerts, TaskPriorityQueue tasks,
+                                      ResponseTeamQueue teams, Iterable<Task> heldTasks, FsyncPolicy policy)
+            throws IOException {
+        Files.createDirectories(dir);
+        List<Long> segments = WriteAheadLog.listSegments(dir);
+        List<Long> snapshots = listSnapshots(dir);
+        long base = Math.max(segments.isEmpty() ? 0 : segments.get(segments.size() - 1) + 1,
+            snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1) + 1);
+        Map<Integer, Task> held = new LinkedHashMap<>();
+        for (Task task : heldTasks) {
+            held.put(task.getTaskId(), task);
+        }
+        WriteAheadLog log = new WriteAheadLog(dir, base, policy);
+        DurableQueues durable = new DurableQueues(dir, alerts, tasks, teams, held, log, DEFAULT_CHECKPOINT_RECORDS,
+            false);
+        try {
+            durable.writeSnapshot(base, alerts.snapshot(), tasks.getTasks(), teams.getTeams(),
+                held.values().toArray(new Task[0]),
+                new int[] {alerts.peekNextAlertId(), tasks.peekNextTaskId(), teams.peekNextTeamId()});
+            log.deleteSegmentsBefore(base);
+        } catch (IOException e) {
+            durable.close();
+            throw e;
+        }
+        alerts.addListener(durable);
+        tasks.addListener(durable);
+        teams.addListener(durable);
+        return durable;
+    }
+
+    public boolean hasRecoveredData() {
+        return recoveredData;
+    }
+
+    // Gives the engine the tasks it held before the restart, then journals
+    // what it holds from here on. Call once, before the first dispatch.
+    public void attach(DispatchEngine engine) {
+        this.engine = engine;
+        engine.restore(held.values());
+        engine.addListener(this);
+    }
+
+    // Must run on the thread that mutates the queues (the EDT in the app):
+    // the capture itself is O(1) for alert snapshots, the write happens in
+    // the background.
+    public void checkpoint() {
+        try {
+            long firstUncovered = log.rotate();
+            QueueSnapshot<EmergencyAlert> alertView = alerts.snapshot();
+            // The task scheduler re-ranks in place, so copy its contents now.
+            Task[] taskView = tasks.getTasks();
+            ResponseTeam[] teamView = teams.getTeams();
+            Task[] heldView = held.values().toArray(new Task[0]);
+            int[] nextIds = {alerts.peekNextAlertId(), tasks.peekNextTaskId(), teams.peekNextTeamId()};
+            recordsSinceCheckpoint = 0;
+            snapshotWriter.execute(() -> {
+                try {
+                    writeSnapshot(firstUncovered, alertView, taskView, teamView, heldView, nextIds);
+                    log.deleteSegmentsBefore(firstUncovered);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close() {
+        alerts.removeListener(this);
+        tasks.removeListener(this);
+        teams.removeListener(this);
+        if (engine != null) {
+            engine.removeListener(this);
+        }
+        snapshotWriter.shutdown();
+        try {
+            snapshotWriter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    public void alertAdded(EmergencyAlert alert) {
+        append(ADD_ALERT, out -> writeAlert(out, alert));
+    }
+
+    public void alertPolled(EmergencyAlert alert) {
+        append(POLL_ALERT, out -> out.writeInt(alert.getAlertId()));
+    }
+
+    public void alertUpdated(EmergencyAlert alert) {
+        append(UPDATE_ALERT, out -> {
+            out.writeInt(alert.getAlertId());
+            out.writeInt(alert.getSeverity());
+            writeString(out, alert.getStatus());
+            out.writeInt(alert.getReportCount());
+        });
+    }
+
+    public void alertCancelled(EmergencyAlert alert) {
+        append(CANCEL_ALERT, out -> out.writeInt(alert.getAlertId()));
+    }
+
+    public void taskAdded(Task task) {
+        append(ADD_TASK, out -> writeTask(out, task));
+    }
+
+    public void taskPolled(Task task) {
+        append(POLL_TASK, out -> out.writeInt(task.getTaskId()));
+    }
+
+    public void taskUpdated(Task task) {
+        append(UPDATE_TASK, out -> writeTaskUpdate(out, task));
+    }
+
+    public void taskHeld(Task task) {
+        held.put(task.getTaskId(), task);
+        append(HOLD_TASK, out -> writeTask(out, task));
+    }
+
+    public void taskReleased(Task task) {
+        held.remove(task.getTaskId());
+        append(RELEASE_TASK, out -> out.writeInt(task.getTaskId()));
+    }
+
+    public void teamAdded(ResponseTeam team) {
+        append(ADD_TEAM, out -> writeTeam(out, team));
+    }
+
+    public void teamPolled(ResponseTeam team) {
+        append(POLL_TEAM, out -> out.writeInt(team.getTeamId()));
+    }
+
+    public void teamUpdated(ResponseTeam team) {
+        append(UPDATE_TEAM, out -> writeTeamUpdate(out, team));
+    }
+
+    private void append(byte type, WriteAheadLog.PayloadWriter payload) {
+        log.append(type, payload);
+        if (++recordsSinceCheckpoint >= checkpointRecords) {
+            checkpoint();
+        }
+    }
+
+    private void writeSnapshot(long firstUncovered, QueueSnapshot<EmergencyAlert> alertView,
+                               Task[] taskView, ResponseTeam[] teamView, Task[] heldView, int[] nextIds)
+            throws IOException {
+        Path target = snapshotPath(dir, firstUncovered);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 20))) {
+            writeQueues(out, alertView, Arrays.asList(taskView), Arrays.asList(teamView), Arrays.asList(heldView),
+                nextIds);
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (long n : listSnapshots(dir)) {
+            if (n < firstUncovered) {
+                Files.deleteIfExists(snapshotPath(dir, n));
+            }
+        }
+    }
+
+    // Snapshot body, also sent to replication followers.
+    static void writeQueues(DataOutput out, Iterable<EmergencyAlert> alertView, Iterable<Task> taskView,
+                            Iterable<ResponseTeam> teamView, Iterable<Task> heldView, int[] nextIds)
+            throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        for (int nextId : nextIds) {
+            out.writeInt(nextId);
+        }
+        for (EmergencyAlert alert : alertView) {
+            out.writeBoolean(true);
+            writeAlert(out, alert);
+        }
+        out.writeBoolean(false);
+        for (Task task : taskView) {
+            out.writeBoolean(true);
+            writeTask(out, task);
+        }
+        out.writeBoolean(false);
+        for (ResponseTeam team : teamView) {
+            out.writeBoolean(true);
+            writeTeam(out, team);
+        }
+        out.writeBoolean(false);
+        for (Task task : heldView) {
+            out.writeBoolean(true);
+            writeTask(out, task);
+            out.writeInt(task.getAssignedTeamId());
+        }
+        out.writeBoolean(false);
+        out.writeInt(SNAPSHOT_END);
+    }
+
+    // Loads recovered or replicated state into empty queues, one batch per
+    // queue. Call before registering listeners that count arrivals
+    // (statistics, metrics, cold storage).
+    static void restore(RecoveredState state, EmergencyPriorityQueue alerts, TaskPriorityQueue tasks,
+                        ResponseTeamQueue teams) {
+        alerts.addAll(state.alerts.values());
+        tasks.addAll(state.tasks.values());
+        for (ResponseTeam team : state.teams.values()) {
+            teams.addTeam(team);
+        }
+        alerts.reserveIdsThrough(state.nextAlertId - 1);
+        tasks.reserveIdsThrough(state.nextTaskId - 1);
+        teams.reserveIdsThrough(state.nextTeamId - 1);
+    }
+
+    private static RecoveredState recover(Path dir) throws IOException {
+        RecoveredState state = new RecoveredState();
+        List<Long> snapshots = listSnapshots(dir);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            RecoveredState candidate = new RecoveredState();
+            if (readSnapshot(snapshotPath(dir, snapshots.get(i)), candidate)) {
+                state = candidate;
+                state.firstSegment = snapshots.get(i);
+                break;
+            }
+        }
+        for (long segment : WriteAheadLog.listSegments(dir)) {
+            if (segment >= state.firstSegment) {
+                RecoveredState target = state;
+                long records = WriteAheadLog.replay(WriteAheadLog.segmentPath(dir, segment),
+                    (type, in) -> apply(target, type, in));
+                state.hasData |= records > 0;
+            }
+        }
+        return state;
+    }
+
+    static void apply(RecoveredState state, byte type, DataInput in) throws IOException {
+        switch (type) {
+            case ADD_ALERT: {
+                EmergencyAlert alert = readAlert(in);
+                state.alerts.put(alert.getAlertId(), alert);
+                state.nextAlertId = Math.max(state.nextAlertId, alert.getAlertId() + 1);
+                break;
+            }
+            case POLL_ALERT:
+            case CANCEL_ALERT:
+                state.alerts.remove(in.readInt());
+                break;
+            case UPDATE_ALERT: {
+                EmergencyAlert alert = state.alerts.get(in.readInt());
+                int severity = in.readInt();
+                String status = readString(in);
+                int reportCount = in.readInt();
+                if (alert != null) {
+                    alert.setSeverity(severity);
+                    alert.restoreStatus(status);
+                    alert.setReportCount(reportCount);
+                }
+                break;
+            }
+            case ADD_TASK: {
+                Task task = readTask(in);
+                state.tasks.put(task.getTaskId(), task);
+                state.nextTaskId = Math.max(state.nextTaskId, task.getTaskId() + 1);
+                break;
+            }
+            case POLL_TASK:
+                state.tasks.remove(in.readInt());
+                break;
+            case HOLD_TASK: {
+                Task task = readTask(in);
+                state.tasks.remove(task.getTaskId());
+                state.held.put(task.getTaskId(), task);
+                break;
+            }
+            case RELEASE_TASK:
+                state.held.remove(in.readInt());
+                break;
+            case ADD_TEAM: {
+                ResponseTeam team = readTeam(in);
+                state.teams.put(team.getTeamId(), team);
+                state.nextTeamId = Math.max(state.nextTeamId, team.getTeamId() + 1);
+                break;
+            }
+            case POLL_TEAM:
+                state.teams.remove(in.readInt());
+                break;
+            case UPDATE_TASK_V1:
+            case UPDATE_TASK: {
+                int taskId = in.readInt();
+                Task task = state.tasks.containsKey(taskId) ? state.tasks.get(taskId) : state.held.get(taskId);
+                String status = readString(in);
+                String assignedTeam = readString(in);
+                int assignedTeamId = type == UPDATE_TASK ? in.readInt() : 0;
+                if (task != null) {
+                    task.restoreStatus(status);
+                    task.setAssignedTeam(assignedTeam);
+                    task.setAssignedTeamId(assignedTeamId);
+                }
+                break;
+            }
+            case UPDATE_TEAM: {
+                ResponseTeam team = state.teams.get(in.readInt());
+                String status = readString(in);
+                String currentTask = readString(in);
+                if (team != null) {
+                    team.restoreStatus(status);
+                    team.setCurrentTask(currentTask);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown log record type " + type);
+        }
+    }
+
+    private static boolean readSnapshot(Path file, RecoveredState state) {
+        try (InputStream stream = WriteAheadLog.openBuffered(file)) {
+            return readQueues(new DataInputStream(stream), state);
+        } catch (IOException e) {
+            return false; // incomplete snapshot; fall back to an older one
+        }
+    }
+
+    static boolean readQueues(DataInput in, RecoveredState state) throws IOException {
+        int magic = in.readInt();
+        if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V2 && magic != SNAPSHOT_MAGIC_V1) {
+            return false;
+        }
+        state.nextAlertId = in.readInt();
+        state.nextTaskId = in.readInt();
+        state.nextTeamId = in.readInt();
+        while (in.readBoolean()) {
+            EmergencyAlert alert = readAlert(in);
+            state.alerts.put(alert.getAlertId(), alert);
+        }
+        while (in.readBoolean()) {
+            Task task = readTask(in);
+            state.tasks.put(task.getTaskId(), task);
+        }
+        while (in.readBoolean()) {
+            ResponseTeam team = readTeam(in);
+            state.teams.put(team.getTeamId(), team);
+        }
+        while (magic != SNAPSHOT_MAGIC_V1 && in.readBoolean()) {
+            Task task = readTask(in);
+            if (magic == SNAPSHOT_MAGIC) {
+                task.setAssignedTeamId(in.readInt());
+            }
+            state.held.put(task.getTaskId(), task);
+        }
+        state.hasData = true;
+        return in.readInt() == SNAPSHOT_END;
+    }
+
+    private static List<Long> listSnapshots(Path dir) throws IOException {
+        List<Long> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                .filter(name -> name.startsWith("snapshot-") && name.endsWith(".bin"))
+                .forEach(name -> snapshots.add(Long.parseLong(name.substring(9, name.length() - 4))));
+        }
+        snapshots.sort(null);
+        return snapshots;
+    }
+
+    private static Path snapshotPath(Path dir, long firstUncovered) {
+        return dir.resolve(String.format("snapshot-%012d.bin", firstUncovered));
+    }
+
+    static void writeAlert(DataOutput out, EmergencyAlert alert) throws IOException {
+        out.writeInt(alert.getAlertId());
+        writeString(out, alert.getDescription());
+        out.writeInt(alert.getSeverity());
+        writeTime(out, alert.getTimestamp());
+        writeString(out, alert.getLocation());
+        writeString(out, alert.getStatus());
+        out.writeDouble(alert.getLatitude());
+        out.writeDouble(alert.getLongitude());
+        out.writeInt(alert.getReportCount());
+    }
+
+    static EmergencyAlert readAlert(DataInput in) throws IOException {
+        int alertId = in.readInt();
+        String description = readString(in);
+        int severity = in.readInt();
+        LocalDateTime timestamp = readTime(in);
+        String location = readString(in);
+        String status = readString(in);
+        EmergencyAlert alert = new EmergencyAlert(alertId, description, severity, timestamp, location, status);
+        alert.setCoordinates(in.readDouble(), in.readDouble());
+        alert.setReportCount(in.readInt());
+        return alert;
+    }
+
+    static void writeTask(DataOutput out, Task task) throws IOException {
+        out.writeInt(task.getTaskId());
+        writeString(out, task.getName());
+        out.writeInt(task.getPriority());
+        writeTime(out, task.getDeadline());
+        writeString(out, task.getStatus());
+        writeString(out, task.getAssignedTeam());
+        writeString(out, task.getRequiredSpecialization());
+        out.writeDouble(task.getLatitude());
+        out.writeDouble(task.getLongitude());
+    }
+
+    static Task readTask(DataInput in) throws IOException {
+        int taskId = in.readInt();
+        String name = readString(in);
+        int priority = in.readInt();
+        LocalDateTime deadline = readTime(in);
+        String status = readString(in);
+        String assignedTeam = readString(in);
+        Task task = new Task(taskId, name, priority, deadline, status, assignedTeam);
+        task.setRequiredSpecialization(readString(in));
+        task.setCoordinates(in.readDouble(), in.readDouble());
+        return task;
+    }
+
+    static void writeTaskUpdate(DataOutput out, Task task) throws IOException {
+        out.writeInt(task.getTaskId());
+        writeString(out, task.getStatus());
+        writeString(out, task.getAssignedTeam());
+        out.writeInt(task.getAssignedTeamId());
+    }
+
+    static void writeTeamUpdate(DataOutput out, ResponseTeam team) throws IOException {
+        out.writeInt(team.getTeamId());
+        writeString(out, team.getStatus());
+        writeString(out, team.getCurrentTask());
+    }
+
+    static void writeTeam(DataOutput out, ResponseTeam team) throws IOException {
+        out.writeInt(team.getTeamId());
+        writeString(out, team.getName());
+        writeString(out, team.getSpecialization());
+        writeString(out, team.getStatus());
+        writeString(out, team.getCurrentTask());
+        out.writeDouble(team.getLatitude());
+        out.writeDouble(team.getLongitude());
+    }
+
+    static ResponseTeam readTeam(DataInput in) throws IOException {
+        int teamId = in.readInt();
+        String name = readString(in);
+        String specialization = readString(in);
+        String status = readString(in);
+        String currentTask = readString(in);
+        ResponseTeam team = new ResponseTeam(teamId, name, specialization, status, currentTask);
+        team.setCoordinates(in.readDouble(), in.readDouble());
+        return team;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+        if (time == null) {
+            out.writeLong(Long.MIN_VALUE);
+            return;
+        }
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    static LocalDateTime readTime(DataInput in) throws IOException {
+        long seconds = in.readLong();
+        if (seconds == Long.MIN_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+
+    // Queue contents by id, as recovered from disk or replicated.
+    static final class RecoveredState {
+        final Map<Integer, EmergencyAlert> alerts = new LinkedHashMap<>();
+        final Map<Integer, Task> tasks = new LinkedHashMap<>();
+        final Map<Integer, ResponseTeam> teams = new LinkedHashMap<>();
+        // Taken from the queue by a DispatchEngine and not yet finished
+        final Map<Integer, Task> held = new LinkedHashMap<>();
+        int nextAlertId = 1;
+        int nextTaskId = 1;
+        int nextTeamId = 1;
+        long firstSegment;
+        boolean hasData;
+    }
+}
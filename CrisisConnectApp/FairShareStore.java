@@ -0,0 +1,291 @@
+package com.crisisconnect;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+// Starvation-free alternative to strict severity order. Each level 1-10 is
+// a FIFO lane, and poll() shares service between the non-empty lanes by
+// weight (stride scheduling, a deterministic weighted fair queue): each lane
+// has a virtual pass that advances by 1/weight every time it is served, and
+// the lane with the lowest pass goes next, the higher level on a tie. While
+// every lane is backlogged, level L gets weight[L] / sum(weights) of the
+// dequeues, evenly interleaved, so an element at position p of its lane is
+// served within about p * sum(weights) / weight[L] dequeues however much
+// higher-severity traffic keeps arriving. That bounds dequeues, not time:
+// a lane whose arrivals outpace its share grows without limit. A lane that
+// was idle rejoins at the current virtual time, so it cannot bank credit,
+// and a newly arrived alert of a quiet level is served next.
+//
+// Aging adds a deadline on top: a lane head that has waited longer than
+// maxWait[level] nanoseconds is served before anything else, oldest overrun
+// first. It only bounds time in the queue while arrivals stay below the
+// rate poll() is called; past that, overdue heads just take turns.
+//
+// Passes grow by up to 2^40 per dequeue, so virtual time is shifted back
+// to 0 once it reaches 2^62, and a lane served early by aging carries at
+// most 2^60 of debt, keeping every pass well inside a long.
+//
+// Snapshots share the lane arrays (copy-on-write, like HeapStore) and
+// iterate by replaying the schedule as of the snapshot, so they list
+// elements in the order poll() would return them if time stood still.
+class FairShareStore<E> implements PriorityStore<E> {
+    static final int MIN_LEVEL = 1;
+    static final int MAX_LEVEL = 10;
+    static final long NO_AGING = Long.MAX_VALUE;
+    private static final int MAX_WEIGHT = 1 << 20;
+    private static final long STRIDE = 1L << 40;
+    private static final long MAX_DEBT = 1L << 60;
+    private static final long REBASE_AT = 1L << 62;
+
+    private final ToIntFunction<? super E> levelOf;
+    private final long[] strides = new long[MAX_LEVEL + 1];
+    private final long[] maxWait;
+    private final LongSupplier clock;
+    private final Schedule live;
+    private long version;
+    private boolean shared;
+
+    // Weights double per level (severity 10 gets half of a saturated
+    // queue, severity 1 a 1023rd) and nothing ages.
+    public FairShareStore(ToIntFunction<? super E> levelOf) {
+        this(levelOf, defaultWeights(), null, System::nanoTime);
+    }
+
+    // weights and maxWait are indexed by level (slot 0 unused); a null
+    // maxWait, or NO_AGING in a slot, turns aging off for those levels.
+    public FairShareStore(ToIntFunction<? super E> levelOf, int[] weights, long[] maxWait, LongSupplier clock) {
+        if (weights.length != MAX_LEVEL + 1) {
+            throw new IllegalArgumentException("Expected weights for levels 1-10");
+        }
+        for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+            if (weights[level] < 1 || weights[level] > MAX_WEIGHT) {
+                throw new IllegalArgumentException("Weight must be between 1 and 2^20: level " + level);
+            }
+            strides[level] = STRIDE / weights[level];
+        }
+        this.levelOf = levelOf;
+        this.maxWait = new long[MAX_LEVEL + 1];
+        Arrays.fill(this.maxWait, NO_AGING);
+        if (maxWait != null) {
+            System.arraycopy(maxWait, MIN_LEVEL, this.maxWait, MIN_LEVEL, MAX_LEVEL);
+        }
+        this.clock = clock;
+        live = new Schedule();
+    }
+
+    static int[] defaultWeights() {
+        int[] weights = new int[MAX_LEVEL + 1];
+        for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+            weights[level] = 1 << (level - 1);
+        }
+        return weights;
+    }
+
+    public void offer(E element) {
+        int level = levelOf.applyAsInt(element);
+        if (level < MIN_LEVEL || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Level must be between 1 and 10: " + level);
+        }
+        beforeWrite();
+        live.append(level, element, clock.getAsLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        if (live.size == 0) {
+            return null;
+        }
+        beforeWrite();
+        return (E) live.take(clock.getAsLong(), true);
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        if (live.size == 0) {
+            return null;
+        }
+        return (E) live.copy().take(clock.getAsLong(), false);
+    }
+
+    public int size() {
+        return live.size;
+    }
+
+    public boolean isEmpty() {
+        return live.size == 0;
+    }
+
+    public QueueSnapshot<E> snapshot() {
+        shared = true;
+        Schedule frozen = live.copy();
+        long now = clock.getAsLong();
+        long frozenVersion = version;
+        return new QueueSnapshot<E>() {
+            public long version() {
+                return frozenVersion;
+            }
+
+            public int size() {
+                return frozen.size;
+            }
+
+            public Iterator<E> iterator() {
+                Schedule replay = frozen.copy();
+                return new Iterator<E>() {
+                    public boolean hasNext() {
+                        return replay.size > 0;
+                    }
+
+                    @SuppressWarnings("unchecked")
+                    public E next() {
+                        if (replay.size == 0) {
+                            throw new NoSuchElementException();
+                        }
+                        return (E) replay.take(now, false);
+                    }
+                };
+            }
+        };
+    }
+
+    private void beforeWrite() {
+        version++;
+        if (shared) {
+            live.detachLanes();
+            shared = false;
+        }
+    }
+
+    // Lane contents plus scheduling state. The live store owns one;
+    // snapshots and peek() replay copies that share the lane arrays.
+    private final class Schedule {
+        Object[][] items = new Object[MAX_LEVEL + 1][];
+        long[][] times = new long[MAX_LEVEL + 1][];
+        final int[] heads = new int[MAX_LEVEL + 1];
+        final int[] counts = new int[MAX_LEVEL + 1];
+        final long[] passes = new long[MAX_LEVEL + 1];
+        long virtualTime;
+        int size;
+
+        Schedule() {
+            for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+                items[level] = new Object[16];
+                times[level] = new long[16];
+            }
+        }
+
+        Schedule copy() {
+            return new Schedule(this);
+        }
+
+        private Schedule(Schedule other) {
+            items = other.items.clone();
+            times = other.times.clone();
+            System.arraycopy(other.heads, 0, heads, 0, heads.length);
+            System.arraycopy(other.counts, 0, counts, 0, counts.length);
+            System.arraycopy(other.passes, 0, passes, 0, passes.length);
+            virtualTime = other.virtualTime;
+            size = other.size;
+        }
+
+        void detachLanes() {
+            for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+                items[level] = items[level].clone();
+                times[level] = times[level].clone();
+            }
+        }
+
+        void append(int level, Object element, long now) {
+            Object[] lane = items[level];
+            if (counts[level] == lane.length) {
+                grow(level);
+                lane = items[level];
+            }
+            int tail = (heads[level] + counts[level]) & (lane.length - 1);
+            lane[tail] = element;
+            times[level][tail] = now;
+            if (counts[level]++ == 0) {
+                passes[level] = Math.max(passes[level], virtualTime);
+            }
+            size++;
+        }
+
+        // Unrolls the ring so the head is at 0, doubling its capacity.
+        private void grow(int level) {
+            Object[] lane = items[level];
+            long[] laneTimes = times[level];
+            int head = heads[level];
+            Object[] grown = new Object[lane.length * 2];
+            long[] grownTimes = new long[lane.length * 2];
+            int first = lane.length - head;
+            System.arraycopy(lane, head, grown, 0, first);
+            System.arraycopy(lane, 0, grown, first, head);
+            System.arraycopy(laneTimes, head, grownTimes, 0, first);
+            System.arraycopy(laneTimes, 0, grownTimes, first, head);
+            items[level] = grown;
+            times[level] = grownTimes;
+            heads[level] = 0;
+        }
+
+        Object take(long now, boolean release) {
+            int level = overdueLevel(now);
+            if (level < 0) {
+                level = lowestPass();
+                virtualTime = passes[level];
+            }
+            passes[level] = Math.min(passes[level] + strides[level], virtualTime + MAX_DEBT);
+            if (virtualTime >= REBASE_AT) {
+                rebase();
+            }
+            Object[] lane = items[level];
+            int head = heads[level];
+            Object element = lane[head];
+            if (release) {
+                lane[head] = null;
+            }
+            heads[level] = (head + 1) & (lane.length - 1);
+            counts[level]--;
+            size--;
+            return element;
+        }
+
+        // Only pass differences matter, and an idle lane's pass only while
+        // it is ahead of virtual time, which every busy lane's pass is.
+        private void rebase() {
+            for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+                passes[level] = Math.max(passes[level] - virtualTime, 0);
+            }
+            virtualTime = 0;
+        }
+
+        // The lane whose head is furthest past its maximum wait, or -1.
+        private int overdueLevel(long now) {
+            int overdue = -1;
+            long worst = -1;
+            for (int level = MAX_LEVEL; level >= MIN_LEVEL; level--) {
+                if (counts[level] == 0 || maxWait[level] == NO_AGING) {
+                    continue;
+                }
+                long over = now - times[level][heads[level]] - maxWait[level];
+                if (over > worst) {
+                    worst = over;
+                    overdue = level;
+                }
+            }
+            return overdue;
+        }
+
+        private int lowestPass() {
+            int best = -1;
+            for (int level = MAX_LEVEL; level >= MIN_LEVEL; level--) {
+                if (counts[level] > 0 && (best < 0 || passes[level] < passes[best])) {
+                    best = level;
+                }
+            }
+            return best;
+        }
+    }
+}
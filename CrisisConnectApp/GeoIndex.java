@@ -0,0 +1,357 @@
+package com.crisisconnect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+// Uniform lat/lon grid over elements with coordinates. Each occupied cell
+// keeps ids and coordinates in parallel arrays, so a query filters
+// candidates with plain double compares (bounding box, then haversine)
+// before it touches any element. A radius query visits only the cells
+// under the circle's bounding box. A nearest-k query walks rings of cells
+// outwards and stops once the next ring cannot beat the k-th best.
+// Either falls back to walking the occupied cells when that is fewer.
+//
+// The cell is remembered per id at insertion, so remove() works even if the
+// element's coordinates changed meanwhile; re-add it to move it. Methods
+// are synchronized so stores with concurrent producers can share it.
+//
+// An ids-only index (for OffHeapStore) drops the element references and
+// answers idsWithin() and nearestIds() only.
+class GeoIndex<E> {
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+    private static final double DEFAULT_CELL_DEGREES = 0.01; // ~1.1 km of latitude
+
+    private final double cellDegrees;
+    private final int latCells;
+    private final int lonCells;
+    private final ToIntFunction<? super E> idOf;
+    private final ToDoubleFunction<? super E> latitudeOf;
+    private final ToDoubleFunction<? super E> longitudeOf;
+    private final boolean keepElements;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<Integer, Cell> cellById = new HashMap<>();
+
+    private static final class Cell {
+        final int latIndex;
+        final int lonIndex;
+        int[] ids = new int[4];
+        double[] latitudes = new double[4];
+        double[] longitudes = new double[4];
+        Object[] items = new Object[4];
+        int size;
+
+        Cell(int latIndex, int lonIndex) {
+            this.latIndex = latIndex;
+            this.lonIndex = lonIndex;
+        }
+    }
+
+    public GeoIndex(ToIntFunction<? super E> idOf, ToDoubleFunction<? super E> latitudeOf,
+                    ToDoubleFunction<? super E> longitudeOf) {
+        this(DEFAULT_CELL_DEGREES, idOf, latitudeOf, longitudeOf);
+    }
+
+    public GeoIndex(ToIntFunction<? super E> idOf, ToDoubleFunction<? super E> latitudeOf,
+                    ToDoubleFunction<? super E> longitudeOf, boolean keepElements) {
+        this(DEFAULT_CELL_DEGREES, idOf, latitudeOf, longitudeOf, keepElements);
+    }
+
+    public GeoIndex(double cellDegrees, ToIntFunction<? super E> idOf, ToDoubleFunction<? super E> latitudeOf,
+                    ToDoubleFunction<? super E> longitudeOf) {
+        this(cellDegrees, idOf, latitudeOf, longitudeOf, true);
+    }
+
+    public GeoIndex(double cellDegrees, ToIntFunction<? super E> idOf, ToDoubleFunction<? super E> latitudeOf,
+                    ToDoubleFunction<? super E> longitudeOf, boolean keepElements) {
+        this.keepElements = keepElements;
+        this.cellDegrees = cellDegrees;
+        this.latCells = (int) Math.ceil(180 / cellDegrees);
+        this.lonCells = (int) Math.ceil(360 / cellDegrees);
+        this.idOf = idOf;
+        this.latitudeOf = latitudeOf;
+        this.longitudeOf = longitudeOf;
+    }
+
+    // Elements without coordinates (NaN) are ignored. Re-adding an id moves it.
+    public synchronized void add(E element) {
+        double latitude = latitudeOf.applyAsDouble(element);
+        double longitude = longitudeOf.applyAsDouble(element);
+        if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            return;
+        }
+        int id = idOf.applyAsInt(element);
+        if (cellById.containsKey(id)) {
+            removeId(id);
+        }
+        int latIndex = latIndex(latitude);
+        int lonIndex = lonIndex(longitude);
+        Cell cell = cells.computeIfAbsent(key(latIndex, lonIndex), k -> new Cell(latIndex, lonIndex));
+        if (cell.size == cell.ids.length) {
+            int capacity = cell.size * 2;
+            cell.ids = Arrays.copyOf(cell.ids, capacity);
+            cell.latitudes = Arrays.copyOf(cell.latitudes, capacity);
+            cell.longitudes = Arrays.copyOf(cell.longitudes, capacity);
+            cell.items = Arrays.copyOf(cell.items, capacity);
+        }
+        cell.ids[cell.size] = id;
+        cell.latitudes[cell.size] = latitude;
+        cell.longitudes[cell.size] = longitude;
+        cell.items[cell.size] = keepElements ? element : null;
+        cell.size++;
+        cellById.put(id, cell);
+    }
+
+    public synchronized boolean remove(E element) {
+        return removeId(idOf.applyAsInt(element));
+    }
+
+    public synchronized int size() {
+        return cellById.size();
+    }
+
+    // Elements within radiusKm of the point that pass the filter, unordered.
+    @SuppressWarnings("unchecked")
+    public synchronized List<E> within(double latitude, double longitude, double radiusKm,
+                                       Predicate<? super E> filter) {
+        checkElements();
+        List<E> found = new ArrayList<>();
+        visitWithin(latitude, longitude, radiusKm, (cell, i) -> {
+            if (filter.test((E) cell.items[i])) {
+                found.add((E) cell.items[i]);
+            }
+        });
+        return found;
+    }
+
+    // Ids within radiusKm of the point, unordered.
+    public synchronized List<Integer> idsWithin(double latitude, double longitude, double radiusKm) {
+        List<Integer> found = new ArrayList<>();
+        visitWithin(latitude, longitude, radiusKm, (cell, i) -> found.add(cell.ids[i]));
+        return found;
+    }
+
+    private void visitWithin(double latitude, double longitude, double radiusKm, Visitor visitor) {
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double lonSpan = lonSpan(latitude, latSpan);
+        int firstLat = latIndex(Math.max(-90, latitude - latSpan));
+        int lastLat = latIndex(Math.min(90, latitude + latSpan));
+        int lonRange = lonSpan >= 180 ? lonCells : (int) Math.ceil(2 * lonSpan / cellDegrees) + 2;
+        int firstLon = lonIndex(longitude - Math.min(lonSpan, 180));
+
+        if ((long) (lastLat - firstLat + 1) * lonRange > cells.size()) {
+            for (Cell cell : cells.values()) {
+                collect(cell, latitude, longitude, radiusKm, latSpan, lonSpan, visitor);
+            }
+            return;
+        }
+        for (int lat = firstLat; lat <= lastLat; lat++) {
+            for (int i = 0; i < Math.min(lonRange, lonCells); i++) {
+                Cell cell = cells.get(key(lat, Math.floorMod(firstLon + i, lonCells)));
+                if (cell != null) {
+                    collect(cell, latitude, longitude, radiusKm, latSpan, lonSpan, visitor);
+                }
+            }
+        }
+    }
+
+    // Up to k elements passing the filter, nearest first.
+    @SuppressWarnings("unchecked")
+    public synchronized List<E> nearest(double latitude, double longitude, int k, Predicate<? super E> filter) {
+        checkElements();
+        List<E> result = new ArrayList<>();
+        for (Candidate candidate : nearestCandidates(latitude, longitude, k,
+                (cell, i) -> filter.test((E) cell.items[i]))) {
+            result.add((E) candidate.cell.items[candidate.index]);
+        }
+        return result;
+    }
+
+    // Up to k ids, nearest first.
+    public synchronized List<Integer> nearestIds(double latitude, double longitude, int k) {
+        List<Integer> result = new ArrayList<>();
+        for (Candidate candidate : nearestCandidates(latitude, longitude, k, (cell, i) -> true)) {
+            result.add(candidate.cell.ids[candidate.index]);
+        }
+        return result;
+    }
+
+    private List<Candidate> nearestCandidates(double latitude, double longitude, int k, Matcher filter) {
+        // Max-heap on distance holding the best k so far
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.distanceKm).reversed());
+        if (k <= 0 || cells.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int centerLat = latIndex(latitude);
+        int centerLon = lonIndex(longitude);
+        long visited = 0;
+        for (int ring = 0; ; ring++) {
+            if (best.size() == k && best.peek().distanceKm <= unvisitedKm(latitude, ring)) {
+                break;
+            }
+            if (ring >= latCells || 2 * ring + 1 > lonCells || visited > cells.size()) {
+                // Cheaper to look at every occupied cell outside the rings done so far
+                for (Cell cell : cells.values()) {
+                    if (ringOf(cell, centerLat, centerLon) >= ring) {
+                        consider(cell, latitude, longitude, k, filter, best);
+                    }
+                }
+                break;
+            }
+            for (int lat = centerLat - ring; lat <= centerLat + ring; lat++) {
+                if (lat < 0 || lat >= latCells) {
+                    continue;
+                }
+                boolean edgeRow = lat == centerLat - ring || lat == centerLat + ring;
+                int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+                for (int lon = centerLon - ring; lon <= centerLon + ring; lon += step) {
+                    visited++;
+                    Cell cell = cells.get(key(lat, Math.floorMod(lon, lonCells)));
+                    if (cell != null) {
+                        consider(cell, latitude, longitude, k, filter, best);
+                    }
+                }
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble(c -> c.distanceKm));
+        return sorted;
+    }
+
+    // Great-circle distance in kilometres.
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Entry i of a cell: candidates are matched and collected by position,
+    // so an ids-only index never needs the element.
+    private interface Visitor {
+        void visit(Cell cell, int i);
+    }
+
+    private interface Matcher {
+        boolean test(Cell cell, int i);
+    }
+
+    // Valid only within the synchronized query that found it.
+    private static final class Candidate {
+        final Cell cell;
+        final int index;
+        final double distanceKm;
+
+        Candidate(Cell cell, int index, double distanceKm) {
+            this.cell = cell;
+            this.index = index;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    private void checkElements() {
+        if (!keepElements) {
+            throw new UnsupportedOperationException("Ids-only geo index");
+        }
+    }
+
+    private void collect(Cell cell, double latitude, double longitude, double radiusKm, double latSpan,
+                         double lonSpan, Visitor visitor) {
+        for (int i = 0; i < cell.size; i++) {
+            // Bounding box first; haversine only for points that might be inside
+            if (Math.abs(cell.latitudes[i] - latitude) > latSpan
+                || lonSpan < 180 && lonDelta(cell.longitudes[i], longitude) > lonSpan) {
+                continue;
+            }
+            if (distanceKm(latitude, longitude, cell.latitudes[i], cell.longitudes[i]) <= radiusKm) {
+                visitor.visit(cell, i);
+            }
+        }
+    }
+
+    private void consider(Cell cell, double latitude, double longitude, int k, Matcher filter,
+                          PriorityQueue<Candidate> best) {
+        for (int i = 0; i < cell.size; i++) {
+            double distance = distanceKm(latitude, longitude, cell.latitudes[i], cell.longitudes[i]);
+            if (best.size() == k && distance >= best.peek().distanceKm) {
+                continue;
+            }
+            if (filter.test(cell, i)) {
+                best.add(new Candidate(cell, i, distance));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+        }
+    }
+
+    private boolean removeId(int id) {
+        Cell cell = cellById.remove(id);
+        if (cell == null) {
+            return false;
+        }
+        for (int i = 0; i < cell.size; i++) {
+            if (cell.ids[i] == id) {
+                int last = --cell.size;
+                cell.ids[i] = cell.ids[last];
+                cell.latitudes[i] = cell.latitudes[last];
+                cell.longitudes[i] = cell.longitudes[last];
+                cell.items[i] = cell.items[last];
+                cell.items[last] = null;
+                break;
+            }
+        }
+        if (cell.size == 0) {
+            cells.remove(key(cell.latIndex, cell.lonIndex));
+        }
+        return true;
+    }
+
+    // Chebyshev distance in cells, wrapping around the antimeridian.
+    private int ringOf(Cell cell, int centerLat, int centerLon) {
+        int lonDistance = Math.abs(cell.lonIndex - centerLon);
+        return Math.max(Math.abs(cell.latIndex - centerLat), Math.min(lonDistance, lonCells - lonDistance));
+    }
+
+    // Lower bound on the distance to any point in ring `ring` or beyond: it
+    // is either ring-1 whole cells away in latitude, or that far in
+    // longitude at a latitude no further from the equator than the ring.
+    private double unvisitedKm(double latitude, int ring) {
+        double span = Math.toRadians(Math.max(0, ring - 1) * cellDegrees);
+        double maxLatitude = Math.toRadians(Math.min(90, Math.abs(latitude) + ring * cellDegrees));
+        double byLongitude = 2 * EARTH_RADIUS_KM
+            * Math.asin(Math.cos(maxLatitude) * Math.sin(Math.min(Math.PI, span) / 2));
+        return Math.min(EARTH_RADIUS_KM * span, byLongitude);
+    }
+
+    private double lonSpan(double latitude, double latSpan) {
+        double cos = Math.cos(Math.toRadians(Math.min(89.999, Math.abs(latitude) + latSpan)));
+        return latSpan / cos;
+    }
+
+    private static double lonDelta(double a, double b) {
+        double delta = Math.abs(a - b) % 360;
+        return delta > 180 ? 360 - delta : delta;
+    }
+
+    private int latIndex(double latitude) {
+        return Math.min(latCells - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+
+    private int lonIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), lonCells);
+    }
+
+    private static long key(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | lonIndex;
+    }
+}
@@ -0,0 +1,488 @@
+package com.crisisconnect;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Queue engine without a GUI, served over a line-based TCP protocol.
+// One selector thread accepts connections, parses requests and applies them
+// to the queues, so the queues keep their single-writer contract with no
+// locking. Clients may pipeline: every complete line in a read is executed
+// before the replies go out in one write. A client that stops reading has
+// its reads paused until its replies drain. Runs of ADD_ALERT are handed to
+// the queue as one addAll batch before the next other request, and are
+// answered once that batch is queued: OK for each alert, or ERR for each
+// if the batch failed and was dropped. With an
+// AlertDeduplicator, an alert that duplicates a queued (or batched) one is
+// merged into it instead. With ColdStorage set, alerts resolved or
+// cancelled through the queue are archived and ARCHIVED_ALERTS reads them
+// back.
+//
+// Requests are tab-separated, one per line; replies are one line each:
+//   ADD_ALERT  severity  location  description  [lat  lon]  -> OK alertId | MERGED alertId reportCount | ERR
+//   NEXT_ALERT                                        -> ALERT id severity status location description | EMPTY
+//   DRAIN_ALERTS  max                                 -> ALERT ... per alert, then END
+//   NEAR_ALERTS  lat  lon  radiusKm  [minSeverity]    -> ALERT ... per alert, then END
+//   PEEK_ALERTS  k                                    -> PEEK id severity epochNanos per alert (top k), then END
+//   TAKE_ALERTS  id  [id ...]                         -> TAKEN id severity timestamp status reports lat lon
+//                                                        location description per alert still queued, then END
+//   RESOLVE_ALERT  alertId                            -> OK | NOT_FOUND
+//   ARCHIVED_ALERTS  from  to  [minSev  [maxSev]]     -> ALERT ... per archived alert, then END
+//   ADD_TASK   priority  deadline  name  [team-spec]  -> OK taskId
+//   NEXT_TASK                                         -> TASK id priority status deadline name | EMPTY
+//   ADD_TEAM   name  specialization                   -> OK teamId
+//   NEXT_TEAM                                         -> TEAM id status specialization name | EMPTY
+//   DISPATCH   [max]                                  -> OK assigned waiting
+//   COMPLETE_TASK  taskId                             -> OK | NOT_FOUND (frees the task's team)
+//   STATS                                             -> STATS alerts tasks availableTeams
+//   RATES  [location]                                 -> RATES last1m last5m last60m (alerts added)
+//   QUIT
+// Deadlines are ISO-8601 local date-times. Bad requests, and requests the
+// queues fail to apply, get ERR message. TAKE_ALERTS, RESOLVE_ALERT and
+// merging need lookup by alert id, so the alert queue must be backed by an
+// IndexedAlertStore; any other store is refused when the server is built.
+class HeadlessServer implements Closeable {
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    private static final int DEFAULT_DISPATCH_ROUND = 64;
+
+    private final EmergencyPriorityQueue alerts;
+    private final TaskPriorityQueue tasks;
+    private final ResponseTeamQueue teams;
+    private final DispatchEngine dispatchEngine;
+    private final AlertDeduplicator deduplicator;
+    private final AlertStatistics statistics = new AlertStatistics();
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final List<EmergencyAlert> alertBatch = new ArrayList<>();
+    private Connection batchConnection; // the client the batch is answered to
+    private ColdStorage coldStorage;
+    private volatile boolean serving;
+    private volatile boolean closed;
+
+    private static final class Connection {
+        ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        ByteBuffer out = ByteBuffer.allocate(16 * 1024);
+        boolean quit;
+    }
+
+    public HeadlessServer(EmergencyPriorityQueue alerts, TaskPriorityQueue tasks, ResponseTeamQueue teams,
+                          DispatchEngine dispatchEngine, InetSocketAddress address) throws IOException {
+        this(alerts, tasks, teams, dispatchEngine, null, address);
+    }
+
+    // deduplicator may be null; it must be registered on alerts.
+    public HeadlessServer(EmergencyPriorityQueue alerts, TaskPriorityQueue tasks, ResponseTeamQueue teams,
+                          DispatchEngine dispatchEngine, AlertDeduplicator deduplicator,
+                          InetSocketAddress address) throws IOException {
+        if (!alerts.hasLookup()) {
+            throw new IllegalArgumentException("HeadlessServer needs an alert queue backed by an IndexedAlertStore");
+        }
+        this.alerts = alerts;
+        this.tasks = tasks;
+        this.teams = teams;
+        this.dispatchEngine = dispatchEngine;
+        this.deduplicator = deduplicator;
+        alerts.addListener(statistics);
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // Set before serve(); it must be registered on alerts.
+    public void setColdStorage(ColdStorage coldStorage) {
+        this.coldStorage = coldStorage;
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    // Runs the event loop on the calling thread until close(), then closes
+    // the listener and every connection from that same thread.
+    public void serve() {
+        serving = true;
+        try {
+            while (!closed) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        }
+                    } catch (IOException | CancelledKeyException e) {
+                        // One broken client must not stop the server
+                        drop(key);
+                    } catch (RuntimeException e) {
+                        // Nor one request failing outside its own error reply
+                        e.printStackTrace();
+                        drop(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (ClosedSelectorException e) {
+            // close() ran before the loop started
+        } finally {
+            shutdown();
+        }
+    }
+
+    // Idempotent and safe from any thread: it only wakes the event loop,
+    // which does the closing. Without a loop it closes the listener itself.
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (serving) {
+            selector.wakeup();
+        } else {
+            shutdown();
+        }
+    }
+
+    private void shutdown() {
+        try {
+            server.close();
+            if (selector.isOpen()) {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (ClosedSelectorException e) {
+            // Closed by the other path meanwhile
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        if (!connection.in.hasRemaining()) {
+            if (connection.in.capacity() >= MAX_LINE_BYTES) {
+                reply(connection, "ERR line too long");
+                connection.quit = true;
+                write(key);
+                return;
+            }
+            connection.in = grow(connection.in, connection.in.capacity() * 2);
+        }
+        if (channel.read(connection.in) < 0) {
+            drop(key);
+            return;
+        }
+
+        // Execute every complete line, keep the partial tail for next time
+        ByteBuffer in = connection.in;
+        in.flip();
+        int lineStart = in.position();
+        for (int i = lineStart; i < in.limit() && !connection.quit; i++) {
+            if (in.get(i) == '\n') {
+                int end = i > lineStart && in.get(i - 1) == '\r' ? i - 1 : i;
+                String line = new String(in.array(), lineStart, end - lineStart, StandardCharsets.UTF_8);
+                execute(connection, line);
+                lineStart = i + 1;
+            }
+        }
+        in.position(lineStart);
+        in.compact();
+        flushAlerts();
+        write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        connection.out.flip();
+        ((SocketChannel) key.channel()).write(connection.out);
+        boolean drained = !connection.out.hasRemaining();
+        connection.out.compact();
+        if (drained && connection.quit) {
+            drop(key);
+        } else if (drained) {
+            key.interestOps(SelectionKey.OP_READ);
+        } else {
+            // Stop taking requests until this client reads its replies
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void drop(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void execute(Connection connection, String line) {
+        String[] fields = line.split("\t", -1);
+        try {
+            if (!fields[0].equals("ADD_ALERT")) {
+                flushAlerts();
+            }
+            switch (fields[0]) {
+                case "ADD_ALERT": {
+                    require(fields, 4);
+                    EmergencyAlert alert = new EmergencyAlert(alerts.getNextAlertId(), fields[3],
+                        level(fields[1]), fields[2]);
+                    if (fields.length > 5) {
+                        alert.setCoordinates(Double.parseDouble(fields[4]), Double.parseDouble(fields[5]));
+                    }
+                    EmergencyAlert duplicate = deduplicator == null ? null : deduplicator.findDuplicate(alert);
+                    if (duplicate != null) {
+                        // The duplicate may still be waiting in the batch
+                        flushAlerts();
+                        if (alerts.mergeReport(duplicate, alert)) {
+                            reply(connection, "MERGED\t" + duplicate.getAlertId() + "\t" + duplicate.getReportCount());
+                            break;
+                        }
+                    }
+                    if (deduplicator != null) {
+                        deduplicator.remember(alert);
+                    }
+                    alertBatch.add(alert);
+                    batchConnection = connection;
+                    break;
+                }
+                case "NEXT_ALERT": {
+                    EmergencyAlert alert = alerts.getNextAlert();
+                    reply(connection, alert == null ? "EMPTY" : describe(alert));
+                    break;
+                }
+                case "DRAIN_ALERTS": {
+                    require(fields, 2);
+                    List<EmergencyAlert> drained = new ArrayList<>();
+                    alerts.drainTo(drained, Integer.parseInt(fields[1]));
+                    for (EmergencyAlert alert : drained) {
+                        reply(connection, describe(alert));
+                    }
+                    reply(connection, "END");
+                    break;
+                }
+                case "NEAR_ALERTS": {
+                    require(fields, 4);
+                    int minSeverity = fields.length > 4 ? level(fields[4]) : 1;
+                    for (EmergencyAlert alert : alerts.alertsWithin(Double.parseDouble(fields[1]),
+                            Double.parseDouble(fields[2]), Double.parseDouble(fields[3]), minSeverity)) {
+                        reply(connection, describe(alert));
+                    }
+                    reply(connection, "END");
+                    break;
+                }
+                case "PEEK_ALERTS": {
+                    require(fields, 2);
+                    for (EmergencyAlert alert : alerts.snapshot().top(Integer.parseInt(fields[1]))) {
+                        LocalDateTime time = alert.getTimestamp();
+                        reply(connection, "PEEK\t" + alert.getAlertId() + "\t" + alert.getSeverity() + "\t"
+                            + (time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano()));
+                    }
+                    reply(connection, "END");
+                    break;
+                }
+                case "TAKE_ALERTS": {
+                    require(fields, 2);
+                    for (int i = 1; i < fields.length; i++) {
+                        EmergencyAlert alert = alerts.take(Integer.parseInt(fields[i]));
+                        if (alert != null) {
+                            reply(connection, "TAKEN\t" + alert.getAlertId() + "\t" + alert.getSeverity() + "\t"
+                                + alert.getTimestamp() + "\t" + alert.getStatus() + "\t" + alert.getReportCount()
+                                + "\t" + alert.getLatitude() + "\t" + alert.getLongitude() + "\t"
+                                + alert.getLocation() + "\t" + alert.getDescription());
+                        }
+                    }
+                    reply(connection, "END");
+                    break;
+                }
+                case "RESOLVE_ALERT": {
+                    require(fields, 2);
+                    reply(connection, alerts.resolve(Integer.parseInt(fields[1])) == null ? "NOT_FOUND" : "OK");
+                    break;
+                }
+                case "ARCHIVED_ALERTS": {
+                    require(fields, 3);
+                    if (coldStorage == null) {
+                        reply(connection, "ERR no archive configured");
+                        break;
+                    }
+                    int minSeverity = fields.length > 3 ? level(fields[3]) : 1;
+                    int maxSeverity = fields.length > 4 ? level(fields[4]) : 10;
+                    try {
+                        coldStorage.alerts().scan(LocalDateTime.parse(fields[1]), LocalDateTime.parse(fields[2]),
+                            minSeverity, maxSeverity, alert -> reply(connection, describe(alert)));
+                        reply(connection, "END");
+                    } catch (IOException e) {
+                        reply(connection, "ERR " + e.getMessage());
+                    }
+                    break;
+                }
+                case "ADD_TASK": {
+                    require(fields, 4);
+                    Task task = new Task(tasks.getNextTaskId(), fields[3], level(fields[1]),
+                        LocalDateTime.parse(fields[2]));
+                    if (fields.length > 4 && !fields[4].isEmpty()) {
+                        task.setRequiredSpecialization(fields[4]);
+                    }
+                    tasks.addTask(task);
+                    reply(connection, "OK\t" + task.getTaskId());
+                    break;
+                }
+                case "NEXT_TASK": {
+                    Task task = tasks.getNextTask();
+                    reply(connection, task == null ? "EMPTY" : "TASK\t" + task.getTaskId() + "\t"
+                        + task.getPriority() + "\t" + task.getStatus() + "\t" + task.getDeadline() + "\t"
+                        + task.getName());
+                    break;
+                }
+                case "ADD_TEAM": {
+                    require(fields, 3);
+                    ResponseTeam team = new ResponseTeam(teams.getNextTeamId(), fields[1], fields[2]);
+                    teams.addTeam(team);
+                    reply(connection, "OK\t" + team.getTeamId());
+                    break;
+                }
+                case "NEXT_TEAM": {
+                    ResponseTeam team = teams.getNextTeam();
+                    reply(connection, team == null ? "EMPTY" : "TEAM\t" + team.getTeamId() + "\t"
+                        + team.getStatus() + "\t" + team.getSpecialization() + "\t" + team.getName());
+                    break;
+                }
+                case "DISPATCH": {
+                    int max = fields.length > 1 ? Integer.parseInt(fields[1]) : DEFAULT_DISPATCH_ROUND;
+                    int assigned = dispatchEngine.dispatchRound(max).size();
+                    reply(connection, "OK\t" + assigned + "\t" + dispatchEngine.waitingCount());
+                    break;
+                }
+                case "COMPLETE_TASK": {
+                    require(fields, 2);
+                    reply(connection, dispatchEngine.complete(Integer.parseInt(fields[1])) ? "OK" : "NOT_FOUND");
+                    break;
+                }
+                case "STATS":
+                    reply(connection, "STATS\t" + alerts.size() + "\t" + tasks.size() + "\t"
+                        + dispatchEngine.availableCount());
+                    break;
+                case "RATES": {
+                    AlertStatistics.Window[] windows = AlertStatistics.Window.values();
+                    StringBuilder rates = new StringBuilder("RATES");
+                    for (AlertStatistics.Window window : windows) {
+                        rates.append('\t').append(fields.length > 1 && !fields[1].isEmpty()
+                            ? statistics.countByLocation(fields[1], window) : statistics.count(window));
+                    }
+                    reply(connection, rates.toString());
+                    break;
+                }
+                case "QUIT":
+                    connection.quit = true;
+                    break;
+                default:
+                    reply(connection, "ERR unknown command " + fields[0]);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException | UnsupportedOperationException e) {
+            // Batched alerts before this request are answered first
+            flushAlerts();
+            reply(connection, "ERR " + e.getMessage());
+        } catch (RuntimeException e) {
+            // e.g. a failed log write; keep serving
+            e.printStackTrace();
+            flushAlerts();
+            reply(connection, "ERR " + e);
+        }
+    }
+
+    // Queues the batch and answers its ADD_ALERTs, in order. A batch that
+    // fails (e.g. a full off-heap store) is dropped rather than retried with
+    // every request, and each of its alerts gets ERR.
+    private void flushAlerts() {
+        if (alertBatch.isEmpty()) {
+            return;
+        }
+        String failure = null;
+        try {
+            alerts.addAll(alertBatch);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            failure = "ERR " + e;
+        }
+        for (EmergencyAlert alert : alertBatch) {
+            reply(batchConnection, failure != null ? failure : "OK\t" + alert.getAlertId());
+        }
+        alertBatch.clear();
+        batchConnection = null;
+    }
+
+    private static String describe(EmergencyAlert alert) {
+        return "ALERT\t" + alert.getAlertId() + "\t" + alert.getSeverity() + "\t" + alert.getStatus() + "\t"
+            + alert.getLocation() + "\t" + alert.getDescription();
+    }
+
+    private static void require(String[] fields, int count) {
+        if (fields.length < count) {
+            throw new IllegalArgumentException(fields[0] + " needs " + (count - 1) + " fields");
+        }
+    }
+
+    // Severity and priority share the 1-10 scale the stores expect.
+    private static int level(String field) {
+        int level = Integer.parseInt(field);
+        if (level < 1 || level > 10) {
+            throw new IllegalArgumentException("level must be 1-10: " + level);
+        }
+        return level;
+    }
+
+    private static void reply(Connection connection, String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (connection.out.remaining() < bytes.length) {
+            connection.out = grow(connection.out, connection.out.position() + bytes.length);
+        }
+        connection.out.put(bytes);
+    }
+
+    // Copies a buffer in write mode into a larger one.
+    private static ByteBuffer grow(ByteBuffer buffer, int minCapacity) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(minCapacity, buffer.capacity() * 2));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
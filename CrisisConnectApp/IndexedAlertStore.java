@@ -0,0 +1,224 @@
+package com.crisisconnect;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Binary heap of alerts with an alertId -> node map. Each node tracks its own
+// heap position, so an alert can be found in O(1) and re-prioritised or
+// removed with a single O(log n) sift instead of a linear scan.
+//
+// Nodes carry their own ordering key; a severity change swaps in a new node
+// rather than mutating the old one, so copy-on-write snapshots keep the
+// order they were taken with.
+class IndexedAlertStore implements PriorityStore<EmergencyAlert> {
+    private final Map<Integer, Node> byId = new HashMap<>();
+    private Node[] heap = new Node[16];
+    private int size;
+    private long sequence;
+    private long version;
+    private boolean shared;
+
+    public void offer(EmergencyAlert alert) {
+        if (byId.containsKey(alert.getAlertId())) {
+            throw new IllegalArgumentException("Duplicate alert id: " + alert.getAlertId());
+        }
+        checkSeverity(alert.getSeverity());
+        beforeWrite();
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size + (size >> 1));
+        }
+        Node node = new Node(alert, alert.getSeverity(), sequence++);
+        byId.put(alert.getAlertId(), node);
+        siftUp(size++, node);
+    }
+
+    // Same rule as HeapStore.offerAll: sift up into a larger heap, otherwise
+    // append and heapify bottom-up. A duplicate id or an out-of-range
+    // severity leaves the store unchanged.
+    public void offerAll(Collection<? extends EmergencyAlert> alerts) {
+        for (EmergencyAlert alert : alerts) {
+            checkSeverity(alert.getSeverity());
+        }
+        Node[] batch = new Node[alerts.size()];
+        int count = 0;
+        for (EmergencyAlert alert : alerts) {
+            Node node = new Node(alert, alert.getSeverity(), sequence + count);
+            if (byId.putIfAbsent(alert.getAlertId(), node) != null) {
+                for (int i = 0; i < count; i++) {
+                    byId.remove(batch[i].alert.getAlertId());
+                }
+                throw new IllegalArgumentException("Duplicate alert id: " + alert.getAlertId());
+            }
+            batch[count++] = node;
+        }
+        sequence += count;
+        beforeWrite();
+        if (size + count > heap.length) {
+            heap = Arrays.copyOf(heap, size + count + ((size + count) >> 1));
+        }
+        if (count < size) {
+            for (Node node : batch) {
+                siftUp(size++, node);
+            }
+            return;
+        }
+        for (Node node : batch) {
+            place(size++, node);
+        }
+        for (int k = (size >>> 1) - 1; k >= 0; k--) {
+            siftDown(k, heap[k]);
+        }
+    }
+
+    public EmergencyAlert poll() {
+        if (size == 0) {
+            return null;
+        }
+        Node top = heap[0];
+        removeAt(0);
+        return top.alert;
+    }
+
+    public EmergencyAlert peek() {
+        return size == 0 ? null : heap[0].alert;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public EmergencyAlert get(int alertId) {
+        Node node = byId.get(alertId);
+        return node == null ? null : node.alert;
+    }
+
+    public boolean contains(int alertId) {
+        return byId.containsKey(alertId);
+    }
+
+    // Escalates or de-escalates a queued alert in place.
+    public boolean updateSeverity(int alertId, int severity) {
+        checkSeverity(severity);
+        Node node = byId.get(alertId);
+        if (node == null) {
+            return false;
+        }
+        beforeWrite();
+        node.alert.setSeverity(severity);
+        Node updated = new Node(node.alert, severity, node.seq);
+        byId.put(alertId, updated);
+        int index = node.index;
+        if (severity > node.severity) {
+            siftUp(index, updated);
+        } else {
+            siftDown(index, updated);
+        }
+        return true;
+    }
+
+    // Removes a queued alert without dispatching it.
+    public EmergencyAlert cancel(int alertId) {
+        Node node = byId.get(alertId);
+        if (node == null) {
+            return null;
+        }
+        removeAt(node.index);
+        return node.alert;
+    }
+
+    public QueueSnapshot<EmergencyAlert> snapshot() {
+        shared = true;
+        return new HeapSnapshot<>(heap, size, version,
+            (a, b) -> compare((Node) a, (Node) b), n -> ((Node) n).alert);
+    }
+
+    private void removeAt(int index) {
+        beforeWrite();
+        Node removed = heap[index];
+        byId.remove(removed.alert.getAlertId());
+        Node last = heap[--size];
+        heap[size] = null;
+        if (index < size) {
+            siftDown(index, last);
+            if (heap[index] == last) {
+                siftUp(index, last);
+            }
+        }
+    }
+
+    private void beforeWrite() {
+        version++;
+        if (shared) {
+            heap = heap.clone();
+            shared = false;
+        }
+    }
+
+    private void siftUp(int k, Node node) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            Node p = heap[parent];
+            if (compare(node, p) >= 0) {
+                break;
+            }
+            place(k, p);
+            k = parent;
+        }
+        place(k, node);
+    }
+
+    private void siftDown(int k, Node node) {
+        int half = size >>> 1;
+        while (k < half) {
+            int child = 2 * k + 1;
+            int right = child + 1;
+            if (right < size && compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+            if (compare(node, heap[child]) <= 0) {
+                break;
+            }
+            place(k, heap[child]);
+            k = child;
+        }
+        place(k, node);
+    }
+
+    private void place(int index, Node node) {
+        heap[index] = node;
+        node.index = index;
+    }
+
+    static void checkSeverity(int severity) {
+        if (severity < 1 || severity > 10) {
+            throw new IllegalArgumentException("Severity must be between 1 and 10: " + severity);
+        }
+    }
+
+    // Higher severity first, then arrival order.
+    private static int compare(Node a, Node b) {
+        if (a.severity != b.severity) {
+            return Integer.compare(b.severity, a.severity);
+        }
+        return Long.compare(a.seq, b.seq);
+    }
+
+    private static final class Node {
+        final EmergencyAlert alert;
+        final int severity;
+        final long seq;
+        int index;
+
+        Node(EmergencyAlert alert, int severity, long seq) {
+            this.alert = alert;
+            this.severity = severity;
+            this.seq = seq;
+        }
+    }
+}
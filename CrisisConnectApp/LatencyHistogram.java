@@ -0,0 +1,95 @@
+package com.crisisconnect;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear histogram of nanosecond latencies in the style of HdrHistogram:
+// each power of two is split into 32 linear sub-buckets, so any recorded
+// value is reported within ~3% over the whole long range. record() is a
+// few atomic adds into fixed arrays, with no allocation and no lock, and may
+// be called from any thread. Reads are not a consistent snapshot while
+// writers are active, which is fine for monitoring.
+class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Values below 2 * SUB_BUCKETS map one to one
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = (64 - SUB_BITS - 1) * SUB_BUCKETS + LINEAR;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Smallest bucket bound that covers the given fraction (0-1) of values.
+    public long percentile(double fraction) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalent(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS - 1;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    // Largest value that lands in bucket i.
+    static long highestEquivalent(int i) {
+        if (i < LINEAR) {
+            return i;
+        }
+        int shift = i / SUB_BUCKETS - 1;
+        long lowest = (long) (i % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,189 @@
+package com.crisisconnect;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+// Min-heap of primitive longs in one flat array: no boxing, no per-element
+// objects, and sift comparisons are plain long compares. Callers pack their
+// ordering key and a payload handle into each long.
+//
+// The heap is 4-ary: the children of slot k are 4k+1..4k+4, which share a
+// cache line, so a sift down touches half as many lines as a binary heap.
+class LongHeap {
+    static final int ARITY = 4;
+
+    private long[] heap;
+    private int size;
+    private boolean shared;
+
+    public LongHeap() {
+        this(16);
+    }
+
+    public LongHeap(int capacity) {
+        heap = new long[Math.max(capacity, 2)];
+    }
+
+    public void push(long key) {
+        beforeWrite();
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size + (size >> 1));
+        }
+        int k = size++;
+        while (k > 0) {
+            int parent = (k - 1) / ARITY;
+            long p = heap[parent];
+            if (key >= p) {
+                break;
+            }
+            heap[k] = p;
+            k = parent;
+        }
+        heap[k] = key;
+    }
+
+    // Appends count keys and restores heap order bottom-up, O(size + count).
+    public void pushAll(long[] keys, int count) {
+        beforeWrite();
+        if (size + count > heap.length) {
+            heap = Arrays.copyOf(heap, size + count + ((size + count) >> 1));
+        }
+        System.arraycopy(keys, 0, heap, size, count);
+        size += count;
+        for (int k = (size - 2) / ARITY; k >= 0; k--) {
+            siftDown(k, heap[k]);
+        }
+    }
+
+    public long pop() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        beforeWrite();
+        long top = heap[0];
+        long last = heap[--size];
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return top;
+    }
+
+    private void siftDown(int k, long key) {
+        while (true) {
+            int first = ARITY * k + 1;
+            if (first >= size) {
+                break;
+            }
+            int end = Math.min(first + ARITY, size);
+            int child = first;
+            long c = heap[first];
+            for (int i = first + 1; i < end; i++) {
+                if (heap[i] < c) {
+                    child = i;
+                    c = heap[i];
+                }
+            }
+            if (key <= c) {
+                break;
+            }
+            heap[k] = c;
+            k = child;
+        }
+        heap[k] = key;
+    }
+
+    public long peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return heap[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Hands out the backing array for a snapshot; the next write copies it
+    // first (copy-on-write), so the caller sees a frozen heap of size().
+    public long[] share() {
+        shared = true;
+        return heap;
+    }
+
+    private void beforeWrite() {
+        if (shared) {
+            heap = heap.clone();
+            shared = false;
+        }
+    }
+
+    // Yields the keys of a heap-ordered array in ascending order, lazily:
+    // same frontier walk as HeapSnapshot (with four children per slot),
+    // O(k log k) for the first k keys.
+    static PrimitiveIterator.OfLong sortedIterator(long[] heap, int size) {
+        return new PrimitiveIterator.OfLong() {
+            private int[] frontier = new int[16];
+            private int count;
+
+            {
+                if (size > 0) {
+                    push(0);
+                }
+            }
+
+            public boolean hasNext() {
+                return count > 0;
+            }
+
+            public long nextLong() {
+                if (count == 0) {
+                    throw new NoSuchElementException();
+                }
+                int index = frontier[0];
+                int last = frontier[--count];
+                if (count > 0) {
+                    int k = 0;
+                    int half = count >>> 1;
+                    while (k < half) {
+                        int child = 2 * k + 1;
+                        if (child + 1 < count && heap[frontier[child + 1]] < heap[frontier[child]]) {
+                            child++;
+                        }
+                        if (heap[last] <= heap[frontier[child]]) {
+                            break;
+                        }
+                        frontier[k] = frontier[child];
+                        k = child;
+                    }
+                    frontier[k] = last;
+                }
+                int first = ARITY * index + 1;
+                for (int child = first; child < first + ARITY && child < size; child++) {
+                    push(child);
+                }
+                return heap[index];
+            }
+
+            private void push(int index) {
+                if (count == frontier.length) {
+                    frontier = Arrays.copyOf(frontier, count * 2);
+                }
+                int k = count++;
+                while (k > 0) {
+                    int parent = (k - 1) >>> 1;
+                    if (heap[index] >= heap[frontier[parent]]) {
+                        break;
+                    }
+                    frontier[k] = frontier[parent];
+                    k = parent;
+                }
+                frontier[k] = index;
+            }
+        };
+    }
+}
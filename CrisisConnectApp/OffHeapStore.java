@@ -0,0 +1,512 @@
+package com.crisisconnect;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToIntFunction;
+
+// Encodes one record type into a fixed-width slot of a MappedSlots file.
+interface RecordCodec<E> {
+    int slotBytes();
+
+    // Ordering level, higher first (severity or priority).
+    int level(E element);
+
+    void write(E element, ByteBuffer slot, int offset, OffHeapStrings strings);
+
+    E read(ByteBuffer slot, int offset, OffHeapStrings strings);
+}
+
+// Priority store that keeps records off the Java heap. Each record lives in a
+// fixed-width slot of a memory-mapped file; the only on-heap state is a
+// LongHeap of packed (level, sequence, slot) keys and a free-slot stack.
+// poll() and snapshots decode a fresh object from the slot, so callers get
+// equal data but not the instance they offered.
+//
+// Slots freed while a snapshot may still read them are quarantined until
+// every snapshot taken before the free is unreachable, so a snapshot stays
+// valid for as long as anyone holds it, e.g. a checkpoint being written in
+// the background while the UI keeps taking new ones. A snapshot held for
+// long pins the slots freed since; detach() decodes an ordered copy instead.
+class OffHeapStore<E> implements PriorityStore<E>, Closeable {
+    private static final int SLOT_BITS = 28;
+    private static final int SEQUENCE_BITS = 31;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int MAX_LEVEL = 15;
+
+    private final RecordCodec<E> codec;
+    private final MappedSlots slots;
+    private final OffHeapStrings strings;
+    private final LongHeap keys = new LongHeap();
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int[] quarantined = new int[64];
+    // Snapshots taken when each quarantined slot was freed; never decreases
+    private long[] quarantinedAt = new long[64];
+    private int quarantineCount;
+    private int nextSlot;
+    private long sequence;
+    private long version;
+    private long snapshotsTaken;
+    // Snapshots not yet known to be unreachable, oldest first
+    private final ArrayDeque<Reader> readers = new ArrayDeque<>();
+
+    private static final class Reader extends WeakReference<Object> {
+        final long number;
+
+        Reader(Object snapshot, long number) {
+            super(snapshot);
+            this.number = number;
+        }
+    }
+
+    public OffHeapStore(Path dir, String name, RecordCodec<E> codec) {
+        try {
+            Files.createDirectories(dir);
+            this.codec = codec;
+            this.slots = new MappedSlots(dir.resolve(name + ".slots"), codec.slotBytes());
+            this.strings = new OffHeapStrings(dir.resolve(name + ".strings"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void offer(E element) {
+        keys.push(write(element, checkLevel(element)));
+        version++;
+    }
+
+    // Writes the records, then heapifies their keys in one pass.
+    public void offerAll(Collection<? extends E> elements) {
+        for (E element : elements) {
+            checkLevel(element);
+        }
+        long[] batch = new long[elements.size()];
+        int count = 0;
+        for (E element : elements) {
+            batch[count++] = write(element, codec.level(element));
+        }
+        if (count < keys.size()) {
+            for (int i = 0; i < count; i++) {
+                keys.push(batch[i]);
+            }
+        } else {
+            keys.pushAll(batch, count);
+        }
+        version++;
+    }
+
+    private int checkLevel(E element) {
+        int level = codec.level(element);
+        if (level < 0 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Level must be between 0 and 15: " + level);
+        }
+        return level;
+    }
+
+    // Stores the record in a fresh slot and returns its heap key.
+    private long write(E element, int level) {
+        int slot = allocateSlot();
+        codec.write(element, slots.buffer(slot), slots.offset(slot), strings);
+        return ((long) (MAX_LEVEL - level) << (SEQUENCE_BITS + SLOT_BITS))
+            | ((sequence++ & SEQUENCE_MASK) << SLOT_BITS)
+            | slot;
+    }
+
+    public E poll() {
+        if (keys.isEmpty()) {
+            return null;
+        }
+        int slot = (int) (keys.pop() & SLOT_MASK);
+        E element = decode(slot);
+        releaseSlot(slot);
+        version++;
+        return element;
+    }
+
+    public E peek() {
+        return keys.isEmpty() ? null : decode((int) (keys.peek() & SLOT_MASK));
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    public QueueSnapshot<E> snapshot() {
+        releaseQuarantine();
+        long[] frozen = keys.share();
+        int frozenSize = keys.size();
+        long frozenVersion = version;
+        QueueSnapshot<E> snapshot = new QueueSnapshot<E>() {
+            public long version() {
+                return frozenVersion;
+            }
+
+            public int size() {
+                return frozenSize;
+            }
+
+            @Override
+            public QueueSnapshot<E> detach() {
+                List<E> copy = new ArrayList<>(frozenSize);
+                forEach(copy::add);
+                return new ListSnapshot<>(copy, frozenVersion);
+            }
+
+            public Iterator<E> iterator() {
+                PrimitiveIterator.OfLong it = LongHeap.sortedIterator(frozen, frozenSize);
+                return new Iterator<E>() {
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    public E next() {
+                        return decode((int) (it.nextLong() & SLOT_MASK));
+                    }
+                };
+            }
+        };
+        readers.addLast(new Reader(snapshot, ++snapshotsTaken));
+        return snapshot;
+    }
+
+    // The elements with the given ids, in the order of ids, from one pass
+    // over the snapshot. Queues over an OffHeapStore keep ids, not objects,
+    // in their secondary indexes and decode matches this way.
+    static <E> List<E> select(QueueSnapshot<E> snapshot, ToIntFunction<? super E> idOf, Collection<Integer> ids) {
+        Map<Integer, E> found = new HashMap<>();
+        Set<Integer> wanted = new HashSet<>(ids);
+        for (E element : snapshot) {
+            if (wanted.contains(idOf.applyAsInt(element))) {
+                found.put(idOf.applyAsInt(element), element);
+                if (found.size() == wanted.size()) {
+                    break;
+                }
+            }
+        }
+        List<E> selected = new ArrayList<>(found.size());
+        for (Integer id : ids) {
+            E element = found.get(id);
+            if (element != null) {
+                selected.add(element);
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public void close() {
+        try {
+            slots.close();
+            strings.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private E decode(int slot) {
+        return codec.read(slots.buffer(slot), slots.offset(slot), strings);
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (nextSlot > SLOT_MASK) {
+            throw new IllegalStateException("Off-heap store is full");
+        }
+        return nextSlot++;
+    }
+
+    private void releaseSlot(int slot) {
+        releaseQuarantine();
+        if (oldestReader() > snapshotsTaken) {
+            pushFree(slot);
+            return;
+        }
+        if (quarantineCount == quarantined.length) {
+            quarantined = Arrays.copyOf(quarantined, quarantineCount * 2);
+            quarantinedAt = Arrays.copyOf(quarantinedAt, quarantineCount * 2);
+        }
+        quarantined[quarantineCount] = slot;
+        quarantinedAt[quarantineCount++] = snapshotsTaken;
+    }
+
+    // Frees the quarantined slots that no reachable snapshot can read: those
+    // freed before the oldest one was taken.
+    private void releaseQuarantine() {
+        long oldest = oldestReader();
+        int released = 0;
+        while (released < quarantineCount && quarantinedAt[released] < oldest) {
+            pushFree(quarantined[released++]);
+        }
+        if (released > 0) {
+            System.arraycopy(quarantined, released, quarantined, 0, quarantineCount - released);
+            System.arraycopy(quarantinedAt, released, quarantinedAt, 0, quarantineCount - released);
+            quarantineCount -= released;
+        }
+    }
+
+    // Number of the oldest reachable snapshot, or past the newest if none.
+    private long oldestReader() {
+        while (!readers.isEmpty() && readers.peekFirst().get() == null) {
+            readers.pollFirst();
+        }
+        return readers.isEmpty() ? snapshotsTaken + 1 : readers.peekFirst().number;
+    }
+
+    private void pushFree(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+}
+
+// Fixed-width slots in a file mapped 64 MB at a time.
+class MappedSlots implements Closeable {
+    private static final int CHUNK_BYTES = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int slotBytes;
+    private final int slotsPerChunk;
+    // Read by snapshot iterators on other threads; grows rarely
+    private final List<MappedByteBuffer> chunks = new CopyOnWriteArrayList<>();
+
+    public MappedSlots(Path file, int slotBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.slotBytes = slotBytes;
+        this.slotsPerChunk = CHUNK_BYTES / slotBytes;
+    }
+
+    public ByteBuffer buffer(int slot) {
+        int chunk = slot / slotsPerChunk;
+        while (chunks.size() <= chunk) {
+            chunks.add(map(chunks.size()));
+        }
+        return chunks.get(chunk);
+    }
+
+    public int offset(int slot) {
+        return (slot % slotsPerChunk) * slotBytes;
+    }
+
+    private MappedByteBuffer map(int chunk) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long) chunk * CHUNK_BYTES, CHUNK_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
+
+// String storage for off-heap records. Low-cardinality values (locations,
+// statuses, team names) are dictionary-encoded to an int code, so each
+// distinct value exists once. Free text goes to an append-only mapped arena
+// and is referenced by offset; arena space is not reclaimed.
+class OffHeapStrings implements Closeable {
+    private static final int CHUNK_BYTES = 64 * 1024 * 1024;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    // Read by snapshot iterators on other threads; both grow rarely
+    private final List<String> values = new CopyOnWriteArrayList<>();
+    private final FileChannel arena;
+    private final List<MappedByteBuffer> chunks = new CopyOnWriteArrayList<>();
+    private long arenaEnd;
+
+    public OffHeapStrings(Path file) throws IOException {
+        arena = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            values.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    public String interned(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+
+    public long append(String value) {
+        if (value == null) {
+            return -1;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = 4 + bytes.length;
+        if (needed > CHUNK_BYTES) {
+            throw new IllegalArgumentException("String too long for off-heap arena");
+        }
+        long within = arenaEnd % CHUNK_BYTES;
+        if (within + needed > CHUNK_BYTES) {
+            arenaEnd += CHUNK_BYTES - within; // records never straddle chunks
+        }
+        long ref = arenaEnd;
+        ByteBuffer chunk = chunk(ref);
+        int offset = (int) (ref % CHUNK_BYTES);
+        chunk.putInt(offset, bytes.length);
+        chunk.put(offset + 4, bytes);
+        arenaEnd += needed;
+        return ref;
+    }
+
+    public String read(long ref) {
+        if (ref < 0) {
+            return null;
+        }
+        ByteBuffer chunk = chunk(ref);
+        int offset = (int) (ref % CHUNK_BYTES);
+        byte[] bytes = new byte[chunk.getInt(offset)];
+        chunk.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer chunk(long ref) {
+        int index = (int) (ref / CHUNK_BYTES);
+        try {
+            while (chunks.size() <= index) {
+                chunks.add(arena.map(FileChannel.MapMode.READ_WRITE, (long) chunks.size() * CHUNK_BYTES,
+                    CHUNK_BYTES));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return chunks.get(index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        arena.close();
+    }
+}
+
+// Alert slot: id, severity, timestamp (seconds + nanos), status and location
+// codes, description arena reference, latitude, longitude, report count,
+// arrival and queuedAtNanos. 80 bytes.
+class AlertRecordCodec implements RecordCodec<EmergencyAlert> {
+    public int slotBytes() {
+        return 80;
+    }
+
+    public int level(EmergencyAlert alert) {
+        return alert.getSeverity();
+    }
+
+    public void write(EmergencyAlert alert, ByteBuffer slot, int offset, OffHeapStrings strings) {
+        slot.putInt(offset, alert.getAlertId());
+        slot.putInt(offset + 4, alert.getSeverity());
+        putTime(slot, offset + 8, alert.getTimestamp());
+        slot.putInt(offset + 20, strings.intern(alert.getStatus()));
+        slot.putInt(offset + 24, strings.intern(alert.getLocation()));
+        slot.putLong(offset + 28, strings.append(alert.getDescription()));
+        slot.putDouble(offset + 40, alert.getLatitude());
+        slot.putDouble(offset + 48, alert.getLongitude());
+        slot.putInt(offset + 56, alert.getReportCount());
+        slot.putLong(offset + 64, alert.getArrival());
+        slot.putLong(offset + 72, alert.getQueuedAtNanos());
+    }
+
+    public EmergencyAlert read(ByteBuffer slot, int offset, OffHeapStrings strings) {
+        EmergencyAlert alert = new EmergencyAlert(
+            slot.getInt(offset),
+            strings.read(slot.getLong(offset + 28)),
+            slot.getInt(offset + 4),
+            getTime(slot, offset + 8),
+            strings.interned(slot.getInt(offset + 24)),
+            strings.interned(slot.getInt(offset + 20)));
+        alert.setCoordinates(slot.getDouble(offset + 40), slot.getDouble(offset + 48));
+        alert.setReportCount(slot.getInt(offset + 56));
+        alert.setArrival(slot.getLong(offset + 64));
+        alert.setQueuedAtNanos(slot.getLong(offset + 72));
+        return alert;
+    }
+
+    static void putTime(ByteBuffer slot, int offset, LocalDateTime time) {
+        slot.putLong(offset, time == null ? Long.MIN_VALUE : time.toEpochSecond(ZoneOffset.UTC));
+        slot.putInt(offset + 8, time == null ? 0 : time.getNano());
+    }
+
+    static LocalDateTime getTime(ByteBuffer slot, int offset) {
+        long seconds = slot.getLong(offset);
+        return seconds == Long.MIN_VALUE ? null
+            : LocalDateTime.ofEpochSecond(seconds, slot.getInt(offset + 8), ZoneOffset.UTC);
+    }
+}
+
+// Task slot: id, priority, deadline, status and team codes, name reference,
+// required specialization code, latitude, longitude.
+class TaskRecordCodec implements RecordCodec<Task> {
+    public int slotBytes() {
+        return 56;
+    }
+
+    public int level(Task task) {
+        return task.getPriority();
+    }
+
+    public void write(Task task, ByteBuffer slot, int offset, OffHeapStrings strings) {
+        slot.putInt(offset, task.getTaskId());
+        slot.putInt(offset + 4, task.getPriority());
+        AlertRecordCodec.putTime(slot, offset + 8, task.getDeadline());
+        slot.putInt(offset + 20, strings.intern(task.getStatus()));
+        slot.putInt(offset + 24, strings.intern(task.getAssignedTeam()));
+        slot.putLong(offset + 28, strings.append(task.getName()));
+        slot.putInt(offset + 36, strings.intern(task.getRequiredSpecialization()));
+        slot.putDouble(offset + 40, task.getLatitude());
+        slot.putDouble(offset + 48, task.getLongitude());
+    }
+
+    public Task read(ByteBuffer slot, int offset, OffHeapStrings strings) {
+        Task task = new Task(
+            slot.getInt(offset),
+            strings.read(slot.getLong(offset + 28)),
+            slot.getInt(offset + 4),
+            AlertRecordCodec.getTime(slot, offset + 8),
+            strings.interned(slot.getInt(offset + 20)),
+            strings.interned(slot.getInt(offset + 24)));
+        task.setRequiredSpecialization(strings.interned(slot.getInt(offset + 36)));
+        task.setCoordinates(slot.getDouble(offset + 40), slot.getDouble(offset + 48));
+        return task;
+    }
+}
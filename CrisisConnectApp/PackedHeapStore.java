@@ -0,0 +1,238 @@
+package com.crisisconnect;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+// 4-ary heap over packed primitive keys: each queued element is one long of
+// (inverted level, arrival sequence, slot) in a LongHeap, and the element
+// itself sits in a separate payload array at that slot. Sifts compare longs
+// in one contiguous array instead of calling compareTo on objects scattered
+// across the heap, so offer/poll touch a few cache lines per level rather
+// than one per element visited. Same key layout as OffHeapStore, with the
+// payloads kept on the Java heap.
+//
+// Equal levels come out in arrival order. Slots freed while a snapshot may
+// still read them are quarantined as in OffHeapStore, so a snapshot stays
+// valid until the next one is taken; detach() for longer.
+class PackedHeapStore<E> implements PriorityStore<E> {
+    private static final int SLOT_BITS = 28;
+    private static final int SEQUENCE_BITS = 31;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int MAX_LEVEL = 15;
+
+    private final ToIntFunction<? super E> levelOf;
+    private final LongHeap keys;
+    private Object[] payloads;
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int[] quarantined = new int[64];
+    private int quarantineCount;
+    private int nextSlot;
+    private long sequence;
+    private long version;
+    private boolean shared;
+    private WeakReference<QueueSnapshot<E>> lastSnapshot = new WeakReference<>(null);
+
+    public PackedHeapStore(ToIntFunction<? super E> levelOf) {
+        this(levelOf, 16);
+    }
+
+    public PackedHeapStore(ToIntFunction<? super E> levelOf, int capacity) {
+        this.levelOf = levelOf;
+        keys = new LongHeap(capacity);
+        payloads = new Object[Math.max(capacity, 16)];
+    }
+
+    public void offer(E element) {
+        int level = checkLevel(element);
+        reserveSequences(1);
+        keys.push(key(level, store(element)));
+        version++;
+    }
+
+    // Stores the payloads, then heapifies their keys in one pass when the
+    // batch is at least as large as the heap.
+    public void offerAll(Collection<? extends E> elements) {
+        int[] levels = new int[elements.size()];
+        int count = 0;
+        for (E element : elements) {
+            levels[count++] = checkLevel(element);
+        }
+        long[] batch = new long[count];
+        reserveSequences(count);
+        count = 0;
+        for (E element : elements) {
+            batch[count] = key(levels[count], store(element));
+            count++;
+        }
+        if (count < keys.size()) {
+            for (int i = 0; i < count; i++) {
+                keys.push(batch[i]);
+            }
+        } else {
+            keys.pushAll(batch, count);
+        }
+        version++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        if (keys.isEmpty()) {
+            return null;
+        }
+        int slot = (int) (keys.pop() & SLOT_MASK);
+        E element = (E) payloads[slot];
+        releaseSlot(slot);
+        version++;
+        return element;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        return keys.isEmpty() ? null : (E) payloads[(int) (keys.peek() & SLOT_MASK)];
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    public QueueSnapshot<E> snapshot() {
+        releaseQuarantine();
+        shared = true;
+        QueueSnapshot<E> snapshot = snapshotOf(keys.share(), payloads, keys.size(), version, true);
+        lastSnapshot = new WeakReference<>(snapshot);
+        return snapshot;
+    }
+
+    // A detached view copies the payload array, so it keeps its elements
+    // once the quarantined slots are reused.
+    private QueueSnapshot<E> snapshotOf(long[] frozen, Object[] frozenPayloads, int frozenSize,
+                                        long frozenVersion, boolean live) {
+        return new QueueSnapshot<E>() {
+            public long version() {
+                return frozenVersion;
+            }
+
+            public int size() {
+                return frozenSize;
+            }
+
+            @Override
+            public QueueSnapshot<E> detach() {
+                return live ? snapshotOf(frozen, frozenPayloads.clone(), frozenSize, frozenVersion, false) : this;
+            }
+
+            @SuppressWarnings("unchecked")
+            public Iterator<E> iterator() {
+                PrimitiveIterator.OfLong it = LongHeap.sortedIterator(frozen, frozenSize);
+                return new Iterator<E>() {
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    public E next() {
+                        return (E) frozenPayloads[(int) (it.nextLong() & SLOT_MASK)];
+                    }
+                };
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void forEachUnordered(Consumer<? super E> action) {
+                for (int i = 0; i < frozenSize; i++) {
+                    action.accept((E) frozenPayloads[(int) (frozen[i] & SLOT_MASK)]);
+                }
+            }
+        };
+    }
+
+    private int checkLevel(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        int level = levelOf.applyAsInt(element);
+        if (level < 0 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Level must be between 0 and 15: " + level);
+        }
+        return level;
+    }
+
+    private long key(int level, int slot) {
+        return ((long) (MAX_LEVEL - level) << (SEQUENCE_BITS + SLOT_BITS))
+            | (sequence++ << SLOT_BITS)
+            | slot;
+    }
+
+    // Before the sequence field overflows (2^31 offers), rewrites the queued
+    // keys with sequences 0..size-1 in their current order.
+    private void reserveSequences(int count) {
+        if (sequence + count - 1 <= SEQUENCE_MASK) {
+            return;
+        }
+        int queued = keys.size();
+        long[] ordered = new long[queued];
+        for (int i = 0; i < queued; i++) {
+            long key = keys.pop();
+            ordered[i] = (key & ~(SEQUENCE_MASK << SLOT_BITS)) | ((long) i << SLOT_BITS);
+        }
+        keys.pushAll(ordered, queued);
+        sequence = queued;
+    }
+
+    private int store(E element) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (nextSlot > SLOT_MASK) {
+                throw new IllegalStateException("Packed heap store is full");
+            }
+            slot = nextSlot++;
+            if (slot == payloads.length) {
+                payloads = Arrays.copyOf(payloads, slot + (slot >> 1));
+            }
+        }
+        payloads[slot] = element;
+        return slot;
+    }
+
+    private void releaseSlot(int slot) {
+        if (shared && lastSnapshot.get() == null) {
+            releaseQuarantine();
+            shared = false;
+        }
+        if (shared) {
+            if (quarantineCount == quarantined.length) {
+                quarantined = Arrays.copyOf(quarantined, quarantineCount * 2);
+            }
+            quarantined[quarantineCount++] = slot;
+        } else {
+            pushFree(slot);
+        }
+    }
+
+    private void releaseQuarantine() {
+        for (int i = 0; i < quarantineCount; i++) {
+            pushFree(quarantined[i]);
+        }
+        quarantineCount = 0;
+    }
+
+    private void pushFree(int slot) {
+        payloads[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+}
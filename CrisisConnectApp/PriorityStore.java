@@ -0,0 +1,455 @@
+package com.crisisconnect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Backing storage for the priority queues. Implementations decide ordering
+// cost and thread-safety; the queue classes only talk to this interface.
+interface PriorityStore<E> {
+    void offer(E element);
+
+    E poll();
+
+    E peek();
+
+    int size();
+
+    boolean isEmpty();
+
+    // Cheap, versioned view of the current contents in priority order.
+    QueueSnapshot<E> snapshot();
+
+    // Adds a whole batch. Heap stores override this to heapify bottom-up in
+    // O(n); for bucket stores one offer each is already an O(1) append.
+    default void offerAll(Collection<? extends E> elements) {
+        for (E element : elements) {
+            offer(element);
+        }
+    }
+
+    // Moves up to max elements, in priority order, into target.
+    default int drainTo(Collection<? super E> target, int max) {
+        int drained = 0;
+        E element;
+        while (drained < max && (element = poll()) != null) {
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+}
+
+// Read-only view of a store as of one version. Iteration yields elements in
+// priority order and is lazy, so reading the first page of a large queue
+// costs only that page.
+interface QueueSnapshot<E> extends Iterable<E> {
+    long version();
+
+    int size();
+
+    default List<E> top(int k) {
+        List<E> page = new ArrayList<>(Math.min(k, size()));
+        Iterator<E> it = iterator();
+        while (page.size() < k && it.hasNext()) {
+            page.add(it.next());
+        }
+        return page;
+    }
+
+    // Visits every element in no particular order; stores override this
+    // when it is cheaper than the ordered walk (e.g. a full table rebuild).
+    default void forEachUnordered(Consumer<? super E> action) {
+        forEach(action);
+    }
+
+    // A view that another thread may read while the store keeps changing.
+    // Copy-on-write and concurrent snapshots already are one; snapshots that
+    // read the live structure return an ordered copy instead.
+    default QueueSnapshot<E> detach() {
+        return this;
+    }
+}
+
+// Snapshot over an already-ordered copy of the elements.
+class ListSnapshot<E> implements QueueSnapshot<E> {
+    private final List<E> elements;
+    private final long version;
+
+    ListSnapshot(List<E> elements, long version) {
+        this.elements = elements;
+        this.version = version;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    public Iterator<E> iterator() {
+        return elements.iterator();
+    }
+}
+
+// Single-threaded binary heap, the original behaviour of the queues.
+// Snapshots share the heap array; the next write after a snapshot copies it
+// (copy-on-write), so repeated refreshes without changes cost nothing.
+class HeapStore<E> implements PriorityStore<E> {
+    private final Comparator<? super E> comparator;
+    private Object[] heap;
+    private int size;
+    private long version;
+    private boolean shared;
+
+    @SuppressWarnings("unchecked")
+    public HeapStore() {
+        this((a, b) -> ((Comparable<? super E>) a).compareTo(b));
+    }
+
+    public HeapStore(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        heap = new Object[16];
+    }
+
+    public void offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        beforeWrite();
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size + (size >> 1));
+        }
+        siftUp(size++, element);
+    }
+
+    // Small batches into a large heap sift up one by one; otherwise append
+    // everything and rebuild bottom-up, O(size + n) whatever the order.
+    @SuppressWarnings("unchecked")
+    public void offerAll(Collection<? extends E> elements) {
+        Object[] batch = elements.toArray();
+        for (Object element : batch) {
+            if (element == null) {
+                throw new NullPointerException();
+            }
+        }
+        beforeWrite();
+        if (size + batch.length > heap.length) {
+            heap = Arrays.copyOf(heap, size + batch.length + ((size + batch.length) >> 1));
+        }
+        if (batch.length < size) {
+            for (Object element : batch) {
+                siftUp(size++, (E) element);
+            }
+            return;
+        }
+        System.arraycopy(batch, 0, heap, size, batch.length);
+        size += batch.length;
+        for (int k = (size >>> 1) - 1; k >= 0; k--) {
+            siftDown(k, (E) heap[k]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        if (size == 0) {
+            return null;
+        }
+        beforeWrite();
+        E top = (E) heap[0];
+        E last = (E) heap[--size];
+        heap[size] = null;
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return top;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        return (E) heap[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public QueueSnapshot<E> snapshot() {
+        shared = true;
+        return new HeapSnapshot<>(heap, size, version,
+            (a, b) -> comparator.compare((E) a, (E) b), e -> (E) e);
+    }
+
+    private void beforeWrite() {
+        version++;
+        if (shared) {
+            heap = heap.clone();
+            shared = false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void siftUp(int k, E element) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            Object p = heap[parent];
+            if (comparator.compare(element, (E) p) >= 0) {
+                break;
+            }
+            heap[k] = p;
+            k = parent;
+        }
+        heap[k] = element;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void siftDown(int k, E element) {
+        int half = size >>> 1;
+        while (k < half) {
+            int child = 2 * k + 1;
+            int right = child + 1;
+            if (right < size && comparator.compare((E) heap[right], (E) heap[child]) < 0) {
+                child = right;
+            }
+            if (comparator.compare(element, (E) heap[child]) <= 0) {
+                break;
+            }
+            heap[k] = heap[child];
+            k = child;
+        }
+        heap[k] = element;
+    }
+}
+
+// Walks a frozen heap array in sorted order using a small frontier heap of
+// slot indices: each step pops the best slot and pushes its two children,
+// so the first k elements cost O(k log k) whatever the queue size. Slots may
+// hold the elements themselves or store-specific nodes wrapping them.
+class HeapSnapshot<E> implements QueueSnapshot<E> {
+    private final Object[] heap;
+    private final int size;
+    private final long version;
+    private final Comparator<Object> order;
+    private final Function<Object, E> value;
+
+    HeapSnapshot(Object[] heap, int size, long version, Comparator<Object> order, Function<Object, E> value) {
+        this.heap = heap;
+        this.size = size;
+        this.version = version;
+        this.order = order;
+        this.value = value;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEachUnordered(Consumer<? super E> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(value.apply(heap[i]));
+        }
+    }
+
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int[] frontier = new int[16];
+            private int count;
+
+            {
+                if (size > 0) {
+                    push(0);
+                }
+            }
+
+            public boolean hasNext() {
+                return count > 0;
+            }
+
+            public E next() {
+                if (count == 0) {
+                    throw new NoSuchElementException();
+                }
+                int index = frontier[0];
+                int last = frontier[--count];
+                if (count > 0) {
+                    int k = 0;
+                    int half = count >>> 1;
+                    while (k < half) {
+                        int child = 2 * k + 1;
+                        if (child + 1 < count && compare(frontier[child + 1], frontier[child]) < 0) {
+                            child++;
+                        }
+                        if (compare(last, frontier[child]) <= 0) {
+                            break;
+                        }
+                        frontier[k] = frontier[child];
+                        k = child;
+                    }
+                    frontier[k] = last;
+                }
+                int left = 2 * index + 1;
+                if (left < size) {
+                    push(left);
+                }
+                if (left + 1 < size) {
+                    push(left + 1);
+                }
+                return value.apply(heap[index]);
+            }
+
+            private void push(int index) {
+                if (count == frontier.length) {
+                    frontier = Arrays.copyOf(frontier, count * 2);
+                }
+                int k = count++;
+                while (k > 0) {
+                    int parent = (k - 1) >>> 1;
+                    if (compare(index, frontier[parent]) >= 0) {
+                        break;
+                    }
+                    frontier[k] = frontier[parent];
+                    k = parent;
+                }
+                frontier[k] = index;
+            }
+        };
+    }
+
+    private int compare(int a, int b) {
+        return order.compare(heap[a], heap[b]);
+    }
+}
+
+// Lock-free store for many producers and consumers. Elements are kept in a
+// concurrent skip list ordered by priority, with an insertion sequence as the
+// tie-breaker so equal-priority elements never collide and come out FIFO.
+class ConcurrentStore<E> implements PriorityStore<E> {
+    private final ConcurrentSkipListSet<Node<E>> nodes;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentStore() {
+        this((a, b) -> ((Comparable<? super E>) a).compareTo(b));
+    }
+
+    public ConcurrentStore(Comparator<? super E> comparator) {
+        nodes = new ConcurrentSkipListSet<>((a, b) -> {
+            int c = comparator.compare(a.value, b.value);
+            return c != 0 ? c : Long.compare(a.seq, b.seq);
+        });
+    }
+
+    public void offer(E element) {
+        nodes.add(new Node<>(element, sequence.getAndIncrement()));
+        size.incrementAndGet();
+        version.incrementAndGet();
+    }
+
+    public E poll() {
+        Node<E> node = nodes.pollFirst();
+        if (node == null) {
+            return null;
+        }
+        size.decrementAndGet();
+        version.incrementAndGet();
+        return node.value;
+    }
+
+    public E peek() {
+        try {
+            return nodes.first().value;
+        } catch (NoSuchElementException e) {
+            return null; // empty, or drained by another consumer meanwhile
+        }
+    }
+
+    // ConcurrentSkipListSet.size() walks the whole list, so keep our own count.
+    public int size() {
+        return Math.max(0, size.get());
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    // The skip list is already sorted, so the snapshot iterates it in place.
+    // Alerts added after the snapshot are skipped by sequence; alerts polled
+    // meanwhile by other consumers drop out (weakly consistent).
+    public QueueSnapshot<E> snapshot() {
+        long snapshotVersion = version.get();
+        long limit = sequence.get();
+        int snapshotSize = size();
+        return new QueueSnapshot<E>() {
+            public long version() {
+                return snapshotVersion;
+            }
+
+            public int size() {
+                return snapshotSize;
+            }
+
+            public Iterator<E> iterator() {
+                Iterator<Node<E>> it = nodes.iterator();
+                return new Iterator<E>() {
+                    private Node<E> next = advance();
+
+                    private Node<E> advance() {
+                        while (it.hasNext()) {
+                            Node<E> node = it.next();
+                            if (node.seq < limit) {
+                                return node;
+                            }
+                        }
+                        return null;
+                    }
+
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    public E next() {
+                        if (next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        E value = next.value;
+                        next = advance();
+                        return value;
+                    }
+                };
+            }
+        };
+    }
+
+    private static final class Node<E> {
+        final E value;
+        final long seq;
+
+        Node(E value, long seq) {
+            this.value = value;
+            this.seq = seq;
+        }
+    }
+}
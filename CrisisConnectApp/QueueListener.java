@@ -0,0 +1,39 @@
+package com.crisisconnect;
+
+// Notified after each successful mutation of EmergencyPriorityQueue,
+// TaskPriorityQueue, ResponseTeamQueue or DispatchEngine, on the thread
+// that made it.
+// Implementations must be quick; they run inline on the hot path.
+interface QueueListener {
+    default void alertAdded(EmergencyAlert alert) { }
+
+    default void alertPolled(EmergencyAlert alert) { }
+
+    // Severity or status changed through the queue.
+    default void alertUpdated(EmergencyAlert alert) { }
+
+    default void alertCancelled(EmergencyAlert alert) { }
+
+    // Removed by id as handled; by default treated like a cancellation.
+    default void alertResolved(EmergencyAlert alert) { alertCancelled(alert); }
+
+    default void taskAdded(Task task) { }
+
+    default void taskPolled(Task task) { }
+
+    // Status changed while queued, or while held by a DispatchEngine.
+    default void taskUpdated(Task task) { }
+
+    // Taken from the queue by a DispatchEngine, which parks or assigns it.
+    default void taskHeld(Task task) { }
+
+    // Completed or cancelled while held; the engine no longer has it.
+    default void taskReleased(Task task) { }
+
+    default void teamAdded(ResponseTeam team) { }
+
+    default void teamPolled(ResponseTeam team) { }
+
+    // Status changed while queued.
+    default void teamUpdated(ResponseTeam team) { }
+}
@@ -0,0 +1,191 @@
+package com.crisisconnect;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latency histograms for the queues and the table refresh.
+// Queues given a QueueMetrics (setMetrics) time each operation with
+// System.nanoTime and record into LongAdders and LatencyHistograms, so the
+// hot path allocates nothing and takes no lock. Alerts are stamped when
+// queued, giving time-in-queue per severity when they are polled.
+//
+// values() flattens everything into name -> number (latencies in
+// microseconds); the same view is exported as JMX attributes and written
+// as a properties file by startFileExport().
+class QueueMetrics implements DynamicMBean {
+    static final String DEFAULT_OBJECT_NAME = "CrisisConnect:type=QueueMetrics";
+    private static final int SEVERITY_LEVELS = 10;
+
+    final LongAdder alertsAdded = new LongAdder();
+    final LongAdder alertsPolled = new LongAdder();
+    final LongAdder alertsCancelled = new LongAdder();
+    final LongAdder tasksAdded = new LongAdder();
+    final LongAdder tasksPolled = new LongAdder();
+    final LatencyHistogram alertEnqueue = new LatencyHistogram();
+    final LatencyHistogram alertDequeue = new LatencyHistogram();
+    final LatencyHistogram taskEnqueue = new LatencyHistogram();
+    final LatencyHistogram taskDequeue = new LatencyHistogram();
+    final LatencyHistogram render = new LatencyHistogram();
+    private final LatencyHistogram[] alertWait = new LatencyHistogram[SEVERITY_LEVELS];
+    private ScheduledExecutorService exporter;
+
+    public QueueMetrics() {
+        for (int i = 0; i < SEVERITY_LEVELS; i++) {
+            alertWait[i] = new LatencyHistogram();
+        }
+    }
+
+    // Time between queueing and polling, for alerts of one severity (1-10).
+    public LatencyHistogram alertWait(int severity) {
+        return alertWait[Math.max(1, Math.min(SEVERITY_LEVELS, severity)) - 1];
+    }
+
+    void alertPolled(EmergencyAlert alert, long now) {
+        alertsPolled.increment();
+        if (alert.getQueuedAtNanos() != 0) {
+            alertWait(alert.getSeverity()).record(now - alert.getQueuedAtNanos());
+        }
+    }
+
+    public Map<String, Number> values() {
+        Map<String, Number> values = new LinkedHashMap<>();
+        values.put("alerts.added", alertsAdded.sum());
+        values.put("alerts.polled", alertsPolled.sum());
+        values.put("alerts.cancelled", alertsCancelled.sum());
+        values.put("tasks.added", tasksAdded.sum());
+        values.put("tasks.polled", tasksPolled.sum());
+        put(values, "alerts.enqueue", alertEnqueue);
+        put(values, "alerts.dequeue", alertDequeue);
+        put(values, "tasks.enqueue", taskEnqueue);
+        put(values, "tasks.dequeue", taskDequeue);
+        put(values, "ui.render", render);
+        for (int severity = 1; severity <= SEVERITY_LEVELS; severity++) {
+            put(values, "alerts.wait.severity" + severity, alertWait(severity));
+        }
+        return values;
+    }
+
+    private static void put(Map<String, Number> values, String name, LatencyHistogram histogram) {
+        values.put(name + ".count", histogram.count());
+        values.put(name + ".meanMicros", histogram.mean() / 1_000);
+        values.put(name + ".p50Micros", histogram.percentile(0.50) / 1_000.0);
+        values.put(name + ".p99Micros", histogram.percentile(0.99) / 1_000.0);
+        values.put(name + ".p999Micros", histogram.percentile(0.999) / 1_000.0);
+        values.put(name + ".maxMicros", histogram.max() / 1_000.0);
+    }
+
+    public void writeTo(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write("# CrisisConnect queue metrics, " + LocalDateTime.now() + "\n");
+            for (Map.Entry<String, Number> entry : values().entrySet()) {
+                out.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Rewrites the file every period on a daemon thread until close().
+    public synchronized void startFileExport(Path file, long period, TimeUnit unit) {
+        if (exporter != null) {
+            return;
+        }
+        exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        exporter.scheduleAtFixedRate(() -> {
+            try {
+                writeTo(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, period, period, unit);
+    }
+
+    public void registerMBean(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(objectName));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void close() {
+        if (exporter != null) {
+            exporter.shutdownNow();
+            exporter = null;
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Number value = values().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Number> values = values();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            if (values.containsKey(attribute)) {
+                list.add(new Attribute(attribute, values.get(attribute)));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException(actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        Map<String, Number> values = values();
+        MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+        int i = 0;
+        for (Map.Entry<String, Number> entry : values.entrySet()) {
+            attributes[i++] = new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                entry.getKey(), true, false, false);
+        }
+        return new MBeanInfo(getClass().getName(), "CrisisConnect queue metrics", attributes,
+            null, new MBeanOperationInfo[0], null);
+    }
+}
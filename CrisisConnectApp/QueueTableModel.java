@@ -0,0 +1,307 @@
+package com.crisisconnect;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+// Table model over one queue, in the queue's own order. A JTable only asks
+// for the visible rows, so painting cost does not depend on the queue size.
+// A rebuild takes rows in the order the source iterates them (a snapshot's
+// priority order, whatever the store's policy) without sorting, and gives
+// them position keys RANK_GAP apart. Rows added between rebuilds are placed
+// by a primitive sort key, the store's order where it has one and an
+// approximation where it does not (FairShareStore, deadline aging), and get
+// a key between their neighbours'; the keys are renumbered when a gap runs
+// out. Rows live in chunks of at most CHUNK_SIZE (parallel long[] keys,
+// long[] sort keys and Object[] rows), so an insert or removal shifts one
+// chunk and adjusts the chunk start offsets rather than moving a
+// million-entry array. Each delta fires a single-row event.
+// The position key is kept per id, so rows can be found again after the
+// element itself has been mutated (e.g. a severity change).
+//
+// All methods must be called on the EDT. insert/remove are idempotent, so
+// deltas that overlap a reset() are harmless.
+class QueueTableModel<E> extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final int CHUNK_SIZE = 2048;
+    // 31 inserts fit between two rebuilt rows; (2^31 rows) * RANK_GAP < 2^63
+    private static final long RANK_GAP = 1L << 31;
+
+    private final String[] columns;
+    private final List<Function<? super E, Object>> getters;
+    private final ToLongFunction<? super E> sortKey;
+    private final ToIntFunction<? super E> idOf;
+    private Map<Integer, Long> keyById = new HashMap<>();
+    private List<Chunk> chunks = new ArrayList<>();
+    private int[] starts = new int[16];
+    private int size;
+
+    private static final class Chunk {
+        final long[] keys = new long[CHUNK_SIZE];
+        final long[] orders = new long[CHUNK_SIZE]; // sort key when placed
+        final Object[] rows = new Object[CHUNK_SIZE];
+        int size;
+    }
+
+    // Output of prepare(), handed to replace() on the EDT.
+    static final class Rows {
+        private final List<Chunk> chunks = new ArrayList<>();
+        private final Map<Integer, Long> keyById = new HashMap<>();
+        private int size;
+    }
+
+    public QueueTableModel(String[] columns, List<Function<? super E, Object>> getters,
+                           ToLongFunction<? super E> sortKey, ToIntFunction<? super E> idOf) {
+        this.columns = columns;
+        this.getters = getters;
+        this.sortKey = sortKey;
+        this.idOf = idOf;
+    }
+
+    public void insert(E element) {
+        int id = idOf.applyAsInt(element);
+        if (keyById.containsKey(id)) {
+            update(element);
+            return;
+        }
+        long order = sortKey.applyAsLong(element);
+        long key = keyBefore(rowFor(order));
+        if (chunks.isEmpty()) {
+            chunks.add(new Chunk());
+            updateStarts(0);
+        }
+        int c = chunkFor(key);
+        Chunk chunk = chunks.get(c);
+        if (chunk.size == CHUNK_SIZE) {
+            split(c);
+            if (key > chunk.keys[chunk.size - 1]) {
+                chunk = chunks.get(++c);
+            }
+        }
+        int i = -Arrays.binarySearch(chunk.keys, 0, chunk.size, key) - 1;
+        System.arraycopy(chunk.keys, i, chunk.keys, i + 1, chunk.size - i);
+        System.arraycopy(chunk.orders, i, chunk.orders, i + 1, chunk.size - i);
+        System.arraycopy(chunk.rows, i, chunk.rows, i + 1, chunk.size - i);
+        chunk.keys[i] = key;
+        chunk.orders[i] = order;
+        chunk.rows[i] = element;
+        chunk.size++;
+        size++;
+        keyById.put(id, key);
+        updateStarts(c);
+        int row = starts[c] + i;
+        fireTableRowsInserted(row, row);
+    }
+
+    public void remove(E element) {
+        Long key = keyById.remove(idOf.applyAsInt(element));
+        if (key == null) {
+            return;
+        }
+        int c = chunkFor(key);
+        Chunk chunk = chunks.get(c);
+        int i = Arrays.binarySearch(chunk.keys, 0, chunk.size, key);
+        int row = starts[c] + i;
+        System.arraycopy(chunk.keys, i + 1, chunk.keys, i, chunk.size - i - 1);
+        System.arraycopy(chunk.orders, i + 1, chunk.orders, i, chunk.size - i - 1);
+        System.arraycopy(chunk.rows, i + 1, chunk.rows, i, chunk.size - i - 1);
+        chunk.rows[--chunk.size] = null;
+        size--;
+        if (chunk.size == 0) {
+            chunks.remove(c);
+        }
+        updateStarts(c);
+        fireTableRowsDeleted(row, row);
+    }
+
+    // Re-places the row if its sort key changed, otherwise just repaints it.
+    public void update(E element) {
+        Long key = keyById.get(idOf.applyAsInt(element));
+        if (key == null) {
+            return;
+        }
+        int c = chunkFor(key);
+        Chunk chunk = chunks.get(c);
+        int i = Arrays.binarySearch(chunk.keys, 0, chunk.size, key);
+        if (chunk.orders[i] == sortKey.applyAsLong(element)) {
+            chunk.rows[i] = element;
+            fireTableRowsUpdated(starts[c] + i, starts[c] + i);
+            return;
+        }
+        remove(element);
+        insert(element);
+    }
+
+    // Replaces every row at once; one event instead of one per row.
+    public void reset(Iterable<? extends E> elements) {
+        replace(prepare(elements));
+    }
+
+    // Rows in iteration order, ready to swap in with replace(). Reads no
+    // model state, so a rebuild can run off the EDT; one pass, no sort.
+    public Rows prepare(Iterable<? extends E> elements) {
+        Rows prepared = new Rows();
+        // Half-full chunks leave room for inserts before the first split
+        Chunk chunk = null;
+        for (E element : elements) {
+            if (chunk == null || chunk.size == CHUNK_SIZE / 2) {
+                chunk = new Chunk();
+                prepared.chunks.add(chunk);
+            }
+            long key = ++prepared.size * RANK_GAP;
+            chunk.keys[chunk.size] = key;
+            chunk.orders[chunk.size] = sortKey.applyAsLong(element);
+            chunk.rows[chunk.size++] = element;
+            prepared.keyById.put(idOf.applyAsInt(element), key);
+        }
+        return prepared;
+    }
+
+    // Swaps in prepared rows, which the model then owns; EDT only. Costs
+    // O(chunks), not O(rows).
+    public void replace(Rows prepared) {
+        chunks = prepared.chunks;
+        keyById = prepared.keyById;
+        size = prepared.size;
+        updateStarts(0);
+        fireTableDataChanged();
+    }
+
+    @SuppressWarnings("unchecked")
+    public E getRow(int row) {
+        int c = chunkOf(row);
+        return (E) chunks.get(c).rows[row - starts[c]];
+    }
+
+    private int chunkOf(int row) {
+        int c = Arrays.binarySearch(starts, 0, chunks.size(), row);
+        return c < 0 ? -c - 2 : c; // chunks are never empty, so starts are distinct
+    }
+
+    private long keyAt(int row) {
+        int c = chunkOf(row);
+        return chunks.get(c).keys[row - starts[c]];
+    }
+
+    // First row placed with a greater sort key; exact where the rows are in
+    // sort key order, a nearby row where the queue orders them otherwise.
+    private int rowFor(long order) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int c = chunkOf(mid);
+            if (chunks.get(c).orders[mid - starts[c]] <= order) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // A position key between rows row - 1 and row.
+    private long keyBefore(int row) {
+        if (size == 0) {
+            return RANK_GAP;
+        }
+        if (row == size) {
+            if (keyAt(size - 1) > Long.MAX_VALUE / 2) {
+                renumber();
+            }
+            return keyAt(size - 1) + RANK_GAP;
+        }
+        if (row == 0) {
+            if (keyAt(0) < Long.MIN_VALUE / 2) {
+                renumber();
+            }
+            return keyAt(0) - RANK_GAP;
+        }
+        if (keyAt(row) - keyAt(row - 1) < 2) {
+            renumber();
+        }
+        long previous = keyAt(row - 1);
+        return previous + (keyAt(row) - previous) / 2;
+    }
+
+    // Spreads the keys RANK_GAP apart again, as a rebuild would; the rows
+    // keep their order, so there is nothing to repaint. O(rows), and only
+    // after a gap has been halved 31 times.
+    @SuppressWarnings("unchecked")
+    private void renumber() {
+        long key = 0;
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.size; i++) {
+                key += RANK_GAP;
+                chunk.keys[i] = key;
+                keyById.put(idOf.applyAsInt((E) chunk.rows[i]), key);
+            }
+        }
+    }
+
+    // Last chunk whose first key is <= key (or the first chunk).
+    private int chunkFor(long key) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (chunks.get(mid).keys[0] <= key) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private void split(int c) {
+        Chunk full = chunks.get(c);
+        Chunk upper = new Chunk();
+        int half = full.size / 2;
+        upper.size = full.size - half;
+        System.arraycopy(full.keys, half, upper.keys, 0, upper.size);
+        System.arraycopy(full.orders, half, upper.orders, 0, upper.size);
+        System.arraycopy(full.rows, half, upper.rows, 0, upper.size);
+        Arrays.fill(full.rows, half, full.size, null);
+        full.size = half;
+        chunks.add(c + 1, upper);
+    }
+
+    // Recomputes the first row of every chunk from index c on.
+    private void updateStarts(int c) {
+        if (starts.length < chunks.size() + 1) {
+            starts = Arrays.copyOf(starts, Math.max(chunks.size() + 1, starts.length * 2));
+        }
+        int row = c == 0 ? 0 : starts[c - 1] + chunks.get(c - 1).size;
+        for (int i = c; i < chunks.size(); i++) {
+            starts[i] = row;
+            row += chunks.get(i).size;
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return getters.get(column).apply(getRow(row));
+    }
+}
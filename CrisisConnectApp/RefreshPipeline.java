@@ -0,0 +1,231 @@
+package com.crisisconnect;
+
+import javax.swing.SwingUtilities;
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Keeps the three table models in step with the queues without doing the
+// work on the EDT. A worker thread consumes a ChangeFeed subscription: after
+// the first event it waits one coalescing window, then either
+//   - publishes the gathered deltas to the EDT as one batch, or
+//   - when there are too many, the feed overflowed or a rebuild was
+//     requested, captures
+//     snapshots on the EDT, turns them into table rows in queue order on
+//     the worker and publishes the finished rows, which the EDT swaps in at
+//     O(chunks).
+// The window adapts to load: twice the cost of the last refresh, between
+// one frame and MAX_INTERVAL, so bursts collapse into fewer repaints.
+//
+// Queues are single-writer, so snapshots are taken on the EDT, which owns
+// them in the GUI; most are O(1) copy-on-write, while the off-heap and
+// packed stores copy in detach().
+//
+// A refresh that fails is reported and followed by a rebuild one
+// MAX_INTERVAL later, so the worker survives it and the tables catch up.
+class RefreshPipeline implements Closeable {
+    private static final long MIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+    private static final long MAX_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int DELTA_BATCH_LIMIT = 256;
+    // Room for bursts between windows; beyond this the pipeline rebuilds
+    private static final int FEED_CAPACITY = 4096;
+
+    private final ChangeFeed feed;
+    private final ChangeFeed.Subscription subscription;
+    private final Pane<EmergencyAlert> alerts;
+    private final Pane<Task> tasks;
+    private final Pane<ResponseTeam> teams;
+    private final Thread worker;
+    private final AtomicInteger frames = new AtomicInteger();
+    private volatile long intervalNanos = MIN_INTERVAL_NANOS;
+    private volatile long lastEdtNanos;
+    private volatile boolean rebuildRequested;
+    private volatile boolean closed;
+    private volatile QueueMetrics metrics;
+
+    private static final class Pane<E> {
+        final QueueTableModel<E> model;
+        final Supplier<? extends Iterable<E>> source;
+
+        Pane(QueueTableModel<E> model, Supplier<? extends Iterable<E>> source) {
+            this.model = model;
+            this.source = source;
+        }
+    }
+
+    // The feed must be registered on the queues behind the sources. Sources
+    // are called on the EDT and must return views that are safe to read from
+    // the worker (see QueueSnapshot.detach()).
+    public RefreshPipeline(ChangeFeed feed,
+                           QueueTableModel<EmergencyAlert> alertModel, Supplier<? extends Iterable<EmergencyAlert>> alertSource,
+                           QueueTableModel<Task> taskModel, Supplier<? extends Iterable<Task>> taskSource,
+                           QueueTableModel<ResponseTeam> teamModel, Supplier<? extends Iterable<ResponseTeam>> teamSource) {
+        this.feed = feed;
+        subscription = feed.subscribe(FEED_CAPACITY);
+        alerts = new Pane<>(alertModel, alertSource);
+        tasks = new Pane<>(taskModel, taskSource);
+        teams = new Pane<>(teamModel, teamSource);
+        worker = new Thread(this::run, "ui-refresh");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Asks for a full rebuild from the queues (e.g. the Refresh button).
+    public void requestRebuild() {
+        rebuildRequested = true;
+        subscription.wakeup();
+    }
+
+    // Records the cost of each refresh (worker plus EDT) as render time.
+    public void setMetrics(QueueMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Published updates so far; lets tests observe coalescing.
+    int publishedFrames() {
+        return frames.get();
+    }
+
+    long currentIntervalNanos() {
+        return intervalNanos;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        subscription.close();
+        worker.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                if (!rebuildRequested && !subscription.isOverflowed() && subscription.peek() == null) {
+                    subscription.await(1, TimeUnit.SECONDS);
+                    continue;
+                }
+                // Coalescing window: let more changes pile up behind this one
+                TimeUnit.NANOSECONDS.sleep(intervalNanos);
+                boolean rebuild = rebuildRequested;
+                rebuildRequested = false;
+
+                long start = System.nanoTime();
+                try {
+                    if (rebuild || subscription.isOverflowed() || subscription.size() > DELTA_BATCH_LIMIT) {
+                        rebuild();
+                    } else {
+                        publishDeltas();
+                    }
+                } catch (InvocationTargetException | RuntimeException e) {
+                    failed(e instanceof InvocationTargetException ? e.getCause() : e);
+                    continue;
+                }
+                long cost = System.nanoTime() - start + lastEdtNanos;
+                QueueMetrics metrics = this.metrics;
+                if (metrics != null) {
+                    metrics.render.record(cost);
+                }
+                intervalNanos = Math.max(MIN_INTERVAL_NANOS, Math.min(MAX_INTERVAL_NANOS, cost * 2));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The tables may be part-updated; resync from the queues after a pause.
+    private void failed(Throwable e) {
+        e.printStackTrace();
+        intervalNanos = MAX_INTERVAL_NANOS;
+        rebuildRequested = true;
+    }
+
+    private void publishDeltas() {
+        List<ChangeFeed.ChangeEvent> batch = new ArrayList<>();
+        subscription.drainTo(batch::add, Integer.MAX_VALUE);
+        if (batch.isEmpty()) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            long start = System.nanoTime();
+            try {
+                for (ChangeFeed.ChangeEvent event : batch) {
+                    apply(event);
+                }
+            } catch (RuntimeException e) {
+                failed(e);
+                subscription.wakeup();
+            }
+            lastEdtNanos = System.nanoTime() - start;
+            frames.incrementAndGet();
+        });
+    }
+
+    private void apply(ChangeFeed.ChangeEvent event) {
+        switch (event.getSource()) {
+            case ALERT:
+                apply(alerts.model, event.alert(), event.getKind());
+                break;
+            case TASK:
+                apply(tasks.model, event.task(), event.getKind());
+                break;
+            case TEAM:
+                apply(teams.model, event.team(), event.getKind());
+                break;
+        }
+    }
+
+    private static <E> void apply(QueueTableModel<E> model, E element, ChangeFeed.Kind kind) {
+        switch (kind) {
+            case ADDED:
+                model.insert(element);
+                break;
+            case UPDATED:
+                model.update(element);
+                break;
+            case POLLED:
+            case CANCELLED:
+                model.remove(element);
+                break;
+        }
+    }
+
+    private void rebuild() throws InterruptedException, InvocationTargetException {
+        // Lost events are covered by the snapshots taken below
+        if (subscription.isOverflowed()) {
+            subscription.reset();
+        }
+        // Capture on the EDT; events up to this sequence are in the snapshots
+        AtomicReference<Capture> captured = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> captured.set(new Capture()));
+        Capture capture = captured.get();
+        while (subscription.peek() != null && subscription.peek().getSequence() <= capture.sequence) {
+            subscription.poll();
+        }
+
+        QueueTableModel.Rows alertRows = alerts.model.prepare(capture.alerts);
+        QueueTableModel.Rows taskRows = tasks.model.prepare(capture.tasks);
+        QueueTableModel.Rows teamRows = teams.model.prepare(capture.teams);
+        SwingUtilities.invokeLater(() -> {
+            long start = System.nanoTime();
+            alerts.model.replace(alertRows);
+            tasks.model.replace(taskRows);
+            teams.model.replace(teamRows);
+            lastEdtNanos = System.nanoTime() - start;
+            frames.incrementAndGet();
+        });
+        // Events after the capture stay queued for the next pass
+    }
+
+    // Queue views taken together on the EDT.
+    private final class Capture {
+        final long sequence = feed.lastSequence();
+        final Iterable<EmergencyAlert> alerts = RefreshPipeline.this.alerts.source.get();
+        final Iterable<Task> tasks = RefreshPipeline.this.tasks.source.get();
+        final Iterable<ResponseTeam> teams = RefreshPipeline.this.teams.source.get();
+    }
+}
@@ -0,0 +1,256 @@
+package com.crisisconnect;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps a copy of a ReplicationLeader's queues in another process. Records
+// are applied in LSN order under one lock, so every read sees the leader's
+// state as of appliedLsn(): a prefix of its log, never a torn mix.
+//
+// Every node gets the same list, leader first, and passes its own address
+// as self. The follower tries the other addresses in order, so after a
+// failover it finds whichever one was promoted. The leader counts as lost
+// after FAILOVER_MILLIS times the node's rank (its index in the list)
+// without a frame or a connection (the leader heartbeats every 100 ms):
+// the first standby gives up first, and the others reach its new leader
+// before their own, longer timeouts run out. onLeaderLost then runs on the
+// replication thread, typically to takeOver(). It never runs before a
+// snapshot has been applied, so a node with nothing to serve stays a
+// standby.
+class ReplicationFollower implements Closeable {
+    static final long FAILOVER_MILLIS = 500;
+    private static final int CONNECT_TIMEOUT_MILLIS = 100;
+    private static final long RETRY_MILLIS = 50;
+
+    private final List<InetSocketAddress> leaders;
+    private final long failoverMillis;
+    private final DurableQueues.RecoveredState state = new DurableQueues.RecoveredState();
+    private long appliedLsn;
+    private final Thread thread;
+    private volatile Socket socket;
+    private volatile boolean closed;
+    private volatile long lastFrame;
+    private volatile boolean synced;
+    private volatile Runnable onLeaderLost;
+
+    public ReplicationFollower(List<InetSocketAddress> leaders) {
+        this(leaders, null);
+    }
+
+    // self is this node's own entry in nodes, or null for a node outside
+    // the list, which ranks last.
+    public ReplicationFollower(List<InetSocketAddress> nodes, InetSocketAddress self) {
+        this.leaders = new ArrayList<>(nodes);
+        leaders.remove(self);
+        int rank = nodes.indexOf(self);
+        failoverMillis = FAILOVER_MILLIS * (rank < 0 ? nodes.size() : Math.max(rank, 1));
+        thread = new Thread(this::run, "replication-follower");
+        thread.setDaemon(true);
+    }
+
+    public void onLeaderLost(Runnable callback) {
+        onLeaderLost = callback;
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public synchronized long appliedLsn() {
+        return appliedLsn;
+    }
+
+    // Waits until the leader's lsn has been applied; false on timeout.
+    public synchronized boolean awaitApplied(long lsn, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (appliedLsn < lsn) {
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) {
+                return false;
+            }
+            wait(wait);
+        }
+        return true;
+    }
+
+    public synchronized EmergencyAlert getAlert(int alertId) {
+        EmergencyAlert alert = state.alerts.get(alertId);
+        return alert == null ? null : copy(alert);
+    }
+
+    // Pending alerts by severity, oldest first within a severity.
+    public synchronized List<EmergencyAlert> getAlerts() {
+        List<EmergencyAlert> alerts = new ArrayList<>(state.alerts.size());
+        for (EmergencyAlert alert : state.alerts.values()) {
+            alerts.add(copy(alert));
+        }
+        alerts.sort(null);
+        return alerts;
+    }
+
+    public synchronized List<Task> getTasks() {
+        List<Task> tasks = new ArrayList<>(state.tasks.size());
+        for (Task task : state.tasks.values()) {
+            Task copy = new Task(task.getTaskId(), task.getName(), task.getPriority(), task.getDeadline(),
+                task.getStatus(), task.getAssignedTeam());
+            copy.setRequiredSpecialization(task.getRequiredSpecialization());
+            copy.setCoordinates(task.getLatitude(), task.getLongitude());
+            tasks.add(copy);
+        }
+        return tasks;
+    }
+
+    public synchronized List<ResponseTeam> getTeams() {
+        List<ResponseTeam> teams = new ArrayList<>(state.teams.size());
+        for (ResponseTeam team : state.teams.values()) {
+            ResponseTeam copy = new ResponseTeam(team.getTeamId(), team.getName(), team.getSpecialization(),
+                team.getStatus(), team.getCurrentTask());
+            copy.setCoordinates(team.getLatitude(), team.getLongitude());
+            teams.add(copy);
+        }
+        return teams;
+    }
+
+    // Stops following and loads the replica into empty queues. Call on the
+    // thread that will own the queues, then hand them to a ReplicationLeader
+    // started at the returned LSN so the remaining followers carry on.
+    public long promote(EmergencyPriorityQueue alerts, TaskPriorityQueue tasks, ResponseTeamQueue teams) {
+        DurableQueues.restore(takeOver(), alerts, tasks, teams);
+        return appliedLsn();
+    }
+
+    // Stops following and hands over the replica as of appliedLsn(),
+    // including the tasks held by the leader's DispatchEngine.
+    public DurableQueues.RecoveredState takeOver() {
+        close();
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            return state;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Socket current = socket;
+        if (current != null) {
+            ReplicationLeader.closeQuietly(current);
+        }
+    }
+
+    private void run() {
+        lastFrame = System.currentTimeMillis();
+        boolean lost = false;
+        int next = 0;
+        while (!closed) {
+            InetSocketAddress address = leaders.get(next);
+            next = (next + 1) % leaders.size();
+            try (Socket s = new Socket()) {
+                s.connect(address, CONNECT_TIMEOUT_MILLIS);
+                s.setTcpNoDelay(true);
+                s.setSoTimeout((int) FAILOVER_MILLIS);
+                socket = s;
+                if (!closed) {
+                    follow(s);
+                }
+            } catch (SocketTimeoutException e) {
+                // Connected but silent for FAILOVER_MILLIS
+            } catch (IOException e) {
+                // Refused, reset or closed; try the next address
+            }
+            socket = null;
+            long silence = System.currentTimeMillis() - lastFrame;
+            if (silence < failoverMillis) {
+                lost = false;
+            } else if (!lost && !closed && synced) {
+                lost = true;
+                Runnable callback = onLeaderLost;
+                if (callback != null) {
+                    callback.run();
+                }
+            }
+            if (!closed) {
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void follow(Socket s) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 1 << 16));
+        DataOutputStream out = new DataOutputStream(s.getOutputStream());
+        // -1 asks for a snapshot: a fresh node must not start from LSN 0 of
+        // a leader that was itself promoted
+        out.writeLong(synced ? appliedLsn() : -1);
+        out.flush();
+        byte[] buffer = new byte[256];
+        while (!closed) {
+            byte kind = in.readByte();
+            long lsn = in.readLong();
+            lastFrame = System.currentTimeMillis();
+            if (kind == ReplicationLeader.RECORD || kind == ReplicationLeader.SNAPSHOT) {
+                int length = in.readInt();
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                in.readFully(buffer, 0, length);
+                apply(kind, lsn, buffer, length);
+            } else if (kind != ReplicationLeader.HEARTBEAT) {
+                throw new IOException("Unknown replication frame " + kind);
+            }
+            // Acknowledge once per burst rather than per record
+            if (in.available() == 0) {
+                out.writeLong(appliedLsn());
+                out.flush();
+            }
+        }
+    }
+
+    private synchronized void apply(byte kind, long lsn, byte[] bytes, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, length));
+        if (kind == ReplicationLeader.SNAPSHOT) {
+            state.alerts.clear();
+            state.tasks.clear();
+            state.teams.clear();
+            state.held.clear();
+            if (!DurableQueues.readQueues(in, state)) {
+                throw new IOException("Corrupt replication snapshot");
+            }
+            synced = true;
+        } else if (lsn == appliedLsn + 1) {
+            DurableQueues.apply(state, in.readByte(), in);
+        } else if (lsn > appliedLsn) {
+            throw new IOException("Replication gap: expected " + (appliedLsn + 1) + ", got " + lsn);
+        } else {
+            return; // already applied
+        }
+        appliedLsn = lsn;
+        notifyAll();
+    }
+
+    private static EmergencyAlert copy(EmergencyAlert alert) {
+        EmergencyAlert copy = new EmergencyAlert(alert.getAlertId(), alert.getDescription(), alert.getSeverity(),
+            alert.getTimestamp(), alert.getLocation(), alert.getStatus());
+        copy.setCoordinates(alert.getLatitude(), alert.getLongitude());
+        copy.setReportCount(alert.getReportCount());
+        return copy;
+    }
+}
@@ -0,0 +1,337 @@
+package com.crisisconnect;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Ships every queue mutation to follower processes (ReplicationFollower).
+// Register on the three queues like DurableQueues; each mutation becomes a
+// record in the DurableQueues format, numbered by a log sequence number
+// (LSN), kept in a ring of the last `backlog` records and streamed to every
+// connected follower by its own sender thread.
+//
+// The leader also applies each record to a mirror of the queue contents, so
+// a follower that is new, or too far behind for the ring, is sent a
+// snapshot of the mirror at some LSN and streams on from there. Followers
+// acknowledge the LSN they have applied; awaitReplicated() lets a writer
+// wait for that (semi-synchronous replication). Without it, records not yet
+// shipped when the leader dies are lost.
+//
+// Wire format, leader to follower: byte kind | long lsn, then for RECORD and
+// SNAPSHOT an int length and the bytes. HEARTBEAT is sent when idle for
+// HEARTBEAT_MILLIS. Follower to leader: long lsn to start after (-1 for a
+// snapshot), then acknowledged LSNs.
+class ReplicationLeader implements QueueListener, Closeable {
+    static final byte RECORD = 1;
+    static final byte SNAPSHOT = 2;
+    static final byte HEARTBEAT = 3;
+    static final long HEARTBEAT_MILLIS = 100;
+    static final int DEFAULT_BACKLOG = 1 << 16;
+    private static final int MAX_FRAMES_PER_WRITE = 1024;
+
+    private final EmergencyPriorityQueue alerts;
+    private final TaskPriorityQueue tasks;
+    private final ResponseTeamQueue teams;
+    private final DurableQueues.RecoveredState mirror = new DurableQueues.RecoveredState();
+    private final byte[][] ring;
+    private final long startLsn;
+    private long lastLsn;
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+    private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+    private final ServerSocket server;
+    private final List<Session> sessions = new CopyOnWriteArrayList<>();
+    private final Thread acceptor;
+    private volatile boolean closed;
+    private DispatchEngine engine;
+
+    // One connected follower.
+    private final class Session implements Runnable {
+        final Socket socket;
+        volatile long acked = -1;
+
+        Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        public void run() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+                long cursor = in.readLong();
+                Thread acks = new Thread(() -> readAcks(in), "replication-acks");
+                acks.setDaemon(true);
+                acks.start();
+                List<byte[]> batch = new ArrayList<>();
+                while (!closed) {
+                    byte[] snapshot = null;
+                    long snapshotLsn = 0;
+                    synchronized (ReplicationLeader.this) {
+                        if (cursor < oldestLsn() - 1 || cursor > lastLsn) {
+                            snapshot = snapshotBytes();
+                            snapshotLsn = lastLsn;
+                        } else {
+                            if (cursor == lastLsn) {
+                                ReplicationLeader.this.wait(HEARTBEAT_MILLIS);
+                            }
+                            for (long lsn = cursor + 1; lsn <= lastLsn && batch.size() < MAX_FRAMES_PER_WRITE
+                                    && lsn >= oldestLsn(); lsn++) {
+                                batch.add(ring[(int) (lsn % ring.length)]);
+                            }
+                        }
+                    }
+                    if (snapshot != null) {
+                        out.writeByte(SNAPSHOT);
+                        out.writeLong(snapshotLsn);
+                        out.writeInt(snapshot.length);
+                        out.write(snapshot);
+                        cursor = snapshotLsn;
+                    } else if (batch.isEmpty()) {
+                        out.writeByte(HEARTBEAT);
+                        out.writeLong(cursor);
+                    } else {
+                        for (byte[] record : batch) {
+                            out.writeByte(RECORD);
+                            out.writeLong(++cursor);
+                            out.writeInt(record.length);
+                            out.write(record);
+                        }
+                        batch.clear();
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Follower went away; it reconnects with its LSN
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                sessions.remove(this);
+                closeQuietly(socket);
+            }
+        }
+
+        private void readAcks(DataInputStream in) {
+            try {
+                while (true) {
+                    long lsn = in.readLong();
+                    synchronized (ReplicationLeader.this) {
+                        acked = lsn;
+                        ReplicationLeader.this.notifyAll();
+                    }
+                }
+            } catch (IOException e) {
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    public ReplicationLeader(EmergencyPriorityQueue alerts, TaskPriorityQueue tasks, ResponseTeamQueue teams,
+                             InetSocketAddress address) throws IOException {
+        this(alerts, tasks, teams, address, 0, DEFAULT_BACKLOG);
+    }
+
+    // Call on the queue thread, before further mutations. startLsn is the
+    // LSN the current contents correspond to: 0 for a fresh leader, the
+    // applied LSN for a promoted follower.
+    public ReplicationLeader(EmergencyPriorityQueue alerts, TaskPriorityQueue tasks, ResponseTeamQueue teams,
+                             InetSocketAddress address, long startLsn, int backlog) throws IOException {
+        this.alerts = alerts;
+        this.tasks = tasks;
+        this.teams = teams;
+        this.startLsn = startLsn;
+        this.lastLsn = startLsn;
+        this.ring = new byte[backlog][];
+        DurableQueues.writeQueues(scratchOut, alerts.snapshot(), Arrays.asList(tasks.getTasks()),
+            Arrays.asList(teams.getTeams()), List.of(),
+            new int[] {alerts.peekNextAlertId(), tasks.peekNextTaskId(), teams.peekNextTeamId()});
+        DurableQueues.readQueues(new DataInputStream(new ByteArrayInputStream(scratch.toByteArray())), mirror);
+        server = new ServerSocket();
+        server.bind(address);
+        acceptor = new Thread(this::accept, "replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        alerts.addListener(this);
+        tasks.addListener(this);
+        teams.addListener(this);
+    }
+
+    // Ships the tasks the engine holds, then what it holds from here on.
+    // Call once, before the first dispatch.
+    public void attach(DispatchEngine engine) {
+        this.engine = engine;
+        for (Task task : engine.heldTasks()) {
+            taskHeld(task);
+        }
+        engine.addListener(this);
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public synchronized long lastLsn() {
+        return lastLsn;
+    }
+
+    public int followerCount() {
+        return sessions.size();
+    }
+
+    // Waits until some follower has applied lsn; false on timeout.
+    public synchronized boolean awaitReplicated(long lsn, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!replicated(lsn)) {
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) {
+                return false;
+            }
+            wait(wait);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        alerts.removeListener(this);
+        tasks.removeListener(this);
+        teams.removeListener(this);
+        if (engine != null) {
+            engine.removeListener(this);
+        }
+        closeQuietly(server);
+        for (Session session : sessions) {
+            closeQuietly(session.socket);
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    public void alertAdded(EmergencyAlert alert) {
+        append(DurableQueues.ADD_ALERT, out -> DurableQueues.writeAlert(out, alert));
+    }
+
+    public void alertPolled(EmergencyAlert alert) {
+        append(DurableQueues.POLL_ALERT, out -> out.writeInt(alert.getAlertId()));
+    }
+
+    public void alertUpdated(EmergencyAlert alert) {
+        append(DurableQueues.UPDATE_ALERT, out -> {
+            out.writeInt(alert.getAlertId());
+            out.writeInt(alert.getSeverity());
+            DurableQueues.writeString(out, alert.getStatus());
+            out.writeInt(alert.getReportCount());
+        });
+    }
+
+    public void alertCancelled(EmergencyAlert alert) {
+        append(DurableQueues.CANCEL_ALERT, out -> out.writeInt(alert.getAlertId()));
+    }
+
+    public void taskAdded(Task task) {
+        append(DurableQueues.ADD_TASK, out -> DurableQueues.writeTask(out, task));
+    }
+
+    public void taskPolled(Task task) {
+        append(DurableQueues.POLL_TASK, out -> out.writeInt(task.getTaskId()));
+    }
+
+    public void taskUpdated(Task task) {
+        append(DurableQueues.UPDATE_TASK, out -> DurableQueues.writeTaskUpdate(out, task));
+    }
+
+    public void taskHeld(Task task) {
+        append(DurableQueues.HOLD_TASK, out -> DurableQueues.writeTask(out, task));
+    }
+
+    public void taskReleased(Task task) {
+        append(DurableQueues.RELEASE_TASK, out -> out.writeInt(task.getTaskId()));
+    }
+
+    public void teamAdded(ResponseTeam team) {
+        append(DurableQueues.ADD_TEAM, out -> DurableQueues.writeTeam(out, team));
+    }
+
+    public void teamPolled(ResponseTeam team) {
+        append(DurableQueues.POLL_TEAM, out -> out.writeInt(team.getTeamId()));
+    }
+
+    public void teamUpdated(ResponseTeam team) {
+        append(DurableQueues.UPDATE_TEAM, out -> DurableQueues.writeTeamUpdate(out, team));
+    }
+
+    // Record bytes are the type followed by the payload.
+    private synchronized void append(byte type, WriteAheadLog.PayloadWriter payload) {
+        try {
+            scratch.reset();
+            scratchOut.writeByte(type);
+            payload.write(scratchOut);
+            byte[] record = scratch.toByteArray();
+            DurableQueues.apply(mirror, type,
+                new DataInputStream(new ByteArrayInputStream(record, 1, record.length - 1)));
+            lastLsn++;
+            ring[(int) (lastLsn % ring.length)] = record;
+            notifyAll();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean replicated(long lsn) {
+        for (Session session : sessions) {
+            if (session.acked >= lsn) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long oldestLsn() {
+        return Math.max(startLsn + 1, lastLsn - ring.length + 1);
+    }
+
+    private byte[] snapshotBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DurableQueues.writeQueues(new DataOutputStream(bytes), mirror.alerts.values(), mirror.tasks.values(),
+            mirror.teams.values(), mirror.held.values(), new int[] {mirror.nextAlertId, mirror.nextTaskId, mirror.nextTeamId});
+        return bytes.toByteArray();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Session session = new Session(socket);
+                sessions.add(session);
+                Thread sender = new Thread(session, "replication-sender");
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
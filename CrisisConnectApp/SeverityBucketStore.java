@@ -0,0 +1,196 @@
+package com.crisisconnect;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+// Constant-time store for the fixed 1-10 severity/priority range. One FIFO
+// bucket per level plus a bitmap of non-empty levels: offer appends to a
+// bucket, poll takes the head of the highest set bit. Elements of the same
+// level come out in arrival order.
+//
+// Buckets are chains of fixed-size segments that are only appended to at the
+// tail and consumed at the head, so a snapshot is just each bucket's head
+// position and length; segments a snapshot may still see are never
+// overwritten, and taking one copies nothing.
+class SeverityBucketStore<E> implements PriorityStore<E> {
+    static final int MIN_LEVEL = 1;
+    static final int MAX_LEVEL = 10;
+    private static final int SEGMENT_SIZE = 256;
+
+    private final ToIntFunction<? super E> levelOf;
+    private final Bucket[] buckets;
+    private int nonEmpty;
+    private int size;
+    private long version;
+    private int epoch;
+    private int snapshotEpoch = -1;
+
+    public SeverityBucketStore(ToIntFunction<? super E> levelOf) {
+        this.levelOf = levelOf;
+        buckets = new Bucket[MAX_LEVEL + 1];
+        for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+            buckets[level] = new Bucket(new Segment(epoch));
+        }
+    }
+
+    public void offer(E element) {
+        int level = levelOf.applyAsInt(element);
+        if (level < MIN_LEVEL || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Level must be between 1 and 10: " + level);
+        }
+        Bucket bucket = buckets[level];
+        if (bucket.tailIndex == SEGMENT_SIZE) {
+            bucket.tail.next = new Segment(epoch);
+            bucket.tail = bucket.tail.next;
+            bucket.tailIndex = 0;
+        }
+        bucket.tail.items[bucket.tailIndex++] = element;
+        bucket.size++;
+        nonEmpty |= 1 << level;
+        size++;
+        version++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        if (nonEmpty == 0) {
+            return null;
+        }
+        int level = topLevel();
+        Bucket bucket = buckets[level];
+        Segment head = bucket.head;
+        E element = (E) head.items[bucket.headIndex];
+        boolean shared = head.epoch <= snapshotEpoch;
+        if (!shared) {
+            head.items[bucket.headIndex] = null;
+        }
+        bucket.headIndex++;
+        bucket.size--;
+        if (bucket.size == 0) {
+            nonEmpty &= ~(1 << level);
+            if (shared) {
+                bucket.head = bucket.tail = new Segment(epoch);
+            }
+            bucket.headIndex = bucket.tailIndex = 0;
+        } else if (bucket.headIndex == SEGMENT_SIZE) {
+            bucket.head = head.next;
+            bucket.headIndex = 0;
+        }
+        size--;
+        version++;
+        return element;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        if (nonEmpty == 0) {
+            return null;
+        }
+        Bucket bucket = buckets[topLevel()];
+        return (E) bucket.head.items[bucket.headIndex];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public QueueSnapshot<E> snapshot() {
+        snapshotEpoch = epoch++;
+        Segment[] heads = new Segment[MAX_LEVEL + 1];
+        int[] headIndexes = new int[MAX_LEVEL + 1];
+        int[] sizes = new int[MAX_LEVEL + 1];
+        for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+            heads[level] = buckets[level].head;
+            headIndexes[level] = buckets[level].headIndex;
+            sizes[level] = buckets[level].size;
+        }
+        return new BucketSnapshot<>(heads, headIndexes, sizes, size, version);
+    }
+
+    private int topLevel() {
+        return 31 - Integer.numberOfLeadingZeros(nonEmpty);
+    }
+
+    private static final class Segment {
+        final Object[] items = new Object[SEGMENT_SIZE];
+        final int epoch;
+        Segment next;
+
+        Segment(int epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private static final class Bucket {
+        Segment head;
+        Segment tail;
+        int headIndex;
+        int tailIndex;
+        int size;
+
+        Bucket(Segment segment) {
+            head = tail = segment;
+        }
+    }
+
+    private static final class BucketSnapshot<E> implements QueueSnapshot<E> {
+        private final Segment[] heads;
+        private final int[] headIndexes;
+        private final int[] sizes;
+        private final int size;
+        private final long version;
+
+        BucketSnapshot(Segment[] heads, int[] headIndexes, int[] sizes, int size, long version) {
+            this.heads = heads;
+            this.headIndexes = headIndexes;
+            this.sizes = sizes;
+            this.size = size;
+            this.version = version;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int level = MAX_LEVEL + 1;
+                private Segment segment;
+                private int index;
+                private int remaining;
+
+                public boolean hasNext() {
+                    while (remaining == 0 && level > MIN_LEVEL) {
+                        level--;
+                        segment = heads[level];
+                        index = headIndexes[level];
+                        remaining = sizes[level];
+                    }
+                    return remaining > 0;
+                }
+
+                @SuppressWarnings("unchecked")
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    if (index == SEGMENT_SIZE) {
+                        segment = segment.next;
+                        index = 0;
+                    }
+                    remaining--;
+                    return (E) segment.items[index++];
+                }
+            };
+        }
+    }
+}
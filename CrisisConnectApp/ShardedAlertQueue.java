@@ -0,0 +1,422 @@
+package com.crisisconnect;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+// Alert queue partitioned across several HeadlessServer nodes. Alerts are
+// routed by a hash of their location, so one region's alerts share a node;
+// if that node is down they go to the next live one.
+//
+// getNextAlert and drainTo merge the nodes' heads: each live node is asked
+// for its top k (PEEK_ALERTS, pipelined to all nodes at once, k a little
+// over an even share of what is wanted), and the heads are merged by
+// severity, then time queued, then node. The merge stops right after the
+// last head of a node that may hold more, since that node's next alert is
+// unknown; the merged prefix is taken by id (TAKE_ALERTS) and the rest
+// asked for again. Order is therefore exact cluster-wide severity order
+// over the live nodes. An alert taken by another client between peek and
+// take is simply missing from the reply.
+//
+// Ids are node-local; the ids this class hands out interleave them as
+// localId * nodes + node. A node that fails a request, or takes longer
+// than READ_TIMEOUT_MILLIS to answer one, is skipped until RETRY_MILLIS
+// have passed, then reconnected. Not thread-safe.
+class ShardedAlertQueue implements Closeable {
+    static final int RETRY_MILLIS = 1_000;
+    private static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+    // A hung node counts as down rather than blocking the whole cluster
+    static final int READ_TIMEOUT_MILLIS = 5_000;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final int readTimeoutMillis;
+
+    private static final class Node {
+        final int index;
+        final InetSocketAddress address;
+        Socket socket;
+        BufferedReader in;
+        Writer out;
+        long downUntil;
+
+        Node(int index, InetSocketAddress address) {
+            this.index = index;
+            this.address = address;
+        }
+    }
+
+    // One queued alert as reported by PEEK_ALERTS.
+    private static final class Head {
+        final Node node;
+        final int id;
+        final int severity;
+        final long timestamp; // epoch nanos
+
+        Head(Node node, int id, int severity, long timestamp) {
+            this.node = node;
+            this.id = id;
+            this.severity = severity;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static final Comparator<Head> PRIORITY = Comparator.<Head>comparingInt(h -> -h.severity)
+        .thenComparingLong(h -> h.timestamp)
+        .thenComparingInt(h -> h.node.index);
+
+    public ShardedAlertQueue(List<InetSocketAddress> addresses) {
+        this(addresses, READ_TIMEOUT_MILLIS);
+    }
+
+    ShardedAlertQueue(List<InetSocketAddress> addresses, int readTimeoutMillis) {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("No nodes");
+        }
+        this.readTimeoutMillis = readTimeoutMillis;
+        for (InetSocketAddress address : addresses) {
+            nodes.add(new Node(nodes.size(), address));
+        }
+    }
+
+    // "host:port,host:port,..."
+    public static List<InetSocketAddress> parseNodes(String spec) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String node : spec.split(",")) {
+            int colon = node.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Expected host:port, got " + node);
+            }
+            addresses.add(new InetSocketAddress(node.substring(0, colon).trim(),
+                Integer.parseInt(node.substring(colon + 1).trim())));
+        }
+        return addresses;
+    }
+
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    // The node a location's alerts go to while it is up.
+    public int nodeFor(String location) {
+        String key = location == null ? "" : location.trim().toLowerCase(Locale.ROOT);
+        return Math.floorMod(key.hashCode(), nodes.size());
+    }
+
+    // Queues the alert on its location's node; returns its cluster id, or
+    // the id of the alert it was merged into.
+    public int addAlert(EmergencyAlert alert) throws IOException {
+        List<EmergencyAlert> one = new ArrayList<>(1);
+        one.add(alert);
+        return addAll(one)[0];
+    }
+
+    // Pipelines each node's share of the alerts in one write, so the node
+    // queues them as a single batch.
+    public int[] addAll(List<? extends EmergencyAlert> alerts) throws IOException {
+        int[] ids = new int[alerts.size()];
+        List<List<Integer>> byNode = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            byNode.add(new ArrayList<>());
+        }
+        for (int i = 0; i < alerts.size(); i++) {
+            byNode.get(nodeFor(alerts.get(i).getLocation())).add(i);
+        }
+        for (int n = 0; n < nodes.size(); n++) {
+            List<Integer> pending = byNode.get(n);
+            // Fall through to the following nodes while this one is down
+            for (int attempt = 0; !pending.isEmpty() && attempt < nodes.size(); attempt++) {
+                pending = send(nodes.get((n + attempt) % nodes.size()), alerts, pending, ids);
+            }
+            if (!pending.isEmpty()) {
+                throw new IOException("No node available for " + pending.size() + " alerts");
+            }
+        }
+        return ids;
+    }
+
+    public EmergencyAlert getNextAlert() {
+        List<EmergencyAlert> next = new ArrayList<>(1);
+        drainTo(next, 1);
+        return next.isEmpty() ? null : next.get(0);
+    }
+
+    // Takes up to max alerts in cluster-wide priority order into target.
+    public int drainTo(Collection<? super EmergencyAlert> target, int max) {
+        int taken = 0;
+        while (taken < max) {
+            int remaining = max - taken;
+            int k = Math.min(remaining, remaining * 3 / (2 * Math.max(1, liveNodes())) + 1);
+            List<List<Head>> heads = peek(k);
+            PriorityQueue<Head> merge = new PriorityQueue<>(PRIORITY);
+            int[] left = new int[nodes.size()];
+            for (List<Head> nodeHeads : heads) {
+                merge.addAll(nodeHeads);
+                if (!nodeHeads.isEmpty()) {
+                    left[nodeHeads.get(0).node.index] = nodeHeads.size();
+                }
+            }
+            if (merge.isEmpty()) {
+                break;
+            }
+            List<List<Head>> chosen = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i++) {
+                chosen.add(new ArrayList<>());
+            }
+            for (int i = 0; i < remaining && !merge.isEmpty(); i++) {
+                Head head = merge.poll();
+                chosen.get(head.node.index).add(head);
+                if (--left[head.node.index] == 0 && heads.get(head.node.index).size() == k) {
+                    break;
+                }
+            }
+            List<EmergencyAlert> batch = take(chosen);
+            batch.sort(Comparator.comparingInt((EmergencyAlert a) -> -a.getSeverity())
+                .thenComparing(EmergencyAlert::getTimestamp)
+                .thenComparingInt(a -> Math.floorMod(a.getAlertId(), nodes.size())));
+            target.addAll(batch);
+            taken += batch.size();
+        }
+        return taken;
+    }
+
+    // Alerts queued on the live nodes.
+    public int size() {
+        int size = 0;
+        for (Node node : nodes) {
+            if (!connect(node)) {
+                continue;
+            }
+            try {
+                writeLine(node, "STATS");
+                node.out.flush();
+                String[] fields = readLine(node).split("\t");
+                size += Integer.parseInt(fields[1]);
+            } catch (IOException e) {
+                down(node);
+            }
+        }
+        return size;
+    }
+
+    public int liveNodes() {
+        int live = 0;
+        for (Node node : nodes) {
+            if (connect(node)) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    @Override
+    public void close() {
+        for (Node node : nodes) {
+            if (node.socket != null) {
+                try {
+                    writeLine(node, "QUIT");
+                    node.out.flush();
+                } catch (IOException e) {
+                    // Closing anyway
+                }
+                disconnect(node);
+            }
+        }
+    }
+
+    // Returns the alerts the node did not acknowledge. Those were possibly
+    // queued before it failed, so a retry elsewhere may queue them twice.
+    private List<Integer> send(Node node, List<? extends EmergencyAlert> alerts, List<Integer> indexes, int[] ids) {
+        if (!connect(node)) {
+            return indexes;
+        }
+        int acknowledged = 0;
+        String error = null;
+        try {
+            for (int i : indexes) {
+                EmergencyAlert alert = alerts.get(i);
+                String line = "ADD_ALERT\t" + alert.getSeverity() + "\t" + clean(alert.getLocation()) + "\t"
+                    + clean(alert.getDescription());
+                if (alert.hasCoordinates()) {
+                    line += "\t" + alert.getLatitude() + "\t" + alert.getLongitude();
+                }
+                writeLine(node, line);
+            }
+            node.out.flush();
+            for (int i : indexes) {
+                String[] fields = readLine(node).split("\t");
+                acknowledged++;
+                if (fields[0].equals("OK") || fields[0].equals("MERGED")) {
+                    ids[i] = clusterId(node, Integer.parseInt(fields[1]));
+                } else if (error == null) {
+                    error = String.join(" ", fields);
+                }
+            }
+        } catch (IOException e) {
+            down(node);
+            return new ArrayList<>(indexes.subList(acknowledged, indexes.size()));
+        }
+        if (error != null) {
+            throw new IllegalArgumentException(node.address + ": " + error);
+        }
+        return new ArrayList<>();
+    }
+
+    private List<List<Head>> peek(int k) {
+        List<List<Head>> heads = new ArrayList<>();
+        List<Node> asked = new ArrayList<>();
+        for (Node node : nodes) {
+            heads.add(new ArrayList<>());
+            if (!connect(node)) {
+                continue;
+            }
+            try {
+                writeLine(node, "PEEK_ALERTS\t" + k);
+                node.out.flush();
+                asked.add(node);
+            } catch (IOException e) {
+                down(node);
+            }
+        }
+        for (Node node : asked) {
+            try {
+                for (String line = readLine(node); !line.equals("END"); line = readLine(node)) {
+                    String[] fields = line.split("\t");
+                    if (!fields[0].equals("PEEK")) {
+                        throw new IOException(node.address + ": " + line);
+                    }
+                    heads.get(node.index).add(new Head(node, Integer.parseInt(fields[1]),
+                        Integer.parseInt(fields[2]), Long.parseLong(fields[3])));
+                }
+            } catch (IOException e) {
+                heads.get(node.index).clear();
+                down(node);
+            }
+        }
+        return heads;
+    }
+
+    private List<EmergencyAlert> take(List<List<Head>> chosen) {
+        List<EmergencyAlert> taken = new ArrayList<>();
+        List<Node> asked = new ArrayList<>();
+        for (List<Head> heads : chosen) {
+            if (heads.isEmpty()) {
+                continue;
+            }
+            Node node = heads.get(0).node;
+            StringBuilder line = new StringBuilder("TAKE_ALERTS");
+            for (Head head : heads) {
+                line.append('\t').append(head.id);
+            }
+            try {
+                writeLine(node, line.toString());
+                node.out.flush();
+                asked.add(node);
+            } catch (IOException e) {
+                down(node);
+            }
+        }
+        for (Node node : asked) {
+            try {
+                for (String line = readLine(node); !line.equals("END"); line = readLine(node)) {
+                    taken.add(parseTaken(node, line));
+                }
+            } catch (IOException e) {
+                // Alerts this node removed before failing are lost to us
+                down(node);
+            }
+        }
+        return taken;
+    }
+
+    // TAKEN id severity timestamp status reports lat lon location description
+    private EmergencyAlert parseTaken(Node node, String line) throws IOException {
+        String[] fields = line.split("\t", 10);
+        if (!fields[0].equals("TAKEN") || fields.length < 10) {
+            throw new IOException(node.address + ": " + line);
+        }
+        EmergencyAlert alert = new EmergencyAlert(clusterId(node, Integer.parseInt(fields[1])), fields[9],
+            Integer.parseInt(fields[2]), LocalDateTime.parse(fields[3]), fields[8], fields[4]);
+        alert.setReportCount(Integer.parseInt(fields[5]));
+        alert.setCoordinates(Double.parseDouble(fields[6]), Double.parseDouble(fields[7]));
+        return alert;
+    }
+
+    private int clusterId(Node node, int localId) {
+        return localId * nodes.size() + node.index;
+    }
+
+    private boolean connect(Node node) {
+        if (node.socket != null) {
+            return true;
+        }
+        if (System.currentTimeMillis() < node.downUntil) {
+            return false;
+        }
+        Socket socket = new Socket();
+        try {
+            socket.connect(node.address, CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(readTimeoutMillis);
+            node.socket = socket;
+            node.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            node.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            return true;
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already failed
+            }
+            node.downUntil = System.currentTimeMillis() + RETRY_MILLIS;
+            return false;
+        }
+    }
+
+    private void down(Node node) {
+        disconnect(node);
+        node.downUntil = System.currentTimeMillis() + RETRY_MILLIS;
+    }
+
+    private static void disconnect(Node node) {
+        try {
+            node.socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        node.socket = null;
+        node.in = null;
+        node.out = null;
+    }
+
+    private static void writeLine(Node node, String line) throws IOException {
+        node.out.write(line);
+        node.out.write('\n');
+    }
+
+    private static String readLine(Node node) throws IOException {
+        String line = node.in.readLine();
+        if (line == null) {
+            throw new IOException(node.address + " closed the connection");
+        }
+        return line;
+    }
+
+    // Fields are tab-separated and requests end at a newline.
+    private static String clean(String text) {
+        return text == null ? "" : text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,261 @@
+package com.crisisconnect;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Status state machines. Entities store the ordinal in a byte; allowed
+// transitions are a bitmask over ordinals. Staying in the same state is
+// always allowed. Labels are what the UI and the on-disk formats use.
+enum AlertStatus {
+    PENDING("Pending"),
+    ACKNOWLEDGED("Acknowledged"),
+    DISPATCHED("Dispatched"),
+    RESOLVED("Resolved"),
+    CANCELLED("Cancelled");
+
+    private static final AlertStatus[] VALUES = values();
+
+    static {
+        PENDING.allow(ACKNOWLEDGED, DISPATCHED, RESOLVED, CANCELLED);
+        ACKNOWLEDGED.allow(DISPATCHED, RESOLVED, CANCELLED);
+        DISPATCHED.allow(RESOLVED, CANCELLED);
+    }
+
+    private final String label;
+    private int next;
+
+    AlertStatus(String label) {
+        this.label = label;
+    }
+
+    private void allow(AlertStatus... targets) {
+        for (AlertStatus target : targets) {
+            next |= 1 << target.ordinal();
+        }
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public boolean canTransitionTo(AlertStatus target) {
+        return target == this || (next & (1 << target.ordinal())) != 0;
+    }
+
+    static AlertStatus fromCode(byte code) {
+        return VALUES[code];
+    }
+
+    static AlertStatus fromLabel(String label) {
+        for (AlertStatus status : VALUES) {
+            if (status.label.equalsIgnoreCase(label)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown alert status: " + label);
+    }
+}
+
+enum TaskStatus {
+    UNASSIGNED("Unassigned"),
+    ASSIGNED("Assigned"),
+    IN_PROGRESS("In Progress"),
+    COMPLETED("Completed"),
+    CANCELLED("Cancelled");
+
+    private static final TaskStatus[] VALUES = values();
+
+    static {
+        UNASSIGNED.allow(ASSIGNED, CANCELLED);
+        ASSIGNED.allow(UNASSIGNED, IN_PROGRESS, COMPLETED, CANCELLED);
+        IN_PROGRESS.allow(ASSIGNED, COMPLETED, CANCELLED);
+    }
+
+    private final String label;
+    private int next;
+
+    TaskStatus(String label) {
+        this.label = label;
+    }
+
+    private void allow(TaskStatus... targets) {
+        for (TaskStatus target : targets) {
+            next |= 1 << target.ordinal();
+        }
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public boolean canTransitionTo(TaskStatus target) {
+        return target == this || (next & (1 << target.ordinal())) != 0;
+    }
+
+    static TaskStatus fromCode(byte code) {
+        return VALUES[code];
+    }
+
+    static TaskStatus fromLabel(String label) {
+        for (TaskStatus status : VALUES) {
+            if (status.label.equalsIgnoreCase(label)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown task status: " + label);
+    }
+}
+
+enum TeamStatus {
+    AVAILABLE("Available"),
+    DEPLOYED("Deployed"),
+    OFF_DUTY("Off Duty");
+
+    private static final TeamStatus[] VALUES = values();
+
+    static {
+        AVAILABLE.allow(DEPLOYED, OFF_DUTY);
+        DEPLOYED.allow(AVAILABLE, OFF_DUTY);
+        OFF_DUTY.allow(AVAILABLE);
+    }
+
+    private final String label;
+    private int next;
+
+    TeamStatus(String label) {
+        this.label = label;
+    }
+
+    private void allow(TeamStatus... targets) {
+        for (TeamStatus target : targets) {
+            next |= 1 << target.ordinal();
+        }
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public boolean canTransitionTo(TeamStatus target) {
+        return target == this || (next & (1 << target.ordinal())) != 0;
+    }
+
+    static TeamStatus fromCode(byte code) {
+        return VALUES[code];
+    }
+
+    static TeamStatus fromLabel(String label) {
+        for (TeamStatus status : VALUES) {
+            if (status.label.equalsIgnoreCase(label)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown team status: " + label);
+    }
+}
+
+// Secondary index from status to the queued entities in that status, keyed
+// by id. Entities report their own transitions through move(), so "all
+// pending alerts" or "all available teams" costs O(result), and per-status
+// counts are a map size. Safe for concurrent producers (ConcurrentStore).
+//
+// An ids-only index (for OffHeapStore, whose queued records are not heap
+// objects) keeps just the id under the status an element had when added:
+// counts and ids(), but no get().
+class StatusIndex<S extends Enum<S>, E> {
+    private static final Object PRESENT = Boolean.TRUE;
+
+    private final ToIntFunction<? super E> idOf;
+    private final Function<? super E, S> statusOf;
+    private final boolean keepElements;
+    private final List<Map<Integer, Object>> byStatus;
+    private volatile Consumer<? super E> onMove;
+
+    public StatusIndex(Class<S> type, ToIntFunction<? super E> idOf, Function<? super E, S> statusOf) {
+        this(type, idOf, statusOf, true);
+    }
+
+    public StatusIndex(Class<S> type, ToIntFunction<? super E> idOf, Function<? super E, S> statusOf,
+                       boolean keepElements) {
+        this.idOf = idOf;
+        this.statusOf = statusOf;
+        this.keepElements = keepElements;
+        byStatus = new ArrayList<>();
+        for (int i = 0; i < type.getEnumConstants().length; i++) {
+            byStatus.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    public void add(E element) {
+        byStatus.get(statusOf.apply(element).ordinal()).put(idOf.applyAsInt(element),
+            keepElements ? element : PRESENT);
+    }
+
+    // Removes by id. Stores that hand back copies (OffHeapStore) may return
+    // an element whose status is stale, so fall back to checking each status.
+    public void remove(E element) {
+        Integer id = idOf.applyAsInt(element);
+        if (byStatus.get(statusOf.apply(element).ordinal()).remove(id) != null) {
+            return;
+        }
+        for (Map<Integer, Object> entries : byStatus) {
+            if (entries.remove(id) != null) {
+                return;
+            }
+        }
+    }
+
+    // Called after each transition of an indexed element; the owning queue
+    // uses it to tell its listeners.
+    public void onMove(Consumer<? super E> callback) {
+        onMove = callback;
+    }
+
+    public void move(E element, S from, S to) {
+        // Ignore elements that already left the index
+        Integer id = idOf.applyAsInt(element);
+        if (from != to && byStatus.get(from.ordinal()).remove(id) != null) {
+            byStatus.get(to.ordinal()).put(id, keepElements ? element : PRESENT);
+            Consumer<? super E> callback = onMove;
+            if (callback != null) {
+                callback.accept(element);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Collection<E> get(S status) {
+        if (!keepElements) {
+            throw new UnsupportedOperationException("Ids-only status index");
+        }
+        return (Collection<E>) Collections.unmodifiableCollection(byStatus.get(status.ordinal()).values());
+    }
+
+    public Set<Integer> ids(S status) {
+        return Collections.unmodifiableSet(byStatus.get(status.ordinal()).keySet());
+    }
+
+    public int count(S status) {
+        return byStatus.get(status.ordinal()).size();
+    }
+}
@@ -0,0 +1,279 @@
+package com.crisisconnect;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+enum FsyncPolicy {
+    NEVER,      // leave flushing to the OS; fastest, may lose the last batches
+    PER_BATCH,  // fsync once per group-committed batch
+    PER_RECORD  // write and fsync every record before returning
+}
+
+// Append-only log split into numbered segment files (wal-<n>.log). Records
+// are buffered and written as one batch (group commit) when the buffer fills,
+// when flush() is called, or every flush interval from a background thread.
+//
+// Record layout: int length | byte type | payload | int crc32(type+payload).
+// Replay stops at the first short or corrupt record, i.e. a torn tail.
+class WriteAheadLog implements Closeable {
+    interface RecordHandler {
+        void record(byte type, DataInputStream payload) throws IOException;
+    }
+
+    interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static final int DEFAULT_BATCH_BYTES = 64 * 1024;
+    private static final long FLUSH_INTERVAL_MILLIS = 20;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final Path dir;
+    private final FsyncPolicy policy;
+    private final int batchBytes;
+    private final Buffer batch = new Buffer();
+    private final Buffer scratch = new Buffer();
+    private final DataOutputStream batchOut = new DataOutputStream(batch);
+    private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService flusher;
+    private FileChannel channel;
+    private long segment;
+
+    public WriteAheadLog(Path dir, long firstSegment, FsyncPolicy policy) throws IOException {
+        this(dir, firstSegment, policy, DEFAULT_BATCH_BYTES);
+    }
+
+    public WriteAheadLog(Path dir, long firstSegment, FsyncPolicy policy, int batchBytes) throws IOException {
+        this.dir = dir;
+        this.policy = policy;
+        this.batchBytes = batchBytes;
+        Files.createDirectories(dir);
+        openSegment(firstSegment);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "wal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+            TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void append(byte type, PayloadWriter payload) {
+        try {
+            scratch.reset();
+            scratchOut.writeByte(type);
+            payload.write(scratchOut);
+            crc.reset();
+            crc.update(scratch.bytes(), 0, scratch.size());
+
+            batchOut.writeInt(scratch.size() - 1);
+            scratch.writeTo(batch);
+            batchOut.writeInt((int) crc.getValue());
+
+            if (policy == FsyncPolicy.PER_RECORD || batch.size() >= batchBytes) {
+                flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        if (batch.size() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(batch.bytes(), 0, batch.size());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        batch.reset();
+        if (policy != FsyncPolicy.NEVER) {
+            channel.force(false);
+        }
+    }
+
+    // Closes the current segment and starts the next; returns its number.
+    public synchronized long rotate() throws IOException {
+        flush();
+        channel.force(false);
+        channel.close();
+        openSegment(segment + 1);
+        return segment;
+    }
+
+    public synchronized long currentSegment() {
+        return segment;
+    }
+
+    // Deletes segments wholly covered by a snapshot.
+    public void deleteSegmentsBefore(long firstKept) throws IOException {
+        for (long n : listSegments(dir)) {
+            if (n < firstKept) {
+                Files.deleteIfExists(segmentPath(dir, n));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        synchronized (this) {
+            try {
+                flush();
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    static List<Long> listSegments(Path dir) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                .filter(name -> name.startsWith("wal-") && name.endsWith(".log"))
+                .forEach(name -> segments.add(Long.parseLong(name.substring(4, name.length() - 4))));
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    static Path segmentPath(Path dir, long segment) {
+        return dir.resolve(String.format("wal-%012d.log", segment));
+    }
+
+    // Replays every intact record of one segment; returns how many were read.
+    static long replay(Path file, RecordHandler handler) throws IOException {
+        long count = 0;
+        CRC32 check = new CRC32();
+        try (InputStream in = openBuffered(file)) {
+            DataInputStream data = new DataInputStream(in);
+            byte[] buffer = new byte[256];
+            while (true) {
+                int length;
+                try {
+                    length = data.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                if (buffer.length < length + 1) {
+                    buffer = new byte[Math.max(length + 1, buffer.length * 2)];
+                }
+                try {
+                    data.readFully(buffer, 0, length + 1);
+                    int expected = data.readInt();
+                    check.reset();
+                    check.update(buffer, 0, length + 1);
+                    if ((int) check.getValue() != expected) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                handler.record(buffer[0], new DataInputStream(new ByteArrayInputStream(buffer, 1, length)));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void openSegment(long n) throws IOException {
+        segment = n;
+        channel = FileChannel.open(segmentPath(dir, n), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // BufferedInputStream synchronizes every read(); DataInputStream calls it
+    // once per byte, which dominates recovery time on large files.
+    static InputStream openBuffered(Path file) throws IOException {
+        InputStream raw = Files.newInputStream(file);
+        return new InputStream() {
+            private final byte[] buffer = new byte[1 << 20];
+            private int position;
+            private int limit;
+
+            @Override
+            public int read() throws IOException {
+                if (position == limit && !fill()) {
+                    return -1;
+                }
+                return buffer[position++] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] target, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                if (position == limit && !fill()) {
+                    return -1;
+                }
+                int n = Math.min(length, limit - position);
+                System.arraycopy(buffer, position, target, offset, n);
+                position += n;
+                return n;
+            }
+
+            private boolean fill() throws IOException {
+                limit = raw.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit < 0) {
+                    limit = 0;
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public void close() throws IOException {
+                raw.close();
+            }
+        };
+    }
+
+    // ByteArrayOutputStream that exposes its array, to avoid toByteArray copies.
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(4096);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.crisisconnect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+// addAlert followed by getNextAlert on a queue held at a steady size.
+// Only thread-safe stores (concurrent, locked-heap) may run with -t > 1.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class AlertQueueBenchmark {
+    @Param({"heap", "heap-fifo", "locked-heap", "concurrent", "bucket", "indexed", "offheap", "packed", "fair"})
+    public String store;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private EmergencyPriorityQueue queue;
+
+    @Setup
+    public void setUp() {
+        queue = BenchmarkData.alertQueue(store, size);
+    }
+
+    @Benchmark
+    public void addThenPoll(Blackhole blackhole) {
+        queue.addAlert(BenchmarkData.newAlert(queue));
+        blackhole.consume(queue.getNextAlert());
+    }
+}
@@ -0,0 +1,113 @@
+package com.crisisconnect;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Shared fixtures for the JMH benchmarks: store factories by name and cheap
+// record construction (fixed timestamp, no LocalDateTime.now() per record).
+final class BenchmarkData {
+    static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    static PriorityStore<EmergencyAlert> alertStore(String name) {
+        switch (name) {
+            case "heap":
+                return new HeapStore<>();
+            case "heap-fifo":
+                return new HeapStore<>(EmergencyAlert.ARRIVAL_ORDER);
+            case "locked-heap":
+                return new LockedStore<>(new HeapStore<>());
+            case "concurrent":
+                return new ConcurrentStore<>();
+            case "bucket":
+                return new SeverityBucketStore<>(EmergencyAlert::getSeverity);
+            case "indexed":
+                return new IndexedAlertStore();
+            case "offheap":
+                return new OffHeapStore<>(tempDir(), "alerts", new AlertRecordCodec());
+            case "packed":
+                return new PackedHeapStore<>(EmergencyAlert::getSeverity);
+            case "fair":
+                return new FairShareStore<>(EmergencyAlert::getSeverity);
+            default:
+                throw new IllegalArgumentException("Unknown alert store: " + name);
+        }
+    }
+
+    static PriorityStore<Task> taskStore(String name) {
+        switch (name) {
+            case "heap":
+                return new HeapStore<>();
+            case "bucket":
+                return new SeverityBucketStore<>(Task::getPriority);
+            case "edf":
+                return new DeadlineScheduler(SchedulingPolicy.EARLIEST_DEADLINE_FIRST);
+            case "aging":
+                return new DeadlineScheduler(SchedulingPolicy.DEADLINE_AGING);
+            case "packed":
+                return new PackedHeapStore<>(Task::getPriority);
+            default:
+                throw new IllegalArgumentException("Unknown task store: " + name);
+        }
+    }
+
+    static EmergencyAlert newAlert(EmergencyPriorityQueue queue) {
+        int severity = 1 + ThreadLocalRandom.current().nextInt(10);
+        return new EmergencyAlert(queue.getNextAlertId(), "Benchmark alert", severity, NOW, "Downtown", "Pending");
+    }
+
+    static Task newTask(TaskPriorityQueue queue) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new Task(queue.getNextTaskId(), "Benchmark task", 1 + random.nextInt(10),
+            NOW.plusMinutes(random.nextInt(7 * 24 * 60)), "Unassigned", "None");
+    }
+
+    static EmergencyPriorityQueue alertQueue(String store, int size) {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(alertStore(store));
+        for (int i = 0; i < size; i++) {
+            queue.addAlert(newAlert(queue));
+        }
+        return queue;
+    }
+
+    static TaskPriorityQueue taskQueue(String store, int size) {
+        TaskPriorityQueue queue = new TaskPriorityQueue(taskStore(store));
+        for (int i = 0; i < size; i++) {
+            queue.addTask(newTask(queue));
+        }
+        return queue;
+    }
+
+    private static Path tempDir() {
+        try {
+            return Files.createTempDirectory("crisisconnect-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Any store behind one lock; the baseline for multi-threaded runs.
+    static final class LockedStore<E> implements PriorityStore<E> {
+        private final PriorityStore<E> store;
+
+        LockedStore(PriorityStore<E> store) {
+            this.store = store;
+        }
+
+        public synchronized void offer(E element) { store.offer(element); }
+        public synchronized E poll() { return store.poll(); }
+        public synchronized E peek() { return store.peek(); }
+        public synchronized int size() { return store.size(); }
+        public synchronized boolean isEmpty() { return store.isEmpty(); }
+        public synchronized QueueSnapshot<E> snapshot() { return store.snapshot(); }
+        public synchronized void offerAll(Collection<? extends E> elements) { store.offerAll(elements); }
+        public synchronized int drainTo(Collection<? super E> target, int max) { return store.drainTo(target, max); }
+    }
+}
@@ -0,0 +1,56 @@
+package com.crisisconnect;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Runs the whole suite and writes one JMH JSON result file per run, so
+// results can be archived per release and diffed for regressions.
+// Usage: BenchmarkRunner [results-dir] [--quick]
+//   <results-dir>/single-thread.json         every benchmark, 1 thread
+//   <results-dir>/alert-queue-threads-NN.json thread-safe stores, 1..64 threads
+// --quick trims sizes and iterations for a smoke run.
+public class BenchmarkRunner {
+    private static final int MAX_THREADS = 64;
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "benchmark-results");
+        boolean quick = args.length > 1 && args[1].equals("--quick");
+        Files.createDirectories(dir);
+
+        new Runner(options(quick)
+            .include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark")
+            .threads(1)
+            .result(dir.resolve("single-thread.json").toString())
+            .build()).run();
+
+        for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+            new Runner(options(quick)
+                .include(AlertQueueBenchmark.class.getName() + ".addThenPoll")
+                .param("store", "concurrent", "locked-heap")
+                .threads(threads)
+                .result(dir.resolve(String.format("alert-queue-threads-%02d.json", threads)).toString())
+                .build()).run();
+        }
+    }
+
+    private static ChainedOptionsBuilder options(boolean quick) {
+        ChainedOptionsBuilder options = new OptionsBuilder().resultFormat(ResultFormatType.JSON);
+        if (quick) {
+            options.param("size", "1000", "100000")
+                .forks(1)
+                .warmupIterations(1)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(2)
+                .measurementTime(TimeValue.seconds(1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,77 @@
+package com.crisisconnect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A gateway flushing a backlog after a reconnect: one batch of alerts into a
+// queue that already holds some, one addAlert each versus one addAll, then
+// drained in groups.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class BulkIngestBenchmark {
+    @Param({"heap", "locked-heap", "bucket", "indexed", "offheap", "packed"})
+    public String store;
+
+    @Param({"0", "10000"})
+    public int queued;
+
+    @Param({"50000"})
+    public int batchSize;
+
+    @Param({"256"})
+    public int drainGroup;
+
+    private EmergencyPriorityQueue queue;
+    private List<EmergencyAlert> batch;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        queue = BenchmarkData.alertQueue(store, queued);
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(BenchmarkData.newAlert(queue));
+        }
+    }
+
+    @Benchmark
+    public EmergencyPriorityQueue addOneByOne() {
+        for (EmergencyAlert alert : batch) {
+            queue.addAlert(alert);
+        }
+        return queue;
+    }
+
+    @Benchmark
+    public EmergencyPriorityQueue addAll() {
+        queue.addAll(batch);
+        return queue;
+    }
+
+    @Benchmark
+    public void addAllThenDrain(Blackhole blackhole) {
+        queue.addAll(batch);
+        List<EmergencyAlert> group = new ArrayList<>(drainGroup);
+        while (queue.drainTo(group, drainGroup) > 0) {
+            blackhole.consume(group);
+            group.clear();
+        }
+    }
+}
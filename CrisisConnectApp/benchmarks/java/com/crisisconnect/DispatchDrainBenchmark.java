@@ -0,0 +1,88 @@
+package com.crisisconnect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Dispatches a whole task backlog over a pool of teams in batched rounds,
+// until nothing is queued or parked. After each round the oldest in-flight
+// assignments complete, so teams cycle and parked tasks get served on
+// release.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class DispatchDrainBenchmark {
+    private static final String[] SPECIALIZATIONS = {"Search and Rescue", "Medical Emergency",
+        "Fire Response", "Hazmat Response", "Evacuation", "Logistics"};
+
+    @Param({"10000"})
+    public int teams;
+
+    @Param({"1000000"})
+    public int backlog;
+
+    @Param({"1024"})
+    public int roundSize;
+
+    private TaskPriorityQueue tasks;
+    private DispatchEngine engine;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        Random random = new Random(42);
+        ResponseTeamQueue teamQueue = new ResponseTeamQueue();
+        for (int i = 0; i < teams; i++) {
+            teamQueue.addTeam(new ResponseTeam(teamQueue.getNextTeamId(), "Team " + i,
+                SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)]));
+        }
+        tasks = new TaskPriorityQueue();
+        for (int i = 0; i < backlog; i++) {
+            Task task = new Task(tasks.getNextTaskId(), "Task " + i, 1 + random.nextInt(10),
+                BenchmarkData.NOW.plusMinutes(i), "Unassigned", "None");
+            // A quarter of tasks accept any team
+            if (random.nextInt(4) != 0) {
+                task.setRequiredSpecialization(SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)]);
+            }
+            tasks.addTask(task);
+        }
+        engine = new DispatchEngine(tasks, teamQueue);
+    }
+
+    @Benchmark
+    public long drain() {
+        ArrayDeque<Task> inFlight = new ArrayDeque<>();
+        long assigned = 0;
+        while (!tasks.isEmpty() || engine.waitingCount() > 0) {
+            List<DispatchEngine.Assignment> round = engine.dispatchRound(roundSize);
+            assigned += round.size();
+            for (DispatchEngine.Assignment assignment : round) {
+                inFlight.add(assignment.getTask());
+            }
+            // Complete as many as were just assigned, oldest first
+            for (int i = Math.max(round.size(), 1); i > 0 && !inFlight.isEmpty(); i--) {
+                DispatchEngine.Assignment next = engine.complete(inFlight.poll());
+                if (next != null) {
+                    assigned++;
+                    inFlight.add(next.getTask());
+                }
+            }
+        }
+        return assigned;
+    }
+}
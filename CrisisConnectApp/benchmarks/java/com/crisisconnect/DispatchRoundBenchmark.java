@@ -0,0 +1,80 @@
+package com.crisisconnect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One dispatch round over a steady backlog: assign a batch, complete every
+// assignment and top the backlog back up, so each round sees the same load.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class DispatchRoundBenchmark {
+    private static final String[] SPECIALIZATIONS = {"Search and Rescue", "Medical Emergency",
+        "Fire Response", "Hazmat Response", "Evacuation", "Logistics"};
+
+    @Param({"1000", "10000"})
+    public int teams;
+
+    @Param({"100000", "1000000"})
+    public int backlog;
+
+    @Param({"1024"})
+    public int roundSize;
+
+    private TaskPriorityQueue tasks;
+    private DispatchEngine engine;
+    private int created;
+
+    @Setup
+    public void setUp() {
+        ResponseTeamQueue teamQueue = new ResponseTeamQueue();
+        for (int i = 0; i < teams; i++) {
+            teamQueue.addTeam(new ResponseTeam(teamQueue.getNextTeamId(), "Team " + i,
+                SPECIALIZATIONS[i % SPECIALIZATIONS.length]));
+        }
+        tasks = new TaskPriorityQueue();
+        for (int i = 0; i < backlog; i++) {
+            tasks.addTask(newTask());
+        }
+        engine = new DispatchEngine(tasks, teamQueue);
+    }
+
+    @Benchmark
+    public int round() {
+        List<DispatchEngine.Assignment> assignments = engine.dispatchRound(roundSize);
+        for (DispatchEngine.Assignment assignment : assignments) {
+            // A freed team may go straight to a parked task; finish those too
+            DispatchEngine.Assignment next = engine.complete(assignment.getTask());
+            while (next != null) {
+                next = engine.complete(next.getTask());
+            }
+        }
+        while (tasks.size() < backlog) {
+            tasks.addTask(newTask());
+        }
+        return assignments.size();
+    }
+
+    private Task newTask() {
+        Task task = BenchmarkData.newTask(tasks);
+        // Every fourth task accepts any team
+        if (created++ % 4 != 0) {
+            task.setRequiredSpecialization(SPECIALIZATIONS[created % SPECIALIZATIONS.length]);
+        }
+        return task;
+    }
+}
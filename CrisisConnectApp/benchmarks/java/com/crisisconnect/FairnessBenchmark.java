@@ -0,0 +1,109 @@
+package com.crisisconnect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One addAlert and one getNextAlert per step at a steady queue size, timed
+// per step, while recording time in queue per severity and FIFO inversions
+// (an alert served before an older one of the same severity). Waits are
+// counted in steps, so they are comparable across machines; the aging
+// FairShareStore reads the same step clock, with its cap in steps. The
+// wait table for the last measurement iteration is printed at the end of
+// each trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class FairnessBenchmark {
+    @Param({"heap", "heap-fifo", "bucket", "indexed", "packed", "fair", "fair-aging"})
+    public String store;
+
+    @Param({"100000"})
+    public int size;
+
+    private final LatencyHistogram[] waits = new LatencyHistogram[11];
+    private final long[] lastArrival = new long[11];
+    private final long[] inversions = new long[11];
+    private EmergencyPriorityQueue queue;
+    private Random random;
+    private long clock;
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        clock = 0;
+        queue = new EmergencyPriorityQueue(newStore());
+        for (int i = 0; i < size; i++) {
+            queue.addAlert(newAlert());
+        }
+        for (int severity = 1; severity <= 10; severity++) {
+            waits[severity] = new LatencyHistogram();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        for (int severity = 1; severity <= 10; severity++) {
+            waits[severity].reset();
+        }
+        Arrays.fill(lastArrival, -1);
+        Arrays.fill(inversions, 0);
+    }
+
+    @Benchmark
+    public EmergencyAlert step() {
+        queue.addAlert(newAlert());
+        EmergencyAlert alert = queue.getNextAlert();
+        int severity = alert.getSeverity();
+        // arrival numbers advance by one per added alert, as does the clock
+        waits[severity].record(clock - 1 - alert.getArrival());
+        if (alert.getArrival() < lastArrival[severity]) {
+            inversions[severity]++;
+        }
+        lastArrival[severity] = Math.max(lastArrival[severity], alert.getArrival());
+        return alert;
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println();
+        System.out.println("store,severity,served,p50_wait,p99_wait,max_wait,inversions");
+        for (int severity = 10; severity >= 1; severity--) {
+            LatencyHistogram wait = waits[severity];
+            System.out.println(String.format("%s,%d,%d,%d,%d,%d,%d", store, severity, wait.count(),
+                wait.percentile(0.5), wait.percentile(0.99), wait.max(), inversions[severity]));
+        }
+    }
+
+    private PriorityStore<EmergencyAlert> newStore() {
+        if (!store.equals("fair-aging")) {
+            return BenchmarkData.alertStore(store);
+        }
+        long[] maxWait = new long[11];
+        Arrays.fill(maxWait, 3L * size / 2);
+        return new FairShareStore<>(EmergencyAlert::getSeverity, FairShareStore.defaultWeights(), maxWait,
+            () -> clock);
+    }
+
+    private EmergencyAlert newAlert() {
+        clock++;
+        return new EmergencyAlert(queue.getNextAlertId(), "Benchmark alert", 1 + random.nextInt(10),
+            BenchmarkData.NOW, "Downtown", "Pending");
+    }
+}
@@ -0,0 +1,70 @@
+package com.crisisconnect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+// Pane rendering without Swing: the old full-text rendering as a baseline,
+// and the table model work per frame (one delta, one visible page).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class RenderBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private static final int VISIBLE_ROWS = 40;
+
+    private EmergencyPriorityQueue alerts;
+    private TaskPriorityQueue tasks;
+    private QueueTableModel<EmergencyAlert> alertModel;
+
+    @Setup
+    public void setUp() {
+        alerts = BenchmarkData.alertQueue("indexed", size);
+        tasks = BenchmarkData.taskQueue("aging", size);
+        alertModel = CrisisConnectApp.alertTableModel();
+        alertModel.reset(alerts.snapshot());
+    }
+
+    @Benchmark
+    public String renderAlerts() {
+        return CrisisConnectApp.renderAlerts(alerts.snapshot());
+    }
+
+    @Benchmark
+    public String renderTasks() {
+        return CrisisConnectApp.renderTasks(tasks.snapshot());
+    }
+
+    @Benchmark
+    public int tableInsertRemove() {
+        EmergencyAlert alert = BenchmarkData.newAlert(alerts);
+        alertModel.insert(alert);
+        alertModel.remove(alert);
+        return alertModel.getRowCount();
+    }
+
+    @Benchmark
+    public void tableVisiblePage(Blackhole blackhole) {
+        int first = alertModel.getRowCount() / 2;
+        for (int row = first; row < first + VISIBLE_ROWS && row < alertModel.getRowCount(); row++) {
+            for (int column = 0; column < alertModel.getColumnCount(); column++) {
+                blackhole.consume(alertModel.getValueAt(row, column));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.crisisconnect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+// Full getAlerts() copies against paging the first screen of a snapshot,
+// with and without a write in between (which forces a copy-on-write).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class SnapshotBenchmark {
+    private static final int PAGE = 200;
+
+    @Param({"heap", "bucket", "indexed", "packed"})
+    public String store;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private EmergencyPriorityQueue queue;
+
+    @Setup
+    public void setUp() {
+        queue = BenchmarkData.alertQueue(store, size);
+    }
+
+    @Benchmark
+    public EmergencyAlert[] getAlertsCopy() {
+        return queue.getAlerts();
+    }
+
+    @Benchmark
+    public void firstPage(Blackhole blackhole) {
+        for (EmergencyAlert alert : queue.snapshot().top(PAGE)) {
+            blackhole.consume(alert);
+        }
+    }
+
+    @Benchmark
+    public void writeThenFirstPage(Blackhole blackhole) {
+        queue.addAlert(BenchmarkData.newAlert(queue));
+        queue.getNextAlert();
+        for (EmergencyAlert alert : queue.snapshot().top(PAGE)) {
+            blackhole.consume(alert);
+        }
+    }
+}
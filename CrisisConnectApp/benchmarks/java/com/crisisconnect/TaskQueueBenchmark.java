@@ -0,0 +1,43 @@
+package com.crisisconnect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+// addTask followed by getNextTask on a queue held at a steady size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class TaskQueueBenchmark {
+    @Param({"heap", "bucket", "edf", "aging", "packed"})
+    public String store;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private TaskPriorityQueue queue;
+
+    @Setup
+    public void setUp() {
+        queue = BenchmarkData.taskQueue(store, size);
+    }
+
+    @Benchmark
+    public void addThenPoll(Blackhole blackhole) {
+        queue.addTask(BenchmarkData.newTask(queue));
+        blackhole.consume(queue.getNextTask());
+    }
+}
@@ -0,0 +1,84 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertDeduplicatorTest {
+    private final EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+    private final AlertDeduplicator deduplicator = new AlertDeduplicator(queue);
+
+    private EmergencyAlert report(String description, int severity, String location) {
+        return new EmergencyAlert(queue.getNextAlertId(), description, severity, location);
+    }
+
+    @Test
+    void testNearDuplicatesMergeIntoOneAlert() {
+        EmergencyAlert first = deduplicator.submit(report("Major flooding in downtown area", 6, "Downtown"));
+        EmergencyAlert second = deduplicator.submit(report("MAJOR flooding in the downtown area!", 8, "downtown"));
+        EmergencyAlert third = deduplicator.submit(report("Major flooding in downtown area", 5, "Downtown "));
+
+        assertSame(first, second);
+        assertSame(first, third);
+        assertEquals(1, queue.size());
+        assertEquals(3, first.getReportCount());
+        assertEquals(8, first.getSeverity()); // raised to the most severe report
+
+        // Different text or a different place is a different incident
+        assertNotSame(first, deduplicator.submit(report("Gas leak reported near school", 6, "Downtown")));
+        assertNotSame(first, deduplicator.submit(report("Major flooding in downtown area", 6, "Harbor")));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    void testStoreWithoutReprioritizingQueuesDuplicates() {
+        EmergencyPriorityQueue heap = new EmergencyPriorityQueue();
+        AlertDeduplicator plain = new AlertDeduplicator(heap);
+        EmergencyAlert first = plain.submit(new EmergencyAlert(1, "Major flooding in downtown area", 3, "Downtown"));
+        EmergencyAlert second = plain.submit(new EmergencyAlert(2, "Major flooding in downtown area", 9, "Downtown"));
+
+        // Merging would leave the urgent report queued at severity 3
+        assertNotSame(first, second);
+        assertEquals(2, heap.size());
+        assertEquals(1, first.getReportCount());
+        assertSame(second, heap.getNextAlert());
+    }
+
+    @Test
+    void testCoordinatesAndTimeWindow() {
+        EmergencyAlert collapse = report("Building collapse at construction site", 8, "Industrial Zone");
+        collapse.setCoordinates(48.8566, 2.3522);
+        deduplicator.submit(collapse);
+
+        EmergencyAlert nearby = report("Building collapse at the construction site", 8, "Rue de Rivoli");
+        nearby.setCoordinates(48.8570, 2.3530);
+        assertSame(collapse, deduplicator.submit(nearby));
+
+        EmergencyAlert elsewhere = report("Building collapse at construction site", 8, "Industrial Zone");
+        elsewhere.setCoordinates(48.90, 2.45);
+        assertNotSame(collapse, deduplicator.submit(elsewhere));
+
+        EmergencyAlert later = new EmergencyAlert(queue.getNextAlertId(), "Building collapse at construction site",
+            8, LocalDateTime.now().plusHours(2), "Industrial Zone", "Pending");
+        assertNull(deduplicator.findDuplicate(later));
+    }
+
+    @Test
+    void testMemoryIsBoundedAndPolledAlertsAreForgotten() {
+        EmergencyPriorityQueue small = new EmergencyPriorityQueue(new IndexedAlertStore());
+        AlertDeduplicator bounded = new AlertDeduplicator(small, Duration.ofMinutes(30), 100, 1.0, 0.5);
+        for (int i = 0; i < 1_000; i++) {
+            bounded.submit(new EmergencyAlert(small.getNextAlertId(), "Incident number " + i, 5, "Zone " + i));
+        }
+        assertEquals(1_000, small.size());
+        assertEquals(100, bounded.size());
+
+        EmergencyAlert last = small.getAlert(1_000);
+        EmergencyAlert again = new EmergencyAlert(small.getNextAlertId(), "Incident number 999", 5, "Zone 999");
+        assertSame(last, bounded.findDuplicate(again));
+        small.cancel(1_000);
+        assertNull(bounded.findDuplicate(again));
+        assertEquals(99, bounded.size());
+    }
+}
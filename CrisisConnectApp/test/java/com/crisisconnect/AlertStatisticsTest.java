@@ -0,0 +1,93 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertStatisticsTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 12, 0, 0);
+
+    private static final class ManualClock extends Clock {
+        LocalDateTime now = START;
+
+        public ZoneId getZone() { return ZoneOffset.UTC; }
+        public Clock withZone(ZoneId zone) { return this; }
+        public Instant instant() { return now.toInstant(ZoneOffset.UTC); }
+    }
+
+    private final ManualClock clock = new ManualClock();
+    private final AlertStatistics statistics = new AlertStatistics(clock, 4096);
+
+    @Test
+    void testWindowsSlideWithTheClock() {
+        statistics.record(clock.now, 9, "Downtown");
+        clock.now = START.plusSeconds(30);
+        statistics.record(clock.now, 3, "Harbor");
+        statistics.record(clock.now, 9, "Downtown");
+
+        assertEquals(3, statistics.count(AlertStatistics.Window.ONE_MINUTE));
+        assertEquals(2, statistics.countBySeverity(9, AlertStatistics.Window.ONE_MINUTE));
+        assertEquals(1, statistics.countByLocation("Harbor", AlertStatistics.Window.FIVE_MINUTES));
+
+        clock.now = START.plusSeconds(75);
+        assertEquals(2, statistics.count(AlertStatistics.Window.ONE_MINUTE));
+        assertEquals(3, statistics.count(AlertStatistics.Window.FIVE_MINUTES));
+
+        clock.now = START.plusMinutes(10);
+        assertEquals(0, statistics.count(AlertStatistics.Window.FIVE_MINUTES));
+        assertEquals(3, statistics.count(AlertStatistics.Window.ONE_HOUR));
+        assertEquals(0.05, statistics.perMinute(AlertStatistics.Window.ONE_HOUR), 1e-9);
+
+        // A late alert still lands in the windows that cover its timestamp
+        statistics.record(START.plusMinutes(8), 5, "Harbor");
+        assertEquals(0, statistics.count(AlertStatistics.Window.ONE_MINUTE));
+        assertEquals(1, statistics.count(AlertStatistics.Window.FIVE_MINUTES));
+
+        clock.now = START.plusHours(2);
+        assertEquals(0, statistics.count(AlertStatistics.Window.ONE_HOUR));
+        assertEquals(0, statistics.countByLocation("Downtown", AlertStatistics.Window.ONE_HOUR));
+    }
+
+    @Test
+    void testMatchesBruteForceCounts() {
+        Random random = new Random(11);
+        LocalDateTime[] times = new LocalDateTime[20_000];
+        for (int i = 0; i < times.length; i++) {
+            clock.now = clock.now.plusNanos(random.nextInt(1_000_000_000));
+            times[i] = clock.now;
+            statistics.record(clock.now, 1 + random.nextInt(10), "Zone " + random.nextInt(5));
+
+            if (i % 997 == 0) {
+                for (AlertStatistics.Window window : AlertStatistics.Window.values()) {
+                    long nowSecond = clock.now.toEpochSecond(ZoneOffset.UTC);
+                    long expected = 0;
+                    for (int j = 0; j <= i; j++) {
+                        long at = times[j].toEpochSecond(ZoneOffset.UTC);
+                        boolean inside = window == AlertStatistics.Window.ONE_HOUR
+                            ? nowSecond / 60 - at / 60 < 60 : nowSecond - at < window.seconds;
+                        if (inside) {
+                            expected++;
+                        }
+                    }
+                    assertEquals(expected, statistics.count(window), window + " at " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testLocationsAreBounded() {
+        AlertStatistics bounded = new AlertStatistics(clock, 3);
+        for (int i = 0; i < 5; i++) {
+            bounded.record(clock.now, 5, "Zone " + i);
+        }
+        assertEquals(1, bounded.countByLocation("Zone 2", AlertStatistics.Window.ONE_MINUTE));
+        assertEquals(0, bounded.countByLocation("Zone 3", AlertStatistics.Window.ONE_MINUTE));
+        assertEquals(2, bounded.countByLocation(AlertStatistics.OTHER_LOCATION, AlertStatistics.Window.ONE_MINUTE));
+    }
+}
@@ -0,0 +1,107 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+    @Test
+    void testEventsFromAllQueuesInOrder() {
+        ChangeFeed feed = new ChangeFeed();
+        EmergencyPriorityQueue alerts = new EmergencyPriorityQueue(new IndexedAlertStore());
+        TaskPriorityQueue tasks = new TaskPriorityQueue();
+        ResponseTeamQueue teams = new ResponseTeamQueue();
+        alerts.addListener(feed);
+        tasks.addListener(feed);
+        teams.addListener(feed);
+        ChangeFeed.Subscription all = feed.subscribe(16);
+        ChangeFeed.Subscription updates = feed.subscribe(16, EnumSet.of(ChangeFeed.Kind.UPDATED));
+
+        alerts.addAlert(new EmergencyAlert(1, "Flood", 8, "River Road"));
+        alerts.updateStatus(1, "Acknowledged");
+        ResponseTeam team = new ResponseTeam(teams.getNextTeamId(), "Alpha", "Evacuation");
+        teams.addTeam(team);
+        team.setStatus(TeamStatus.DEPLOYED);
+        tasks.addTask(new Task(tasks.getNextTaskId(), "Sandbags", 5, LocalDateTime.now()));
+        alerts.getNextAlert();
+
+        ChangeFeed.Kind[] kinds = {ChangeFeed.Kind.ADDED, ChangeFeed.Kind.UPDATED, ChangeFeed.Kind.ADDED,
+            ChangeFeed.Kind.UPDATED, ChangeFeed.Kind.ADDED, ChangeFeed.Kind.POLLED};
+        ChangeFeed.Source[] sources = {ChangeFeed.Source.ALERT, ChangeFeed.Source.ALERT, ChangeFeed.Source.TEAM,
+            ChangeFeed.Source.TEAM, ChangeFeed.Source.TASK, ChangeFeed.Source.ALERT};
+        for (int i = 0; i < kinds.length; i++) {
+            ChangeFeed.ChangeEvent event = all.poll();
+            assertEquals(i + 1, event.getSequence());
+            assertEquals(kinds[i], event.getKind());
+            assertEquals(sources[i], event.getSource());
+        }
+        assertNull(all.poll());
+        assertEquals(AlertStatus.ACKNOWLEDGED, updates.poll().alert().getAlertStatus());
+        assertSame(team, updates.poll().team());
+        assertNull(updates.poll());
+    }
+
+    @Test
+    void testFullRingOverflowsInsteadOfBlocking() {
+        ChangeFeed feed = new ChangeFeed(0);
+        ChangeFeed.Subscription slow = feed.subscribe(4);
+        ChangeFeed.Subscription fast = feed.subscribe(64);
+        for (int id = 1; id <= 10; id++) {
+            feed.alertAdded(new EmergencyAlert(id, "Alert", 5, "Location"));
+        }
+
+        assertTrue(slow.isOverflowed());
+        assertEquals(6, slow.droppedCount());
+        assertEquals(4, slow.size());
+        assertFalse(fast.isOverflowed());
+        assertEquals(10, fast.size());
+
+        slow.reset();
+        assertFalse(slow.isOverflowed());
+        feed.alertAdded(new EmergencyAlert(11, "Alert", 5, "Location"));
+        assertEquals(11, slow.poll().getSequence());
+    }
+
+    @Test
+    void testConcurrentProducersLoseNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        ChangeFeed feed = new ChangeFeed(TimeUnit.SECONDS.toNanos(5));
+        ChangeFeed.Subscription subscription = feed.subscribe(1024);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    feed.taskAdded(new Task(base + i, "Task", 1, null));
+                }
+            });
+            threads[p].start();
+        }
+
+        // Each producer's events must arrive in the order it sent them
+        int[] lastSeen = new int[producers];
+        Arrays.fill(lastSeen, -1);
+        int received = 0;
+        while (received < producers * perProducer) {
+            ChangeFeed.ChangeEvent event = subscription.poll();
+            if (event == null) {
+                subscription.await(10, TimeUnit.MILLISECONDS);
+                continue;
+            }
+            int id = event.task().getTaskId();
+            int producer = id / perProducer;
+            assertTrue(id > lastSeen[producer]);
+            lastSeen[producer] = id;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(subscription.isOverflowed());
+        assertNull(subscription.poll());
+    }
+}
@@ -0,0 +1,249 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarArchiveTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 8, 0);
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("crisisconnect-archive");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static List<EmergencyAlert> alerts(int count, long seed) {
+        Random random = new Random(seed);
+        String[] locations = {"Downtown", "Harbor", "Airport", null};
+        List<EmergencyAlert> alerts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime time = START.plusSeconds(i * 7L).plusNanos(random.nextInt(1_000_000_000));
+            EmergencyAlert alert = new EmergencyAlert(i + 1, "Report " + random.nextInt(50),
+                1 + random.nextInt(10), time, locations[random.nextInt(locations.length)], "Pending");
+            if (random.nextBoolean()) {
+                alert.setCoordinates(40 + random.nextDouble(), -74 + random.nextDouble());
+            }
+            alerts.add(alert);
+        }
+        return alerts;
+    }
+
+    private static List<EmergencyAlert> expected(List<EmergencyAlert> alerts, LocalDateTime from,
+                                                 LocalDateTime to, int minSeverity, int maxSeverity) {
+        List<EmergencyAlert> matches = new ArrayList<>();
+        for (EmergencyAlert alert : alerts) {
+            if (!alert.getTimestamp().isBefore(from) && !alert.getTimestamp().isAfter(to)
+                && alert.getSeverity() >= minSeverity && alert.getSeverity() <= maxSeverity) {
+                matches.add(alert);
+            }
+        }
+        return matches;
+    }
+
+    private static void assertSameAlerts(List<EmergencyAlert> expected, List<EmergencyAlert> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            EmergencyAlert e = expected.get(i);
+            EmergencyAlert a = actual.get(i);
+            assertEquals(e.getAlertId(), a.getAlertId());
+            assertEquals(e.getTimestamp(), a.getTimestamp());
+            assertEquals(e.getSeverity(), a.getSeverity());
+            assertEquals(e.getDescription(), a.getDescription());
+            assertEquals(e.getLocation(), a.getLocation());
+            assertEquals(e.getStatus(), a.getStatus());
+            assertEquals(e.getLatitude(), a.getLatitude());
+            assertEquals(e.getLongitude(), a.getLongitude());
+        }
+    }
+
+    @Test
+    void testScanMatchesBruteForceAcrossSegmentsAndOpenRows() throws IOException {
+        List<EmergencyAlert> alerts = alerts(3 * ColumnarArchive.SEGMENT_ROWS + 100, 1);
+        ColumnarArchive<EmergencyAlert> archive =
+            new ColumnarArchive<>(dir.resolve("alerts.archive"), new AlertArchiveCodec());
+        alerts.forEach(archive::append);
+        assertEquals(3, archive.segmentCount());
+        assertEquals(alerts.size(), archive.size());
+
+        Random random = new Random(2);
+        for (int q = 0; q < 50; q++) {
+            LocalDateTime from = START.plusSeconds(random.nextInt(alerts.size() * 7)).plusNanos(random.nextInt(1_000_000_000));
+            LocalDateTime to = from.plusSeconds(random.nextInt(20_000));
+            int minSeverity = 1 + random.nextInt(10);
+            int maxSeverity = minSeverity + random.nextInt(11 - minSeverity);
+
+            List<EmergencyAlert> found = new ArrayList<>();
+            int scanned = archive.scan(from, to, minSeverity, maxSeverity, found::add);
+            List<EmergencyAlert> expected = expected(alerts, from, to, minSeverity, maxSeverity);
+            assertSameAlerts(expected, found);
+            assertEquals(expected.size(), scanned);
+            assertEquals(expected.size(), archive.count(from, to, minSeverity, maxSeverity));
+        }
+        archive.close();
+    }
+
+    @Test
+    void testReopenKeepsRowsAndDropsTornSegment() throws IOException {
+        Path file = dir.resolve("alerts.archive");
+        List<EmergencyAlert> alerts = alerts(ColumnarArchive.SEGMENT_ROWS + 10, 3);
+        ColumnarArchive<EmergencyAlert> archive = new ColumnarArchive<>(file, new AlertArchiveCodec());
+        alerts.forEach(archive::append);
+        archive.close();
+
+        long complete;
+        archive = new ColumnarArchive<>(file, new AlertArchiveCodec());
+        assertEquals(alerts.size(), archive.size());
+        assertEquals(2, archive.segmentCount());
+        List<EmergencyAlert> found = new ArrayList<>();
+        archive.scan(START, START.plusYears(1), 1, 10, found::add);
+        assertSameAlerts(alerts, found);
+        complete = archive.fileBytes();
+        archive.close();
+
+        // A crash while writing the last segment leaves part of it behind
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(complete - 5);
+        }
+        archive = new ColumnarArchive<>(file, new AlertArchiveCodec());
+        assertEquals(ColumnarArchive.SEGMENT_ROWS, archive.size());
+        found.clear();
+        archive.scan(START, START.plusYears(1), 1, 10, found::add);
+        assertSameAlerts(alerts.subList(0, ColumnarArchive.SEGMENT_ROWS), found);
+
+        archive.append(alerts.get(alerts.size() - 1));
+        archive.close();
+        archive = new ColumnarArchive<>(file, new AlertArchiveCodec());
+        assertEquals(ColumnarArchive.SEGMENT_ROWS + 1, archive.size());
+        archive.close();
+    }
+
+    @Test
+    void testFailedSegmentWriteIsRetried() throws IOException {
+        Path file = dir.resolve("alerts.archive");
+        boolean[] failNext = {true};
+        ColumnarArchive<EmergencyAlert> archive = new ColumnarArchive<>(file, new AlertArchiveCodec() {
+            // Fails the writer's first segment encoding; appends are not affected
+            @Override
+            public int stringColumns() {
+                if (failNext[0] && Thread.currentThread().getName().equals("archive-writer")) {
+                    failNext[0] = false;
+                    throw new IllegalStateException("encoding failed");
+                }
+                return super.stringColumns();
+            }
+        });
+        List<EmergencyAlert> alerts = alerts(ColumnarArchive.SEGMENT_ROWS + 5, 4);
+        alerts.forEach(archive::append);
+
+        // The failed segment stays sealed and scannable until a retry writes it
+        List<EmergencyAlert> found = new ArrayList<>();
+        archive.scan(START, START.plusYears(1), 1, 10, found::add);
+        assertSameAlerts(alerts, found);
+        archive.flush();
+        assertEquals(2, archive.segmentCount());
+        archive.close();
+
+        archive = new ColumnarArchive<>(file, new AlertArchiveCodec());
+        assertEquals(alerts.size(), archive.size());
+        found.clear();
+        archive.scan(START, START.plusYears(1), 1, 10, found::add);
+        assertSameAlerts(alerts, found);
+        archive.close();
+    }
+
+    @Test
+    void testTasksWithoutDeadlineAreStoredButNeverMatch() throws IOException {
+        ColumnarArchive<Task> archive = new ColumnarArchive<>(dir.resolve("tasks.archive"), new TaskArchiveCodec());
+        Task done = new Task(1, "Clear debris", 6, START.plusHours(2));
+        done.setRequiredSpecialization("Logistics");
+        archive.append(done);
+        archive.append(new Task(2, "Restock shelter", 4, null));
+        archive.flush();
+
+        assertEquals(2, archive.size());
+        List<Task> found = new ArrayList<>();
+        archive.scan(START, START.plusDays(1), 1, 10, found::add);
+        assertEquals(1, found.size());
+        assertEquals("Clear debris", found.get(0).getName());
+        assertEquals(START.plusHours(2), found.get(0).getDeadline());
+        assertEquals("Logistics", found.get(0).getRequiredSpecialization());
+        archive.close();
+    }
+
+    @Test
+    void testColdStorageArchivesResolvedAndCancelledAlerts() throws IOException {
+        ColdStorage coldStorage = ColdStorage.open(dir);
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+        queue.addListener(coldStorage);
+        EmergencyAlert polled = new EmergencyAlert(1, "Fire", 9, "Harbor");
+        EmergencyAlert resolved = new EmergencyAlert(2, "Flood", 5, "Downtown");
+        EmergencyAlert cancelled = new EmergencyAlert(3, "False alarm", 2, "Airport");
+        EmergencyAlert queued = new EmergencyAlert(4, "Smoke", 3, "Airport");
+        queue.addAlert(polled);
+        queue.addAlert(resolved);
+        queue.addAlert(cancelled);
+        queue.addAlert(queued);
+
+        assertSame(polled, queue.getNextAlert());
+        assertSame(resolved, queue.resolve(2));
+        assertEquals("Resolved", resolved.getStatus());
+        queue.cancel(3);
+        assertNull(queue.resolve(2));
+
+        List<EmergencyAlert> archived = new ArrayList<>();
+        coldStorage.alerts().scan(LocalDateTime.now().minusHours(1), LocalDateTime.now().plusHours(1), 1, 10,
+            archived::add);
+        assertEquals(2, archived.size());
+        assertEquals(2, archived.get(0).getAlertId());
+        assertEquals("Resolved", archived.get(0).getStatus());
+        assertEquals(3, archived.get(1).getAlertId());
+        assertEquals("Cancelled", archived.get(1).getStatus());
+        assertEquals(1, queue.size());
+        coldStorage.close();
+    }
+
+    @Test
+    void testAppendCapturesValuesAtCallTime() throws IOException {
+        ColumnarArchive<EmergencyAlert> archive =
+            new ColumnarArchive<>(dir.resolve("alerts.archive"), new AlertArchiveCodec());
+        EmergencyAlert alert = new EmergencyAlert(1, "Fire", 4, START, "Harbor", "Pending");
+        archive.append(alert);
+        alert.setSeverity(9);
+        alert.setReportCount(5);
+        alert.setStatus(AlertStatus.RESOLVED);
+
+        List<EmergencyAlert> buffered = new ArrayList<>();
+        archive.scan(START, START, 1, 10, buffered::add);
+        archive.flush();
+        List<EmergencyAlert> written = new ArrayList<>();
+        archive.scan(START, START, 1, 10, written::add);
+        for (List<EmergencyAlert> found : List.of(buffered, written)) {
+            assertEquals(1, found.size());
+            assertNotSame(alert, found.get(0));
+            assertEquals(4, found.get(0).getSeverity());
+            assertEquals(1, found.get(0).getReportCount());
+            assertEquals("Pending", found.get(0).getStatus());
+        }
+        archive.close();
+    }
+}
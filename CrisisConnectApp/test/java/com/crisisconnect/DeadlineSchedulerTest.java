@@ -0,0 +1,157 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineSchedulerTest {
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void testStrictPriorityIgnoresDeadline() {
+        TaskPriorityQueue queue = new TaskPriorityQueue(new DeadlineScheduler(SchedulingPolicy.STRICT_PRIORITY, clock));
+        Task soon = new Task(1, "Soon", 9, now().plusMinutes(5));
+        Task later = new Task(2, "Later", 10, now().plusDays(1));
+        queue.addTask(soon);
+        queue.addTask(later);
+
+        assertEquals(later, queue.getNextTask());
+        assertEquals(soon, queue.getNextTask());
+    }
+
+    @Test
+    void testEarliestDeadlineFirst() {
+        TaskPriorityQueue queue = new TaskPriorityQueue(new DeadlineScheduler(SchedulingPolicy.EARLIEST_DEADLINE_FIRST, clock));
+        Task later = new Task(1, "Later", 10, now().plusDays(1));
+        Task soon = new Task(2, "Soon", 2, now().plusMinutes(5));
+        queue.addTask(later);
+        queue.addTask(soon);
+
+        assertEquals(soon, queue.getNextTask());
+        assertEquals(later, queue.getNextTask());
+    }
+
+    @Test
+    void testAgingPromotesTaskAsDeadlineApproaches() {
+        TaskPriorityQueue queue = new TaskPriorityQueue(new DeadlineScheduler(SchedulingPolicy.DEADLINE_AGING, clock));
+        Task dueInTwoHours = new Task(1, "Due in two hours", 9, now().plusHours(2));
+        Task tomorrow = new Task(2, "Tomorrow", 10, now().plusDays(1));
+        queue.addTask(dueInTwoHours);
+        queue.addTask(tomorrow);
+
+        // 9 + 1 (within four hours) ties with 10, earlier deadline wins
+        assertEquals(dueInTwoHours, queue.snapshot().top(1).get(0));
+
+        Task urgent = new Task(3, "Urgent", 10, now().plusHours(12));
+        queue.addTask(urgent);
+        assertEquals(dueInTwoHours, queue.snapshot().top(1).get(0));
+
+        clock.advance(Duration.ofMinutes(110)); // ten minutes left: 9 + 3
+        assertEquals(dueInTwoHours, queue.getNextTask());
+        assertEquals(urgent, queue.getNextTask());
+        assertEquals(tomorrow, queue.getNextTask());
+    }
+
+    @Test
+    void testAgingReordersWithoutNewWrites() {
+        DeadlineScheduler scheduler = new DeadlineScheduler(SchedulingPolicy.DEADLINE_AGING, clock);
+        Task low = new Task(1, "Low", 5, now().plusHours(5));
+        Task high = new Task(2, "High", 8, now().plusDays(2));
+        scheduler.offer(low);
+        scheduler.offer(high);
+        assertEquals(high, scheduler.peek());
+
+        clock.advance(Duration.ofMinutes(5 * 60 + 1)); // overdue: 5 + 4
+        assertEquals(9, scheduler.effectivePriority(low));
+        assertEquals(low, scheduler.peek());
+    }
+
+    @Test
+    void testSnapshotSurvivesLaterWrites() {
+        DeadlineScheduler scheduler = new DeadlineScheduler(SchedulingPolicy.DEADLINE_AGING, clock);
+        Task low = new Task(1, "Low", 5, now().plusHours(5));
+        Task high = new Task(2, "High", 8, now().plusDays(2));
+        scheduler.offer(low);
+        scheduler.offer(high);
+        QueueSnapshot<Task> snapshot = scheduler.snapshot();
+        Iterator<Task> it = snapshot.iterator();
+        assertEquals(high, it.next());
+
+        scheduler.offer(new Task(3, "New", 10, now().plusDays(1)));
+        clock.advance(Duration.ofMinutes(5 * 60 + 1));
+        assertEquals(3, scheduler.poll().getTaskId());
+        assertEquals(low, scheduler.peek());
+        assertEquals(low, it.next());
+        assertFalse(it.hasNext());
+        assertEquals(List.of(high, low), snapshot.top(5));
+    }
+
+    @Test
+    void testSnapshotsKeepTheirOrderAcrossManyWrites() {
+        DeadlineScheduler scheduler = new DeadlineScheduler(SchedulingPolicy.STRICT_PRIORITY, clock);
+        Random random = new Random(7);
+        List<QueueSnapshot<Task>> snapshots = new ArrayList<>();
+        List<List<Task>> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (random.nextInt(3) == 0 && !scheduler.isEmpty()) {
+                scheduler.poll();
+            } else {
+                scheduler.offer(new Task(i, "T" + i, 1 + random.nextInt(10), now().plusHours(1 + random.nextInt(48))));
+            }
+            if (i % 100 == 0) {
+                QueueSnapshot<Task> snapshot = scheduler.snapshot();
+                List<Task> order = new ArrayList<>();
+                snapshot.forEach(order::add);
+                assertEquals(scheduler.size(), order.size());
+                snapshots.add(snapshot);
+                expected.add(order);
+            }
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            List<Task> order = new ArrayList<>();
+            snapshots.get(i).forEach(order::add);
+            assertEquals(expected.get(i), order);
+        }
+        Task previous = null;
+        while (!scheduler.isEmpty()) {
+            Task task = scheduler.poll();
+            if (previous != null) {
+                assertTrue(previous.getPriority() >= task.getPriority());
+            }
+            previous = task;
+        }
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
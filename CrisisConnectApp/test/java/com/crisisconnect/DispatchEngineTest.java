@@ -0,0 +1,185 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DispatchEngineTest {
+    private final TaskPriorityQueue tasks = new TaskPriorityQueue();
+    private final ResponseTeamQueue teams = new ResponseTeamQueue();
+
+    private Task addTask(String name, int priority, String specialization) {
+        Task task = new Task(tasks.getNextTaskId(), name, priority, LocalDateTime.now().plusHours(1));
+        task.setRequiredSpecialization(specialization);
+        tasks.addTask(task);
+        return task;
+    }
+
+    private ResponseTeam addTeam(String name, String specialization) {
+        ResponseTeam team = new ResponseTeam(teams.getNextTeamId(), name, specialization);
+        teams.addTeam(team);
+        return team;
+    }
+
+    @Test
+    void testMatchesBySpecialization() {
+        ResponseTeam medics = addTeam("Medics", "Medical Emergency");
+        ResponseTeam firefighters = addTeam("Firefighters", "Fire Response");
+        Task fire = addTask("Contain fire", 9, "Fire Response");
+        Task triage = addTask("Triage", 5, "Medical Emergency");
+        DispatchEngine engine = new DispatchEngine(tasks, teams);
+
+        List<DispatchEngine.Assignment> round = engine.dispatchRound(10);
+        assertEquals(2, round.size());
+        assertSame(firefighters, engine.teamFor(fire));
+        assertSame(medics, engine.teamFor(triage));
+        assertEquals(TaskStatus.ASSIGNED, fire.getTaskStatus());
+        assertEquals("Firefighters", fire.getAssignedTeam());
+        assertEquals(TeamStatus.DEPLOYED, firefighters.getTeamStatus());
+        assertEquals(0, engine.availableCount());
+    }
+
+    @Test
+    void testTeamBackOnDutyIsListedAgain() {
+        ResponseTeam medics = addTeam("Medics", "Medical Emergency");
+        DispatchEngine engine = new DispatchEngine(tasks, teams);
+        medics.setStatus(TeamStatus.OFF_DUTY);
+        assertEquals(0, engine.availableCount());
+        Task triage = addTask("Triage", 5, "Medical Emergency");
+        assertEquals(0, engine.dispatchRound(10).size());
+
+        medics.setStatus(TeamStatus.AVAILABLE);
+        assertEquals(1, engine.availableCount());
+        assertEquals(1, engine.dispatchRound(10).size());
+        assertSame(medics, engine.teamFor(triage));
+        assertEquals(0, engine.availableCount());
+    }
+
+    @Test
+    void testRestoreMatchesTeamsById() {
+        // Same team and task names; only the ids tell the pairs apart
+        ResponseTeam first = new ResponseTeam(1, "Alpha", "Fire Response", "Deployed", "Contain fire");
+        ResponseTeam second = new ResponseTeam(2, "Alpha", "Fire Response", "Deployed", "Contain fire");
+        teams.addTeam(first);
+        teams.addTeam(second);
+        Task one = new Task(10, "Contain fire", 5, null, "Assigned", "Alpha");
+        one.setAssignedTeamId(2);
+        Task two = new Task(11, "Contain fire", 5, null, "In Progress", "Alpha");
+        two.setAssignedTeamId(1);
+        DispatchEngine engine = new DispatchEngine(tasks, teams);
+
+        engine.restore(List.of(one, two));
+        assertSame(second, engine.teamFor(one));
+        assertSame(first, engine.teamFor(two));
+        assertEquals(0, engine.waitingCount());
+        assertEquals(0, engine.availableCount());
+    }
+
+    @Test
+    void testParkedTaskServedOnRelease() {
+        ResponseTeam hazmat = addTeam("Hazmat", "Hazmat Response");
+        Task spill = addTask("Chemical spill", 9, "Hazmat Response");
+        Task leak = addTask("Gas leak", 7, "Hazmat Response");
+        Task supplies = addTask("Deliver supplies", 8, "Logistics");
+        DispatchEngine engine = new DispatchEngine(tasks, teams);
+
+        assertEquals(1, engine.dispatchRound(10).size());
+        assertSame(hazmat, engine.teamFor(spill));
+        // The round stops once no team is free
+        assertEquals(2, tasks.size());
+
+        DispatchEngine.Assignment next = engine.complete(spill);
+        assertEquals(TaskStatus.COMPLETED, spill.getTaskStatus());
+        assertNull(next);
+        assertEquals(1, engine.dispatchRound(10).size());
+        assertSame(hazmat, engine.teamFor(leak));
+        // No Logistics team yet, so that task was parked instead
+        assertEquals(1, engine.waitingCount());
+        assertTrue(tasks.isEmpty());
+
+        ResponseTeam trucks = addTeam("Trucks", "Logistics");
+        assertEquals(1, engine.dispatchRound(10).size());
+        assertSame(trucks, engine.teamFor(supplies));
+        assertEquals(0, engine.waitingCount());
+    }
+
+    @Test
+    void testStatusChangeFinishesHeldTask() {
+        ResponseTeam hazmat = addTeam("Hazmat", "Hazmat Response");
+        addTeam("Medics", "Medical Emergency");
+        Task spill = addTask("Chemical spill", 9, "Hazmat Response");
+        Task leak = addTask("Gas leak", 8, "Hazmat Response");
+        Task supplies = addTask("Deliver supplies", 7, "Logistics");
+        DispatchEngine engine = new DispatchEngine(tasks, teams);
+        List<Task> completed = new ArrayList<>();
+        engine.onCompleted(completed::add);
+        engine.dispatchRound(10);
+        assertEquals(2, engine.waitingCount());
+
+        // Completing from outside the engine frees the team for the parked task
+        spill.setStatus(TaskStatus.IN_PROGRESS);
+        spill.setStatus(TaskStatus.COMPLETED);
+        assertEquals(List.of(spill), completed);
+        assertSame(hazmat, engine.teamFor(leak));
+        assertNull(engine.heldTask(spill.getTaskId()));
+
+        supplies.setStatus(TaskStatus.CANCELLED);
+        assertEquals(0, engine.waitingCount());
+        assertNull(engine.heldTask(supplies.getTaskId()));
+
+        assertTrue(engine.complete(leak.getTaskId()));
+        assertFalse(engine.complete(leak.getTaskId()));
+        assertEquals(TeamStatus.AVAILABLE, hazmat.getTeamStatus());
+        assertEquals(2, engine.availableCount());
+        assertEquals(2, completed.size());
+    }
+
+    @Test
+    void testAnyTaskUsesLongestIdleTeam() {
+        ResponseTeam first = addTeam("Alpha", "Evacuation");
+        addTeam("Beta", "Logistics");
+        Task task = addTask("Assess damage", 6, null);
+        DispatchEngine engine = new DispatchEngine(tasks, teams);
+
+        engine.dispatchRound(1);
+        assertSame(first, engine.teamFor(task));
+
+        // A team added later joins the pool
+        ResponseTeam gamma = addTeam("Gamma", "Evacuation");
+        Task evacuate = addTask("Evacuate block", 8, "Evacuation");
+        engine.dispatchRound(1);
+        assertSame(gamma, engine.teamFor(evacuate));
+    }
+
+    @Test
+    void testLocatedTaskUsesNearestTeam() {
+        ResponseTeam far = addTeam("Far", "Fire Response");
+        far.setCoordinates(48.90, 2.50);
+        ResponseTeam near = addTeam("Near", "Fire Response");
+        near.setCoordinates(48.86, 2.35);
+        ResponseTeam medics = addTeam("Medics", "Medical Emergency");
+        medics.setCoordinates(48.857, 2.352);
+        DispatchEngine engine = new DispatchEngine(tasks, teams);
+
+        Task fire = addTask("Contain fire", 9, "Fire Response");
+        fire.setCoordinates(48.8566, 2.3522);
+        engine.dispatchRound(1);
+        assertSame(near, engine.teamFor(fire));
+
+        // Moving a team re-indexes it
+        engine.moveTeam(far, 48.856, 2.353);
+        Task second = addTask("Second fire", 8, "Fire Response");
+        second.setCoordinates(48.8566, 2.3522);
+        ResponseTeam unlocated = addTeam("Unlocated", "Fire Response");
+        engine.dispatchRound(1);
+        assertSame(far, engine.teamFor(second));
+
+        // No located team left: falls back to the longest-idle one
+        Task third = addTask("Third fire", 7, "Fire Response");
+        third.setCoordinates(48.8566, 2.3522);
+        engine.dispatchRound(1);
+        assertSame(unlocated, engine.teamFor(third));
+    }
+}
@@ -0,0 +1,227 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableQueuesTest {
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("crisisconnect-wal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void testRecoversFromLogOnly() throws IOException {
+        Queues before = new Queues();
+        DurableQueues durable = before.open(1000);
+        before.alerts.addAlert(new EmergencyAlert(before.alerts.getNextAlertId(), "Flood", 9, "Downtown"));
+        before.alerts.addAlert(new EmergencyAlert(before.alerts.getNextAlertId(), "Fire", 6, "North"));
+        before.alerts.getNextAlert();
+        before.alerts.updateStatus(2, "Acknowledged");
+        before.tasks.addTask(new Task(before.tasks.getNextTaskId(), "Evacuate", 8, LocalDateTime.now().plusHours(1)));
+        before.teams.addTeam(new ResponseTeam(before.teams.getNextTeamId(), "Alpha", "Search and Rescue"));
+        durable.close();
+
+        Queues after = new Queues();
+        DurableQueues reopened = after.open(1000);
+        assertTrue(reopened.hasRecoveredData());
+        assertEquals(1, after.alerts.size());
+        assertEquals("Acknowledged", after.alerts.getAlert(2).getStatus());
+        assertEquals("Evacuate", after.tasks.getNextTask().getName());
+        assertEquals("Alpha", after.teams.getNextTeam().getName());
+        assertEquals(3, after.alerts.getNextAlertId());
+        reopened.close();
+    }
+
+    @Test
+    void testRecoversFromSnapshotPlusTail() throws IOException {
+        Queues before = new Queues();
+        DurableQueues durable = before.open(10);
+        for (int i = 0; i < 95; i++) {
+            before.alerts.addAlert(new EmergencyAlert(before.alerts.getNextAlertId(), "Alert", 1 + i % 10, "Zone"));
+        }
+        for (int i = 0; i < 20; i++) {
+            before.alerts.getNextAlert();
+        }
+        durable.close();
+
+        Queues after = new Queues();
+        after.open(10).close();
+        assertEquals(75, after.alerts.size());
+        List<EmergencyAlert> expected = before.alerts.snapshot().top(75);
+        assertEquals(ids(expected), ids(after.alerts.snapshot().top(75)));
+        assertTrue(segmentCount() < 12, "old log segments are deleted after a checkpoint");
+    }
+
+    @Test
+    void testIgnoresTornTail() throws IOException {
+        Queues before = new Queues();
+        DurableQueues durable = before.open(1000);
+        before.alerts.addAlert(new EmergencyAlert(before.alerts.getNextAlertId(), "Flood", 9, "Downtown"));
+        durable.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            Path segment = files.filter(p -> p.getFileName().toString().startsWith("wal-")).findFirst().get();
+            Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+
+        Queues after = new Queues();
+        after.open(1000).close();
+        assertEquals(1, after.alerts.size());
+    }
+
+    @Test
+    void testHeldTasksSurviveRestart() throws IOException {
+        Queues before = new Queues();
+        DurableQueues durable = before.open(1000);
+        DispatchEngine engine = new DispatchEngine(before.tasks, before.teams);
+        durable.attach(engine);
+        before.teams.addTeam(new ResponseTeam(before.teams.getNextTeamId(), "Alpha", "Fire Response"));
+        before.teams.addTeam(new ResponseTeam(before.teams.getNextTeamId(), "Bravo", "Medical Emergency"));
+        for (String name : new String[] {"Contain fire", "Second fire", "Third fire"}) {
+            Task task = new Task(before.tasks.getNextTaskId(), name, 5, LocalDateTime.now().plusHours(1));
+            task.setRequiredSpecialization("Fire Response");
+            before.tasks.addTask(task);
+        }
+        engine.dispatchRound(10);
+        engine.heldTask(3).setStatus(TaskStatus.CANCELLED);
+        durable.close();
+
+        Queues after = new Queues();
+        DurableQueues reopened = after.open(1000);
+        DispatchEngine restored = new DispatchEngine(after.tasks, after.teams);
+        reopened.attach(restored);
+        assertTrue(after.tasks.isEmpty());
+        assertEquals(1, restored.waitingCount());
+        assertNull(restored.heldTask(3));
+        Task assigned = restored.heldTask(1);
+        assertEquals(TaskStatus.ASSIGNED, assigned.getTaskStatus());
+        assertEquals("Alpha", restored.teamFor(assigned).getName());
+
+        // Completing hands the team to the parked task, and that is journaled too
+        assertTrue(restored.complete(1));
+        assertEquals(TaskStatus.ASSIGNED, restored.heldTask(2).getTaskStatus());
+        reopened.close();
+
+        Queues last = new Queues();
+        DurableQueues third = last.open(1000);
+        DispatchEngine engineAgain = new DispatchEngine(last.tasks, last.teams);
+        third.attach(engineAgain);
+        assertNull(engineAgain.heldTask(1));
+        assertEquals("Alpha", engineAgain.teamFor(engineAgain.heldTask(2)).getName());
+        assertEquals(0, engineAgain.waitingCount());
+        third.close();
+    }
+
+    @Test
+    void testReplayOverNewerSnapshotEndsAtLastRecord() throws IOException {
+        // The background snapshot already saw Dispatched; the log tail after
+        // the rotation still holds the step through Acknowledged
+        DurableQueues.RecoveredState state = new DurableQueues.RecoveredState();
+        EmergencyAlert alert = new EmergencyAlert(1, "Flood", 5, "Location");
+        alert.setStatus(AlertStatus.DISPATCHED);
+        state.alerts.put(1, alert);
+        Task task = new Task(2, "Evacuate", 5, null, "In Progress", "Alpha");
+        state.tasks.put(2, task);
+
+        for (String status : new String[] {"Acknowledged", "Dispatched"}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(1);
+            out.writeInt(7);
+            DurableQueues.writeString(out, status);
+            out.writeInt(2);
+            DurableQueues.apply(state, DurableQueues.UPDATE_ALERT,
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        }
+        for (String status : new String[] {"Assigned", "In Progress"}) {
+            Task update = new Task(2, "Evacuate", 5, null, status, "Alpha");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DurableQueues.writeTaskUpdate(new DataOutputStream(bytes), update);
+            DurableQueues.apply(state, DurableQueues.UPDATE_TASK,
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        }
+
+        assertEquals(AlertStatus.DISPATCHED, alert.getAlertStatus());
+        assertEquals(7, alert.getSeverity());
+        assertEquals(2, alert.getReportCount());
+        assertEquals(TaskStatus.IN_PROGRESS, task.getTaskStatus());
+    }
+
+    @Test
+    void testAdoptSupersedesOldJournal() throws IOException {
+        Queues stale = new Queues();
+        DurableQueues old = stale.open(5);
+        for (int i = 0; i < 12; i++) {
+            stale.alerts.addAlert(new EmergencyAlert(stale.alerts.getNextAlertId(), "Stale", 3, "Location"));
+        }
+        old.close();
+
+        // A promoted standby's queues, with one task still held by the old leader's engine
+        Queues promoted = new Queues();
+        promoted.alerts.addAlert(new EmergencyAlert(40, "Replicated", 7, "Location"));
+        promoted.teams.addTeam(new ResponseTeam(1, "Alpha", "Fire Response", "Deployed", "Contain fire"));
+        Task held = new Task(2, "Contain fire", 5, null, "Assigned", "Alpha");
+        promoted.tasks.reserveIdsThrough(2);
+        DurableQueues adopted = DurableQueues.adopt(dir, promoted.alerts, promoted.tasks, promoted.teams,
+            List.of(held), FsyncPolicy.PER_BATCH);
+        promoted.alerts.addAlert(new EmergencyAlert(promoted.alerts.getNextAlertId(), "After promotion", 9, "Location"));
+        adopted.close();
+
+        Queues after = new Queues();
+        DurableQueues reopened = after.open(1000);
+        DispatchEngine engine = new DispatchEngine(after.tasks, after.teams);
+        reopened.attach(engine);
+        assertEquals(2, after.alerts.size());
+        assertEquals("After promotion", after.alerts.getNextAlert().getDescription());
+        assertEquals("Replicated", after.alerts.getNextAlert().getDescription());
+        assertEquals("Contain fire", engine.heldTask(2).getName());
+        assertEquals(3, after.tasks.peekNextTaskId());
+        reopened.close();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("wal-")).count();
+        }
+    }
+
+    private static String ids(List<EmergencyAlert> alerts) {
+        StringBuilder sb = new StringBuilder();
+        for (EmergencyAlert alert : alerts) {
+            sb.append(alert.getAlertId()).append(',');
+        }
+        return sb.toString();
+    }
+
+    private final class Queues {
+        final EmergencyPriorityQueue alerts = new EmergencyPriorityQueue(new IndexedAlertStore());
+        final TaskPriorityQueue tasks = new TaskPriorityQueue();
+        final ResponseTeamQueue teams = new ResponseTeamQueue();
+
+        DurableQueues open(long checkpointRecords) throws IOException {
+            return DurableQueues.open(dir, alerts, tasks, teams, FsyncPolicy.PER_BATCH, checkpointRecords);
+        }
+    }
+}
@@ -1,6 +1,11 @@
-package CrisisConnectApp.test.java.com.crisisconnect;
+package com.crisisconnect;
 
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import static org.junit.jupiter.api.Assertions.*;
 
 class EmergencyPriorityQueueTest {
@@ -12,4 +17,181 @@ class EmergencyPriorityQueueTest {
 
         assertEquals(alert, queue.getNextAlert());
     }
+
+    @Test
+    void testConcurrentProducersAndConsumers() throws InterruptedException {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new ConcurrentStore<>());
+        Set<Integer> polled = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    int id = queue.getNextAlertId();
+                    queue.addAlert(new EmergencyAlert(id, "Alert", 1 + id % 10, "Location"));
+                    EmergencyAlert next = queue.getNextAlert();
+                    if (next != null) {
+                        assertTrue(polled.add(next.getAlertId()));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        EmergencyAlert next;
+        while ((next = queue.getNextAlert()) != null) {
+            assertTrue(polled.add(next.getAlertId()));
+        }
+        assertEquals(8000, polled.size());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testIndexesEmptyAfterConcurrentDrain() throws InterruptedException {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new ConcurrentStore<>());
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            boolean producer = t % 2 == 0;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    if (producer) {
+                        int id = queue.getNextAlertId();
+                        EmergencyAlert alert = new EmergencyAlert(id, "Alert", 1 + id % 10, "Location");
+                        alert.setCoordinates(40 + id % 10 * 0.01, -74);
+                        queue.addAlert(alert);
+                    } else {
+                        queue.getNextAlert();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        while (queue.getNextAlert() != null) {
+            // drain
+        }
+
+        // A poll racing the add must not leave the alert behind in the indexes
+        for (AlertStatus status : AlertStatus.values()) {
+            assertEquals(0, queue.countByStatus(status));
+        }
+        assertTrue(queue.alertsWithin(40, -74, 50, 1).isEmpty());
+    }
+
+    @Test
+    void testBucketedStoreOrdersBySeverityThenArrival() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(
+            new SeverityBucketStore<>(EmergencyAlert::getSeverity));
+        EmergencyAlert first = new EmergencyAlert(1, "First", 7, "Location");
+        EmergencyAlert severe = new EmergencyAlert(2, "Severe", 9, "Location");
+        EmergencyAlert second = new EmergencyAlert(3, "Second", 7, "Location");
+        queue.addAlert(first);
+        queue.addAlert(severe);
+        queue.addAlert(second);
+
+        assertEquals(severe, queue.getNextAlert());
+        assertEquals(first, queue.getNextAlert());
+        assertEquals(second, queue.getNextAlert());
+        assertNull(queue.getNextAlert());
+    }
+
+    @Test
+    void testDefaultHeapServesEqualSeveritiesInArrivalOrder() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue();
+        Random random = new Random(5);
+        List<EmergencyAlert> alerts = new ArrayList<>();
+        for (int id = 1; id <= 3_000; id++) {
+            alerts.add(new EmergencyAlert(id, "Alert", 1 + random.nextInt(3), "Location"));
+        }
+        queue.addAll(alerts.subList(0, 1_000));
+        alerts.subList(1_000, 2_000).forEach(queue::addAlert);
+        queue.addAll(alerts.subList(2_000, 3_000));
+
+        int[] lastId = new int[4];
+        EmergencyAlert alert;
+        int lastSeverity = Integer.MAX_VALUE;
+        while ((alert = queue.getNextAlert()) != null) {
+            assertTrue(alert.getSeverity() <= lastSeverity);
+            assertTrue(alert.getAlertId() > lastId[alert.getSeverity()], "alert " + alert.getAlertId());
+            lastSeverity = alert.getSeverity();
+            lastId[alert.getSeverity()] = alert.getAlertId();
+        }
+    }
+
+    @Test
+    void testBucketedStoreRejectsOutOfRangeSeverity() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(
+            new SeverityBucketStore<>(EmergencyAlert::getSeverity));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> queue.addAlert(new EmergencyAlert(1, "Bad", 11, "Location")));
+    }
+
+    @Test
+    void testBulkAddMatchesOneByOne() {
+        Random random = new Random(11);
+        List<EmergencyAlert> alerts = new ArrayList<>();
+        for (int id = 1; id <= 5_000; id++) {
+            alerts.add(new EmergencyAlert(id, "Alert", 1 + random.nextInt(10), "Location"));
+        }
+        EmergencyPriorityQueue[] queues = {new EmergencyPriorityQueue(), new EmergencyPriorityQueue(new IndexedAlertStore()),
+            new EmergencyPriorityQueue(new SeverityBucketStore<>(EmergencyAlert::getSeverity))};
+        for (EmergencyPriorityQueue queue : queues) {
+            // A small batch into a larger queue, then one big enough to heapify
+            queue.addAll(alerts.subList(0, 4_000));
+            queue.addAll(alerts.subList(4_000, 4_100));
+            queue.addAll(alerts.subList(4_100, 5_000));
+            assertEquals(5_000, queue.size());
+            assertEquals(5_000, queue.countByStatus(AlertStatus.PENDING));
+
+            int last = Integer.MAX_VALUE;
+            List<EmergencyAlert> group = new ArrayList<>();
+            while (queue.drainTo(group, 512) > 0) {
+                assertTrue(group.size() <= 512);
+                for (EmergencyAlert alert : group) {
+                    assertTrue(alert.getSeverity() <= last);
+                    last = alert.getSeverity();
+                }
+                group.clear();
+            }
+            assertTrue(queue.isEmpty());
+            assertEquals(0, queue.countByStatus(AlertStatus.PENDING));
+        }
+    }
+
+    @Test
+    void testBulkAddRejectsDuplicateIdsUpFront() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+        queue.addAlert(new EmergencyAlert(1, "Existing", 5, "Location"));
+        List<EmergencyAlert> batch = List.of(new EmergencyAlert(2, "New", 5, "Location"),
+            new EmergencyAlert(1, "Duplicate", 9, "Location"));
+
+        assertThrows(IllegalArgumentException.class, () -> queue.addAll(batch));
+        assertEquals(1, queue.size());
+        assertNull(queue.getAlert(2));
+    }
+
+    @Test
+    void testProximityQueriesTrackQueuedAlerts() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+        EmergencyAlert minor = new EmergencyAlert(1, "Minor", 2, "Centre");
+        minor.setCoordinates(48.8566, 2.3522);
+        EmergencyAlert major = new EmergencyAlert(2, "Major", 9, "Centre");
+        major.setCoordinates(48.8600, 2.3400);
+        EmergencyAlert distant = new EmergencyAlert(3, "Distant", 9, "Lyon");
+        distant.setCoordinates(45.7640, 4.8357);
+        queue.addAll(List.of(minor, major, distant));
+        queue.addAlert(new EmergencyAlert(4, "Unlocated", 9, "Unknown"));
+
+        assertEquals(List.of(major), queue.alertsWithin(48.8566, 2.3522, 5, 5));
+        assertEquals(List.of(minor, major, distant), queue.nearestAlerts(48.8566, 2.3522, 5));
+
+        queue.getNextAlert();
+        queue.cancel(1);
+        assertEquals(List.of(distant), queue.nearestAlerts(48.8566, 2.3522, 5));
+    }
 }
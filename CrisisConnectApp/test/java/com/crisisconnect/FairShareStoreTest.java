@@ -0,0 +1,137 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairShareStoreTest {
+
+    @Test
+    void testSaturatedLevelsShareByWeight() {
+        FairShareStore<EmergencyAlert> store = new FairShareStore<>(EmergencyAlert::getSeverity);
+        int nextId = 1;
+        for (int i = 0; i < 2_000; i++) {
+            store.offer(new EmergencyAlert(nextId++, "Flood", 10, "Location"));
+            store.offer(new EmergencyAlert(nextId++, "Minor", 1, "Location"));
+        }
+
+        // Weights 512 and 1: the minor lane is served once per 513 polls
+        int minor = 0;
+        for (int i = 0; i < 1_026; i++) {
+            if (store.poll().getSeverity() == 1) {
+                minor++;
+            }
+        }
+        assertEquals(2, minor);
+    }
+
+    @Test
+    void testEqualLevelsComeOutInArrivalOrder() {
+        FairShareStore<EmergencyAlert> store = new FairShareStore<>(EmergencyAlert::getSeverity);
+        int[] severities = {3, 9, 3, 9, 3};
+        for (int i = 0; i < severities.length; i++) {
+            store.offer(new EmergencyAlert(i + 1, "Alert", severities[i], "Location"));
+        }
+
+        assertEquals(2, store.peek().getAlertId());
+        int[] lastId = new int[11];
+        while (!store.isEmpty()) {
+            EmergencyAlert alert = store.poll();
+            assertTrue(alert.getAlertId() > lastId[alert.getSeverity()]);
+            lastId[alert.getSeverity()] = alert.getAlertId();
+        }
+        assertNull(store.poll());
+    }
+
+    @Test
+    void testAgingServesOverdueHeadFirst() {
+        long[] now = {0};
+        long[] maxWait = new long[11];
+        Arrays.fill(maxWait, 100);
+        FairShareStore<EmergencyAlert> store = new FairShareStore<>(EmergencyAlert::getSeverity,
+            FairShareStore.defaultWeights(), maxWait, () -> now[0]);
+        store.offer(new EmergencyAlert(1, "Minor", 1, "Location"));
+        store.offer(new EmergencyAlert(2, "Minor", 1, "Location"));
+        now[0] = 50;
+        for (int id = 3; id <= 12; id++) {
+            store.offer(new EmergencyAlert(id, "Major", 10, "Location"));
+        }
+
+        assertEquals(3, store.poll().getAlertId());
+        assertEquals(1, store.poll().getAlertId());
+        assertEquals(4, store.poll().getAlertId());
+        // The second minor alert would otherwise wait for 510 more majors
+        now[0] = 101;
+        assertEquals(2, store.peek().getAlertId());
+        assertEquals(2, store.poll().getAlertId());
+        assertEquals(5, store.poll().getAlertId());
+    }
+
+    @Test
+    void testSnapshotListsPollOrderAndSurvivesWrites() {
+        FairShareStore<EmergencyAlert> store = new FairShareStore<>(EmergencyAlert::getSeverity);
+        for (int id = 1; id <= 200; id++) {
+            store.offer(new EmergencyAlert(id, "Alert", 1 + id % 10, "Location"));
+        }
+        store.poll();
+        QueueSnapshot<EmergencyAlert> snapshot = store.snapshot();
+        List<EmergencyAlert> listed = new ArrayList<>();
+        snapshot.forEach(listed::add);
+
+        List<EmergencyAlert> polled = new ArrayList<>();
+        while (!store.isEmpty()) {
+            polled.add(store.poll());
+        }
+        store.offer(new EmergencyAlert(201, "Late", 10, "Location"));
+        List<EmergencyAlert> again = new ArrayList<>();
+        snapshot.forEach(again::add);
+        assertEquals(199, snapshot.size());
+        assertEquals(listed, polled);
+        assertEquals(listed, again);
+    }
+
+    @Test
+    void testShareHoldsPastPassOverflow() {
+        // Without rebasing, severity 1's pass (2^40 per poll) overflows a long after 2^23 polls
+        FairShareStore<Integer> store = new FairShareStore<>(level -> level);
+        store.offer(1);
+        store.offer(2);
+        int lowPolls = 0;
+        int run = 0;
+        int longestRun = 0;
+        int last = 0;
+        while (lowPolls < (1 << 23) + 10_000) {
+            int level = store.poll();
+            run = level == last ? run + 1 : 1;
+            longestRun = Math.max(longestRun, run);
+            last = level;
+            if (level == 1) {
+                lowPolls++;
+            }
+            store.offer(level);
+        }
+        // Weights 1 and 2: never more than two in a row from either lane
+        assertEquals(2, longestRun);
+
+        // A lane idle since the start rejoins at the current virtual time and goes next
+        store.offer(7);
+        assertEquals(7, (int) store.peek());
+    }
+
+    @Test
+    void testRejectsBadWeightsAndLevels() {
+        int[] weights = FairShareStore.defaultWeights();
+        weights[4] = 0;
+        assertThrows(IllegalArgumentException.class,
+            () -> new FairShareStore<EmergencyAlert>(EmergencyAlert::getSeverity, weights, null, System::nanoTime));
+        assertThrows(IllegalArgumentException.class,
+            () -> CrisisConnectApp.createFairShareStore("1,2,3", null));
+
+        FairShareStore<EmergencyAlert> store = CrisisConnectApp.createFairShareStore("1,1,1,1,1,1,1,1,1,1", "60");
+        assertThrows(IllegalArgumentException.class,
+            () -> store.offer(new EmergencyAlert(1, "Alert", 0, "Location")));
+        assertTrue(store.isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoIndexTest {
+    private static EmergencyAlert alert(int id, double latitude, double longitude) {
+        EmergencyAlert alert = new EmergencyAlert(id, "Alert " + id, 1 + id % 10, "Zone");
+        alert.setCoordinates(latitude, longitude);
+        return alert;
+    }
+
+    private static GeoIndex<EmergencyAlert> index(double cellDegrees) {
+        return new GeoIndex<>(cellDegrees, EmergencyAlert::getAlertId,
+            EmergencyAlert::getLatitude, EmergencyAlert::getLongitude);
+    }
+
+    private static double distance(EmergencyAlert alert, double latitude, double longitude) {
+        return GeoIndex.distanceKm(latitude, longitude, alert.getLatitude(), alert.getLongitude());
+    }
+
+    @Test
+    void testQueriesMatchBruteForce() {
+        Random random = new Random(42);
+        GeoIndex<EmergencyAlert> index = index(0.05);
+        List<EmergencyAlert> all = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            EmergencyAlert alert = alert(i, 45 + random.nextDouble() * 2, 5 + random.nextDouble() * 2);
+            all.add(alert);
+            index.add(alert);
+        }
+        for (int q = 0; q < 50; q++) {
+            double latitude = 45 + random.nextDouble() * 2;
+            double longitude = 5 + random.nextDouble() * 2;
+            double radius = random.nextDouble() * 20;
+
+            List<Integer> expected = new ArrayList<>();
+            for (EmergencyAlert alert : all) {
+                if (distance(alert, latitude, longitude) <= radius && alert.getSeverity() >= 5) {
+                    expected.add(alert.getAlertId());
+                }
+            }
+            List<Integer> found = new ArrayList<>();
+            for (EmergencyAlert alert : index.within(latitude, longitude, radius, a -> a.getSeverity() >= 5)) {
+                found.add(alert.getAlertId());
+            }
+            found.sort(null);
+            assertEquals(expected, found);
+
+            List<EmergencyAlert> sorted = new ArrayList<>(all);
+            sorted.sort(Comparator.comparingDouble(a -> distance(a, latitude, longitude)));
+            List<EmergencyAlert> nearest = index.nearest(latitude, longitude, 7, a -> true);
+            assertEquals(sorted.subList(0, 7), nearest);
+        }
+    }
+
+    @Test
+    void testAntimeridianAndRemoval() {
+        GeoIndex<EmergencyAlert> index = index(0.01);
+        EmergencyAlert east = alert(1, -17.0, 179.995);
+        EmergencyAlert west = alert(2, -17.0, -179.995);
+        EmergencyAlert far = alert(3, -17.0, 170.0);
+        index.add(east);
+        index.add(west);
+        index.add(far);
+        index.add(alert(4, Double.NaN, Double.NaN));
+        assertEquals(3, index.size());
+
+        assertEquals(2, index.within(-17.0, 180.0, 5, a -> true).size());
+        assertEquals(List.of(west, east), index.nearest(-17.0, -179.999, 2, a -> true));
+
+        assertTrue(index.remove(west));
+        assertFalse(index.remove(west));
+        assertEquals(List.of(east, far), index.nearest(-17.0, -179.999, 5, a -> true));
+
+        // Re-adding with new coordinates moves the element
+        far.setCoordinates(-17.0, -179.99);
+        index.add(far);
+        assertEquals(2, index.size());
+        assertEquals(List.of(far, east), index.nearest(-17.0, -179.99, 2, a -> true));
+    }
+}
@@ -0,0 +1,231 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadlessServerTest {
+    private final EmergencyPriorityQueue alerts = new EmergencyPriorityQueue(new IndexedAlertStore());
+    private final TaskPriorityQueue tasks = new TaskPriorityQueue();
+    private final ResponseTeamQueue teams = new ResponseTeamQueue();
+    private HeadlessServer server;
+    private Thread loop;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new HeadlessServer(alerts, tasks, teams, new DispatchEngine(tasks, teams),
+            new InetSocketAddress("127.0.0.1", 0));
+        loop = new Thread(server::serve);
+        loop.start();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        server.close();
+        loop.join(5_000);
+    }
+
+    @Test
+    void testPipelinedRequests() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out.write(("ADD_ALERT\t4\tHarbor\tBoat capsized\n"
+                + "ADD_ALERT\t9\tDowntown\tMajor flooding\r\n"
+                + "ADD_TEAM\tAlpha\tFire Response\n"
+                + "ADD_TASK\t7\t2030-01-01T12:00\tContain fire\tFire Response\n"
+                + "STATS\n"
+                + "DISPATCH\n"
+                + "NEXT_ALERT\n"
+                + "NEXT_TASK\n"
+                + "ADD_ALERT\t11\tNowhere\tToo severe\n"
+                + "BOGUS\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertEquals("OK\t1", in.readLine());
+            assertEquals("OK\t2", in.readLine());
+            assertEquals("OK\t1", in.readLine());
+            assertEquals("OK\t1", in.readLine());
+            assertEquals("STATS\t2\t1\t1", in.readLine());
+            assertEquals("OK\t1\t0", in.readLine());
+            assertEquals("ALERT\t2\t9\tPending\tDowntown\tMajor flooding", in.readLine());
+            assertEquals("EMPTY", in.readLine());
+            assertTrue(in.readLine().startsWith("ERR"));
+            assertTrue(in.readLine().startsWith("ERR unknown command"));
+
+            out.write("QUIT\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            assertNull(in.readLine());
+        }
+        assertEquals(1, alerts.size());
+    }
+
+    @Test
+    void testCloseIsIdempotentAndStopsTheLoop() throws Exception {
+        Socket client = new Socket("127.0.0.1", server.getPort());
+        client.getOutputStream().write("STATS\n".getBytes(StandardCharsets.UTF_8));
+        BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+        assertEquals("STATS\t0\t0\t0", in.readLine());
+        server.close();
+        server.close();
+        loop.join(5_000);
+        assertFalse(loop.isAlive());
+        // The loop closed the open connection on its way out
+        assertNull(in.readLine());
+        client.close();
+    }
+
+    @Test
+    void testRequestSplitAcrossWrites() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out.write("ADD_TEAM\tBra".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            Thread.sleep(50);
+            out.write("vo\tLogistics\nNEXT_TEAM\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertEquals("OK\t1", in.readLine());
+            assertEquals("TEAM\t1\tAvailable\tLogistics\tBravo", in.readLine());
+        }
+    }
+
+    @Test
+    void testCompleteTaskFreesTeam() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out.write(("ADD_TEAM\tAlpha\tFire Response\n"
+                + "ADD_TEAM\tBravo\tMedical Emergency\n"
+                + "ADD_TASK\t7\t2030-01-01T12:00\tContain fire\tFire Response\n"
+                + "ADD_TASK\t5\t2030-01-01T12:00\tSecond fire\tFire Response\n"
+                + "DISPATCH\n"
+                + "COMPLETE_TASK\t2\n"
+                + "COMPLETE_TASK\t1\n"
+                + "STATS\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertEquals("OK\t1", in.readLine());
+            assertEquals("OK\t2", in.readLine());
+            assertEquals("OK\t1", in.readLine());
+            assertEquals("OK\t2", in.readLine());
+            assertEquals("OK\t1\t1", in.readLine());
+            assertEquals("NOT_FOUND", in.readLine());
+            assertEquals("OK", in.readLine());
+            // The freed team went straight to the parked task
+            assertEquals("STATS\t0\t0\t1", in.readLine());
+        }
+    }
+
+    @Test
+    void testStoreFailureDoesNotStopServer() throws Exception {
+        boolean[] full = {false};
+        EmergencyPriorityQueue failing = new EmergencyPriorityQueue(new IndexedAlertStore() {
+            @Override
+            public void offerAll(Collection<? extends EmergencyAlert> batch) {
+                if (full[0]) {
+                    throw new IllegalStateException("store is full");
+                }
+                super.offerAll(batch);
+            }
+        });
+        HeadlessServer other = new HeadlessServer(failing, tasks, teams, new DispatchEngine(tasks, teams),
+            new InetSocketAddress("127.0.0.1", 0));
+        Thread otherLoop = new Thread(other::serve);
+        otherLoop.start();
+        try {
+            full[0] = true;
+            try (Socket socket = new Socket("127.0.0.1", other.getPort())) {
+                OutputStream out = socket.getOutputStream();
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                out.write("ADD_ALERT\t4\tHarbor\tBoat capsized\nSTATS\nSTATS\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                // Never OK for an alert the queue did not take
+                assertTrue(in.readLine().startsWith("ERR"));
+                assertEquals("STATS\t0\t0\t0", in.readLine());
+                assertEquals("STATS\t0\t0\t0", in.readLine());
+            }
+            // A failed flush after the last line is answered too
+            try (Socket socket = new Socket("127.0.0.1", other.getPort())) {
+                OutputStream out = socket.getOutputStream();
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                out.write("ADD_ALERT\t4\tHarbor\tBoat capsized\nADD_ALERT\t5\tHarbor\tSecond boat\n"
+                    .getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                assertTrue(in.readLine().startsWith("ERR"));
+                assertTrue(in.readLine().startsWith("ERR"));
+                out.write("STATS\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                assertEquals("STATS\t0\t0\t0", in.readLine());
+            }
+            full[0] = false;
+            try (Socket socket = new Socket("127.0.0.1", other.getPort())) {
+                socket.getOutputStream().write("ADD_ALERT\t4\tHarbor\tBoat capsized\nSTATS\n".getBytes(StandardCharsets.UTF_8));
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                assertEquals("OK\t4", in.readLine());
+                assertEquals("STATS\t1\t0\t0", in.readLine());
+            }
+        } finally {
+            other.close();
+            otherLoop.join(5_000);
+        }
+    }
+
+    @Test
+    void testBatchIsAnsweredBeforeLaterErrors() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out.write(("ADD_ALERT\t4\tHarbor\tBoat capsized\n"
+                + "ADD_ALERT\t11\tNowhere\tToo severe\n"
+                + "ADD_ALERT\t6\tDowntown\tPower out\n"
+                + "STATS\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertEquals("OK\t1", in.readLine());
+            assertTrue(in.readLine().startsWith("ERR level"));
+            assertEquals("OK\t3", in.readLine());
+            assertEquals("STATS\t2\t0\t0", in.readLine());
+        }
+    }
+
+    @Test
+    void testRejectsAlertQueueWithoutLookup() {
+        EmergencyPriorityQueue fair = new EmergencyPriorityQueue(new FairShareStore<>(EmergencyAlert::getSeverity));
+        assertThrows(IllegalArgumentException.class, () -> new HeadlessServer(fair, tasks, teams,
+            new DispatchEngine(tasks, teams), new InetSocketAddress("127.0.0.1", 0)));
+    }
+
+    @Test
+    void testAlertBatchAndGroupDrain() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            StringBuilder requests = new StringBuilder();
+            for (int severity = 1; severity <= 10; severity++) {
+                requests.append("ADD_ALERT\t").append(severity).append("\tZone\tReport ").append(severity).append('\n');
+            }
+            requests.append("DRAIN_ALERTS\t3\n");
+            out.write(requests.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            for (int id = 1; id <= 10; id++) {
+                assertEquals("OK\t" + id, in.readLine());
+            }
+            assertEquals("ALERT\t10\t10\tPending\tZone\tReport 10", in.readLine());
+            assertTrue(in.readLine().startsWith("ALERT\t9\t"));
+            assertTrue(in.readLine().startsWith("ALERT\t8\t"));
+            assertEquals("END", in.readLine());
+        }
+        assertEquals(7, alerts.size());
+    }
+}
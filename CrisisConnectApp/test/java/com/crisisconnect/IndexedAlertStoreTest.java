@@ -0,0 +1,122 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedAlertStoreTest {
+    @Test
+    void testLookupById() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+        EmergencyAlert alert = new EmergencyAlert(42, "Flood", 6, "Downtown");
+        queue.addAlert(alert);
+
+        assertSame(alert, queue.getAlert(42));
+        assertNull(queue.getAlert(7));
+    }
+
+    @Test
+    void testEscalationReordersQueue() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+        EmergencyAlert fire = new EmergencyAlert(1, "Fire", 8, "North");
+        EmergencyAlert flood = new EmergencyAlert(2, "Flood", 4, "South");
+        queue.addAlert(fire);
+        queue.addAlert(flood);
+
+        assertTrue(queue.updateSeverity(2, 10));
+        assertEquals(10, flood.getSeverity());
+        assertEquals(flood, queue.getNextAlert());
+        assertEquals(fire, queue.getNextAlert());
+    }
+
+    @Test
+    void testUpdateSeverityRejectsOutOfRange() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+        EmergencyAlert alert = new EmergencyAlert(1, "Fire", 5, "Location");
+        queue.addAlert(alert);
+
+        assertThrows(IllegalArgumentException.class, () -> queue.updateSeverity(1, 11));
+        assertThrows(IllegalArgumentException.class, () -> queue.updateSeverity(1, 0));
+        assertEquals(5, alert.getSeverity());
+    }
+
+    @Test
+    void testOfferRejectsOutOfRangeSeverity() {
+        IndexedAlertStore store = new IndexedAlertStore();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> store.offer(new EmergencyAlert(1, "Alert", 11, "Location")));
+        assertThrows(IllegalArgumentException.class, () -> store.offerAll(List.of(
+            new EmergencyAlert(2, "Alert", 5, "Location"), new EmergencyAlert(3, "Alert", 0, "Location"))));
+        assertTrue(store.isEmpty());
+        assertFalse(store.contains(1));
+        assertFalse(store.contains(2));
+        store.offer(new EmergencyAlert(2, "Alert", 5, "Location"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testMergeReportRejectsOutOfRangeSeverity() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+        EmergencyAlert alert = new EmergencyAlert(1, "Fire", 5, "Location");
+        queue.addAlert(alert);
+        EmergencyAlert report = new EmergencyAlert(2, "Fire", 12, "Location");
+
+        assertThrows(IllegalArgumentException.class, () -> queue.mergeReport(alert, report));
+        assertEquals(5, alert.getSeverity());
+        assertEquals(1, alert.getReportCount());
+    }
+
+    @Test
+    void testCancelRemovesOnlyThatAlert() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+        for (int id = 1; id <= 5; id++) {
+            queue.addAlert(new EmergencyAlert(id, "Alert", id, "Location"));
+        }
+
+        assertEquals(3, queue.cancel(3).getAlertId());
+        assertNull(queue.cancel(3));
+        assertEquals(4, queue.size());
+        assertEquals(5, queue.getNextAlert().getAlertId());
+        assertEquals(4, queue.getNextAlert().getAlertId());
+        assertEquals(2, queue.getNextAlert().getAlertId());
+        assertEquals(1, queue.getNextAlert().getAlertId());
+    }
+
+    @Test
+    void testRandomUpdatesKeepHeapOrder() {
+        IndexedAlertStore store = new IndexedAlertStore();
+        Random random = new Random(7);
+        for (int id = 0; id < 1000; id++) {
+            store.offer(new EmergencyAlert(id, "Alert", 1 + random.nextInt(10), "Location"));
+        }
+        for (int i = 0; i < 2000; i++) {
+            int id = random.nextInt(1000);
+            if (random.nextBoolean()) {
+                store.updateSeverity(id, 1 + random.nextInt(10));
+            } else {
+                store.cancel(id);
+            }
+        }
+
+        List<Integer> severities = new ArrayList<>();
+        EmergencyAlert alert;
+        while ((alert = store.poll()) != null) {
+            severities.add(alert.getSeverity());
+        }
+        for (int i = 1; i < severities.size(); i++) {
+            assertTrue(severities.get(i - 1) >= severities.get(i));
+        }
+    }
+
+    @Test
+    void testDuplicateIdRejected() {
+        IndexedAlertStore store = new IndexedAlertStore();
+        store.offer(new EmergencyAlert(1, "Alert", 5, "Location"));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> store.offer(new EmergencyAlert(1, "Again", 5, "Location")));
+    }
+}
@@ -0,0 +1,209 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStoreTest {
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("crisisconnect-offheap");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void testAlertFieldsRoundTrip() {
+        OffHeapStore<EmergencyAlert> store = new OffHeapStore<>(dir, "alerts", new AlertRecordCodec());
+        EmergencyAlert alert = new EmergencyAlert(7, "Bridge collapse", 9, "Riverside");
+        alert.setStatus("Acknowledged");
+        alert.setReportCount(3);
+        alert.setArrival(41);
+        alert.setQueuedAtNanos(123_456_789L);
+        store.offer(alert);
+
+        EmergencyAlert read = store.poll();
+        assertNotSame(alert, read);
+        assertEquals(7, read.getAlertId());
+        assertEquals("Bridge collapse", read.getDescription());
+        assertEquals(9, read.getSeverity());
+        assertEquals(alert.getTimestamp(), read.getTimestamp());
+        assertEquals("Riverside", read.getLocation());
+        assertEquals("Acknowledged", read.getStatus());
+        assertEquals(3, read.getReportCount());
+        assertEquals(41, read.getArrival());
+        assertEquals(123_456_789L, read.getQueuedAtNanos());
+        assertTrue(store.isEmpty());
+        store.close();
+    }
+
+    @Test
+    void testOrderBySeverityThenArrival() {
+        OffHeapStore<EmergencyAlert> store = new OffHeapStore<>(dir, "alerts", new AlertRecordCodec());
+        int[] severities = {3, 9, 5, 9, 1, 5};
+        for (int i = 0; i < severities.length; i++) {
+            store.offer(new EmergencyAlert(i + 1, "Alert", severities[i], "Location"));
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        while (!store.isEmpty()) {
+            ids.add(store.poll().getAlertId());
+        }
+        assertEquals(List.of(2, 4, 3, 6, 1, 5), ids);
+        store.close();
+    }
+
+    @Test
+    void testSnapshotSurvivesPolls() {
+        OffHeapStore<EmergencyAlert> store = new OffHeapStore<>(dir, "alerts", new AlertRecordCodec());
+        for (int id = 1; id <= 4; id++) {
+            store.offer(new EmergencyAlert(id, "Alert " + id, id, "Location"));
+        }
+        QueueSnapshot<EmergencyAlert> snapshot = store.snapshot();
+        store.poll();
+        store.poll();
+        store.offer(new EmergencyAlert(5, "Alert 5", 10, "Location"));
+
+        List<String> descriptions = new ArrayList<>();
+        for (EmergencyAlert alert : snapshot) {
+            descriptions.add(alert.getDescription());
+        }
+        assertEquals(List.of("Alert 4", "Alert 3", "Alert 2", "Alert 1"), descriptions);
+        assertEquals(3, store.size());
+        store.close();
+    }
+
+    @Test
+    void testDetachedSnapshotOutlivesNextSnapshot() {
+        OffHeapStore<EmergencyAlert> store = new OffHeapStore<>(dir, "alerts", new AlertRecordCodec());
+        for (int id = 1; id <= 4; id++) {
+            store.offer(new EmergencyAlert(id, "Alert " + id, id, "Location"));
+        }
+        QueueSnapshot<EmergencyAlert> detached = store.snapshot().detach();
+        store.poll();
+        store.poll();
+        store.snapshot();
+        // Reuses the slots the two polls freed
+        store.offer(new EmergencyAlert(5, "Alert 5", 10, "Location"));
+        store.offer(new EmergencyAlert(6, "Alert 6", 10, "Location"));
+
+        List<String> descriptions = new ArrayList<>();
+        detached.forEach(alert -> descriptions.add(alert.getDescription()));
+        assertEquals(List.of("Alert 4", "Alert 3", "Alert 2", "Alert 1"), descriptions);
+        store.close();
+    }
+
+    @Test
+    void testHeldSnapshotOutlivesLaterSnapshots() {
+        OffHeapStore<EmergencyAlert> store = new OffHeapStore<>(dir, "alerts", new AlertRecordCodec());
+        for (int id = 1; id <= 4; id++) {
+            store.offer(new EmergencyAlert(id, "Alert " + id, id, "Location"));
+        }
+        // e.g. a checkpoint still being written while the UI refreshes
+        QueueSnapshot<EmergencyAlert> held = store.snapshot();
+        store.poll();
+        store.poll();
+        store.snapshot();
+        store.offer(new EmergencyAlert(5, "Alert 5", 10, "Location"));
+        store.snapshot();
+        store.poll();
+        store.offer(new EmergencyAlert(6, "Alert 6", 10, "Location"));
+        store.offer(new EmergencyAlert(7, "Alert 7", 10, "Location"));
+
+        List<String> descriptions = new ArrayList<>();
+        held.forEach(alert -> descriptions.add(alert.getDescription()));
+        assertEquals(List.of("Alert 4", "Alert 3", "Alert 2", "Alert 1"), descriptions);
+        assertEquals(4, store.size());
+        store.close();
+    }
+
+    @Test
+    void testQueueIndexesOffHeapAlertsById() {
+        OffHeapStore<EmergencyAlert> store = new OffHeapStore<>(dir, "alerts", new AlertRecordCodec());
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(store);
+        EmergencyAlert near = new EmergencyAlert(1, "Near", 8, "Paris");
+        near.setCoordinates(48.857, 2.352);
+        EmergencyAlert far = new EmergencyAlert(2, "Far", 4, "Lyon");
+        far.setCoordinates(45.764, 4.836);
+        queue.addAlert(near);
+        queue.addAlert(far);
+
+        // The queued record keeps the status it was offered with
+        near.setStatus(AlertStatus.ACKNOWLEDGED);
+        assertEquals(2, queue.countByStatus(AlertStatus.PENDING));
+        assertEquals(0, queue.countByStatus(AlertStatus.ACKNOWLEDGED));
+        List<Integer> pending = new ArrayList<>();
+        queue.getAlertsByStatus(AlertStatus.PENDING).forEach(alert -> pending.add(alert.getAlertId()));
+        assertEquals(List.of(1, 2), pending.stream().sorted().toList());
+
+        List<EmergencyAlert> within = queue.alertsWithin(48.85, 2.35, 5, 1);
+        assertEquals(1, within.size());
+        assertNotSame(near, within.get(0));
+        assertEquals("Near", within.get(0).getDescription());
+        assertTrue(queue.alertsWithin(48.85, 2.35, 5, 9).isEmpty());
+        assertEquals(List.of("Near", "Far"), queue.nearestAlerts(48.85, 2.35, 5).stream()
+            .map(EmergencyAlert::getDescription).toList());
+
+        EmergencyAlert polled = queue.getNextAlert();
+        assertEquals("Pending", polled.getStatus());
+        queue.getNextAlert();
+        assertEquals(0, queue.countByStatus(AlertStatus.PENDING));
+        assertTrue(queue.nearestAlerts(48.85, 2.35, 5).isEmpty());
+        store.close();
+    }
+
+    @Test
+    void testTaskQueueOffHeap() {
+        OffHeapStore<Task> store = new OffHeapStore<>(dir, "tasks", new TaskRecordCodec());
+        TaskPriorityQueue queue = new TaskPriorityQueue(store);
+        LocalDateTime deadline = LocalDateTime.now().plusHours(2);
+        Task task = new Task(queue.getNextTaskId(), "Evacuate", 8, deadline);
+        task.setAssignedTeam("Alpha");
+        queue.addTask(task);
+        queue.addTask(new Task(queue.getNextTaskId(), "Survey", 2, deadline));
+
+        Task read = queue.getNextTask();
+        assertEquals("Evacuate", read.getName());
+        assertEquals(deadline, read.getDeadline());
+        assertEquals("Alpha", read.getAssignedTeam());
+        assertEquals(1, queue.size());
+        store.close();
+    }
+
+    @Test
+    void testBulkOfferKeepsOrder() {
+        OffHeapStore<EmergencyAlert> store = new OffHeapStore<>(dir, "alerts", new AlertRecordCodec());
+        List<EmergencyAlert> batch = new ArrayList<>();
+        for (int id = 1; id <= 1_000; id++) {
+            batch.add(new EmergencyAlert(id, "Alert " + id, 1 + id % 10, "Location"));
+        }
+        store.offerAll(batch.subList(0, 900));
+        store.offerAll(batch.subList(900, 1_000));
+
+        List<EmergencyAlert> drained = new ArrayList<>();
+        assertEquals(1_000, store.drainTo(drained, Integer.MAX_VALUE));
+        for (int i = 1; i < drained.size(); i++) {
+            EmergencyAlert previous = drained.get(i - 1);
+            EmergencyAlert next = drained.get(i);
+            assertTrue(previous.getSeverity() > next.getSeverity()
+                || previous.getSeverity() == next.getSeverity() && previous.getAlertId() < next.getAlertId());
+        }
+        store.close();
+    }
+}
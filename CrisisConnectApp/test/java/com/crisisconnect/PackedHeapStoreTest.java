@@ -0,0 +1,107 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedHeapStoreTest {
+
+    @Test
+    void testOrderBySeverityThenArrival() {
+        PackedHeapStore<EmergencyAlert> store = new PackedHeapStore<>(EmergencyAlert::getSeverity);
+        int[] severities = {3, 9, 5, 9, 1, 5};
+        for (int i = 0; i < severities.length; i++) {
+            store.offer(new EmergencyAlert(i + 1, "Alert", severities[i], "Location"));
+        }
+
+        assertEquals(2, store.peek().getAlertId());
+        List<Integer> ids = new ArrayList<>();
+        while (!store.isEmpty()) {
+            ids.add(store.poll().getAlertId());
+        }
+        assertEquals(List.of(2, 4, 3, 6, 1, 5), ids);
+        assertNull(store.poll());
+    }
+
+    @Test
+    void testMixedOffersAndPollsMatchStableSort() {
+        PackedHeapStore<EmergencyAlert> store = new PackedHeapStore<>(EmergencyAlert::getSeverity);
+        List<EmergencyAlert> model = new ArrayList<>();
+        Comparator<EmergencyAlert> order = Comparator.comparingInt(EmergencyAlert::getSeverity).reversed()
+            .thenComparingInt(EmergencyAlert::getAlertId);
+        Random random = new Random(4);
+        int nextId = 1;
+        for (int round = 0; round < 200; round++) {
+            List<EmergencyAlert> batch = new ArrayList<>();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                batch.add(new EmergencyAlert(nextId++, "Alert", 1 + random.nextInt(10), "Location"));
+            }
+            if (random.nextBoolean()) {
+                store.offerAll(batch);
+            } else {
+                batch.forEach(store::offer);
+            }
+            model.addAll(batch);
+            model.sort(order);
+            for (int i = random.nextInt(30); i > 0 && !model.isEmpty(); i--) {
+                assertSame(model.remove(0), store.poll());
+            }
+            assertEquals(model.size(), store.size());
+        }
+        List<EmergencyAlert> snapshot = new ArrayList<>();
+        store.snapshot().forEach(snapshot::add);
+        assertEquals(model, snapshot);
+    }
+
+    @Test
+    void testSnapshotSurvivesPollsAndSlotReuse() {
+        PackedHeapStore<Task> store = new PackedHeapStore<>(Task::getPriority);
+        for (int id = 1; id <= 6; id++) {
+            store.offer(new Task(id, "Task " + id, id, null));
+        }
+        QueueSnapshot<Task> snapshot = store.snapshot();
+        store.poll();
+        store.poll();
+        store.offer(new Task(7, "Task 7", 10, null));
+        store.offer(new Task(8, "Task 8", 1, null));
+
+        List<Integer> seen = new ArrayList<>();
+        snapshot.forEach(task -> seen.add(task.getTaskId()));
+        assertEquals(List.of(6, 5, 4, 3, 2, 1), seen);
+        assertEquals(List.of(6, 5), snapshot.top(2).stream().map(Task::getTaskId).toList());
+        assertEquals(7, store.poll().getTaskId());
+        assertEquals(5, store.size());
+    }
+
+    @Test
+    void testDetachedSnapshotOutlivesNextSnapshot() {
+        PackedHeapStore<Task> store = new PackedHeapStore<>(Task::getPriority);
+        for (int id = 1; id <= 4; id++) {
+            store.offer(new Task(id, "Task " + id, id, null));
+        }
+        QueueSnapshot<Task> detached = store.snapshot().detach();
+        store.poll();
+        store.poll();
+        store.snapshot();
+        store.offer(new Task(5, "Task 5", 10, null));
+        store.offer(new Task(6, "Task 6", 10, null));
+
+        List<Integer> seen = new ArrayList<>();
+        detached.forEach(task -> seen.add(task.getTaskId()));
+        assertEquals(List.of(4, 3, 2, 1), seen);
+        seen.clear();
+        detached.forEachUnordered(task -> seen.add(task.getTaskId()));
+        assertEquals(List.of(1, 2, 3, 4), seen.stream().sorted().toList());
+    }
+
+    @Test
+    void testRejectsLevelsOutsideKeyRange() {
+        PackedHeapStore<EmergencyAlert> store = new PackedHeapStore<>(EmergencyAlert::getSeverity);
+        assertThrows(IllegalArgumentException.class,
+            () -> store.offer(new EmergencyAlert(1, "Alert", 16, "Location")));
+        assertTrue(store.isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueMetricsTest {
+    @Test
+    void testHistogramPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(5);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-uniform from 1 ns to ~1 s
+            values[i] = (long) Math.pow(10, random.nextDouble() * 9);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double fraction : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(fraction * values.length) - 1];
+            long reported = histogram.percentile(fraction);
+            assertTrue(reported >= exact && reported <= exact + Math.max(1, exact / 16),
+                fraction + ": " + reported + " vs " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.max());
+        assertEquals(values.length, histogram.count());
+
+        for (long value : new long[] {0, 63, 64, 65, 1_000_000, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.highestEquivalent(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.highestEquivalent(index - 1) < value);
+        }
+    }
+
+    @Test
+    void testQueuesRecordCountsLatenciesAndWaits() throws Exception {
+        QueueMetrics metrics = new QueueMetrics();
+        EmergencyPriorityQueue alerts = new EmergencyPriorityQueue(new IndexedAlertStore());
+        TaskPriorityQueue tasks = new TaskPriorityQueue();
+        alerts.setMetrics(metrics);
+        tasks.setMetrics(metrics);
+
+        alerts.addAlert(new EmergencyAlert(1, "Flood", 9, "Downtown"));
+        alerts.addAll(List.of(new EmergencyAlert(2, "Fire", 9, "Harbor"), new EmergencyAlert(3, "Leak", 2, "Mall")));
+        Thread.sleep(2);
+        alerts.getNextAlert();
+        alerts.cancel(3);
+        tasks.addTask(new Task(1, "Evacuate", 5, java.time.LocalDateTime.now()));
+        tasks.getNextTask();
+
+        assertEquals(3L, metrics.values().get("alerts.added"));
+        assertEquals(1L, metrics.values().get("alerts.polled"));
+        assertEquals(1L, metrics.values().get("alerts.cancelled"));
+        assertEquals(2L, metrics.values().get("alerts.enqueue.count"));
+        assertEquals(1L, metrics.alertWait(9).count());
+        assertTrue(metrics.alertWait(9).max() >= 2_000_000);
+        assertEquals(0, metrics.alertWait(2).count());
+        assertEquals(1L, metrics.values().get("tasks.dequeue.count"));
+
+        assertEquals(3L, metrics.getAttribute("alerts.added"));
+        assertEquals(metrics.values().size(), metrics.getMBeanInfo().getAttributes().length);
+
+        Path file = Files.createTempFile("metrics", ".properties");
+        try {
+            metrics.writeTo(file);
+            assertTrue(Files.readAllLines(file).contains("alerts.polled=1"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
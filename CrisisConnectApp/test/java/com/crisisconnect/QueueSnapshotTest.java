@@ -0,0 +1,82 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueSnapshotTest {
+    @Test
+    void testHeapSnapshotIsInPriorityOrder() {
+        assertSnapshotSorted(new EmergencyPriorityQueue());
+    }
+
+    @Test
+    void testBucketSnapshotIsInPriorityOrder() {
+        assertSnapshotSorted(new EmergencyPriorityQueue(new SeverityBucketStore<>(EmergencyAlert::getSeverity)));
+    }
+
+    @Test
+    void testHeapSnapshotUnaffectedByLaterWrites() {
+        assertSnapshotFrozen(new EmergencyPriorityQueue());
+    }
+
+    @Test
+    void testBucketSnapshotUnaffectedByLaterWrites() {
+        assertSnapshotFrozen(new EmergencyPriorityQueue(new SeverityBucketStore<>(EmergencyAlert::getSeverity)));
+    }
+
+    @Test
+    void testTopReturnsFirstPageOnly() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue();
+        for (int i = 1; i <= 10; i++) {
+            queue.addAlert(new EmergencyAlert(i, "Alert", i, "Location"));
+        }
+
+        List<EmergencyAlert> page = queue.snapshot().top(3);
+        assertEquals(3, page.size());
+        assertEquals(10, page.get(0).getSeverity());
+        assertEquals(9, page.get(1).getSeverity());
+        assertEquals(8, page.get(2).getSeverity());
+    }
+
+    private void assertSnapshotSorted(EmergencyPriorityQueue queue) {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            queue.addAlert(new EmergencyAlert(i, "Alert", 1 + random.nextInt(10), "Location"));
+        }
+        for (int i = 0; i < 500; i++) {
+            queue.getNextAlert();
+        }
+
+        QueueSnapshot<EmergencyAlert> snapshot = queue.snapshot();
+        List<Integer> seen = new ArrayList<>();
+        for (EmergencyAlert alert : snapshot) {
+            seen.add(alert.getSeverity());
+        }
+        assertEquals(1500, snapshot.size());
+        assertEquals(1500, seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1) >= seen.get(i));
+        }
+    }
+
+    private void assertSnapshotFrozen(EmergencyPriorityQueue queue) {
+        for (int i = 0; i < 600; i++) {
+            queue.addAlert(new EmergencyAlert(i, "Alert", 5, "Location"));
+        }
+        QueueSnapshot<EmergencyAlert> snapshot = queue.snapshot();
+        List<EmergencyAlert> before = snapshot.top(600);
+
+        while (!queue.isEmpty()) {
+            queue.getNextAlert();
+        }
+        for (int i = 600; i < 1200; i++) {
+            queue.addAlert(new EmergencyAlert(i, "Alert", 5, "Location"));
+        }
+
+        assertEquals(before, snapshot.top(600));
+        assertTrue(snapshot.version() != queue.snapshot().version());
+    }
+}
@@ -0,0 +1,120 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueTableModelTest {
+    @Test
+    void testRowsFollowPriorityOrder() {
+        QueueTableModel<EmergencyAlert> model = CrisisConnectApp.alertTableModel();
+        EmergencyAlert low = new EmergencyAlert(1, "Low", 2, "North");
+        EmergencyAlert high = new EmergencyAlert(2, "High", 9, "South");
+        EmergencyAlert tie = new EmergencyAlert(3, "Tie", 9, "East");
+        model.insert(low);
+        model.insert(tie);
+        model.insert(high);
+
+        assertEquals(3, model.getRowCount());
+        assertSame(high, model.getRow(0));
+        assertSame(tie, model.getRow(1));
+        assertSame(low, model.getRow(2));
+        assertEquals("South", model.getValueAt(0, 2));
+    }
+
+    @Test
+    void testUpdateMovesRowAndDeltasAreIdempotent() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+        QueueTableModel<EmergencyAlert> model = CrisisConnectApp.alertTableModel();
+        for (int id = 1; id <= 3; id++) {
+            EmergencyAlert alert = new EmergencyAlert(id, "Alert", id, "Location");
+            queue.addAlert(alert);
+            model.insert(alert);
+        }
+
+        queue.updateSeverity(1, 10);
+        model.update(queue.getAlert(1));
+        assertEquals(1, model.getRow(0).getAlertId());
+
+        model.insert(queue.getAlert(1));
+        assertEquals(3, model.getRowCount());
+        EmergencyAlert polled = queue.getNextAlert();
+        model.remove(polled);
+        model.remove(polled);
+        assertEquals(2, model.getRowCount());
+        assertEquals(3, model.getRow(0).getAlertId());
+    }
+
+    @Test
+    void testRebuildKeepsQueueOrder() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new FairShareStore<>(EmergencyAlert::getSeverity));
+        for (int id = 1; id <= 200; id++) {
+            queue.addAlert(new EmergencyAlert(id, "Alert", 1 + id % 10, "Location"));
+        }
+        QueueTableModel<EmergencyAlert> model = CrisisConnectApp.alertTableModel();
+        model.reset(queue.snapshot());
+
+        List<EmergencyAlert> expected = queue.snapshot().top(200);
+        List<EmergencyAlert> bySeverity = new ArrayList<>(expected);
+        bySeverity.sort(Comparator.comparingLong(CrisisConnectApp::alertRowKey));
+        assertFalse(bySeverity.equals(expected)); // fair share interleaves severities
+        assertEquals(200, model.getRowCount());
+        for (int row = 0; row < expected.size(); row++) {
+            assertSame(expected.get(row), model.getRow(row));
+        }
+    }
+
+    @Test
+    void testInsertsBetweenRebuiltRowsRenumberWhenGapRunsOut() {
+        QueueTableModel<EmergencyAlert> model = CrisisConnectApp.alertTableModel();
+        EmergencyAlert high = new EmergencyAlert(1, "High", 9, "North");
+        EmergencyAlert low = new EmergencyAlert(1000, "Low", 2, "South");
+        model.reset(List.of(high, low));
+
+        // Severity 5 with rising ids: each lands just above low, halving one gap
+        for (int id = 2; id <= 100; id++) {
+            model.insert(new EmergencyAlert(id, "Middle", 5, "East"));
+        }
+        assertEquals(101, model.getRowCount());
+        assertSame(high, model.getRow(0));
+        for (int row = 1; row < 100; row++) {
+            assertEquals(row + 1, model.getRow(row).getAlertId());
+        }
+        assertSame(low, model.getRow(100));
+        model.remove(new EmergencyAlert(50, "Middle", 5, "East"));
+        model.update(low);
+        assertEquals(100, model.getRowCount());
+        assertEquals(51, model.getRow(49).getAlertId());
+        assertSame(low, model.getRow(99));
+    }
+
+    @Test
+    void testLargeRandomDeltasMatchReset() {
+        QueueTableModel<Task> model = CrisisConnectApp.taskTableModel();
+        TaskPriorityQueue queue = new TaskPriorityQueue();
+        Random random = new Random(7);
+        List<Task> live = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            if (live.isEmpty() || random.nextInt(3) != 0) {
+                Task task = new Task(queue.getNextTaskId(), "Task", 1 + random.nextInt(10),
+                    LocalDateTime.of(2030, 1, 1, 0, 0).plusMinutes(random.nextInt(10_000)));
+                live.add(task);
+                model.insert(task);
+            } else {
+                model.remove(live.remove(random.nextInt(live.size())));
+            }
+        }
+
+        QueueTableModel<Task> rebuilt = CrisisConnectApp.taskTableModel();
+        live.sort(Comparator.comparingLong(CrisisConnectApp::taskRowKey));
+        rebuilt.reset(live);
+        assertEquals(live.size(), model.getRowCount());
+        for (int row = 0; row < model.getRowCount(); row++) {
+            assertSame(rebuilt.getRow(row), model.getRow(row));
+        }
+    }
+}
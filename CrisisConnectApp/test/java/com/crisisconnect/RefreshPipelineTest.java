@@ -0,0 +1,96 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import javax.swing.SwingUtilities;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshPipelineTest {
+    private final EmergencyPriorityQueue alerts = new EmergencyPriorityQueue(new IndexedAlertStore());
+    private final TaskPriorityQueue tasks = new TaskPriorityQueue();
+    private final ResponseTeamQueue teams = new ResponseTeamQueue();
+    private final QueueTableModel<EmergencyAlert> alertModel = CrisisConnectApp.alertTableModel();
+
+    private RefreshPipeline start() {
+        ChangeFeed feed = new ChangeFeed();
+        alerts.addListener(feed);
+        tasks.addListener(feed);
+        teams.addListener(feed);
+        return new RefreshPipeline(feed, alertModel, () -> alerts.snapshot().detach(),
+            CrisisConnectApp.taskTableModel(), () -> tasks.snapshot().detach(),
+            CrisisConnectApp.teamTableModel(), () -> Arrays.asList(teams.getTeams()));
+    }
+
+    private int rowsOnEdt() throws Exception {
+        AtomicInteger rows = new AtomicInteger();
+        SwingUtilities.invokeAndWait(() -> rows.set(alertModel.getRowCount()));
+        return rows.get();
+    }
+
+    private void awaitRows(int expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (rowsOnEdt() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, rowsOnEdt());
+    }
+
+    @Test
+    void testBurstIsCoalesced() throws Exception {
+        try (RefreshPipeline pipeline = start()) {
+            for (int id = 1; id <= 5_000; id++) {
+                alerts.addAlert(new EmergencyAlert(id, "Alert", 1 + id % 10, "Location"));
+            }
+            awaitRows(5_000);
+            assertTrue(pipeline.publishedFrames() < 100, "frames: " + pipeline.publishedFrames());
+
+            alerts.getNextAlert();
+            awaitRows(4_999);
+        }
+    }
+
+    @Test
+    void testFailedRebuildIsRetried() throws Exception {
+        ChangeFeed feed = new ChangeFeed();
+        alerts.addListener(feed);
+        AtomicInteger failures = new AtomicInteger(1);
+        try (RefreshPipeline pipeline = new RefreshPipeline(feed, alertModel, () -> {
+                if (failures.getAndDecrement() > 0) {
+                    throw new IllegalStateException("snapshot failed");
+                }
+                return alerts.snapshot().detach();
+            },
+            CrisisConnectApp.taskTableModel(), () -> tasks.snapshot().detach(),
+            CrisisConnectApp.teamTableModel(), () -> Arrays.asList(teams.getTeams()))) {
+            alerts.addAlert(new EmergencyAlert(1, "Low", 2, "North"));
+            pipeline.requestRebuild();
+            // The first capture throws on the EDT; the worker lives on and resyncs
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (failures.get() >= 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(failures.get() < 0);
+            awaitRows(1);
+
+            alerts.addAlert(new EmergencyAlert(2, "High", 9, "South"));
+            awaitRows(2);
+        }
+    }
+
+    @Test
+    void testRebuildPicksUpChangesWithoutEvents() throws Exception {
+        try (RefreshPipeline pipeline = start()) {
+            alerts.addAlert(new EmergencyAlert(1, "Low", 2, "North"));
+            awaitRows(1);
+
+            // Mutating the model directly leaves it out of step until a rebuild
+            SwingUtilities.invokeAndWait(() -> alertModel.insert(new EmergencyAlert(99, "Stale", 5, "West")));
+            pipeline.requestRebuild();
+            awaitRows(1);
+            AtomicInteger top = new AtomicInteger();
+            SwingUtilities.invokeAndWait(() -> top.set(alertModel.getRow(0).getAlertId()));
+            assertEquals(1, top.get());
+        }
+    }
+}
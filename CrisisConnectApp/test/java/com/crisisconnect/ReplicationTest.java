@@ -0,0 +1,263 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationTest {
+    private final List<Closeable> open = new ArrayList<>();
+    private final EmergencyPriorityQueue alerts = new EmergencyPriorityQueue(new IndexedAlertStore());
+    private final TaskPriorityQueue tasks = new TaskPriorityQueue();
+    private final ResponseTeamQueue teams = new ResponseTeamQueue();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (Closeable closeable : open) {
+            closeable.close();
+        }
+    }
+
+    private ReplicationLeader leader(int port, long startLsn, int backlog) throws Exception {
+        return leader(alerts, tasks, teams, port, startLsn, backlog);
+    }
+
+    private ReplicationLeader leader(EmergencyPriorityQueue alerts, TaskPriorityQueue tasks, ResponseTeamQueue teams,
+                                     int port, long startLsn, int backlog) throws Exception {
+        ReplicationLeader leader = new ReplicationLeader(alerts, tasks, teams,
+            new InetSocketAddress("127.0.0.1", port), startLsn, backlog);
+        open.add(leader);
+        return leader;
+    }
+
+    private ReplicationFollower follower(int... ports) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int port : ports) {
+            addresses.add(new InetSocketAddress("127.0.0.1", port));
+        }
+        ReplicationFollower follower = new ReplicationFollower(addresses);
+        open.add(follower);
+        follower.start();
+        return follower;
+    }
+
+    private ReplicationFollower standby(List<InetSocketAddress> nodes, InetSocketAddress self) {
+        ReplicationFollower follower = new ReplicationFollower(nodes, self);
+        open.add(follower);
+        follower.start();
+        return follower;
+    }
+
+    private static InetSocketAddress local(int port) {
+        return new InetSocketAddress("127.0.0.1", port);
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private void addAlerts(int count) {
+        for (int i = 0; i < count; i++) {
+            alerts.addAlert(new EmergencyAlert(alerts.getNextAlertId(), "Report " + i, 1 + i % 10, "Zone " + i % 7));
+        }
+    }
+
+    private void assertSameState(ReplicationFollower follower) {
+        List<EmergencyAlert> expected = new ArrayList<>(Arrays.asList(alerts.getAlerts()));
+        expected.sort(null);
+        List<EmergencyAlert> replica = follower.getAlerts();
+        assertEquals(expected.size(), replica.size());
+        for (EmergencyAlert alert : expected) {
+            EmergencyAlert copy = follower.getAlert(alert.getAlertId());
+            assertNotNull(copy);
+            assertEquals(alert.getSeverity(), copy.getSeverity());
+            assertEquals(alert.getStatus(), copy.getStatus());
+            assertEquals(alert.getTimestamp(), copy.getTimestamp());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getSeverity(), replica.get(i).getSeverity());
+        }
+        Task[] expectedTasks = tasks.getTasks();
+        assertEquals(expectedTasks.length, follower.getTasks().size());
+        for (ResponseTeam team : teams.getTeams()) {
+            ResponseTeam copy = follower.getTeams().stream()
+                .filter(t -> t.getTeamId() == team.getTeamId()).findFirst().orElseThrow();
+            assertEquals(team.getStatus(), copy.getStatus());
+            assertEquals(team.getCurrentTask(), copy.getCurrentTask());
+        }
+    }
+
+    @Test
+    void testFollowerMirrorsLeaderMutations() throws Exception {
+        ReplicationLeader leader = leader(0, 0, ReplicationLeader.DEFAULT_BACKLOG);
+        ReplicationFollower follower = follower(leader.getPort());
+        DispatchEngine dispatch = new DispatchEngine(tasks, teams);
+
+        addAlerts(200);
+        alerts.getNextAlert();
+        alerts.updateSeverity(5, 10);
+        alerts.updateStatus(6, "Acknowledged");
+        alerts.cancel(7);
+        alerts.resolve(8);
+        teams.addTeam(new ResponseTeam(teams.getNextTeamId(), "Alpha Team", "Search and Rescue"));
+        teams.addTeam(new ResponseTeam(teams.getNextTeamId(), "Beta Team", "Medical Emergency"));
+        for (int i = 0; i < 5; i++) {
+            tasks.addTask(new Task(tasks.getNextTaskId(), "Task " + i, 1 + i, null));
+        }
+        List<DispatchEngine.Assignment> assigned = dispatch.dispatchRound(1);
+        assertEquals(1, assigned.size());
+
+        assertTrue(leader.awaitReplicated(leader.lastLsn(), 5_000));
+        assertTrue(follower.awaitApplied(leader.lastLsn(), 5_000));
+        assertSameState(follower);
+        assertNull(follower.getAlert(7));
+        assertEquals(10, follower.getAlert(5).getSeverity());
+        assertEquals("Acknowledged", follower.getAlert(6).getStatus());
+        ResponseTeam deployed = assigned.get(0).getTeam();
+        ResponseTeam replica = follower.getTeams().stream()
+            .filter(t -> t.getTeamId() == deployed.getTeamId()).findFirst().orElseThrow();
+        assertEquals("Deployed", replica.getStatus());
+        assertEquals(assigned.get(0).getTask().getName(), replica.getCurrentTask());
+    }
+
+    @Test
+    void testLateFollowerCatchesUpFromSnapshot() throws Exception {
+        addAlerts(20);
+        ReplicationLeader leader = leader(0, 0, 16);
+        addAlerts(50);
+        for (int i = 0; i < 10; i++) {
+            alerts.getNextAlert();
+        }
+        // The first 60 records have left the backlog
+        ReplicationFollower follower = follower(leader.getPort());
+        assertTrue(follower.awaitApplied(leader.lastLsn(), 5_000));
+        assertEquals(60, follower.getAlerts().size());
+
+        addAlerts(5);
+        assertTrue(follower.awaitApplied(leader.lastLsn(), 5_000));
+        assertEquals(leader.lastLsn(), follower.appliedLsn());
+        assertSameState(follower);
+    }
+
+    @Test
+    void testStandbyTakesOverWithinASecond() throws Exception {
+        int standbyPort = freePort();
+        ReplicationLeader leader = leader(0, 0, ReplicationLeader.DEFAULT_BACKLOG);
+        ReplicationFollower standby = follower(leader.getPort());
+        ReplicationFollower reader = follower(leader.getPort(), standbyPort);
+        CountDownLatch lost = new CountDownLatch(1);
+        standby.onLeaderLost(lost::countDown);
+
+        addAlerts(100);
+        for (int i = 0; i < 30; i++) {
+            alerts.getNextAlert();
+        }
+        assertTrue(leader.awaitReplicated(leader.lastLsn(), 5_000));
+        assertTrue(standby.awaitApplied(leader.lastLsn(), 5_000));
+        long crashedAt = System.nanoTime();
+        leader.close();
+
+        assertTrue(lost.await(2, TimeUnit.SECONDS));
+        EmergencyPriorityQueue promotedAlerts = new EmergencyPriorityQueue(new IndexedAlertStore());
+        TaskPriorityQueue promotedTasks = new TaskPriorityQueue();
+        ResponseTeamQueue promotedTeams = new ResponseTeamQueue();
+        long lsn = standby.promote(promotedAlerts, promotedTasks, promotedTeams);
+        ReplicationLeader promoted = leader(promotedAlerts, promotedTasks, promotedTeams, standbyPort, lsn,
+            ReplicationLeader.DEFAULT_BACKLOG);
+        long failoverMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - crashedAt);
+        assertTrue(failoverMillis < 1_000, "failover took " + failoverMillis + " ms");
+
+        assertEquals(70, promotedAlerts.size());
+        assertEquals(lsn, standby.appliedLsn());
+        assertEquals(alerts.getNextAlert().getSeverity(), promotedAlerts.getNextAlert().getSeverity());
+        int id = promotedAlerts.getNextAlertId();
+        assertTrue(id > 100);
+        promotedAlerts.addAlert(new EmergencyAlert(id, "After failover", 9, "Zone 1"));
+
+        // The other follower moves to the promoted leader and keeps its prefix
+        assertTrue(reader.awaitApplied(promoted.lastLsn(), 5_000));
+        assertEquals(70, reader.getAlerts().size());
+        assertEquals(lsn + 2, reader.appliedLsn());
+        assertEquals("After failover", reader.getAlert(id).getDescription());
+    }
+
+    @Test
+    void testRankedStandbysElectOneLeader() throws Exception {
+        List<InetSocketAddress> nodes = List.of(local(freePort()), local(freePort()), local(freePort()));
+        ReplicationLeader leader = leader(nodes.get(0).getPort(), 0, ReplicationLeader.DEFAULT_BACKLOG);
+        ReplicationFollower first = standby(nodes, nodes.get(1));
+        ReplicationFollower second = standby(nodes, nodes.get(2));
+        CountDownLatch firstLost = new CountDownLatch(1);
+        CountDownLatch secondLost = new CountDownLatch(1);
+        first.onLeaderLost(firstLost::countDown);
+        second.onLeaderLost(secondLost::countDown);
+
+        addAlerts(50);
+        assertTrue(first.awaitApplied(leader.lastLsn(), 5_000));
+        assertTrue(second.awaitApplied(leader.lastLsn(), 5_000));
+        leader.close();
+
+        assertTrue(firstLost.await(2, TimeUnit.SECONDS));
+        EmergencyPriorityQueue promotedAlerts = new EmergencyPriorityQueue(new IndexedAlertStore());
+        TaskPriorityQueue promotedTasks = new TaskPriorityQueue();
+        ResponseTeamQueue promotedTeams = new ResponseTeamQueue();
+        long lsn = first.promote(promotedAlerts, promotedTasks, promotedTeams);
+        ReplicationLeader promoted = leader(promotedAlerts, promotedTasks, promotedTeams, nodes.get(1).getPort(), lsn,
+            ReplicationLeader.DEFAULT_BACKLOG);
+        int id = promotedAlerts.getNextAlertId();
+        promotedAlerts.addAlert(new EmergencyAlert(id, "After failover", 9, "Zone 1"));
+
+        // The second standby follows the new leader instead of promoting itself
+        assertTrue(second.awaitApplied(promoted.lastLsn(), 5_000));
+        assertEquals("After failover", second.getAlert(id).getDescription());
+        assertFalse(secondLost.await(4 * ReplicationFollower.FAILOVER_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(51, second.getAlerts().size());
+    }
+
+    @Test
+    void testUnsyncedFollowerNeverClaimsLeadership() throws Exception {
+        ReplicationFollower follower = follower(freePort());
+        CountDownLatch lost = new CountDownLatch(1);
+        follower.onLeaderLost(lost::countDown);
+
+        assertFalse(lost.await(3 * ReplicationFollower.FAILOVER_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(0, follower.appliedLsn());
+    }
+
+    @Test
+    void testTakeOverKeepsTaskAndTeamState() throws Exception {
+        ReplicationLeader leader = leader(0, 0, ReplicationLeader.DEFAULT_BACKLOG);
+        DispatchEngine dispatch = new DispatchEngine(tasks, teams);
+        leader.attach(dispatch);
+        ReplicationFollower follower = follower(leader.getPort());
+
+        teams.addTeam(new ResponseTeam(teams.getNextTeamId(), "Alpha Team", "Search and Rescue"));
+        teams.addTeam(new ResponseTeam(teams.getNextTeamId(), "Beta Team", "Medical Emergency", "Deployed", "Triage"));
+        tasks.addTask(new Task(tasks.getNextTaskId(), "Triage", 4, null, "In Progress", "Beta Team"));
+        tasks.addTask(new Task(tasks.getNextTaskId(), "Survey", 2, null, "Completed", "Beta Team"));
+        tasks.addTask(new Task(tasks.getNextTaskId(), "Evacuate", 9, null));
+        Task dispatched = dispatch.dispatchRound(1).get(0).getTask();
+        assertTrue(follower.awaitApplied(leader.lastLsn(), 5_000));
+
+        List<Task> replicaTasks = follower.getTasks();
+        assertEquals(2, replicaTasks.size());
+        assertTrue(replicaTasks.stream().anyMatch(t -> t.getStatus().equals("In Progress")));
+        assertTrue(replicaTasks.stream().anyMatch(t -> t.getStatus().equals("Completed")));
+        assertSameState(follower);
+
+        DurableQueues.RecoveredState replica = follower.takeOver();
+        assertEquals(dispatched.getName(), replica.held.get(dispatched.getTaskId()).getName());
+        DispatchEngine promoted = new DispatchEngine(new TaskPriorityQueue(), new ResponseTeamQueue());
+        promoted.restore(replica.held.values());
+        assertNotNull(promoted.heldTask(dispatched.getTaskId()));
+    }
+}
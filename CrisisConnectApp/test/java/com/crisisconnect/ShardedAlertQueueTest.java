@@ -0,0 +1,164 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedAlertQueueTest {
+    private final List<HeadlessServer> servers = new ArrayList<>();
+    private final List<EmergencyPriorityQueue> queues = new ArrayList<>();
+    private final List<Thread> loops = new ArrayList<>();
+    private final List<Process> processes = new ArrayList<>();
+
+    private List<InetSocketAddress> startNodes(int count) throws Exception {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EmergencyPriorityQueue alerts = new EmergencyPriorityQueue(new IndexedAlertStore());
+            TaskPriorityQueue tasks = new TaskPriorityQueue();
+            ResponseTeamQueue teams = new ResponseTeamQueue();
+            HeadlessServer server = new HeadlessServer(alerts, tasks, teams, new DispatchEngine(tasks, teams),
+                new InetSocketAddress("127.0.0.1", 0));
+            Thread loop = new Thread(server::serve);
+            loop.start();
+            servers.add(server);
+            queues.add(alerts);
+            loops.add(loop);
+            addresses.add(new InetSocketAddress("127.0.0.1", server.getPort()));
+        }
+        return addresses;
+    }
+
+    @AfterEach
+    void stopNodes() throws Exception {
+        for (HeadlessServer server : servers) {
+            server.close();
+        }
+        for (Thread loop : loops) {
+            loop.join(5_000);
+        }
+        for (Process process : processes) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static List<EmergencyAlert> alerts(int count, long seed) {
+        Random random = new Random(seed);
+        List<EmergencyAlert> alerts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            alerts.add(new EmergencyAlert(0, "Report " + i, 1 + random.nextInt(10), "Region " + random.nextInt(12)));
+        }
+        return alerts;
+    }
+
+    private static void assertSeverityOrder(List<EmergencyAlert> drained) {
+        for (int i = 1; i < drained.size(); i++) {
+            assertTrue(drained.get(i - 1).getSeverity() >= drained.get(i).getSeverity(),
+                "out of order at " + i);
+        }
+    }
+
+    @Test
+    void testRoutesByLocationAndDrainsInGlobalSeverityOrder() throws Exception {
+        ShardedAlertQueue cluster = new ShardedAlertQueue(startNodes(3));
+        List<EmergencyAlert> sent = alerts(300, 1);
+        int[] ids = cluster.addAll(sent);
+        assertEquals(300, cluster.size());
+
+        for (int i = 0; i < sent.size(); i++) {
+            int node = cluster.nodeFor(sent.get(i).getLocation());
+            assertEquals(node, Math.floorMod(ids[i], 3));
+            assertNotNull(queues.get(node).getAlert(ids[i] / 3));
+        }
+
+        List<EmergencyAlert> drained = new ArrayList<>();
+        EmergencyAlert first = cluster.getNextAlert();
+        assertEquals(10, first.getSeverity());
+        drained.add(first);
+        while (cluster.drainTo(drained, 37) > 0) {
+            // Drain in uneven pages
+        }
+        assertEquals(300, drained.size());
+        assertSeverityOrder(drained);
+        for (EmergencyAlert alert : drained) {
+            assertTrue(alert.getDescription().startsWith("Report "));
+        }
+        assertNull(cluster.getNextAlert());
+        for (EmergencyPriorityQueue queue : queues) {
+            assertTrue(queue.isEmpty());
+        }
+        cluster.close();
+    }
+
+    @Test
+    void testDownNodeIsSkippedAndItsAlertsRerouted() throws Exception {
+        ShardedAlertQueue cluster = new ShardedAlertQueue(startNodes(2));
+        EmergencyAlert alert = new EmergencyAlert(0, "Gas leak", 7, "Region 1");
+        int home = cluster.nodeFor(alert.getLocation());
+        cluster.addAlert(new EmergencyAlert(0, "Fire", 9, "Region 1"));
+        servers.get(home).close();
+        loops.get(home).join(5_000);
+
+        int id = cluster.addAlert(alert);
+        assertEquals(1 - home, Math.floorMod(id, 2));
+        assertEquals(1, cluster.liveNodes());
+        EmergencyAlert next = cluster.getNextAlert();
+        assertEquals("Gas leak", next.getDescription());
+        assertNull(cluster.getNextAlert());
+        cluster.close();
+    }
+
+    @Test
+    void testHungNodeTimesOutAsDown() throws Exception {
+        List<InetSocketAddress> addresses = startNodes(1);
+        // Accepts connections but never answers
+        try (ServerSocket hung = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            addresses.add(new InetSocketAddress("127.0.0.1", hung.getLocalPort()));
+            ShardedAlertQueue cluster = new ShardedAlertQueue(addresses, 200);
+            queues.get(0).addAlert(new EmergencyAlert(queues.get(0).getNextAlertId(), "Fire", 9, "Region 1"));
+
+            long start = System.nanoTime();
+            assertEquals(1, cluster.size());
+            assertTrue(System.nanoTime() - start < 2_000_000_000L);
+            assertEquals(1, cluster.liveNodes());
+            cluster.close();
+        }
+    }
+
+    @Test
+    void testNodesInSeparateJvms() throws Exception {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Process process = new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin"
+                + File.separator + "java", "-cp", System.getProperty("java.class.path"), CrisisConnectApp.class.getName(),
+                "--headless", "--port", "0").redirectErrorStream(true).start();
+            processes.add(process);
+            BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            String line = out.readLine();
+            while (line != null && !line.startsWith("CrisisConnect listening on ")) {
+                line = out.readLine();
+            }
+            assertNotNull(line);
+            addresses.add(new InetSocketAddress("127.0.0.1", Integer.parseInt(line.substring(line.lastIndexOf(':') + 1))));
+        }
+
+        ShardedAlertQueue cluster = new ShardedAlertQueue(addresses);
+        cluster.addAll(alerts(100, 2));
+        // Headless nodes merge near-duplicate reports
+        int queued = cluster.size();
+        List<EmergencyAlert> drained = new ArrayList<>();
+        assertEquals(queued, cluster.drainTo(drained, 1_000));
+        assertSeverityOrder(drained);
+        assertEquals(100, drained.stream().mapToInt(EmergencyAlert::getReportCount).sum());
+        cluster.close();
+    }
+}
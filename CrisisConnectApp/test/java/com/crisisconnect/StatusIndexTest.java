@@ -0,0 +1,54 @@
+package com.crisisconnect;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusIndexTest {
+    @Test
+    void testAlertsByStatusFollowTransitions() {
+        EmergencyPriorityQueue queue = new EmergencyPriorityQueue(new IndexedAlertStore());
+        for (int id = 1; id <= 4; id++) {
+            queue.addAlert(new EmergencyAlert(id, "Alert", id, "Location"));
+        }
+        assertEquals(4, queue.countByStatus(AlertStatus.PENDING));
+
+        queue.updateStatus(2, "Acknowledged");
+        queue.getAlert(3).setStatus(AlertStatus.DISPATCHED);
+        assertEquals(2, queue.countByStatus(AlertStatus.PENDING));
+        assertTrue(queue.getAlertsByStatus(AlertStatus.ACKNOWLEDGED).contains(queue.getAlert(2)));
+        assertEquals(1, queue.countByStatus(AlertStatus.DISPATCHED));
+
+        // Polled and cancelled alerts leave the index
+        queue.getNextAlert();
+        queue.cancel(1);
+        assertEquals(0, queue.countByStatus(AlertStatus.PENDING));
+        assertEquals(0, queue.countByStatus(AlertStatus.CANCELLED));
+        assertEquals(1, queue.countByStatus(AlertStatus.ACKNOWLEDGED));
+    }
+
+    @Test
+    void testAvailableTeams() {
+        ResponseTeamQueue teams = new ResponseTeamQueue();
+        ResponseTeam alpha = new ResponseTeam(teams.getNextTeamId(), "Alpha", "Search and Rescue");
+        ResponseTeam beta = new ResponseTeam(teams.getNextTeamId(), "Beta", "Medical Emergency");
+        teams.addTeam(alpha);
+        teams.addTeam(beta);
+
+        beta.setStatus(TeamStatus.DEPLOYED);
+        assertEquals(1, teams.countByStatus(TeamStatus.AVAILABLE));
+        assertSame(alpha, teams.getTeamsByStatus(TeamStatus.AVAILABLE).iterator().next());
+        assertEquals("Deployed", beta.getStatus());
+    }
+
+    @Test
+    void testIllegalTransitionRejected() {
+        Task task = new Task(1, "Evacuate", 8, LocalDateTime.now());
+        assertThrows(IllegalStateException.class, () -> task.setStatus(TaskStatus.IN_PROGRESS));
+        task.setStatus("Assigned");
+        task.setStatus(TaskStatus.COMPLETED);
+        assertThrows(IllegalStateException.class, () -> task.setStatus(TaskStatus.UNASSIGNED));
+        assertThrows(IllegalArgumentException.class, () -> task.setStatus("Lost"));
+        assertEquals(TaskStatus.COMPLETED, task.getTaskStatus());
+    }
+}
@@ -1,6 +1,9 @@
-package CrisisConnectApp.test.java.com.crisisconnect;
+package com.crisisconnect;
 
 import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 class TaskPriorityQueueTest {
@@ -12,4 +15,38 @@ class TaskPriorityQueueTest {
 
         assertEquals(task, queue.getNextTask());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBucketedStoreOrdersByPriorityThenArrival() {
+        TaskPriorityQueue queue = new TaskPriorityQueue(new SeverityBucketStore<>(Task::getPriority));
+        LocalDateTime deadline = LocalDateTime.now().plusDays(1);
+        Task first = new Task(1, "First", 3, deadline);
+        Task urgent = new Task(2, "Urgent", 10, deadline);
+        Task second = new Task(3, "Second", 3, deadline);
+        queue.addTask(first);
+        queue.addTask(urgent);
+        queue.addTask(second);
+
+        assertEquals(urgent, queue.getNextTask());
+        assertEquals(first, queue.getNextTask());
+        assertEquals(second, queue.getNextTask());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testBulkAddAndDrainUnderDeadlineScheduling() {
+        TaskPriorityQueue queue = new TaskPriorityQueue(new DeadlineScheduler(SchedulingPolicy.EARLIEST_DEADLINE_FIRST));
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Task(queue.getNextTaskId(), "Task " + i, 5, now.plusMinutes(100 - i)));
+        }
+        queue.addAll(batch);
+
+        List<Task> drained = new ArrayList<>();
+        assertEquals(10, queue.drainTo(drained, 10));
+        assertEquals("Task 99", drained.get(0).getName());
+        assertEquals("Task 90", drained.get(9).getName());
+        assertEquals(90, queue.size());
+    }
+}